@@ -22,7 +22,9 @@ package org.apache.brooklyn.cloudfoundry.entity;
 import org.apache.brooklyn.api.entity.Entity;
 import org.apache.brooklyn.api.entity.drivers.DriverDependentEntity;
 import org.apache.brooklyn.api.sensor.AttributeSensor;
+import org.apache.brooklyn.cloudfoundry.utils.CircuitBreaker;
 import org.apache.brooklyn.config.ConfigKey;
+import org.apache.brooklyn.core.config.ConfigKeys;
 import org.apache.brooklyn.core.entity.Attributes;
 import org.apache.brooklyn.core.entity.BrooklynConfigKeys;
 import org.apache.brooklyn.core.entity.lifecycle.Lifecycle;
@@ -36,9 +38,38 @@ public interface CloudFoundryEntity extends Entity, Startable, DriverDependentEn
     @SetFromFlag("startTimeout")
     ConfigKey<Duration> START_TIMEOUT = BrooklynConfigKeys.START_TIMEOUT;
 
+    @SetFromFlag("feedPeriod")
+    ConfigKey<Duration> FEED_PERIOD = ConfigKeys.newConfigKey(Duration.class,
+            "cloudFoundry.feeds.period", "Period of the feeds polling the entity; the location " +
+                    "may stretch it when it manages many entities", Duration.FIVE_SECONDS);
+
+    @SetFromFlag("feedJitter")
+    ConfigKey<Boolean> FEED_JITTER = ConfigKeys.newBooleanConfigKey(
+            "cloudFoundry.feeds.jitter", "Whether the first poll is delayed to a phase " +
+                    "assigned by the location, so that entities do not all poll at once", true);
+
+    @SetFromFlag("rebindReconnectSpread")
+    ConfigKey<Duration> REBIND_RECONNECT_SPREAD = ConfigKeys.newConfigKey(Duration.class,
+            "cloudFoundry.rebind.reconnectSpread", "After a rebind, feeds are reconnected after " +
+                    "a random delay up to this value, so that entities do not all call the " +
+                    "platform at once", Duration.THIRTY_SECONDS);
+
     AttributeSensor<Boolean> SERVICE_PROCESS_IS_RUNNING = Sensors.newBooleanSensor(
             "service.process.isRunning",
             "Whether the process for the service is confirmed as running");
 
     AttributeSensor<Lifecycle> SERVICE_STATE_ACTUAL = Attributes.SERVICE_STATE_ACTUAL;
+
+    AttributeSensor<Boolean> DRIFT_DETECTED = Sensors.newBooleanSensor(
+            "cloudfoundry.drift.detected",
+            "Whether the platform differs from what the entity expects, as of the last " +
+                    "reconciliation of the space");
+
+    AttributeSensor<String> DRIFT = Sensors.newStringSensor("cloudfoundry.drift",
+            "Differences between the platform and what the entity expects");
+
+    AttributeSensor<CircuitBreaker.State> CLOUD_CONTROLLER_CIRCUIT_STATE = Sensors.newSensor(
+            CircuitBreaker.State.class, "cloudfoundry.location.circuitBreaker.state",
+            "State of the circuit breaker protecting the Cloud Controller of the location; " +
+                    "is-running checks are paused while it is open");
 }
@@ -26,7 +26,11 @@ import org.apache.brooklyn.api.entity.Entity;
 import org.apache.brooklyn.api.entity.drivers.EntityDriverManager;
 import org.apache.brooklyn.api.location.Location;
 import org.apache.brooklyn.api.mgmt.Task;
+import org.apache.brooklyn.api.sensor.AttributeSensor;
 import org.apache.brooklyn.cloudfoundry.location.CloudFoundryPaasLocation;
+import org.apache.brooklyn.cloudfoundry.location.FeedScheduler;
+import org.apache.brooklyn.cloudfoundry.utils.CircuitBreaker;
+import org.apache.brooklyn.cloudfoundry.utils.CircuitBreakerOpenException;
 import org.apache.brooklyn.core.entity.AbstractEntity;
 import org.apache.brooklyn.core.entity.BrooklynConfigKeys;
 import org.apache.brooklyn.core.entity.Entities;
@@ -38,6 +42,7 @@ import org.apache.brooklyn.feed.function.FunctionPollConfig;
 import org.apache.brooklyn.util.collections.MutableList;
 import org.apache.brooklyn.util.collections.MutableMap;
 import org.apache.brooklyn.util.core.task.DynamicTasks;
+import org.apache.brooklyn.util.core.task.ScheduledTask;
 import org.apache.brooklyn.util.core.task.Tasks;
 import org.apache.brooklyn.util.exceptions.Exceptions;
 import org.apache.brooklyn.util.repeat.Repeater;
@@ -49,6 +54,7 @@ import javax.annotation.Nullable;
 import java.util.Collection;
 import java.util.Map;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 
 public abstract class CloudFoundryEntityImpl extends AbstractEntity implements CloudFoundryEntity {
@@ -58,7 +64,8 @@ public abstract class CloudFoundryEntityImpl extends AbstractEntity implements C
     private CloudFoundryPaasLocation cfLocation;
     private FunctionFeed serviceProcessUp;
 
-    protected boolean connectedSensors = false;
+    protected volatile boolean connectedSensors = false;
+    private volatile Duration feedPeriod;
     private FunctionFeed serviceProcessIsRunning;
     private EntityPaasDriver driver;
 
@@ -127,6 +134,72 @@ public abstract class CloudFoundryEntityImpl extends AbstractEntity implements C
         }
     }
 
+    @Override
+    public void rebind() {
+        super.rebind();
+        Lifecycle expectedState = ServiceStateLogic.getExpectedState(this);
+        if (expectedState != Lifecycle.STARTING && expectedState != Lifecycle.RUNNING) {
+            log.debug("Not reconnecting {} on rebind, its expected state is {}",
+                    this, expectedState);
+            return;
+        }
+        Optional<CloudFoundryPaasLocation> optional = tryLocation();
+        if (!optional.isPresent()) {
+            log.warn("No CloudFoundry location found for {} on rebind, its sensors will not " +
+                    "be reconnected", this);
+            return;
+        }
+        cfLocation = optional.get();
+        initDriver(cfLocation);
+        driver.rebind();
+        scheduleSensorsReconnection();
+    }
+
+    /**
+     * Reconnects the feeds after a random delay bounded by {@link #REBIND_RECONNECT_SPREAD},
+     * rather than straight away, so that a management node rebinding many entities does not
+     * send all their first polls at the same time.
+     */
+    protected void scheduleSensorsReconnection() {
+        Duration spread = getConfig(REBIND_RECONNECT_SPREAD);
+        long delayMillis = (spread != null && spread.toMilliseconds() > 0)
+                ? ThreadLocalRandom.current().nextLong(spread.toMilliseconds())
+                : 0;
+        FeedScheduler.Slot slot = allocateFeedSlot();
+        if (slot != null) {
+            delayMillis += slot.getPhaseMillis();
+        }
+        log.debug("Reconnecting sensors of {} in {} ms", this, delayMillis);
+        scheduleSensorsConnection(delayMillis, "reconnect sensors");
+    }
+
+    /**
+     * Connects the sensors from a task run once after the given delay, unless they were
+     * connected or the entity stopped in the meantime.
+     */
+    private void scheduleSensorsConnection(long delayMillis, final String name) {
+        getExecutionContext().submit(new ScheduledTask(
+                MutableMap.of("delay", Duration.millis(delayMillis), "maxIterations", 1,
+                        "displayName", name + " of " + this),
+                new Callable<Task<?>>() {
+                    public Task<?> call() {
+                        return Tasks.builder().displayName(name)
+                                .body(new Runnable() {
+                                    public void run() {
+                                        Lifecycle expected =
+                                                ServiceStateLogic.getExpectedState(
+                                                        CloudFoundryEntityImpl.this);
+                                        if (!connectedSensors
+                                                && (expected == Lifecycle.STARTING
+                                                || expected == Lifecycle.RUNNING)) {
+                                            connectSensors();
+                                        }
+                                    }
+                                }).build();
+                    }
+                }));
+    }
+
     protected void preStart(Location location) {
         this.addLocations(MutableList.of(location));
         Optional<CloudFoundryPaasLocation> optional = tryLocation();
@@ -168,14 +241,52 @@ public abstract class CloudFoundryEntityImpl extends AbstractEntity implements C
 
     protected void postDriverStart() {
         waitForEntityStart();
-        connectSensors();
+        connectSensorsAtFeedPhase();
         Entities.waitForServiceUp(this, Duration.of(
                 getConfig(BrooklynConfigKeys.START_TIMEOUT).toMilliseconds(),
                 TimeUnit.MILLISECONDS));
     }
 
+    /**
+     * Connects the feeds at the phase the location assigned to this entity, which is never
+     * later than one feed period. Until then the entity is reported up from the is-running
+     * check the start has just passed, so that the start does not wait for the phase.
+     */
+    protected void connectSensorsAtFeedPhase() {
+        FeedScheduler.Slot slot = allocateFeedSlot();
+        if (slot == null || slot.getPhaseMillis() <= 0) {
+            connectSensors();
+            return;
+        }
+        log.debug("Connecting sensors of {} with {}", this, slot);
+        sensors().set(SERVICE_PROCESS_IS_RUNNING, true);
+        sensors().set(SERVICE_UP, true);
+        scheduleSensorsConnection(slot.getPhaseMillis(), "connect sensors");
+    }
+
+    private FeedScheduler.Slot allocateFeedSlot() {
+        Duration period = getConfig(FEED_PERIOD);
+        FeedScheduler.Slot slot = (cfLocation != null)
+                ? cfLocation.scheduleFeeds(getId(), period.toMilliseconds(),
+                Boolean.TRUE.equals(getConfig(FEED_JITTER)))
+                : null;
+        feedPeriod = (slot != null) ? Duration.millis(slot.getPeriodMillis()) : period;
+        return slot;
+    }
+
+    /**
+     * @return the period that feeds of this entity should use
+     */
+    protected Duration getFeedPeriod() {
+        Duration period = feedPeriod;
+        return (period != null) ? period : getConfig(FEED_PERIOD);
+    }
+
     protected void connectSensors() {
         connectedSensors = true;
+        if (cfLocation != null) {
+            cfLocation.registerManagedEntity(getProxyIfAvailable());
+        }
         connectServiceIsRunning();
         connectServiceUp();
     }
@@ -183,12 +294,20 @@ public abstract class CloudFoundryEntityImpl extends AbstractEntity implements C
     protected void connectServiceIsRunning() {
         serviceProcessIsRunning = FunctionFeed.builder()
                 .entity(this)
-                .period(Duration.FIVE_SECONDS)
+                .uniqueTag("cloudfoundry-service-process-is-running")
+                .period(getFeedPeriod())
                 .poll(new FunctionPollConfig<Boolean, Boolean>(SERVICE_PROCESS_IS_RUNNING)
                         .onException(Functions.constant(Boolean.FALSE))
                         .callable(new Callable<Boolean>() {
                             public Boolean call() {
-                                return driver.isRunning();
+                                return pollIsRunning(SERVICE_PROCESS_IS_RUNNING);
+                            }
+                        }))
+                .poll(new FunctionPollConfig<CircuitBreaker.State, CircuitBreaker.State>(
+                        CLOUD_CONTROLLER_CIRCUIT_STATE)
+                        .callable(new Callable<CircuitBreaker.State>() {
+                            public CircuitBreaker.State call() {
+                                return cfLocation.getCircuitBreakerState();
                             }
                         }))
                 .build();
@@ -197,17 +316,37 @@ public abstract class CloudFoundryEntityImpl extends AbstractEntity implements C
     protected void connectServiceUp() {
         serviceProcessUp = FunctionFeed.builder()
                 .entity(this)
-                .period(Duration.FIVE_SECONDS)
+                .uniqueTag("cloudfoundry-service-up")
+                .period(getFeedPeriod())
                 .poll(new FunctionPollConfig<Boolean, Boolean>(SERVICE_UP)
                         .onException(Functions.constant(Boolean.FALSE))
                         .callable(new Callable<Boolean>() {
                             public Boolean call() {
-                                return driver.isRunning();
+                                return pollIsRunning(SERVICE_UP);
                             }
                         }))
                 .build();
     }
 
+    /**
+     * Checks whether the entity is running, unless the Cloud Controller circuit breaker of the
+     * location is open: the last known value is kept then, instead of piling up calls that
+     * would fail or time out one by one.
+     */
+    protected Boolean pollIsRunning(AttributeSensor<Boolean> sensor) {
+        if (cfLocation != null && cfLocation.isCircuitOpen()) {
+            return Boolean.TRUE.equals(getAttribute(sensor));
+        }
+        try {
+            return driver.isRunning();
+        } catch (RuntimeException e) {
+            if (Exceptions.getFirstThrowableOfType(e, CircuitBreakerOpenException.class) != null) {
+                return Boolean.TRUE.equals(getAttribute(sensor));
+            }
+            throw e;
+        }
+    }
+
     @Override
     public void stop() {
         if (DynamicTasks.getTaskQueuingContext() != null) {
@@ -259,6 +398,10 @@ public abstract class CloudFoundryEntityImpl extends AbstractEntity implements C
 
     protected void disconnectSensors() {
         connectedSensors = false;
+        if (cfLocation != null) {
+            cfLocation.unscheduleFeeds(getId());
+            cfLocation.unregisterManagedEntity(getProxyIfAvailable());
+        }
         disconnectServiceIsRunning();
         disconnectServiceUp();
     }
@@ -301,13 +444,20 @@ public abstract class CloudFoundryEntityImpl extends AbstractEntity implements C
         isRunningResult = Repeater.create("Wait until the application is running")
                 .until(new Callable<Boolean>() {
                     public Boolean call() {
-                        return driver.isRunning();
+                        return (getStartFailure() != null) || driver.isRunning();
                     }
                 })
                 .every(Duration.ONE_SECOND)
                 .limitTimeTo(startTimeout)
                 .run();
 
+        String startFailure = getStartFailure();
+        if (startFailure != null) {
+            log.warn(startFailure + " (throwing)");
+            ServiceStateLogic.setExpectedState(this, Lifecycle.ON_FIRE);
+            throw new IllegalStateException(startFailure);
+        }
+
         if (!isRunningResult) {
             String msg = "Software process entity " + this + " did not pass is-running " +
                     "check within the required " + startTimeout;
@@ -317,6 +467,14 @@ public abstract class CloudFoundryEntityImpl extends AbstractEntity implements C
         }
     }
 
+    /**
+     * @return why the entity could not start, if the driver already knows it will never pass
+     * the is-running check, or null otherwise
+     */
+    protected String getStartFailure() {
+        return null;
+    }
+
     private void initDriver(CloudFoundryPaasLocation location) {
         EntityPaasDriver newDriver = doInitDriver(location);
         if (newDriver == null) {
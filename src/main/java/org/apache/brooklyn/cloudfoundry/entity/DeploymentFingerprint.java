@@ -0,0 +1,153 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.brooklyn.cloudfoundry.entity;
+
+import com.google.common.base.Joiner;
+import com.google.common.base.Splitter;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import org.apache.brooklyn.util.collections.MutableMap;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+/**
+ * What an application was deployed from, summarised as one hash per part that can change
+ * independently: the code that is staged, the environment, the bound services, the sizing, the
+ * route created on push and the other routes. Comparing two fingerprints tells whether a start has nothing to do, can patch the
+ * running application in place, or has to push it again.
+ */
+public class DeploymentFingerprint {
+
+    public enum Part {
+        CODE,
+        ENV,
+        SERVICES,
+        SIZING,
+        HOST,
+        ROUTES
+    }
+
+    /**
+     * Environment variable recording the fingerprint on the application itself, so that it
+     * survives the entity: the platform has no other metadata on applications in the v2 API.
+     */
+    public static final String ENV_VARIABLE = "BROOKLYN_DEPLOYMENT_FINGERPRINT";
+
+    private static final Joiner.MapJoiner JOINER = Joiner.on(';').withKeyValueSeparator("=");
+    private static final Splitter.MapSplitter SPLITTER =
+            Splitter.on(';').omitEmptyStrings().withKeyValueSeparator("=");
+
+    private final Map<Part, String> hashes;
+
+    private DeploymentFingerprint(Map<Part, String> hashes) {
+        this.hashes = hashes;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * @return the fingerprint written by {@link #toString()}, or null if the value is not one
+     */
+    public static DeploymentFingerprint parse(String value) {
+        if (value == null) {
+            return null;
+        }
+        Map<Part, String> hashes = MutableMap.of();
+        try {
+            for (Map.Entry<String, String> entry : SPLITTER.split(value).entrySet()) {
+                hashes.put(Part.valueOf(entry.getKey()), entry.getValue());
+            }
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        return (hashes.size() == Part.values().length) ? new DeploymentFingerprint(hashes) : null;
+    }
+
+    public String getHash(Part part) {
+        return hashes.get(part);
+    }
+
+    public boolean isChanged(DeploymentFingerprint previous, Part part) {
+        return previous == null || !Objects.equals(getHash(part), previous.getHash(part));
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof DeploymentFingerprint
+                && hashes.equals(((DeploymentFingerprint) o).hashes);
+    }
+
+    @Override
+    public int hashCode() {
+        return hashes.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return JOINER.join(hashes);
+    }
+
+    public static class Builder {
+
+        private final Map<Part, Hasher> hashers = MutableMap.of();
+
+        private Builder() {
+            for (Part part : Part.values()) {
+                hashers.put(part, Hashing.sha256().newHasher());
+            }
+        }
+
+        /**
+         * Adds a value to a part; null values count, so that setting a value that was not set
+         * changes the fingerprint.
+         */
+        public Builder put(Part part, String name, Object value) {
+            hashers.get(part)
+                    .putString(name, StandardCharsets.UTF_8).putByte((byte) 0)
+                    .putString(String.valueOf(value), StandardCharsets.UTF_8).putByte((byte) 0);
+            return this;
+        }
+
+        /**
+         * Adds every entry of the map to a part, whatever the iteration order of the map.
+         */
+        public Builder putAll(Part part, String name, Map<String, ?> values) {
+            Map<String, ?> sorted = (values != null) ? new TreeMap<String, Object>(values)
+                    : MutableMap.<String, Object>of();
+            for (Map.Entry<String, ?> entry : sorted.entrySet()) {
+                put(part, name + "." + entry.getKey(), entry.getValue());
+            }
+            return this;
+        }
+
+        public DeploymentFingerprint build() {
+            Map<Part, String> hashes = MutableMap.of();
+            for (Part part : Part.values()) {
+                // the first 16 hex digits are enough to tell deployments apart
+                hashes.put(part, hashers.get(part).hash().toString().substring(0, 16));
+            }
+            return new DeploymentFingerprint(hashes);
+        }
+    }
+}
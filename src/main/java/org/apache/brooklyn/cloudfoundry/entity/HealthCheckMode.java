@@ -0,0 +1,36 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.brooklyn.cloudfoundry.entity;
+
+/**
+ * How {@link VanillaCloudFoundryApplication} decides whether the application is running.
+ */
+public enum HealthCheckMode {
+
+    /**
+     * Send an HTTP request to the health path of the application and check the returned status.
+     */
+    HTTP,
+
+    /**
+     * Ask the platform how many instances are running compared with the desired number, without
+     * sending any request to the application itself.
+     */
+    INSTANCES
+}
@@ -0,0 +1,228 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.brooklyn.cloudfoundry.entity;
+
+import org.apache.brooklyn.cloudfoundry.entity.logs.LogRingBuffer;
+import org.cloudfoundry.doppler.LogMessage;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Staging and start of an application, tracked without blocking the thread that requested it.
+ * <p>
+ * The job subscribes to the application logs before triggering the start, so the staging output
+ * ({@value #STAGING_SOURCE_TYPE} lines) is kept from the beginning. The first line written by a
+ * cell or an application instance moves the job from {@link StagingState#STAGING} to
+ * {@link StagingState#STARTING}; the completion of the start operation moves it to
+ * {@link StagingState#RUNNING}, or to {@link StagingState#FAILED} if it signals an error.
+ * <p>
+ * The listener is given the staging log on every state change, and in between at most once
+ * every {@value #STAGING_LOG_PUBLISH_MILLIS} milliseconds rather than on every line.
+ */
+public class StagingJob {
+
+    private static final Logger log = LoggerFactory.getLogger(StagingJob.class);
+
+    public static final String STAGING_SOURCE_TYPE = "STG";
+
+    private static final String CELL_SOURCE_TYPE = "CELL";
+    private static final String APPLICATION_SOURCE_TYPE = "APP";
+    private static final long STAGING_LOG_PUBLISH_MILLIS = 1000;
+
+    public interface Listener {
+
+        void onStateChanged(StagingState state);
+
+        void onStagingLog(List<String> lines);
+    }
+
+    private final String applicationName;
+    private final LogRingBuffer stagingLog;
+    private final Listener listener;
+
+    private volatile StagingState state = StagingState.UPLOADING;
+    private volatile Throwable failure;
+    private volatile Subscription logSubscription;
+    private volatile Subscription startSubscription;
+    private volatile boolean cancelled;
+    private boolean stagingLogChanged;
+    private long stagingLogPublished;
+
+    public StagingJob(String applicationName, int maxLogLines, int maxLineLength,
+                      Listener listener) {
+        this.applicationName = checkNotNull(applicationName, "applicationName");
+        this.stagingLog = new LogRingBuffer(maxLogLines, maxLineLength);
+        this.listener = checkNotNull(listener, "listener");
+    }
+
+    /**
+     * Subscribes to {@code logs}, if available, and then to {@code startOperation}. Returns as
+     * soon as both subscriptions are requested.
+     */
+    public void start(Publisher<Void> startOperation, Publisher<LogMessage> logs) {
+        checkNotNull(startOperation, "startOperation");
+        setState(StagingState.STAGING);
+        if (logs != null) {
+            try {
+                logs.subscribe(new StagingLogSubscriber());
+            } catch (Exception e) {
+                log.warn("Staging log of application {} is not available: {}",
+                        applicationName, e.toString());
+            }
+        }
+        startOperation.subscribe(new StartSubscriber());
+    }
+
+    public StagingState getState() {
+        return state;
+    }
+
+    public Throwable getFailure() {
+        return failure;
+    }
+
+    public List<String> getStagingLog() {
+        return stagingLog.tail(stagingLog.capacity());
+    }
+
+    /**
+     * Stops following the staging log and cancels the start operation, if still running.
+     */
+    public void cancel() {
+        cancelled = true;
+        cancelLogs();
+        Subscription subscription = startSubscription;
+        if (subscription != null) {
+            subscription.cancel();
+        }
+    }
+
+    private void cancelLogs() {
+        Subscription subscription = logSubscription;
+        if (subscription != null) {
+            subscription.cancel();
+        }
+    }
+
+    private synchronized void setState(StagingState newState) {
+        if (state.isTerminal() || state == newState) {
+            return;
+        }
+        log.debug("Application {} staging state {} -> {}", new Object[]{applicationName, state, newState});
+        state = newState;
+        publishStagingLog(true);
+        listener.onStateChanged(newState);
+        if (newState.isTerminal()) {
+            cancelLogs();
+        }
+    }
+
+    private synchronized void addStagingLine(long timestamp, String line) {
+        stagingLog.add(timestamp, line);
+        stagingLogChanged = true;
+        publishStagingLog(false);
+    }
+
+    private synchronized void publishStagingLog(boolean force) {
+        long now = System.currentTimeMillis();
+        if (stagingLogChanged
+                && (force || now - stagingLogPublished >= STAGING_LOG_PUBLISH_MILLIS)) {
+            stagingLogChanged = false;
+            stagingLogPublished = now;
+            listener.onStagingLog(getStagingLog());
+        }
+    }
+
+    protected void onLogMessage(LogMessage message) {
+        String sourceType = message.getSourceType();
+        if (STAGING_SOURCE_TYPE.equals(sourceType)) {
+            addStagingLine(message.getTimestamp() != null ? message.getTimestamp() : 0L,
+                    message.getMessage());
+        } else if (sourceType != null && (sourceType.startsWith(CELL_SOURCE_TYPE)
+                || sourceType.startsWith(APPLICATION_SOURCE_TYPE))) {
+            if (state == StagingState.STAGING) {
+                setState(StagingState.STARTING);
+            }
+        }
+    }
+
+    private class StagingLogSubscriber implements Subscriber<LogMessage> {
+
+        @Override
+        public void onSubscribe(Subscription subscription) {
+            logSubscription = subscription;
+            if (cancelled || state.isTerminal()) {
+                subscription.cancel();
+            } else {
+                subscription.request(Long.MAX_VALUE);
+            }
+        }
+
+        @Override
+        public void onNext(LogMessage message) {
+            onLogMessage(message);
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            log.debug("Staging log of application {} failed: {}", applicationName, t.toString());
+        }
+
+        @Override
+        public void onComplete() {
+        }
+    }
+
+    private class StartSubscriber implements Subscriber<Void> {
+
+        @Override
+        public void onSubscribe(Subscription subscription) {
+            startSubscription = subscription;
+            if (cancelled) {
+                subscription.cancel();
+            } else {
+                subscription.request(Long.MAX_VALUE);
+            }
+        }
+
+        @Override
+        public void onNext(Void value) {
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            log.error("Error starting application {}, error was {}", applicationName, t);
+            failure = t;
+            setState(StagingState.FAILED);
+        }
+
+        @Override
+        public void onComplete() {
+            log.info("Application {} was started correctly", applicationName);
+            setState(StagingState.RUNNING);
+        }
+    }
+}
@@ -22,6 +22,8 @@ import com.google.common.reflect.TypeToken;
 import org.apache.brooklyn.api.catalog.Catalog;
 import org.apache.brooklyn.api.entity.ImplementedBy;
 import org.apache.brooklyn.api.sensor.AttributeSensor;
+import org.apache.brooklyn.cloudfoundry.location.domain.credentials.ServiceEndpoint;
+import org.apache.brooklyn.cloudfoundry.utils.ArtifactFetchMode;
 import org.apache.brooklyn.config.ConfigKey;
 import org.apache.brooklyn.core.annotation.Effector;
 import org.apache.brooklyn.core.annotation.EffectorParam;
@@ -31,6 +33,7 @@ import org.apache.brooklyn.core.sensor.Sensors;
 import org.apache.brooklyn.util.collections.MutableList;
 import org.apache.brooklyn.util.collections.MutableMap;
 import org.apache.brooklyn.util.core.flags.SetFromFlag;
+import org.apache.brooklyn.util.time.Duration;
 
 import java.util.List;
 import java.util.Map;
@@ -48,10 +51,49 @@ public interface VanillaCloudFoundryApplication extends CloudFoundryEntity {
     ConfigKey<String> ARTIFACT_PATH = ConfigKeys.newStringConfigKey(
             "cloudFoundry.application.artifact", "URI of the application");
 
+    @SetFromFlag("artifactMirrors")
+    ConfigKey<List<String>> ARTIFACT_MIRRORS = ConfigKeys.newConfigKey(
+            new TypeToken<List<String>>() {
+            }, "cloudFoundry.application.artifact.mirrors", "Other URIs the artifact can be " +
+                    "downloaded from", MutableList.<String>of());
+
+    @SetFromFlag("artifactFetchMode")
+    ConfigKey<ArtifactFetchMode> ARTIFACT_FETCH_MODE = ConfigKeys.newConfigKey(
+            ArtifactFetchMode.class, "cloudFoundry.application.artifact.fetchMode", "How the " +
+                    "artifact is downloaded when it has mirrors: SEQUENTIAL tries them in turn, " +
+                    "FASTEST downloads from the fastest to answer, RANGES downloads parts of it " +
+                    "from several of them at once", ArtifactFetchMode.SEQUENTIAL);
+
+    @SetFromFlag("artifactMirrorTimeout")
+    ConfigKey<Duration> ARTIFACT_MIRROR_TIMEOUT = ConfigKeys.newConfigKey(Duration.class,
+            "cloudFoundry.application.artifact.mirrorTimeout", "How long a mirror of the " +
+                    "artifact can take to answer before it is left out", Duration.TEN_SECONDS);
+
     @SetFromFlag("buildpack")
     ConfigKey<String> BUILDPACK = ConfigKeys.newStringConfigKey(
             "cloudFoundry.application.buildpack", "Buildpack to deploy an application");
 
+    @SetFromFlag("stack")
+    ConfigKey<String> STACK = ConfigKeys.newStringConfigKey(
+            "cloudFoundry.application.stack", "Stack the application is staged on, the " +
+                    "default stack of the platform if not set");
+
+    @SetFromFlag("dockerImage")
+    ConfigKey<String> DOCKER_IMAGE = ConfigKeys.newStringConfigKey(
+            "cloudFoundry.application.dockerImage", "Docker image run by the application, " +
+                    "instead of an artifact staged with a buildpack");
+
+    @SetFromFlag("dockerRegistryTimeout")
+    ConfigKey<Duration> DOCKER_REGISTRY_TIMEOUT = ConfigKeys.newConfigKey(Duration.class,
+            "cloudFoundry.application.dockerImage.registryTimeout", "Timeout of the request " +
+                    "reading the digest of the image from its registry", Duration.TEN_SECONDS);
+
+    @SetFromFlag("skipUnchanged")
+    ConfigKey<Boolean> SKIP_UNCHANGED = ConfigKeys.newBooleanConfigKey(
+            "cloudFoundry.application.skipUnchanged", "Whether start leaves an application " +
+                    "already deployed from the same code alone, only patching its environment, " +
+                    "services, sizing and routes if they changed", true);
+
     @SetFromFlag("env")
     @SuppressWarnings({"unchecked", "rawtypes"})
     BasicAttributeSensorAndConfigKey<Map<String, String>> ENV =
@@ -67,6 +109,17 @@ public interface VanillaCloudFoundryApplication extends CloudFoundryEntity {
             "cloudFoundry.application.host", "Host or sub-domain for the application, if " +
                     "this value is empty the application name will be used like the host");
 
+    @SetFromFlag("routes")
+    ConfigKey<List<String>> ROUTES = ConfigKeys.newConfigKey(new TypeToken<List<String>>() {
+            }, "cloudFoundry.application.routes", "Routes mapped to the application besides " +
+                    "the one made of its host and domain, each written as host.domain[/path]; " +
+                    "internal domains can be used too", MutableList.<String>of());
+
+    @SetFromFlag("routeMaxConcurrency")
+    ConfigKey<Integer> ROUTE_MAX_CONCURRENCY = ConfigKeys.newIntegerConfigKey(
+            "cloudFoundry.application.routes.maxConcurrency",
+            "Maximum number of routes mapped or unmapped at the same time", 10);
+
     @SetFromFlag("services")
     ConfigKey<List<Object>> SERVICES = ConfigKeys.newConfigKey(new TypeToken<List<Object>>() {
                                                                },
@@ -84,9 +137,81 @@ public interface VanillaCloudFoundryApplication extends CloudFoundryEntity {
     ConfigKey<Integer> REQUIRED_DISK = ConfigKeys.newIntegerConfigKey(
             "cloudfoundry.profile.disk", "Disk size allocated for the application (MB)", 1024);
 
+    @SetFromFlag("logStreaming")
+    ConfigKey<Boolean> LOG_STREAMING_ENABLED = ConfigKeys.newBooleanConfigKey(
+            "cloudFoundry.application.logs.enabled", "Whether the application log stream should " +
+                    "be followed to keep recent lines and to derive error and request rates",
+            false);
+
+    @SetFromFlag("logBufferLines")
+    ConfigKey<Integer> LOG_BUFFER_LINES = ConfigKeys.newIntegerConfigKey(
+            "cloudFoundry.application.logs.buffer.lines", "Number of recent log lines kept in " +
+                    "memory for the application", 1000);
+
+    @SetFromFlag("logMaxLineLength")
+    ConfigKey<Integer> LOG_MAX_LINE_LENGTH = ConfigKeys.newIntegerConfigKey(
+            "cloudFoundry.application.logs.line.maxLength", "Log lines longer than this are " +
+                    "truncated before being kept in memory", 2048);
+
+    @SetFromFlag("latencyWindow")
+    ConfigKey<Duration> REQUEST_LATENCY_WINDOW = ConfigKeys.newConfigKey(Duration.class,
+            "cloudFoundry.application.requests.latency.window", "Time window over which request " +
+                    "latency percentiles are computed from the router access logs",
+            Duration.ONE_MINUTE);
+
+    @SetFromFlag("healthCheckMode")
+    ConfigKey<HealthCheckMode> HEALTH_CHECK_MODE = ConfigKeys.newConfigKey(HealthCheckMode.class,
+            "cloudFoundry.application.healthCheck.mode", "How the application is checked: HTTP " +
+                    "requests the health path, INSTANCES compares the running instances with the " +
+                    "desired ones", HealthCheckMode.HTTP);
+
+    @SetFromFlag("healthCheckPath")
+    ConfigKey<String> HEALTH_CHECK_PATH = ConfigKeys.newStringConfigKey(
+            "cloudFoundry.application.healthCheck.path", "Path, relative to the application URL, " +
+                    "requested by the HTTP health check; the application URL itself if empty");
+
+    @SetFromFlag("healthCheckMethod")
+    ConfigKey<String> HEALTH_CHECK_METHOD = ConfigKeys.newStringConfigKey(
+            "cloudFoundry.application.healthCheck.method", "HTTP method used by the health " +
+                    "check, GET or HEAD", "GET");
+
+    @SetFromFlag("healthCheckExpectedStatus")
+    ConfigKey<List<Integer>> HEALTH_CHECK_EXPECTED_STATUS = ConfigKeys.newConfigKey(
+            new TypeToken<List<Integer>>() {
+            },
+            "cloudFoundry.application.healthCheck.expectedStatus", "HTTP status codes " +
+                    "considered healthy", MutableList.of(200));
+
+    @SetFromFlag("healthCheckTimeout")
+    ConfigKey<Duration> HEALTH_CHECK_TIMEOUT = ConfigKeys.newConfigKey(Duration.class,
+            "cloudFoundry.application.healthCheck.timeout", "Connection and read timeout of the " +
+                    "HTTP health check", Duration.TEN_SECONDS);
+
+    @SetFromFlag("healthCheckHttpEvery")
+    ConfigKey<Integer> HEALTH_CHECK_HTTP_EVERY = ConfigKeys.newIntegerConfigKey(
+            "cloudFoundry.application.healthCheck.httpEvery", "In INSTANCES mode, also send an " +
+                    "HTTP health check every this many checks; 0 never touches the application", 0);
+
+    @SetFromFlag("stagingLogLines")
+    ConfigKey<Integer> STAGING_LOG_LINES = ConfigKeys.newIntegerConfigKey(
+            "cloudFoundry.application.staging.log.lines", "Number of staging log lines " +
+                    "published in the staging log sensor", 200);
+
     AttributeSensor<String> ROOT_URL =
             Sensors.newStringSensor("webapp.url", "URL of the application");
 
+    AttributeSensor<String> DEPLOYMENT_FINGERPRINT = Sensors.newStringSensor(
+            "cloudfoundry.application.fingerprint",
+            "Hashes of the code, environment, services, sizing and routes last deployed");
+
+    AttributeSensor<String> DOCKER_IMAGE_DIGEST = Sensors.newStringSensor(
+            "cloudfoundry.application.dockerImage.digest",
+            "Digest of the docker image last pushed for the application");
+
+    AttributeSensor<List<String>> APPLICATION_URLS = Sensors.newSensor(
+            new TypeToken<List<String>>() {
+            }, "cloudfoundry.application.urls", "URLs of every route mapped to the application");
+
     AttributeSensor<Integer> INSTANCES =
             Sensors.newIntegerSensor("cloudfoundry.application.instances",
                     "Instances which are used to run the application");
@@ -98,6 +223,62 @@ public interface VanillaCloudFoundryApplication extends CloudFoundryEntity {
     AttributeSensor<Integer> ALLOCATED_DISK =
             Sensors.newIntegerSensor("cloudfoundry.application.disk", "Application allocated disk (MB)");
 
+    AttributeSensor<Boolean> LOG_STREAM_CONNECTED =
+            Sensors.newBooleanSensor("cloudfoundry.application.logs.connected",
+                    "Whether the application log stream is followed; it is reconnected when not");
+
+    AttributeSensor<Double> LOG_ERROR_RATE =
+            Sensors.newDoubleSensor("cloudfoundry.application.logs.errorsPerSecond",
+                    "Lines per second written by the application to its error stream");
+
+    AttributeSensor<Double> LOG_REQUEST_RATE =
+            Sensors.newDoubleSensor("cloudfoundry.application.logs.requestsPerSecond",
+                    "Requests per second routed to the application, as seen in the router logs");
+
+    AttributeSensor<Long> ARTIFACT_WORKSPACE_SIZE = Sensors.newLongSensor(
+            "cloudfoundry.artifactWorkspace.size",
+            "Size in bytes of the artifacts in the workspace of the management server");
+
+    AttributeSensor<Long> ARTIFACT_WORKSPACE_EVICTIONS = Sensors.newLongSensor(
+            "cloudfoundry.artifactWorkspace.evictions",
+            "Number of artifacts evicted from the workspace of the management server");
+
+    AttributeSensor<Long> REQUESTS_2XX = Sensors.newLongSensor(
+            "cloudfoundry.application.requests.2xx", "Number of 2xx responses seen by the router");
+
+    AttributeSensor<Long> REQUESTS_3XX = Sensors.newLongSensor(
+            "cloudfoundry.application.requests.3xx", "Number of 3xx responses seen by the router");
+
+    AttributeSensor<Long> REQUESTS_4XX = Sensors.newLongSensor(
+            "cloudfoundry.application.requests.4xx", "Number of 4xx responses seen by the router");
+
+    AttributeSensor<Long> REQUESTS_5XX = Sensors.newLongSensor(
+            "cloudfoundry.application.requests.5xx", "Number of 5xx responses seen by the router");
+
+    AttributeSensor<Double> REQUEST_LATENCY_P50 = Sensors.newDoubleSensor(
+            "cloudfoundry.application.requests.latency.p50",
+            "Median response time (ms) over the latency window");
+
+    AttributeSensor<Double> REQUEST_LATENCY_P95 = Sensors.newDoubleSensor(
+            "cloudfoundry.application.requests.latency.p95",
+            "95th percentile response time (ms) over the latency window");
+
+    AttributeSensor<Double> REQUEST_LATENCY_P99 = Sensors.newDoubleSensor(
+            "cloudfoundry.application.requests.latency.p99",
+            "99th percentile response time (ms) over the latency window");
+
+    AttributeSensor<StagingState> STAGING_STATE = Sensors.newSensor(StagingState.class,
+            "cloudfoundry.application.staging.state",
+            "Progress of the upload, staging and start of the application");
+
+    AttributeSensor<String> STAGING_LOG = Sensors.newStringSensor(
+            "cloudfoundry.application.staging.log", "Most recent lines of the staging log");
+
+    AttributeSensor<Map<String, ServiceEndpoint>> SERVICE_ENDPOINTS = Sensors.newSensor(
+            new TypeToken<Map<String, ServiceEndpoint>>() {
+            }, "cloudfoundry.application.services.endpoints",
+            "Endpoints of the services bound to the application, by service instance name");
+
     @Effector(description = "Set an environment variable that can be retrieved by the web application")
     public void setEnv(@EffectorParam(name = "name", description = "Name of the variable") String name,
                        @EffectorParam(name = "value", description = "Value of the environment variable") String value);
@@ -112,4 +293,16 @@ public interface VanillaCloudFoundryApplication extends CloudFoundryEntity {
 
     @Effector(description = "Set the desired memory that will be allocated")
     public void setMemory(@EffectorParam(name = "memory", description = "Memory allocated") int memory);
+
+    @Effector(description = "Return the most recent log lines of the application")
+    public String tailLogs(@EffectorParam(name = "lines", description = "Number of lines to " +
+            "return", defaultValue = "100") int lines);
+
+    @Effector(description = "Map routes to the application")
+    public void mapRoutes(@EffectorParam(name = "routes", description = "Routes to map, each " +
+            "written as host.domain[/path]") List<String> routes);
+
+    @Effector(description = "Unmap routes from the application")
+    public void unmapRoutes(@EffectorParam(name = "routes", description = "Routes to unmap, " +
+            "each written as host.domain[/path]") List<String> routes);
 }
@@ -19,14 +19,22 @@
 package org.apache.brooklyn.cloudfoundry.entity;
 
 
+import com.google.common.base.Functions;
+import com.google.common.base.Joiner;
 import org.apache.brooklyn.api.entity.Entity;
+import org.apache.brooklyn.api.sensor.AttributeSensor;
+import org.apache.brooklyn.cloudfoundry.entity.logs.RouterRequestStatistics;
+import org.apache.brooklyn.feed.function.FunctionFeed;
+import org.apache.brooklyn.feed.function.FunctionPollConfig;
 import org.apache.brooklyn.util.collections.MutableMap;
 import org.apache.brooklyn.util.text.Identifiers;
 import org.apache.brooklyn.util.text.Strings;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
 
 public class VanillaCloudFoundryApplicationImpl extends CloudFoundryEntityImpl
         implements VanillaCloudFoundryApplication {
@@ -35,6 +43,7 @@ public class VanillaCloudFoundryApplicationImpl extends CloudFoundryEntityImpl
     private static final String DEFAULT_APP_PREFIX = "cf-app-";
 
     private String applicationName;
+    private FunctionFeed logRates;
 
     public VanillaCloudFoundryApplicationImpl() {
         super(MutableMap.of(), null);
@@ -65,6 +74,12 @@ public class VanillaCloudFoundryApplicationImpl extends CloudFoundryEntityImpl
         this.sensors().set(APPLICATION_NAME, applicationName);
     }
 
+    @Override
+    public void rebind() {
+        applicationName = getAttribute(APPLICATION_NAME);
+        super.rebind();
+    }
+
     @Override
     public Class getDriverInterface() {
         return VanillaPaasApplicationDriver.class;
@@ -75,6 +90,95 @@ public class VanillaCloudFoundryApplicationImpl extends CloudFoundryEntityImpl
         return (VanillaPaasApplicationDriver) super.getDriver();
     }
 
+    @Override
+    protected String getStartFailure() {
+        VanillaPaasApplicationDriver driver = getDriver();
+        return (driver != null) ? driver.getStartFailure() : null;
+    }
+
+    @Override
+    protected void connectSensors() {
+        super.connectSensors();
+        if (Boolean.TRUE.equals(getConfig(LOG_STREAMING_ENABLED))) {
+            connectLogSensors();
+        }
+    }
+
+    protected void connectLogSensors() {
+        getDriver().startLogStreaming();
+        logRates = FunctionFeed.builder()
+                .entity(this)
+                .uniqueTag("cloudfoundry-application-log-rates")
+                .period(getFeedPeriod())
+                .poll(new FunctionPollConfig<Boolean, Boolean>(LOG_STREAM_CONNECTED)
+                        .onException(Functions.constant(false))
+                        .callable(new Callable<Boolean>() {
+                            public Boolean call() {
+                                return getDriver().reconnectLogStreaming();
+                            }
+                        }))
+                .poll(new FunctionPollConfig<Double, Double>(LOG_ERROR_RATE)
+                        .onException(Functions.constant(0d))
+                        .callable(new Callable<Double>() {
+                            public Double call() {
+                                return getDriver().getLogErrorRate();
+                            }
+                        }))
+                .poll(new FunctionPollConfig<Double, Double>(LOG_REQUEST_RATE)
+                        .onException(Functions.constant(0d))
+                        .callable(new Callable<Double>() {
+                            public Double call() {
+                                return getDriver().getLogRequestRate();
+                            }
+                        }))
+                .poll(responsesPoll(REQUESTS_2XX, 2))
+                .poll(responsesPoll(REQUESTS_3XX, 3))
+                .poll(responsesPoll(REQUESTS_4XX, 4))
+                .poll(responsesPoll(REQUESTS_5XX, 5))
+                .poll(latencyPoll(REQUEST_LATENCY_P50, 50))
+                .poll(latencyPoll(REQUEST_LATENCY_P95, 95))
+                .poll(latencyPoll(REQUEST_LATENCY_P99, 99))
+                .build();
+    }
+
+    private FunctionPollConfig<Long, Long> responsesPoll(AttributeSensor<Long> sensor,
+                                                         final int statusClass) {
+        return new FunctionPollConfig<Long, Long>(sensor)
+                .callable(new Callable<Long>() {
+                    public Long call() {
+                        RouterRequestStatistics statistics = getDriver().getRouterStatistics();
+                        return (statistics != null) ? statistics.getResponses(statusClass) : 0L;
+                    }
+                });
+    }
+
+    private FunctionPollConfig<Double, Double> latencyPoll(AttributeSensor<Double> sensor,
+                                                           final double percentile) {
+        return new FunctionPollConfig<Double, Double>(sensor)
+                .callable(new Callable<Double>() {
+                    public Double call() {
+                        RouterRequestStatistics statistics = getDriver().getRouterStatistics();
+                        return (statistics != null) ? statistics.getLatencyMillis(percentile) : null;
+                    }
+                });
+    }
+
+    @Override
+    protected void disconnectSensors() {
+        disconnectLogSensors();
+        super.disconnectSensors();
+    }
+
+    protected void disconnectLogSensors() {
+        if (logRates != null) {
+            logRates.stop();
+            logRates = null;
+        }
+        if (getDriver() != null) {
+            getDriver().stopLogStreaming();
+        }
+    }
+
     public String getApplicationName() {
         return applicationName;
     }
@@ -99,4 +203,19 @@ public class VanillaCloudFoundryApplicationImpl extends CloudFoundryEntityImpl
         getDriver().setMemory(memory);
     }
 
+    @Override
+    public void mapRoutes(List<String> routes) {
+        getDriver().mapRoutes(routes);
+    }
+
+    @Override
+    public void unmapRoutes(List<String> routes) {
+        getDriver().unmapRoutes(routes);
+    }
+
+    @Override
+    public String tailLogs(int lines) {
+        return Joiner.on('\n').join(getDriver().tailLogs(lines));
+    }
+
 }
@@ -19,20 +19,42 @@
 package org.apache.brooklyn.cloudfoundry.entity;
 
 
+import com.google.common.base.Joiner;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.hash.Hashing;
+import com.google.common.io.Files;
+import org.apache.brooklyn.api.entity.Entity;
 import org.apache.brooklyn.api.entity.drivers.downloads.DownloadResolver;
+import org.apache.brooklyn.cloudfoundry.entity.DeploymentFingerprint.Part;
+import org.apache.brooklyn.cloudfoundry.entity.logs.ApplicationLogStream;
+import org.apache.brooklyn.cloudfoundry.entity.logs.LogRingBuffer;
+import org.apache.brooklyn.cloudfoundry.entity.logs.RouterRequestStatistics;
 import org.apache.brooklyn.cloudfoundry.entity.service.AfterBindingOperations;
 import org.apache.brooklyn.cloudfoundry.entity.service.VanillaCloudFoundryService;
 import org.apache.brooklyn.cloudfoundry.location.CloudFoundryPaasLocation;
+import org.apache.brooklyn.cloudfoundry.location.domain.Route;
+import org.apache.brooklyn.cloudfoundry.location.domain.credentials.ServiceEndpoint;
+import org.apache.brooklyn.cloudfoundry.utils.ArtifactFetchMode;
+import org.apache.brooklyn.cloudfoundry.utils.ArtifactWorkspace;
+import org.apache.brooklyn.cloudfoundry.utils.DockerImageReference;
+import org.apache.brooklyn.cloudfoundry.utils.DockerRegistryClient;
 import org.apache.brooklyn.cloudfoundry.utils.FileNameResolver;
 import org.apache.brooklyn.cloudfoundry.utils.LocalResourcesDownloader;
+import org.apache.brooklyn.config.StringConfigMap;
 import org.apache.brooklyn.core.entity.Attributes;
 import org.apache.brooklyn.core.entity.Entities;
 import org.apache.brooklyn.core.entity.drivers.downloads.BasicDownloadResolver;
+import org.apache.brooklyn.util.collections.MutableList;
 import org.apache.brooklyn.util.collections.MutableMap;
 import org.apache.brooklyn.util.exceptions.Exceptions;
 import org.apache.brooklyn.util.http.HttpTool;
+import org.apache.brooklyn.util.http.HttpToolResponse;
 import org.apache.brooklyn.util.text.Strings;
+import org.apache.brooklyn.util.time.Duration;
+import org.apache.http.client.HttpClient;
+import org.cloudfoundry.doppler.LogMessage;
+import org.reactivestreams.Publisher;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -40,8 +62,10 @@ import java.io.File;
 import java.io.IOException;
 import java.net.HttpURLConnection;
 import java.net.URI;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class VanillaPaasApplicationCloudFoundryDriver extends EntityPaasCloudFoundryDriver
         implements VanillaPaasApplicationDriver {
@@ -51,6 +75,13 @@ public class VanillaPaasApplicationCloudFoundryDriver extends EntityPaasCloudFou
 
     private String applicationName;
     private String applicationUrl;
+    private String localArtifactPath;
+    private String imageDigest;
+    private ApplicationLogStream logStream;
+    private volatile StagingJob stagingJob;
+    private final AtomicLong instanceChecks = new AtomicLong();
+    private HttpClient healthCheckClient;
+    private String healthCheckClientKey;
 
     public VanillaPaasApplicationCloudFoundryDriver(VanillaCloudFoundryApplicationImpl entity,
                                                     CloudFoundryPaasLocation location) {
@@ -65,33 +96,286 @@ public class VanillaPaasApplicationCloudFoundryDriver extends EntityPaasCloudFou
 
     @Override
     public void start() {
-        deploy();
-        preLaunch();
-        launch();
+        updateStagingState(StagingState.UPLOADING);
+        String code = prepareCode();
+        DeploymentFingerprint fingerprint = getFingerprint(code);
+        DeploymentFingerprint deployed = (code != null
+                && getEntity().getConfig(VanillaCloudFoundryApplication.SKIP_UNCHANGED))
+                ? getDeployedFingerprint()
+                : null;
+        try {
+            // the route created on push, and so the url of the application, is only changed by
+            // pushing it again
+            if (deployed != null && !fingerprint.isChanged(deployed, Part.CODE)
+                    && !fingerprint.isChanged(deployed, Part.HOST)) {
+                if (fingerprint.equals(deployed)) {
+                    resume();
+                } else {
+                    patch(fingerprint, deployed);
+                }
+            } else {
+                deploy();
+                preLaunch();
+                launch();
+            }
+        } finally {
+            releaseArtifact();
+        }
+        recordFingerprint(fingerprint, deployed);
         postLaunch();
     }
 
+    /**
+     * Downloads the artifact, or reads the digest of the image.
+     *
+     * @return what identifies the code to stage, or null if it can not be told in advance
+     */
+    private String prepareCode() {
+        String dockerImage = getEntity().getConfig(VanillaCloudFoundryApplication.DOCKER_IMAGE);
+        if (!Strings.isBlank(dockerImage)) {
+            imageDigest = getImageDigest(DockerImageReference.parse(dockerImage));
+            return (imageDigest != null) ? "docker:" + imageDigest : null;
+        }
+        String artifactPath = getEntity().getConfig(VanillaCloudFoundryApplication.ARTIFACT_PATH);
+        if (Strings.isBlank(artifactPath)) {
+            return null;
+        }
+        localArtifactPath = getLocalPath(artifactPath);
+        try {
+            return "artifact:" + Files.asByteSource(new File(localArtifactPath))
+                    .hash(Hashing.sha256());
+        } catch (IOException e) {
+            log.warn("Could not hash artifact {} of application {}, it will be pushed: {}",
+                    new Object[]{localArtifactPath, applicationName, e.toString()});
+            return null;
+        }
+    }
+
+    private DeploymentFingerprint getFingerprint(String code) {
+        DeploymentFingerprint.Builder builder = DeploymentFingerprint.builder()
+                .put(Part.CODE, "code", code)
+                .put(Part.CODE, "buildpack",
+                        getEntity().getConfig(VanillaCloudFoundryApplication.BUILDPACK))
+                .put(Part.CODE, "stack",
+                        getEntity().getConfig(VanillaCloudFoundryApplication.STACK))
+                .putAll(Part.ENV, "env",
+                        getEntity().getConfig(VanillaCloudFoundryApplication.ENV))
+                .put(Part.SIZING, "memory",
+                        getEntity().getConfig(VanillaCloudFoundryApplication.REQUIRED_MEMORY))
+                .put(Part.SIZING, "disk",
+                        getEntity().getConfig(VanillaCloudFoundryApplication.REQUIRED_DISK))
+                .put(Part.SIZING, "instances",
+                        getEntity().getConfig(VanillaCloudFoundryApplication.REQUIRED_INSTANCES))
+                .put(Part.HOST, "host",
+                        getEntity().getConfig(VanillaCloudFoundryApplication.APPLICATION_HOST))
+                .put(Part.HOST, "domain",
+                        getEntity().getConfig(VanillaCloudFoundryApplication.APPLICATION_DOMAIN))
+                .put(Part.ROUTES, "routes",
+                        getEntity().getConfig(VanillaCloudFoundryApplication.ROUTES));
+        for (Object service : getEntity().getConfig(VanillaCloudFoundryApplication.SERVICES)) {
+            builder.put(Part.SERVICES, "service", (service instanceof Entity)
+                    ? "entity:" + ((Entity) service).getId()
+                    : service);
+        }
+        return builder.build();
+    }
+
+    /**
+     * @return the fingerprint of the deployment known to the entity, or else recorded on the
+     * application by an earlier deployment, or null if there is none
+     */
+    private DeploymentFingerprint getDeployedFingerprint() {
+        DeploymentFingerprint fingerprint = DeploymentFingerprint.parse(getEntity()
+                .getAttribute(VanillaCloudFoundryApplication.DEPLOYMENT_FINGERPRINT));
+        try {
+            if (!getLocation().isDeployed(applicationName)) {
+                return null;
+            }
+            if (fingerprint == null) {
+                Map<String, String> env = getLocation().getEnv(applicationName);
+                fingerprint = (env != null)
+                        ? DeploymentFingerprint.parse(env.get(DeploymentFingerprint.ENV_VARIABLE))
+                        : null;
+            }
+        } catch (Exception e) {
+            log.warn("Could not read the deployment of application {}, it will be pushed: {}",
+                    applicationName, e.toString());
+            return null;
+        }
+        return fingerprint;
+    }
+
+    private String getApplicationUrl() {
+        return getLocation().getApplicationUrl(applicationName,
+                getEntity().getConfig(VanillaCloudFoundryApplication.APPLICATION_HOST),
+                getEntity().getConfig(VanillaCloudFoundryApplication.APPLICATION_DOMAIN));
+    }
+
+    /**
+     * The application is deployed as configured: it is only started if it is not running.
+     */
+    private void resume() {
+        log.info("Application {} is deployed as configured, nothing to push", applicationName);
+        applicationUrl = getApplicationUrl();
+        getEntity().sensors().set(VanillaCloudFoundryApplication.ENV,
+                getLocation().getEnv(applicationName));
+        List<Object> services = getEntity().getConfig(VanillaCloudFoundryApplication.SERVICES);
+        if (!services.isEmpty()) {
+            publishServiceEndpoints(services);
+        }
+        launchIfNotStarted();
+    }
+
+    /**
+     * The code is unchanged: whatever else changed is applied to the running application,
+     * which is restarted at most once, when its environment or bindings changed.
+     */
+    private void patch(DeploymentFingerprint fingerprint, DeploymentFingerprint deployed) {
+        log.info("Application {} is deployed from the same code, patching it in place",
+                applicationName);
+        applicationUrl = getApplicationUrl();
+        boolean restart = false;
+        if (fingerprint.isChanged(deployed, Part.SIZING)) {
+            patchSizing();
+        }
+        if (fingerprint.isChanged(deployed, Part.ROUTES)) {
+            mapConfiguredRoutes();
+        }
+        if (fingerprint.isChanged(deployed, Part.SERVICES)) {
+            bindServices(true);
+            restart = true;
+        }
+        if (fingerprint.isChanged(deployed, Part.ENV)) {
+            configureEnv();
+            restart = true;
+        } else {
+            getEntity().sensors().set(VanillaCloudFoundryApplication.ENV,
+                    getLocation().getEnv(applicationName));
+        }
+        if (!launchIfNotStarted() && restart) {
+            getLocation().restartApplication(applicationName);
+        }
+    }
+
+    private void patchSizing() {
+        int memory = getEntity().getConfig(VanillaCloudFoundryApplication.REQUIRED_MEMORY);
+        if (getLocation().getMemory(applicationName) != memory) {
+            getLocation().setMemory(applicationName, memory);
+        }
+        int disk = getEntity().getConfig(VanillaCloudFoundryApplication.REQUIRED_DISK);
+        if (getLocation().getDiskQuota(applicationName) != disk) {
+            getLocation().setDiskQuota(applicationName, disk);
+        }
+        int instances = getEntity().getConfig(VanillaCloudFoundryApplication.REQUIRED_INSTANCES);
+        if (getLocation().getInstancesNumber(applicationName) != instances) {
+            getLocation().setInstancesNumber(applicationName, instances);
+        }
+    }
+
+    /**
+     * @return true if the application was stopped and has been started
+     */
+    private boolean launchIfNotStarted() {
+        if (getLocation().getApplicationStatus(applicationName)
+                == CloudFoundryPaasLocation.AppState.STARTED) {
+            updateStagingState(StagingState.RUNNING);
+            return false;
+        }
+        launch();
+        return true;
+    }
+
+    /**
+     * Keeps the fingerprint on the entity and on the application. The latter is best effort:
+     * without it, a later start from a new entity only pushes again.
+     */
+    private void recordFingerprint(DeploymentFingerprint fingerprint,
+                                   DeploymentFingerprint deployed) {
+        getEntity().sensors().set(VanillaCloudFoundryApplication.DEPLOYMENT_FINGERPRINT,
+                fingerprint.toString());
+        if (fingerprint.equals(deployed)) {
+            return;
+        }
+        try {
+            getLocation().setEnv(applicationName, DeploymentFingerprint.ENV_VARIABLE,
+                    fingerprint.toString());
+        } catch (Exception e) {
+            log.warn("Could not record the deployment fingerprint on application {}: {}",
+                    applicationName, e.toString());
+        }
+    }
+
     private String deploy() {
         Map<String, Object> params =
                 MutableMap.copyOf(getEntity().config().getBag().getAllConfig());
         params.put(VanillaCloudFoundryApplication.APPLICATION_NAME.getName(), applicationName);
-        String artifactPropertyName = VanillaCloudFoundryApplication.ARTIFACT_PATH.getName();
-        String artifactPath = (String) params.get(artifactPropertyName);
-        if (!Strings.isBlank(artifactPath)) {
-            params.put(artifactPropertyName, getLocalPath(artifactPath));
+        String dockerImage = getEntity().getConfig(VanillaCloudFoundryApplication.DOCKER_IMAGE);
+        if (!Strings.isBlank(dockerImage)) {
+            return deployDockerImage(params, DockerImageReference.parse(dockerImage));
+        }
+        if (localArtifactPath != null) {
+            params.put(VanillaCloudFoundryApplication.ARTIFACT_PATH.getName(), localArtifactPath);
         }
 
         applicationUrl = getLocation().deploy(params);
         return applicationUrl;
     }
 
+    /**
+     * Pushes the image pinned to its current digest, so that the platform runs exactly what was
+     * checked. Nothing is downloaded nor uploaded by Brooklyn, and when the digest is the one
+     * already deployed the push, and so the restaging, is skipped altogether.
+     */
+    private String deployDockerImage(Map<String, Object> params, DockerImageReference image) {
+        String digest = imageDigest;
+        String deployedDigest =
+                getEntity().getAttribute(VanillaCloudFoundryApplication.DOCKER_IMAGE_DIGEST);
+        if (digest != null && digest.equals(deployedDigest)
+                && getLocation().isDeployed(applicationName)) {
+            log.info("Image {} of application {} is unchanged ({}), skipping the push",
+                    new Object[]{image, applicationName, digest});
+            applicationUrl = getApplicationUrl();
+            return applicationUrl;
+        }
+        params.remove(VanillaCloudFoundryApplication.ARTIFACT_PATH.getName());
+        params.put(VanillaCloudFoundryApplication.DOCKER_IMAGE.getName(),
+                ((digest != null) ? image.withDigest(digest) : image).toString());
+        applicationUrl = getLocation().deploy(params);
+        getEntity().sensors().set(VanillaCloudFoundryApplication.DOCKER_IMAGE_DIGEST, digest);
+        return applicationUrl;
+    }
+
+    /**
+     * @return the digest of the image, or null if the registry could not tell, in which case
+     * the image is pushed by tag
+     */
+    private String getImageDigest(DockerImageReference image) {
+        try {
+            return new DockerRegistryClient(getEntity()
+                    .getConfig(VanillaCloudFoundryApplication.DOCKER_REGISTRY_TIMEOUT))
+                    .getDigest(image);
+        } catch (IOException e) {
+            log.warn("Could not read the digest of image {} of application {}, it will be " +
+                    "pushed by tag: {}", new Object[]{image, applicationName, e.toString()});
+            return null;
+        }
+    }
+
     private String getLocalPath(String artifactPath) {
         DownloadResolver downloadResolver = getDownloadResolver(artifactPath);
+        ArtifactFetchMode fetchMode =
+                getEntity().getConfig(VanillaCloudFoundryApplication.ARTIFACT_FETCH_MODE);
+        Duration mirrorTimeout =
+                getEntity().getConfig(VanillaCloudFoundryApplication.ARTIFACT_MIRROR_TIMEOUT);
+        StringConfigMap serverConfig = getEntity().getManagementContext().getConfig();
+        ArtifactWorkspace.getInstance().evict(
+                serverConfig.getConfig(ArtifactWorkspace.QUOTA) * 1024 * 1024,
+                serverConfig.getConfig(ArtifactWorkspace.MAX_AGE).toMilliseconds());
         try {
             File war;
             war = LocalResourcesDownloader
                     .downloadResourceInLocalDir(downloadResolver.getFilename(),
-                            downloadResolver.getTargets());
+                            downloadResolver.getTargets(), fetchMode, mirrorTimeout);
             return war.getCanonicalPath();
         } catch (IOException e) {
             log.error("Error obtaining local path in {} for artifact {}",
@@ -100,41 +384,121 @@ public class VanillaPaasApplicationCloudFoundryDriver extends EntityPaasCloudFou
         }
     }
 
+    /**
+     * The artifact is only needed until it is pushed: its download is deleted right away rather
+     * than left for the eviction of the workspace.
+     */
+    private void releaseArtifact() {
+        if (localArtifactPath != null) {
+            ArtifactWorkspace.getInstance().release(new File(localArtifactPath));
+            localArtifactPath = null;
+        }
+        updateWorkspaceSensors();
+    }
+
+    private void updateWorkspaceSensors() {
+        ArtifactWorkspace workspace = ArtifactWorkspace.getInstance();
+        getEntity().sensors().set(VanillaCloudFoundryApplication.ARTIFACT_WORKSPACE_SIZE,
+                workspace.getSize());
+        getEntity().sensors().set(VanillaCloudFoundryApplication.ARTIFACT_WORKSPACE_EVICTIONS,
+                workspace.getEvictionCount());
+    }
+
     private DownloadResolver getDownloadResolver(String artifactPath) {
-        return new BasicDownloadResolver(ImmutableList.of(artifactPath),
+        List<String> targets = MutableList.of(artifactPath);
+        targets.addAll(getEntity().getConfig(VanillaCloudFoundryApplication.ARTIFACT_MIRRORS));
+        return new BasicDownloadResolver(targets,
                 FileNameResolver.findArchiveNameFromUrl(artifactPath));
     }
 
     protected void preLaunch() {
+        mapConfiguredRoutes();
         bindServices();
         configureEnv();
     }
 
+    private void mapConfiguredRoutes() {
+        List<String> routes = getEntity().getConfig(VanillaCloudFoundryApplication.ROUTES);
+        if (routes != null && !routes.isEmpty()) {
+            mapRoutes(routes);
+        }
+    }
+
     private void bindServices() {
+        bindServices(false);
+    }
+
+    /**
+     * @param onlyIfUnbound whether to skip the services already bound, when patching an
+     *                      application that is running
+     */
+    private void bindServices(boolean onlyIfUnbound) {
         List<Object> services = getEntity().getConfig(VanillaCloudFoundryApplication.SERVICES);
         for (Object serviceInstance : services) {
             if (serviceInstance instanceof String) {
-                bindService((String) serviceInstance);
+                bindService((String) serviceInstance, onlyIfUnbound);
             } else if (serviceInstance instanceof VanillaCloudFoundryService) {
-                bindService((VanillaCloudFoundryService) serviceInstance);
+                bindService((VanillaCloudFoundryService) serviceInstance, onlyIfUnbound);
+            }
+        }
+        if (!services.isEmpty()) {
+            publishServiceEndpoints(services);
+        }
+    }
+
+    /**
+     * Publishes the endpoints of the bound services, parsed once from the environment of the
+     * application, on the application and on the service entities.
+     */
+    private void publishServiceEndpoints(List<Object> services) {
+        Map<String, ServiceEndpoint> endpoints;
+        try {
+            endpoints = getLocation().getServiceEndpoints(applicationName);
+        } catch (Exception e) {
+            log.warn("Could not read the endpoints of the services bound to {}: {}",
+                    applicationName, e.toString());
+            return;
+        }
+        getEntity().sensors().set(VanillaCloudFoundryApplication.SERVICE_ENDPOINTS, endpoints);
+        for (Object serviceInstance : services) {
+            if (serviceInstance instanceof VanillaCloudFoundryService) {
+                VanillaCloudFoundryService service = (VanillaCloudFoundryService) serviceInstance;
+                ServiceEndpoint endpoint = endpoints.get(
+                        service.getAttribute(VanillaCloudFoundryService.SERVICE_INSTANCE_ID));
+                if (endpoint != null) {
+                    service.sensors().set(VanillaCloudFoundryService.ENDPOINT_HOST, endpoint.getHost());
+                    service.sensors().set(VanillaCloudFoundryService.ENDPOINT_PORT, endpoint.getPort());
+                    service.sensors().set(VanillaCloudFoundryService.ENDPOINT_URL, endpoint.getUrl());
+                    service.sensors().set(VanillaCloudFoundryService.ENDPOINT_MAX_CONNECTIONS,
+                            endpoint.getMaxConnections());
+                }
             }
         }
     }
 
-    private void bindService(VanillaCloudFoundryService serviceInstance) {
+    private void bindService(VanillaCloudFoundryService serviceInstance, boolean onlyIfUnbound) {
         if (!serviceInstance.getAttribute(VanillaCloudFoundryService.SERVICE_UP)) {
             Entities.waitForServiceUp(serviceInstance);
         }
         String serviceInstanceName =
                 serviceInstance.getAttribute(VanillaCloudFoundryService.SERVICE_INSTANCE_ID);
-        bindService(serviceInstanceName);
+        if (!bindService(serviceInstanceName, onlyIfUnbound)) {
+            return;
+        }
         if (serviceInstance instanceof AfterBindingOperations) {
             ((AfterBindingOperations) serviceInstance).operationAfterBindingTo(applicationName);
         }
     }
 
-    private void bindService(String serviceInstanceId) {
+    /**
+     * @return false if the service was already bound and left as it is
+     */
+    private boolean bindService(String serviceInstanceId, boolean onlyIfUnbound) {
+        if (onlyIfUnbound && getLocation().isServiceBoundTo(serviceInstanceId, applicationName)) {
+            return false;
+        }
         getLocation().bindServiceToApplication(serviceInstanceId, applicationName);
+        return true;
     }
 
     protected void configureEnv() {
@@ -151,17 +515,64 @@ public class VanillaPaasApplicationCloudFoundryDriver extends EntityPaasCloudFou
     }
 
     private void launch() {
-        getLocation().startApplication(applicationName);
+        stagingJob = new StagingJob(applicationName,
+                getEntity().getConfig(VanillaCloudFoundryApplication.STAGING_LOG_LINES),
+                getEntity().getConfig(VanillaCloudFoundryApplication.LOG_MAX_LINE_LENGTH),
+                new StagingJob.Listener() {
+                    @Override
+                    public void onStateChanged(StagingState state) {
+                        updateStagingState(state);
+                    }
+
+                    @Override
+                    public void onStagingLog(List<String> lines) {
+                        getEntity().sensors().set(VanillaCloudFoundryApplication.STAGING_LOG,
+                                Joiner.on('\n').join(lines));
+                    }
+                });
+        stagingJob.start(getLocation().startApplicationAsync(applicationName),
+                getStagingLogs());
+    }
+
+    private Publisher<LogMessage> getStagingLogs() {
+        try {
+            return getLocation().getApplicationLogs(applicationName);
+        } catch (Exception e) {
+            log.warn("Staging log of application {} is not available: {}",
+                    applicationName, e.toString());
+            return null;
+        }
+    }
+
+    private void updateStagingState(StagingState state) {
+        getEntity().sensors().set(VanillaCloudFoundryApplication.STAGING_STATE, state);
+    }
+
+    @Override
+    public String getStartFailure() {
+        StagingJob job = stagingJob;
+        if (job == null || job.getState() != StagingState.FAILED) {
+            return null;
+        }
+        Throwable failure = job.getFailure();
+        return "Staging of application " + applicationName + " failed"
+                + ((failure != null) ? ": " + failure.getMessage() : "");
     }
 
     private void postLaunch() {
         getEntity().sensors().set(Attributes.MAIN_URI, URI.create(applicationUrl));
         getEntity().sensors().set(VanillaCloudFoundryApplication.ROOT_URL, applicationUrl);
+        updateUrlsSensor();
         updateMemorySensor(getLocation().getMemory(applicationName));
         updateDiskSensor(getLocation().getDiskQuota(applicationName));
         updateInstancesSensor(getLocation().getInstancesNumber(applicationName));
     }
 
+    private void updateUrlsSensor() {
+        getEntity().sensors().set(VanillaCloudFoundryApplication.APPLICATION_URLS,
+                getLocation().getApplicationUrls(applicationName));
+    }
+
     private void updateMemorySensor(int memory) {
         getEntity().sensors().set(VanillaCloudFoundryApplication.ALLOCATED_MEMORY, memory);
     }
@@ -181,17 +592,32 @@ public class VanillaPaasApplicationCloudFoundryDriver extends EntityPaasCloudFou
 
     @Override
     public void stop() {
+        cancelStaging();
+        closeHealthCheckClient();
         getLocation().stopApplication(applicationName);
     }
 
     @Override
     public void delete() {
+        cancelStaging();
+        closeHealthCheckClient();
         getLocation().deleteApplication(applicationName);
     }
 
+    private void cancelStaging() {
+        StagingJob job = stagingJob;
+        if (job != null) {
+            job.cancel();
+        }
+    }
+
     @Override
     public void rebind() {
-        //TODO
+        applicationUrl = getEntity().getAttribute(VanillaCloudFoundryApplication.ROOT_URL);
+        if (applicationUrl == null) {
+            URI mainUri = getEntity().getAttribute(Attributes.MAIN_URI);
+            applicationUrl = (mainUri != null) ? mainUri.toString() : null;
+        }
     }
 
     @Override
@@ -212,18 +638,191 @@ public class VanillaPaasApplicationCloudFoundryDriver extends EntityPaasCloudFou
         updateInstancesSensor(getLocation().getInstancesNumber(applicationName));
     }
 
+    @Override
+    public void mapRoutes(List<String> routes) {
+        Map<Route, Exception> failures = getLocation().mapRoutes(applicationName,
+                parseRoutes(routes), getRouteMaxConcurrency());
+        updateUrlsSensor();
+        checkRouteFailures("map", failures);
+    }
+
+    @Override
+    public void unmapRoutes(List<String> routes) {
+        Map<Route, Exception> failures = getLocation().unmapRoutes(applicationName,
+                parseRoutes(routes), getRouteMaxConcurrency());
+        updateUrlsSensor();
+        checkRouteFailures("unmap", failures);
+    }
+
+    private List<Route> parseRoutes(List<String> routes) {
+        List<Route> result = MutableList.of();
+        for (String route : routes) {
+            result.add(Route.parse(route));
+        }
+        return result;
+    }
+
+    private int getRouteMaxConcurrency() {
+        return getEntity().getConfig(VanillaCloudFoundryApplication.ROUTE_MAX_CONCURRENCY);
+    }
+
+    private void checkRouteFailures(String operation, Map<Route, Exception> failures) {
+        if (!failures.isEmpty()) {
+            IllegalStateException e = new IllegalStateException("Could not " + operation
+                    + " routes " + failures.keySet() + " of application " + applicationName);
+            for (Exception failure : failures.values()) {
+                e.addSuppressed(failure);
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public synchronized void startLogStreaming() {
+        if (logStream == null) {
+            LogRingBuffer buffer = new LogRingBuffer(
+                    getEntity().getConfig(VanillaCloudFoundryApplication.LOG_BUFFER_LINES),
+                    getEntity().getConfig(VanillaCloudFoundryApplication.LOG_MAX_LINE_LENGTH));
+            logStream = new ApplicationLogStream(applicationName,
+                    () -> getLocation().getApplicationLogs(applicationName), buffer,
+                    getEntity().getConfig(VanillaCloudFoundryApplication.REQUEST_LATENCY_WINDOW)
+                            .toMilliseconds());
+        }
+        logStream.start();
+    }
+
+    @Override
+    public synchronized void stopLogStreaming() {
+        if (logStream != null) {
+            logStream.stop();
+        }
+    }
+
+    @Override
+    public boolean reconnectLogStreaming() {
+        ApplicationLogStream stream = logStream;
+        if (stream == null) {
+            return false;
+        }
+        stream.ensureConnected();
+        return stream.isConnected();
+    }
+
+    @Override
+    public List<String> tailLogs(int lines) {
+        ApplicationLogStream stream = logStream;
+        return (stream != null) ? stream.tail(lines) : MutableList.<String>of();
+    }
+
+    @Override
+    public double getLogErrorRate() {
+        ApplicationLogStream stream = logStream;
+        return (stream != null) ? stream.getErrorRate() : 0;
+    }
+
+    @Override
+    public double getLogRequestRate() {
+        ApplicationLogStream stream = logStream;
+        return (stream != null) ? stream.getRequestRate() : 0;
+    }
+
+    @Override
+    public RouterRequestStatistics getRouterStatistics() {
+        ApplicationLogStream stream = logStream;
+        return (stream != null) ? stream.getRouterStatistics() : null;
+    }
+
     public boolean isRunning() {
+        StagingJob job = stagingJob;
+        if (job != null && !job.getState().isTerminal()) {
+            return false;
+        }
+        HealthCheckMode mode = getEntity().getConfig(VanillaCloudFoundryApplication.HEALTH_CHECK_MODE);
+        if (mode == HealthCheckMode.INSTANCES) {
+            return areInstancesRunning() && (!isHttpCheckDue() || isApplicationDomainAvailable());
+        }
         return isApplicationDomainAvailable();
     }
 
+    private boolean areInstancesRunning() {
+        boolean result = false;
+        try {
+            result = getLocation().areInstancesRunning(applicationName);
+        } catch (Exception e) {
+            log.warn("Application " + applicationName + " instances state is not available for entity " + this);
+        }
+        return result;
+    }
+
+    private boolean isHttpCheckDue() {
+        Integer every = getEntity().getConfig(VanillaCloudFoundryApplication.HEALTH_CHECK_HTTP_EVERY);
+        return every != null && every > 0 && instanceChecks.incrementAndGet() % every == 0;
+    }
+
     private boolean isApplicationDomainAvailable() {
         boolean result = false;
         try {
-            result = HttpTool.getHttpStatusCode(applicationUrl) == HttpURLConnection.HTTP_OK;
+            String healthUrl = getHealthCheckUrl();
+            HttpToolResponse response = isHeadHealthCheck()
+                    ? HttpTool.httpHead(getHealthCheckClient(healthUrl), URI.create(healthUrl),
+                    ImmutableMap.<String, String>of())
+                    : HttpTool.httpGet(getHealthCheckClient(healthUrl), URI.create(healthUrl),
+                    ImmutableMap.<String, String>of());
+            result = getExpectedStatus().contains(response.getResponseCode());
         } catch (Exception e) {
             log.warn("Application " + applicationName + "is not available yet for entity " + this);
         }
         return result;
     }
 
+    private String getHealthCheckUrl() {
+        String path = getEntity().getConfig(VanillaCloudFoundryApplication.HEALTH_CHECK_PATH);
+        if (Strings.isBlank(path)) {
+            return applicationUrl;
+        }
+        return Strings.removeFromEnd(applicationUrl, "/") + "/" + Strings.removeFromStart(path, "/");
+    }
+
+    private boolean isHeadHealthCheck() {
+        return "HEAD".equalsIgnoreCase(
+                getEntity().getConfig(VanillaCloudFoundryApplication.HEALTH_CHECK_METHOD));
+    }
+
+    private Collection<Integer> getExpectedStatus() {
+        List<Integer> expected =
+                getEntity().getConfig(VanillaCloudFoundryApplication.HEALTH_CHECK_EXPECTED_STATUS);
+        return (expected == null || expected.isEmpty())
+                ? ImmutableList.of(HttpURLConnection.HTTP_OK)
+                : expected;
+    }
+
+    /**
+     * The client is kept between checks, with its connections, and only rebuilt when the timeout
+     * or the endpoint of the health check changes.
+     */
+    private synchronized HttpClient getHealthCheckClient(String healthUrl) {
+        Duration timeout = getEntity().getConfig(VanillaCloudFoundryApplication.HEALTH_CHECK_TIMEOUT);
+        String key = timeout + " " + URI.create(healthUrl).getAuthority();
+        if (healthCheckClient == null || !key.equals(healthCheckClientKey)) {
+            closeHealthCheckClient();
+            healthCheckClient = HttpTool.httpClientBuilder()
+                    .uri(healthUrl)
+                    .trustAll()
+                    .laxRedirect(true)
+                    .connectionTimeout(timeout)
+                    .socketTimeout(timeout)
+                    .build();
+            healthCheckClientKey = key;
+        }
+        return healthCheckClient;
+    }
+
+    private synchronized void closeHealthCheckClient() {
+        if (healthCheckClient != null) {
+            healthCheckClient.getConnectionManager().shutdown();
+            healthCheckClient = null;
+            healthCheckClientKey = null;
+        }
+    }
+
 }
@@ -18,6 +18,9 @@
  */
 package org.apache.brooklyn.cloudfoundry.entity;
 
+import org.apache.brooklyn.cloudfoundry.entity.logs.RouterRequestStatistics;
+
+import java.util.List;
 import java.util.Map;
 
 public interface VanillaPaasApplicationDriver extends EntityPaasDriver {
@@ -29,4 +32,33 @@ public interface VanillaPaasApplicationDriver extends EntityPaasDriver {
     void setDiskQuota(int diskQuota);
 
     void setMemory(int memory);
+
+    void mapRoutes(List<String> routes);
+
+    void unmapRoutes(List<String> routes);
+
+    void startLogStreaming();
+
+    void stopLogStreaming();
+
+    /**
+     * Reconnects the log stream if it has terminated.
+     *
+     * @return whether the log stream is connected
+     */
+    boolean reconnectLogStreaming();
+
+    List<String> tailLogs(int lines);
+
+    double getLogErrorRate();
+
+    double getLogRequestRate();
+
+    RouterRequestStatistics getRouterStatistics();
+
+    /**
+     * @return a description of why the application could not be staged or started, or null if
+     * it has not failed
+     */
+    String getStartFailure();
 }
@@ -0,0 +1,183 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.brooklyn.cloudfoundry.entity.logs;
+
+import org.cloudfoundry.doppler.LogMessage;
+import org.cloudfoundry.doppler.MessageType;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Subscription to the log stream of a single application. Received lines are kept in a
+ * {@link LogRingBuffer} and counted, so error and request rates can be derived without storing
+ * the whole stream.
+ * <p>
+ * If the underlying stream terminates, {@link #ensureConnected()} opens a new subscription; it is
+ * expected to be called periodically, e.g. by the feed that publishes the rates.
+ */
+public class ApplicationLogStream {
+
+    private static final Logger log = LoggerFactory.getLogger(ApplicationLogStream.class);
+
+    public static final String ROUTER_SOURCE_TYPE = "RTR";
+
+    private final String applicationName;
+    private final Supplier<? extends Publisher<LogMessage>> source;
+    private final LogRingBuffer buffer;
+    private final EventRate errors = new EventRate();
+    private final EventRate requests = new EventRate();
+    private final RouterRequestStatistics routerStatistics;
+
+    private volatile LogSubscriber subscriber;
+    private volatile boolean stopped = true;
+
+    public ApplicationLogStream(String applicationName,
+                                Supplier<? extends Publisher<LogMessage>> source,
+                                LogRingBuffer buffer,
+                                long latencyWindowMillis) {
+        this.applicationName = checkNotNull(applicationName, "applicationName");
+        this.source = checkNotNull(source, "source");
+        this.buffer = checkNotNull(buffer, "buffer");
+        this.routerStatistics = new RouterRequestStatistics(latencyWindowMillis);
+    }
+
+    public synchronized void start() {
+        stopped = false;
+        ensureConnected();
+    }
+
+    public synchronized void ensureConnected() {
+        if (stopped || (subscriber != null && subscriber.isActive())) {
+            return;
+        }
+        try {
+            Publisher<LogMessage> publisher = source.get();
+            if (publisher == null) {
+                log.debug("No log stream available for application {}", applicationName);
+                return;
+            }
+            subscriber = new LogSubscriber();
+            publisher.subscribe(subscriber);
+        } catch (Exception e) {
+            log.warn("Error subscribing to logs of application {}: {}", applicationName, e.toString());
+        }
+    }
+
+    public synchronized void stop() {
+        stopped = true;
+        if (subscriber != null) {
+            subscriber.cancel();
+            subscriber = null;
+        }
+    }
+
+    public boolean isConnected() {
+        LogSubscriber current = subscriber;
+        return current != null && current.isActive();
+    }
+
+    public List<String> tail(int lines) {
+        return buffer.tail(lines);
+    }
+
+    public double getErrorRate() {
+        return errors.perSecond();
+    }
+
+    public double getRequestRate() {
+        return requests.perSecond();
+    }
+
+    public RouterRequestStatistics getRouterStatistics() {
+        return routerStatistics;
+    }
+
+    protected void onLogMessage(LogMessage message) {
+        long timestamp = (message.getTimestamp() != null) ? message.getTimestamp() : 0L;
+        buffer.add(timestamp, format(message, timestamp));
+        if (message.getMessageType() == MessageType.ERR) {
+            errors.increment();
+        }
+        if (ROUTER_SOURCE_TYPE.equals(message.getSourceType())) {
+            requests.increment();
+            routerStatistics.onAccessLogLine(message.getMessage());
+        }
+    }
+
+    private String format(LogMessage message, long timestamp) {
+        return Instant.ofEpochSecond(0, timestamp) + " [" + message.getSourceType() + "/"
+                + message.getSourceInstance() + "] " + message.getMessageType() + " "
+                + message.getMessage();
+    }
+
+    private class LogSubscriber implements Subscriber<LogMessage> {
+
+        private volatile Subscription subscription;
+        private volatile boolean active = true;
+
+        @Override
+        public void onSubscribe(Subscription subscription) {
+            this.subscription = subscription;
+            if (active) {
+                subscription.request(Long.MAX_VALUE);
+            } else {
+                subscription.cancel();
+            }
+        }
+
+        @Override
+        public void onNext(LogMessage message) {
+            if (active) {
+                onLogMessage(message);
+            }
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            active = false;
+            log.debug("Log stream of application {} failed: {}", applicationName, t.toString());
+        }
+
+        @Override
+        public void onComplete() {
+            active = false;
+            log.debug("Log stream of application {} completed", applicationName);
+        }
+
+        boolean isActive() {
+            return active;
+        }
+
+        void cancel() {
+            active = false;
+            if (subscription != null) {
+                subscription.cancel();
+            }
+        }
+    }
+}
@@ -0,0 +1,51 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.brooklyn.cloudfoundry.entity.logs;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts events and reports how many happened per second since the previous call to
+ * {@link #perSecond()}.
+ */
+public class EventRate {
+
+    private final AtomicLong count = new AtomicLong();
+    private long lastCount = 0;
+    private long lastTime = System.nanoTime();
+
+    public void increment() {
+        count.incrementAndGet();
+    }
+
+    public long getCount() {
+        return count.get();
+    }
+
+    public synchronized double perSecond() {
+        long now = System.nanoTime();
+        long current = count.get();
+        double elapsedSeconds = (double) (now - lastTime) / TimeUnit.SECONDS.toNanos(1);
+        double result = (elapsedSeconds > 0) ? (current - lastCount) / elapsedSeconds : 0;
+        lastCount = current;
+        lastTime = now;
+        return result;
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.brooklyn.cloudfoundry.entity.logs;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Latency histogram over a sliding time window, using HDR-histogram style log-linear buckets:
+ * values are grouped into power-of-two ranges, each split into a fixed number of linear
+ * sub-buckets, which bounds the relative error of every percentile (about 1.5% with the default
+ * 7 bits) while keeping the histogram a small, fixed array of counters.
+ * <p>
+ * The window is divided in slots; each slot holds its own counts and is cleared when reused, so
+ * old samples expire without having to be stored individually.
+ */
+public class LatencyHistogram {
+
+    private static final int DEFAULT_SUB_BUCKET_BITS = 7;
+
+    private final int subBucketBits;
+    private final int subBucketCount;
+    private final int subBucketHalfCount;
+    private final long maxValue;
+    private final int bucketCount;
+    private final long slotMillis;
+    private final long[][] slots;
+    private final long[] slotEpochs;
+
+    public LatencyHistogram(long maxValue, long windowMillis, int slotCount) {
+        this(maxValue, windowMillis, slotCount, DEFAULT_SUB_BUCKET_BITS);
+    }
+
+    public LatencyHistogram(long maxValue, long windowMillis, int slotCount, int subBucketBits) {
+        checkArgument(subBucketBits > 1 && subBucketBits < 16, "subBucketBits must be in [2, 15]");
+        checkArgument(maxValue >= (1L << subBucketBits), "maxValue is too small");
+        checkArgument(slotCount > 0, "slotCount must be positive");
+        checkArgument(windowMillis >= slotCount, "window must be at least one millisecond per slot");
+        this.subBucketBits = subBucketBits;
+        this.subBucketCount = 1 << subBucketBits;
+        this.subBucketHalfCount = subBucketCount / 2;
+        this.maxValue = maxValue;
+        this.bucketCount = indexOf(maxValue) + 1;
+        this.slotMillis = windowMillis / slotCount;
+        this.slots = new long[slotCount][bucketCount];
+        this.slotEpochs = new long[slotCount];
+        for (int i = 0; i < slotCount; i++) {
+            slotEpochs[i] = -1;
+        }
+    }
+
+    int indexOf(long value) {
+        if (value < subBucketCount) {
+            return (int) value;
+        }
+        int magnitude = 63 - Long.numberOfLeadingZeros(value);
+        int shift = magnitude - (subBucketBits - 1);
+        int subBucket = (int) (value >>> shift);
+        return subBucketCount + (shift - 1) * subBucketHalfCount + (subBucket - subBucketHalfCount);
+    }
+
+    long lowestValueAt(int index) {
+        if (index < subBucketCount) {
+            return index;
+        }
+        int k = index - subBucketCount;
+        int shift = k / subBucketHalfCount + 1;
+        long subBucket = k % subBucketHalfCount + subBucketHalfCount;
+        return subBucket << shift;
+    }
+
+    long highestValueAt(int index) {
+        if (index < subBucketCount) {
+            return index;
+        }
+        return lowestValueAt(index + 1) - 1;
+    }
+
+    public void record(long value) {
+        record(value, System.currentTimeMillis());
+    }
+
+    public synchronized void record(long value, long nowMillis) {
+        if (value < 0) {
+            return;
+        }
+        long[] slot = currentSlot(nowMillis);
+        slot[indexOf(Math.min(value, maxValue))]++;
+    }
+
+    private long[] currentSlot(long nowMillis) {
+        long epoch = nowMillis / slotMillis;
+        int index = (int) (epoch % slots.length);
+        if (slotEpochs[index] != epoch) {
+            long[] slot = slots[index];
+            for (int i = 0; i < slot.length; i++) {
+                slot[i] = 0;
+            }
+            slotEpochs[index] = epoch;
+        }
+        return slots[index];
+    }
+
+    public double percentile(double percentile) {
+        return percentile(percentile, System.currentTimeMillis());
+    }
+
+    /**
+     * @return the value at the given percentile (0-100) of the samples recorded within the
+     * window, or -1 if there are none
+     */
+    public synchronized double percentile(double percentile, long nowMillis) {
+        checkArgument(percentile >= 0 && percentile <= 100, "percentile must be in [0, 100]");
+        long[] counts = new long[bucketCount];
+        long total = aggregate(nowMillis, counts);
+        if (total == 0) {
+            return -1;
+        }
+        long target = Math.max(1, (long) Math.ceil(total * percentile / 100d));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= target) {
+                return (lowestValueAt(i) + highestValueAt(i)) / 2d;
+            }
+        }
+        return highestValueAt(counts.length - 1);
+    }
+
+    public synchronized long count(long nowMillis) {
+        return aggregate(nowMillis, null);
+    }
+
+    private long aggregate(long nowMillis, long[] into) {
+        long currentEpoch = nowMillis / slotMillis;
+        long total = 0;
+        for (int s = 0; s < slots.length; s++) {
+            long epoch = slotEpochs[s];
+            if (epoch < 0 || epoch > currentEpoch || currentEpoch - epoch >= slots.length) {
+                continue;
+            }
+            long[] slot = slots[s];
+            for (int i = 0; i < slot.length; i++) {
+                if (into != null) {
+                    into[i] += slot[i];
+                }
+                total += slot[i];
+            }
+        }
+        return total;
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.brooklyn.cloudfoundry.entity.logs;
+
+import org.apache.brooklyn.util.collections.MutableList;
+
+import java.util.List;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Fixed-capacity ring of log lines. Lines and their timestamps are kept in pre-allocated arrays,
+ * so the memory used by an application's log history is bounded by {@code capacity} and
+ * {@code maxLineLength}, independently of how much the application logs.
+ */
+public class LogRingBuffer {
+
+    private static final String TRUNCATED_SUFFIX = "...";
+
+    private final String[] lines;
+    private final long[] timestamps;
+    private final int maxLineLength;
+
+    private int next = 0;
+    private int size = 0;
+    private long totalLines = 0;
+
+    public LogRingBuffer(int capacity, int maxLineLength) {
+        checkArgument(capacity > 0, "capacity must be positive");
+        checkArgument(maxLineLength > TRUNCATED_SUFFIX.length(), "maxLineLength is too small");
+        this.lines = new String[capacity];
+        this.timestamps = new long[capacity];
+        this.maxLineLength = maxLineLength;
+    }
+
+    public synchronized void add(long timestamp, String line) {
+        lines[next] = truncate(line);
+        timestamps[next] = timestamp;
+        next = (next + 1) % lines.length;
+        size = Math.min(size + 1, lines.length);
+        totalLines++;
+    }
+
+    private String truncate(String line) {
+        if (line == null) {
+            return "";
+        }
+        if (line.length() <= maxLineLength) {
+            return line;
+        }
+        return line.substring(0, maxLineLength - TRUNCATED_SUFFIX.length()) + TRUNCATED_SUFFIX;
+    }
+
+    /**
+     * @return the last {@code count} lines, oldest first
+     */
+    public synchronized List<String> tail(int count) {
+        int n = Math.max(0, Math.min(count, size));
+        List<String> result = MutableList.of();
+        int start = (next - n + lines.length) % lines.length;
+        for (int i = 0; i < n; i++) {
+            result.add(lines[(start + i) % lines.length]);
+        }
+        return result;
+    }
+
+    /**
+     * @return timestamp of the most recent line, or -1 if nothing was received yet
+     */
+    public synchronized long getLastTimestamp() {
+        if (size == 0) {
+            return -1;
+        }
+        return timestamps[(next - 1 + lines.length) % lines.length];
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public int capacity() {
+        return lines.length;
+    }
+
+    public synchronized long getTotalLines() {
+        return totalLines;
+    }
+
+    public synchronized void clear() {
+        for (int i = 0; i < lines.length; i++) {
+            lines[i] = null;
+        }
+        next = 0;
+        size = 0;
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.brooklyn.cloudfoundry.entity.logs;
+
+/**
+ * Incremental parser for gorouter (RTR) access log lines, e.g.
+ * <pre>
+ * app.example.com - [2016-09-10T10:22:11.123+0000] "GET /path HTTP/1.1" 200 0 5678 "-" "curl/7.43.0"
+ *     "10.0.2.15:52114" "10.0.16.12:61013" x_forwarded_for:"10.0.2.15" x_forwarded_proto:"http"
+ *     vcap_request_id:"4e7a..." response_time:0.008151208 app_id:"..." app_index:"0"
+ * </pre>
+ * Lines are scanned once, character by character, without regular expressions or intermediate
+ * strings, since it runs for every request routed to the application.
+ */
+public final class RouterAccessLogParser {
+
+    private static final String RESPONSE_TIME = "response_time:";
+    private static final long MICROS_PER_SECOND = 1000000L;
+
+    private RouterAccessLogParser() {
+    }
+
+    /**
+     * @return true if the line was a well-formed access log line; in that case {@code entry} holds
+     * the parsed status code and response time
+     */
+    public static boolean parse(CharSequence line, RouterAccessLogEntry entry) {
+        entry.reset();
+        if (line == null) {
+            return false;
+        }
+        int length = line.length();
+        int requestStart = indexOf(line, '"', 0);
+        if (requestStart < 0) {
+            return false;
+        }
+        int requestEnd = indexOf(line, '"', requestStart + 1);
+        if (requestEnd < 0) {
+            return false;
+        }
+        int i = requestEnd + 1;
+        while (i < length && line.charAt(i) == ' ') {
+            i++;
+        }
+        int status = 0;
+        int digits = 0;
+        while (i < length && isDigit(line.charAt(i))) {
+            status = status * 10 + (line.charAt(i) - '0');
+            digits++;
+            i++;
+        }
+        if (digits != 3) {
+            return false;
+        }
+        entry.status = status;
+
+        int responseTime = indexOf(line, RESPONSE_TIME, i);
+        if (responseTime >= 0) {
+            entry.responseTimeMicros = parseSecondsAsMicros(line, responseTime + RESPONSE_TIME.length());
+        }
+        return true;
+    }
+
+    private static long parseSecondsAsMicros(CharSequence line, int from) {
+        int length = line.length();
+        int i = from;
+        if (i < length && line.charAt(i) == '"') {
+            i++;
+        }
+        long seconds = 0;
+        boolean found = false;
+        while (i < length && isDigit(line.charAt(i))) {
+            seconds = seconds * 10 + (line.charAt(i) - '0');
+            found = true;
+            i++;
+        }
+        long fraction = 0;
+        long scale = MICROS_PER_SECOND;
+        if (i < length && line.charAt(i) == '.') {
+            i++;
+            while (i < length && isDigit(line.charAt(i))) {
+                if (scale > 1) {
+                    scale /= 10;
+                    fraction += (line.charAt(i) - '0') * scale;
+                }
+                found = true;
+                i++;
+            }
+        }
+        return found ? seconds * MICROS_PER_SECOND + fraction : -1;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static int indexOf(CharSequence s, char c, int from) {
+        for (int i = from; i < s.length(); i++) {
+            if (s.charAt(i) == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int indexOf(CharSequence s, String target, int from) {
+        int max = s.length() - target.length();
+        char first = target.charAt(0);
+        for (int i = from; i <= max; i++) {
+            if (s.charAt(i) != first) {
+                continue;
+            }
+            int j = 1;
+            while (j < target.length() && s.charAt(i + j) == target.charAt(j)) {
+                j++;
+            }
+            if (j == target.length()) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Mutable holder for the parsed fields, so callers can reuse a single instance.
+     */
+    public static final class RouterAccessLogEntry {
+
+        private int status;
+        private long responseTimeMicros;
+
+        public RouterAccessLogEntry() {
+            reset();
+        }
+
+        void reset() {
+            status = -1;
+            responseTimeMicros = -1;
+        }
+
+        public int getStatus() {
+            return status;
+        }
+
+        /**
+         * @return response time in microseconds, or -1 if the line did not include it
+         */
+        public long getResponseTimeMicros() {
+            return responseTimeMicros;
+        }
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.brooklyn.cloudfoundry.entity.logs;
+
+import org.apache.brooklyn.cloudfoundry.entity.logs.RouterAccessLogParser.RouterAccessLogEntry;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Request statistics derived from the router (RTR) access log lines of an application: number of
+ * responses per status class and response time percentiles over a sliding window.
+ */
+public class RouterRequestStatistics {
+
+    private static final long MAX_TRACKED_MICROS = TimeUnit.MINUTES.toMicros(10);
+    private static final int WINDOW_SLOTS = 12;
+
+    private final LatencyHistogram latencies;
+    private final AtomicLongArray statusClasses = new AtomicLongArray(6);
+    private final RouterAccessLogEntry entry = new RouterAccessLogEntry();
+
+    public RouterRequestStatistics(long windowMillis) {
+        this.latencies = new LatencyHistogram(MAX_TRACKED_MICROS, windowMillis, WINDOW_SLOTS);
+    }
+
+    /**
+     * @return true if the line was recognised as an access log line
+     */
+    public synchronized boolean onAccessLogLine(CharSequence line) {
+        if (!RouterAccessLogParser.parse(line, entry)) {
+            return false;
+        }
+        int statusClass = entry.getStatus() / 100;
+        if (statusClass > 0 && statusClass < statusClasses.length()) {
+            statusClasses.incrementAndGet(statusClass);
+        }
+        if (entry.getResponseTimeMicros() >= 0) {
+            latencies.record(entry.getResponseTimeMicros());
+        }
+        return true;
+    }
+
+    /**
+     * @param statusClass first digit of the HTTP status, e.g. 5 for 5xx responses
+     */
+    public long getResponses(int statusClass) {
+        if (statusClass <= 0 || statusClass >= statusClasses.length()) {
+            return 0;
+        }
+        return statusClasses.get(statusClass);
+    }
+
+    /**
+     * @return latency at the given percentile in milliseconds, or null if there were no requests
+     * in the window
+     */
+    public Double getLatencyMillis(double percentile) {
+        double micros = latencies.percentile(percentile);
+        return (micros < 0) ? null : micros / 1000d;
+    }
+}
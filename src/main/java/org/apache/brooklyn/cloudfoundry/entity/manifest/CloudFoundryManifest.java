@@ -0,0 +1,71 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.brooklyn.cloudfoundry.entity.manifest;
+
+import com.google.common.reflect.TypeToken;
+import org.apache.brooklyn.api.catalog.Catalog;
+import org.apache.brooklyn.api.entity.Entity;
+import org.apache.brooklyn.api.entity.ImplementedBy;
+import org.apache.brooklyn.api.sensor.AttributeSensor;
+import org.apache.brooklyn.config.ConfigKey;
+import org.apache.brooklyn.core.config.ConfigKeys;
+import org.apache.brooklyn.core.entity.trait.Startable;
+import org.apache.brooklyn.core.sensor.Sensors;
+import org.apache.brooklyn.util.core.flags.SetFromFlag;
+
+import java.util.List;
+
+/**
+ * Deploys every application of a CloudFoundry {@code manifest.yml} as a child
+ * {@link org.apache.brooklyn.cloudfoundry.entity.VanillaCloudFoundryApplication}. Services
+ * declared as children of this entity are started first; the applications are then pushed
+ * concurrently, all through the client of the location.
+ */
+@Catalog(name = "CloudFoundry manifest entity")
+@ImplementedBy(CloudFoundryManifestImpl.class)
+public interface CloudFoundryManifest extends Entity, Startable {
+
+    @SetFromFlag("manifestUrl")
+    ConfigKey<String> MANIFEST_URL = ConfigKeys.newStringConfigKey(
+            "cloudFoundry.manifest.url", "URL of the manifest; relative application paths are " +
+                    "resolved against it");
+
+    @SetFromFlag("manifest")
+    ConfigKey<String> MANIFEST_CONTENTS = ConfigKeys.newStringConfigKey(
+            "cloudFoundry.manifest.contents", "Contents of the manifest, used instead of " +
+                    "reading it from its URL");
+
+    @SetFromFlag("maxConcurrency")
+    ConfigKey<Integer> MAX_CONCURRENCY = ConfigKeys.newIntegerConfigKey(
+            "cloudFoundry.manifest.maxConcurrency",
+            "Maximum number of applications or services started at the same time", 10);
+
+    AttributeSensor<Integer> APPLICATIONS_DEPLOYED = Sensors.newIntegerSensor(
+            "cloudfoundry.manifest.applications.deployed",
+            "Number of applications of the manifest which were started");
+
+    AttributeSensor<List<String>> APPLICATIONS_FAILED = Sensors.newSensor(
+            new TypeToken<List<String>>() {
+            }, "cloudfoundry.manifest.applications.failed",
+            "Names of the applications of the manifest which could not be started");
+
+    AttributeSensor<Long> DEPLOY_DURATION = Sensors.newLongSensor(
+            "cloudfoundry.manifest.deploy.duration",
+            "Time (ms) taken by the last deployment of the manifest");
+}
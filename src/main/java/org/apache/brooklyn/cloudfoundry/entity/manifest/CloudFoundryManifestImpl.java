@@ -0,0 +1,255 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.brooklyn.cloudfoundry.entity.manifest;
+
+import org.apache.brooklyn.api.effector.Effector;
+import org.apache.brooklyn.api.entity.Entity;
+import org.apache.brooklyn.api.entity.EntitySpec;
+import org.apache.brooklyn.api.location.Location;
+import org.apache.brooklyn.api.mgmt.Task;
+import org.apache.brooklyn.cloudfoundry.entity.VanillaCloudFoundryApplication;
+import org.apache.brooklyn.cloudfoundry.entity.service.VanillaCloudFoundryService;
+import org.apache.brooklyn.cloudfoundry.utils.ParallelExecution;
+import org.apache.brooklyn.core.effector.Effectors;
+import org.apache.brooklyn.core.entity.AbstractEntity;
+import org.apache.brooklyn.core.entity.lifecycle.Lifecycle;
+import org.apache.brooklyn.core.entity.lifecycle.ServiceStateLogic;
+import org.apache.brooklyn.core.entity.lifecycle.ServiceStateLogic.ServiceNotUpLogic;
+import org.apache.brooklyn.core.entity.trait.Startable;
+import org.apache.brooklyn.util.collections.MutableList;
+import org.apache.brooklyn.util.collections.MutableMap;
+import org.apache.brooklyn.util.core.ResourceUtils;
+import org.apache.brooklyn.util.core.task.DynamicTasks;
+import org.apache.brooklyn.util.core.task.Tasks;
+import org.apache.brooklyn.util.exceptions.Exceptions;
+import org.apache.brooklyn.util.text.Strings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+public class CloudFoundryManifestImpl extends AbstractEntity implements CloudFoundryManifest {
+
+    private static final Logger log = LoggerFactory.getLogger(CloudFoundryManifestImpl.class);
+
+    private static final String DEPLOYMENT_INDICATOR = "cloudfoundry.manifest.deployment";
+
+    @Override
+    protected void initEnrichers() {
+        super.initEnrichers();
+        ServiceNotUpLogic.updateNotUpIndicator(this, DEPLOYMENT_INDICATOR,
+                "The manifest has not been deployed yet");
+    }
+
+    @Override
+    public void start(Collection<? extends Location> locations) {
+        ServiceStateLogic.setExpectedState(this, Lifecycle.STARTING);
+        try {
+            addLocations(locations);
+            long startTime = System.currentTimeMillis();
+            startServices(locations);
+            deployApplications(locations);
+            sensors().set(DEPLOY_DURATION, System.currentTimeMillis() - startTime);
+            ServiceStateLogic.setExpectedState(this, Lifecycle.RUNNING);
+        } catch (Throwable t) {
+            ServiceStateLogic.setExpectedState(this, Lifecycle.ON_FIRE);
+            log.error("Error deploying the manifest of {}", this);
+            throw Exceptions.propagate(t);
+        }
+    }
+
+    /**
+     * Starts the services declared as children first, so that every application can be bound
+     * to them as soon as it is pushed.
+     */
+    private void startServices(Collection<? extends Location> locations) {
+        List<VanillaCloudFoundryService> services = MutableList.of();
+        for (VanillaCloudFoundryService service : getServices()) {
+            if (!Boolean.TRUE.equals(service.getAttribute(Startable.SERVICE_UP))) {
+                services.add(service);
+            }
+        }
+        Map<VanillaCloudFoundryService, Exception> failures = invokeInParallel(
+                "Starting services", services, Startable.START,
+                MutableMap.of("locations", locations));
+        if (!failures.isEmpty()) {
+            throw failure("Could not start services", failures);
+        }
+    }
+
+    private void deployApplications(Collection<? extends Location> locations) {
+        Map<String, VanillaCloudFoundryService> services = MutableMap.of();
+        for (VanillaCloudFoundryService service : getServices()) {
+            services.put(service.getAttribute(VanillaCloudFoundryService.SERVICE_INSTANCE_ID),
+                    service);
+        }
+        List<VanillaCloudFoundryApplication> applications = MutableList.of();
+        for (EntitySpec<VanillaCloudFoundryApplication> spec :
+                new ManifestParser(getConfig(MANIFEST_URL)).parse(readManifest())) {
+            VanillaCloudFoundryApplication application = findApplication(spec.getDisplayName());
+            if (application == null) {
+                application = addChild(withServiceEntities(spec, services));
+            }
+            applications.add(application);
+        }
+        log.info("Deploying {} applications of the manifest of {}", applications.size(), this);
+
+        Map<VanillaCloudFoundryApplication, Exception> failures = invokeInParallel(
+                "Starting applications", applications, Startable.START,
+                MutableMap.of("locations", locations));
+
+        List<String> failed = MutableList.of();
+        for (VanillaCloudFoundryApplication application : failures.keySet()) {
+            failed.add(application.getDisplayName());
+        }
+        sensors().set(APPLICATIONS_DEPLOYED, applications.size() - failures.size());
+        sensors().set(APPLICATIONS_FAILED, failed);
+        if (!failures.isEmpty()) {
+            ServiceNotUpLogic.updateNotUpIndicator(this, DEPLOYMENT_INDICATOR,
+                    failed.size() + " applications could not be started: " + failed);
+            throw failure("Could not start applications", failures);
+        }
+        ServiceNotUpLogic.clearNotUpIndicator(this, DEPLOYMENT_INDICATOR);
+    }
+
+    /**
+     * Replaces the names of the services declared as children by the service entities, so
+     * that the applications wait for them and run their after-binding operations.
+     */
+    private EntitySpec<VanillaCloudFoundryApplication> withServiceEntities(
+            EntitySpec<VanillaCloudFoundryApplication> spec,
+            Map<String, VanillaCloudFoundryService> services) {
+        Object declared = spec.getConfig().get(VanillaCloudFoundryApplication.SERVICES);
+        if (declared instanceof List) {
+            List<Object> resolved = MutableList.of();
+            for (Object service : (List<?>) declared) {
+                VanillaCloudFoundryService entity = services.get(service);
+                resolved.add((entity != null) ? entity : service);
+            }
+            spec.configure(VanillaCloudFoundryApplication.SERVICES, resolved);
+        }
+        return spec;
+    }
+
+    private String readManifest() {
+        String contents = getConfig(MANIFEST_CONTENTS);
+        if (!Strings.isBlank(contents)) {
+            return contents;
+        }
+        String url = getConfig(MANIFEST_URL);
+        if (Strings.isBlank(url)) {
+            throw new IllegalStateException("Neither " + MANIFEST_URL.getName() + " nor "
+                    + MANIFEST_CONTENTS.getName() + " are set on " + this);
+        }
+        return new ResourceUtils(this).getResourceAsString(url);
+    }
+
+    private VanillaCloudFoundryApplication findApplication(String name) {
+        for (VanillaCloudFoundryApplication application : getApplications()) {
+            if (name.equals(application.getDisplayName())) {
+                return application;
+            }
+        }
+        return null;
+    }
+
+    private List<VanillaCloudFoundryApplication> getApplications() {
+        List<VanillaCloudFoundryApplication> result = MutableList.of();
+        for (Entity child : getChildren()) {
+            if (child instanceof VanillaCloudFoundryApplication) {
+                result.add((VanillaCloudFoundryApplication) child);
+            }
+        }
+        return result;
+    }
+
+    private List<VanillaCloudFoundryService> getServices() {
+        List<VanillaCloudFoundryService> result = MutableList.of();
+        for (Entity child : getChildren()) {
+            if (child instanceof VanillaCloudFoundryService) {
+                result.add((VanillaCloudFoundryService) child);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Invokes the effector on the entities, with at most {@link #MAX_CONCURRENCY} invocations
+     * running at a time, and returns the failure of every entity the invocation failed for. The
+     * next invocation starts as soon as any running one ends.
+     */
+    private <T extends Entity> Map<T, Exception> invokeInParallel(String name, List<T> entities,
+                                                                  Effector<?> effector,
+                                                                  Map<String, ?> parameters) {
+        Map<T, Task<?>> invocations = MutableMap.of();
+        for (T entity : entities) {
+            invocations.put(entity, Effectors.invocation(entity, effector, parameters).asTask());
+        }
+        int maxConcurrency = getConfig(MAX_CONCURRENCY);
+        Task<Map<T, Exception>> parallel = Tasks.<Map<T, Exception>>builder()
+                .displayName(name)
+                .body(() -> ParallelExecution.invokeAll(
+                        getExecutionContext(), invocations, maxConcurrency))
+                .build();
+        return DynamicTasks.queueIfPossible(parallel).orSubmitAsync(this).andWaitForSuccess();
+    }
+
+    private static IllegalStateException failure(String message,
+                                                 Map<? extends Entity, Exception> failures) {
+        List<String> names = MutableList.of();
+        for (Entity entity : failures.keySet()) {
+            names.add(entity.getDisplayName());
+        }
+        IllegalStateException e = new IllegalStateException(message + ": " + names);
+        for (Exception failure : failures.values()) {
+            e.addSuppressed(failure);
+        }
+        return e;
+    }
+
+    /**
+     * Stops the applications before the services they are bound to.
+     */
+    @Override
+    public void stop() {
+        ServiceStateLogic.setExpectedState(this, Lifecycle.STOPPING);
+        ServiceNotUpLogic.updateNotUpIndicator(this, DEPLOYMENT_INDICATOR, "Stopped");
+        Map<VanillaCloudFoundryApplication, Exception> applicationFailures = invokeInParallel(
+                "Stopping applications", getApplications(), Startable.STOP, MutableMap.of());
+        Map<VanillaCloudFoundryService, Exception> serviceFailures = invokeInParallel(
+                "Stopping services", getServices(), Startable.STOP, MutableMap.of());
+        if (!applicationFailures.isEmpty() || !serviceFailures.isEmpty()) {
+            ServiceStateLogic.setExpectedState(this, Lifecycle.ON_FIRE);
+            Map<Entity, Exception> failures = MutableMap.of();
+            failures.putAll(applicationFailures);
+            failures.putAll(serviceFailures);
+            throw failure("Could not stop", failures);
+        }
+        sensors().set(APPLICATIONS_DEPLOYED, 0);
+        ServiceStateLogic.setExpectedState(this, Lifecycle.STOPPED);
+    }
+
+    @Override
+    public void restart() {
+        stop();
+        start(getLocations());
+    }
+}
@@ -0,0 +1,211 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.brooklyn.cloudfoundry.entity.manifest;
+
+import com.google.common.collect.Iterables;
+import org.apache.brooklyn.api.entity.EntitySpec;
+import org.apache.brooklyn.cloudfoundry.entity.VanillaCloudFoundryApplication;
+import org.apache.brooklyn.cloudfoundry.location.domain.Route;
+import org.apache.brooklyn.util.collections.MutableList;
+import org.apache.brooklyn.util.collections.MutableMap;
+import org.apache.brooklyn.util.text.Strings;
+import org.apache.brooklyn.util.yaml.Yamls;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Turns the applications of a CloudFoundry {@code manifest.yml} into specs of
+ * {@link VanillaCloudFoundryApplication}. Attributes set at the top of the manifest are
+ * inherited by every application that does not set them itself, and relative paths are resolved
+ * against the location of the manifest.
+ */
+public class ManifestParser {
+
+    private static final String APPLICATIONS = "applications";
+
+    private final String baseUrl;
+
+    /**
+     * @param manifestUrl where the manifest was read from, or null if relative paths can not be
+     *                    resolved
+     */
+    public ManifestParser(String manifestUrl) {
+        this.baseUrl = (manifestUrl != null && manifestUrl.contains("/"))
+                ? manifestUrl.substring(0, manifestUrl.lastIndexOf('/') + 1)
+                : null;
+    }
+
+    public List<EntitySpec<VanillaCloudFoundryApplication>> parse(String manifest) {
+        Object parsed = Iterables.getOnlyElement(Yamls.parseAll(manifest));
+        checkArgument(parsed instanceof Map, "The manifest is not a map");
+        Map<?, ?> root = (Map<?, ?>) parsed;
+
+        Map<String, Object> defaults = MutableMap.of();
+        for (Map.Entry<?, ?> entry : root.entrySet()) {
+            if (!APPLICATIONS.equals(entry.getKey())) {
+                defaults.put(entry.getKey().toString(), entry.getValue());
+            }
+        }
+        Object applications = root.get(APPLICATIONS);
+        checkArgument(applications instanceof List, "The manifest has no applications");
+
+        List<EntitySpec<VanillaCloudFoundryApplication>> result = MutableList.of();
+        for (Object application : (List<?>) applications) {
+            checkArgument(application instanceof Map, "Application %s is not a map", application);
+            Map<String, Object> attributes = MutableMap.copyOf(defaults);
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) application).entrySet()) {
+                attributes.put(entry.getKey().toString(), entry.getValue());
+            }
+            result.add(toSpec(attributes));
+        }
+        return result;
+    }
+
+    private EntitySpec<VanillaCloudFoundryApplication> toSpec(Map<String, Object> attributes) {
+        String name = getString(attributes, "name");
+        checkArgument(!Strings.isBlank(name), "An application of the manifest has no name");
+        EntitySpec<VanillaCloudFoundryApplication> spec =
+                EntitySpec.create(VanillaCloudFoundryApplication.class)
+                        .displayName(name)
+                        .configure(VanillaCloudFoundryApplication.APPLICATION_NAME, name);
+
+        String path = getString(attributes, "path");
+        if (path != null) {
+            spec.configure(VanillaCloudFoundryApplication.ARTIFACT_PATH, resolve(path));
+        }
+        String buildpack = getString(attributes, "buildpack");
+        if (buildpack != null) {
+            spec.configure(VanillaCloudFoundryApplication.BUILDPACK, buildpack);
+        }
+        String stack = getString(attributes, "stack");
+        if (stack != null) {
+            spec.configure(VanillaCloudFoundryApplication.STACK, stack);
+        }
+        if (attributes.get("instances") != null) {
+            spec.configure(VanillaCloudFoundryApplication.REQUIRED_INSTANCES,
+                    Integer.parseInt(attributes.get("instances").toString()));
+        }
+        if (attributes.get("memory") != null) {
+            spec.configure(VanillaCloudFoundryApplication.REQUIRED_MEMORY,
+                    toMegabytes(attributes.get("memory")));
+        }
+        if (attributes.get("disk_quota") != null) {
+            spec.configure(VanillaCloudFoundryApplication.REQUIRED_DISK,
+                    toMegabytes(attributes.get("disk_quota")));
+        }
+        configureRoutes(spec, attributes);
+
+        Object env = attributes.get("env");
+        if (env instanceof Map) {
+            Map<String, String> variables = MutableMap.of();
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) env).entrySet()) {
+                variables.put(entry.getKey().toString(), String.valueOf(entry.getValue()));
+            }
+            spec.configure(VanillaCloudFoundryApplication.ENV, variables);
+        }
+        List<Object> services = getServices(attributes);
+        if (!services.isEmpty()) {
+            spec.configure(VanillaCloudFoundryApplication.SERVICES, services);
+        }
+        return spec;
+    }
+
+    /**
+     * The first route of the application is the one created on push, from its host and domain;
+     * the others are mapped before it is started.
+     */
+    private void configureRoutes(EntitySpec<VanillaCloudFoundryApplication> spec,
+                                 Map<String, Object> attributes) {
+        String host = getString(attributes, "host");
+        String domain = getString(attributes, "domain");
+        List<String> routes = MutableList.of();
+        Object declared = attributes.get("routes");
+        if (declared instanceof List) {
+            for (Object route : (List<?>) declared) {
+                Object value = (route instanceof Map) ? ((Map<?, ?>) route).get("route") : route;
+                if (value != null) {
+                    routes.add(value.toString());
+                }
+            }
+        }
+        if (host == null && domain == null && !routes.isEmpty()) {
+            Route first = Route.parse(routes.remove(0));
+            host = first.getHost();
+            domain = first.getDomain();
+        }
+        if (host != null) {
+            spec.configure(VanillaCloudFoundryApplication.APPLICATION_HOST, host);
+        }
+        if (domain != null) {
+            spec.configure(VanillaCloudFoundryApplication.APPLICATION_DOMAIN, domain);
+        }
+        if (!routes.isEmpty()) {
+            spec.configure(VanillaCloudFoundryApplication.ROUTES, routes);
+        }
+    }
+
+    private List<Object> getServices(Map<String, Object> attributes) {
+        List<Object> result = MutableList.of();
+        Object services = attributes.get("services");
+        if (services instanceof List) {
+            for (Object service : (List<?>) services) {
+                Object name = (service instanceof Map) ? ((Map<?, ?>) service).get("name") : service;
+                if (name != null) {
+                    result.add(name.toString());
+                }
+            }
+        }
+        return result;
+    }
+
+    private String resolve(String path) {
+        if (baseUrl == null || path.contains("://") || path.startsWith("/")) {
+            return path;
+        }
+        return baseUrl + Strings.removeFromStart(path, "./");
+    }
+
+    private static String getString(Map<String, Object> attributes, String key) {
+        Object value = attributes.get(key);
+        return (value != null) ? value.toString() : null;
+    }
+
+    /**
+     * Reads a size the way the cf CLI does: a number of megabytes, or a number followed by
+     * {@code M}, {@code MB}, {@code G} or {@code GB}.
+     */
+    static int toMegabytes(Object size) {
+        if (size instanceof Number) {
+            return ((Number) size).intValue();
+        }
+        String value = size.toString().trim().toUpperCase(Locale.ROOT);
+        value = Strings.removeFromEnd(value, "B");
+        if (value.endsWith("G")) {
+            return Integer.parseInt(value.substring(0, value.length() - 1).trim()) * 1024;
+        }
+        if (value.endsWith("M")) {
+            return Integer.parseInt(value.substring(0, value.length() - 1).trim());
+        }
+        return Integer.parseInt(value);
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.brooklyn.cloudfoundry.entity.service;
+
+import org.apache.brooklyn.cloudfoundry.location.CloudFoundryPaasLocation;
+import org.apache.brooklyn.cloudfoundry.location.LastOperationState;
+import org.apache.brooklyn.cloudfoundry.utils.CircuitBreakerOpenException;
+import org.apache.brooklyn.util.exceptions.Exceptions;
+import org.apache.brooklyn.util.time.Duration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Follows the provisioning of a service instance created by an asynchronous broker. Polls
+ * the last operation of the instance with an exponential backoff, so that callers can check
+ * it as often as they want without flooding the Cloud Controller.
+ */
+public class ServiceProvisioning {
+
+    private static final Logger log = LoggerFactory.getLogger(ServiceProvisioning.class);
+
+    private final CloudFoundryPaasLocation location;
+    private final String serviceInstanceName;
+    private final long maxBackoffMillis;
+    private long backoffMillis;
+    private long nextPollMillis;
+    private volatile LastOperationState state = LastOperationState.IN_PROGRESS;
+
+    public ServiceProvisioning(CloudFoundryPaasLocation location, String serviceInstanceName,
+                               Duration initialBackoff, Duration maxBackoff) {
+        this.location = checkNotNull(location, "location");
+        this.serviceInstanceName = checkNotNull(serviceInstanceName, "serviceInstanceName");
+        this.backoffMillis = Math.max(1, initialBackoff.toMilliseconds());
+        this.maxBackoffMillis = Math.max(backoffMillis, maxBackoff.toMilliseconds());
+    }
+
+    /**
+     * Asks the Cloud Controller for the state of the provisioning, unless it finished already
+     * or the backoff has not elapsed since the previous poll.
+     */
+    public synchronized LastOperationState poll() {
+        long now = System.currentTimeMillis();
+        if (state.isTerminal() || now < nextPollMillis) {
+            return state;
+        }
+        try {
+            state = location.getServiceInstanceState(serviceInstanceName);
+        } catch (Exception e) {
+            if (Exceptions.getFirstThrowableOfType(e, CircuitBreakerOpenException.class) == null) {
+                log.debug("Could not get the state of service instance {}: {}",
+                        serviceInstanceName, e.toString());
+            }
+        }
+        nextPollMillis = now + backoffMillis;
+        backoffMillis = Math.min(backoffMillis * 2, maxBackoffMillis);
+        if (state == LastOperationState.FAILED) {
+            log.warn("Provisioning of service instance {} failed", serviceInstanceName);
+        }
+        return state;
+    }
+
+    public LastOperationState getState() {
+        return state;
+    }
+
+    public boolean isDone() {
+        return state.isTerminal();
+    }
+
+    /**
+     * @return why the provisioning failed, or null if it did not
+     */
+    public String getFailure() {
+        return (state == LastOperationState.FAILED)
+                ? "Provisioning of service instance " + serviceInstanceName + " failed"
+                : null;
+    }
+}
@@ -27,7 +27,9 @@ import org.apache.brooklyn.cloudfoundry.entity.CloudFoundryEntity;
 import org.apache.brooklyn.config.ConfigKey;
 import org.apache.brooklyn.core.config.ConfigKeys;
 import org.apache.brooklyn.core.sensor.Sensors;
+import org.apache.brooklyn.cloudfoundry.location.LastOperationState;
 import org.apache.brooklyn.util.core.flags.SetFromFlag;
+import org.apache.brooklyn.util.time.Duration;
 
 @Beta
 @Catalog(name = "Vanilla CloudFoundry Service")
@@ -46,6 +48,60 @@ public interface VanillaCloudFoundryService extends CloudFoundryEntity {
     ConfigKey<String> PLAN = ConfigKeys.newStringConfigKey(
             "cloudFoundry.service.plan", "Selected plan for the service");
 
+    ConfigKey<Duration> START_TIMEOUT = ConfigKeys.newConfigKeyWithDefault(
+            CloudFoundryEntity.START_TIMEOUT, Duration.minutes(20));
+
+    @SetFromFlag("provisioningPollInitial")
+    ConfigKey<Duration> PROVISIONING_POLL_INITIAL = ConfigKeys.newConfigKey(Duration.class,
+            "cloudFoundry.service.provisioning.poll.initial",
+            "Delay between the first polls of an asynchronous provisioning; doubled after " +
+                    "every poll", Duration.ONE_SECOND);
+
+    @SetFromFlag("provisioningPollMax")
+    ConfigKey<Duration> PROVISIONING_POLL_MAX = ConfigKeys.newConfigKey(Duration.class,
+            "cloudFoundry.service.provisioning.poll.max",
+            "Maximum delay between polls of an asynchronous provisioning", Duration.THIRTY_SECONDS);
+
+    @SetFromFlag("unbindMaxConcurrency")
+    ConfigKey<Integer> UNBIND_MAX_CONCURRENCY = ConfigKeys.newIntegerConfigKey(
+            "cloudFoundry.service.unbind.maxConcurrency",
+            "Maximum number of applications unbound at the same time when the service is " +
+                    "deleted", 10);
+
+    @SetFromFlag("ignoreUnbindFailures")
+    ConfigKey<Boolean> IGNORE_UNBIND_FAILURES = ConfigKeys.newBooleanConfigKey(
+            "cloudFoundry.service.unbind.ignoreFailures",
+            "Whether to go on deleting the service when unbinding it from applications fails, " +
+                    "without checking whether they are still bound; meant for tearing down " +
+                    "whole deployments", false);
+
+    @SetFromFlag("serviceKeyName")
+    ConfigKey<String> SERVICE_KEY_NAME = ConfigKeys.newStringConfigKey(
+            "cloudFoundry.service.key.name",
+            "Name of the service key created to read the credentials of the service without " +
+                    "binding it; by default none is, and they are read from bound applications");
+
+    AttributeSensor<LastOperationState> PROVISIONING_STATE = Sensors.newSensor(
+            LastOperationState.class, "cloudfoundry.service.provisioning.state",
+            "State of the provisioning of the service instance by its broker");
+
+    AttributeSensor<String> SERVICE_KEY = Sensors.newStringSensor(
+            "cloudfoundry.service.key",
+            "Name of the service key created to read the credentials of the service");
+
+    AttributeSensor<String> ENDPOINT_HOST = Sensors.newStringSensor(
+            "cloudfoundry.service.endpoint.host", "Host of the service, as given to bindings");
+
+    AttributeSensor<Integer> ENDPOINT_PORT = Sensors.newIntegerSensor(
+            "cloudfoundry.service.endpoint.port", "Port of the service, as given to bindings");
+
+    AttributeSensor<String> ENDPOINT_URL = Sensors.newStringSensor(
+            "cloudfoundry.service.endpoint.url", "URL of the service without credentials");
+
+    AttributeSensor<Integer> ENDPOINT_MAX_CONNECTIONS = Sensors.newIntegerSensor(
+            "cloudfoundry.service.endpoint.maxConnections",
+            "Maximum number of connections allowed by the plan of the service, if known");
+
     AttributeSensor<String> SERVICE_INSTANCE_ID = Sensors.newStringSensor(
             "cloudfoundry.service.instance.id",
             "Instance id can be used to bind and find the service in the platform");
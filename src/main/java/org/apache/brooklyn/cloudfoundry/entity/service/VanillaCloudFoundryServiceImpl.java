@@ -54,13 +54,30 @@ public class VanillaCloudFoundryServiceImpl extends CloudFoundryEntityImpl imple
         initServiceInstanceName();
     }
 
+    /**
+     * A generated name is kept in the config, which is persisted, so that a rebind before the
+     * instance id is published still finds the instance being created.
+     */
     private void initServiceInstanceName() {
         serviceInstanceName = getConfig(SERVICE_INSTANCE_NAME);
         if (Strings.isBlank(serviceInstanceName)) {
             serviceInstanceName = DEFAULT_SERVICE_PREFIX + Identifiers.makeRandomId(8);
+            config().set(SERVICE_INSTANCE_NAME, serviceInstanceName);
         }
     }
 
+    @Override
+    public void rebind() {
+        serviceInstanceName = getAttribute(SERVICE_INSTANCE_ID);
+        if (Strings.isBlank(serviceInstanceName)) {
+            serviceInstanceName = getConfig(SERVICE_INSTANCE_NAME);
+        }
+        if (Strings.isBlank(serviceInstanceName)) {
+            initServiceInstanceName();
+        }
+        super.rebind();
+    }
+
     @Override
     public Class getDriverInterface() {
         return VanillaPaasServiceDriver.class;
@@ -71,6 +88,22 @@ public class VanillaCloudFoundryServiceImpl extends CloudFoundryEntityImpl imple
         return (VanillaPaasServiceDriver) super.getDriver();
     }
 
+    @Override
+    protected String getStartFailure() {
+        VanillaPaasServiceDriver driver = getDriver();
+        return (driver != null) ? driver.getStartFailure() : null;
+    }
+
+    /**
+     * The id is published once the service started rather than with the feeds, which may be
+     * connected later, as the applications of a manifest find their services by it.
+     */
+    @Override
+    protected void postDriverStart() {
+        super.postDriverStart();
+        sensors().set(SERVICE_INSTANCE_ID, serviceInstanceName);
+    }
+
     protected void connectSensors() {
         super.connectSensors();
         sensors().set(SERVICE_INSTANCE_ID, serviceInstanceName);
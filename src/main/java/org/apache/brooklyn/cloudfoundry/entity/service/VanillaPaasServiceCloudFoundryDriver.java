@@ -21,8 +21,10 @@ package org.apache.brooklyn.cloudfoundry.entity.service;
 import com.google.common.annotations.Beta;
 import org.apache.brooklyn.cloudfoundry.entity.EntityPaasCloudFoundryDriver;
 import org.apache.brooklyn.cloudfoundry.location.CloudFoundryPaasLocation;
+import org.apache.brooklyn.cloudfoundry.location.LastOperationState;
 import org.apache.brooklyn.util.collections.MutableMap;
-import org.apache.brooklyn.util.exceptions.PropagatedRuntimeException;
+import org.apache.brooklyn.util.exceptions.Exceptions;
+import org.apache.brooklyn.util.text.Strings;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -36,6 +38,7 @@ public class VanillaPaasServiceCloudFoundryDriver extends EntityPaasCloudFoundry
     private static final Logger log = LoggerFactory.getLogger(VanillaPaasServiceCloudFoundryDriver.class);
 
     protected String serviceInstanceId;
+    private volatile ServiceProvisioning provisioning;
 
     public VanillaPaasServiceCloudFoundryDriver(VanillaCloudFoundryServiceImpl entity,
                                                 CloudFoundryPaasLocation location) {
@@ -49,12 +52,44 @@ public class VanillaPaasServiceCloudFoundryDriver extends EntityPaasCloudFoundry
 
     @Override
     public boolean isRunning() {
+        ServiceProvisioning current = provisioning;
+        if (current != null && !current.isDone()) {
+            LastOperationState state = current.poll();
+            getEntity().sensors().set(VanillaCloudFoundryService.PROVISIONING_STATE, state);
+            return state == LastOperationState.SUCCEEDED;
+        }
         return getLocation().serviceInstanceExist(serviceInstanceId);
     }
 
+    @Override
+    public String getStartFailure() {
+        ServiceProvisioning current = provisioning;
+        return (current != null) ? current.getFailure() : null;
+    }
+
+    @Override
+    public Map<String, String> getServiceKeyCredentials() {
+        String serviceKeyName = getEntity().getConfig(VanillaCloudFoundryService.SERVICE_KEY_NAME);
+        if (Strings.isBlank(serviceKeyName)) {
+            return null;
+        }
+        Map<String, String> credentials =
+                getLocation().getServiceKeyCredentials(serviceInstanceId, serviceKeyName);
+        getEntity().sensors().set(VanillaCloudFoundryService.SERVICE_KEY, serviceKeyName);
+        return credentials;
+    }
+
+    /**
+     * Provisioning still in progress when the entity was persisted is followed again, so that the
+     * entity is not reported up before the broker is done.
+     */
     @Override
     public void rebind() {
-        //TODO
+        serviceInstanceId = getEntity().getServiceInstanceName();
+        if (getEntity().getAttribute(VanillaCloudFoundryService.PROVISIONING_STATE)
+                == LastOperationState.IN_PROGRESS) {
+            provisioning = newProvisioning();
+        }
     }
 
     @Override
@@ -69,6 +104,15 @@ public class VanillaPaasServiceCloudFoundryDriver extends EntityPaasCloudFoundry
                 getEntity().getServiceInstanceName());
         serviceInstanceId = getEntity().getServiceInstanceName();
         getLocation().createServiceInstance(params);
+        provisioning = newProvisioning();
+        getEntity().sensors().set(VanillaCloudFoundryService.PROVISIONING_STATE,
+                LastOperationState.IN_PROGRESS);
+    }
+
+    private ServiceProvisioning newProvisioning() {
+        return new ServiceProvisioning(getLocation(), serviceInstanceId,
+                getEntity().getConfig(VanillaCloudFoundryService.PROVISIONING_POLL_INITIAL),
+                getEntity().getConfig(VanillaCloudFoundryService.PROVISIONING_POLL_MAX));
     }
 
     @Override
@@ -84,27 +128,45 @@ public class VanillaPaasServiceCloudFoundryDriver extends EntityPaasCloudFoundry
     @Override
     public void delete() {
         unbindServiceOfApplications();
+        deleteServiceKey();
         getLocation().deleteServiceInstance(serviceInstanceId);
     }
 
-    private void unbindServiceOfApplications() {
-        List<String> boundApplications = getLocation().getBoundApplications(serviceInstanceId);
-        if (boundApplications != null) {
-            for (String boundApplication : boundApplications) {
-                unbindServiceOfApplication(boundApplication);
+    private void deleteServiceKey() {
+        String serviceKeyName = getEntity().getAttribute(VanillaCloudFoundryService.SERVICE_KEY);
+        if (Strings.isNonBlank(serviceKeyName)) {
+            try {
+                getLocation().deleteServiceKey(serviceInstanceId, serviceKeyName);
+            } catch (Exception e) {
+                log.debug("Service key {} of {} could not be deleted: {}",
+                        new Object[]{serviceKeyName, serviceInstanceId, e.toString()});
             }
+            getEntity().sensors().set(VanillaCloudFoundryService.SERVICE_KEY, null);
         }
     }
 
-    private void unbindServiceOfApplication(String boundApplication) {
-        try {
-            getLocation().unbindService(serviceInstanceId, boundApplication);
-        } catch (PropagatedRuntimeException e) {
-            if (getLocation().isServiceBoundTo(serviceInstanceId, boundApplication)) {
-                throw new PropagatedRuntimeException(e.getCause());
+    private void unbindServiceOfApplications() {
+        List<String> boundApplications = getLocation().getBoundApplications(serviceInstanceId);
+        if (boundApplications == null || boundApplications.isEmpty()) {
+            return;
+        }
+        Map<String, Exception> failures = getLocation().unbindService(serviceInstanceId,
+                boundApplications,
+                getEntity().getConfig(VanillaCloudFoundryService.UNBIND_MAX_CONCURRENCY));
+        if (failures.isEmpty()) {
+            return;
+        }
+        if (Boolean.TRUE.equals(getEntity().getConfig(VanillaCloudFoundryService.IGNORE_UNBIND_FAILURES))) {
+            log.debug("Ignoring failures unbinding {} from {}", serviceInstanceId, failures.keySet());
+            return;
+        }
+        List<String> stillBound = getLocation().getBoundApplications(serviceInstanceId);
+        for (Map.Entry<String, Exception> failure : failures.entrySet()) {
+            if (stillBound != null && stillBound.contains(failure.getKey())) {
+                throw Exceptions.propagate(failure.getValue());
             }
             log.debug("Application is {} already unbound of {}",
-                    boundApplication, serviceInstanceId);
+                    failure.getKey(), serviceInstanceId);
         }
     }
 }
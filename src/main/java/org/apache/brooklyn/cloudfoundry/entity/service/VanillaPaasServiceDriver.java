@@ -22,8 +22,21 @@ package org.apache.brooklyn.cloudfoundry.entity.service;
 import com.google.common.annotations.Beta;
 import org.apache.brooklyn.cloudfoundry.entity.EntityPaasDriver;
 
+import java.util.Map;
+
 @Beta
 public interface VanillaPaasServiceDriver extends EntityPaasDriver {
 
+    /**
+     * @return why the service instance could not be provisioned, or null if it was or it is
+     * still being provisioned
+     */
+    String getStartFailure();
+
+    /**
+     * @return the credentials of the service read through its service key, or null if
+     * service keys are disabled
+     */
+    Map<String, String> getServiceKeyCredentials();
 
 }
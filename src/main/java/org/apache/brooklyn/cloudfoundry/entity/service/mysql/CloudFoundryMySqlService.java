@@ -22,12 +22,15 @@ package org.apache.brooklyn.cloudfoundry.entity.service.mysql;
 import com.google.common.annotations.Beta;
 import org.apache.brooklyn.api.catalog.Catalog;
 import org.apache.brooklyn.api.entity.ImplementedBy;
+import org.apache.brooklyn.api.sensor.AttributeSensor;
 import org.apache.brooklyn.cloudfoundry.entity.service.AfterBindingOperations;
 import org.apache.brooklyn.cloudfoundry.entity.service.VanillaCloudFoundryService;
 import org.apache.brooklyn.config.ConfigKey;
 import org.apache.brooklyn.core.config.ConfigKeys;
 import org.apache.brooklyn.core.sensor.BasicAttributeSensor;
+import org.apache.brooklyn.core.sensor.Sensors;
 import org.apache.brooklyn.util.core.flags.SetFromFlag;
+import org.apache.brooklyn.util.time.Duration;
 
 @Beta
 @Catalog(name = "Vanilla CloudFoundry MySql Service")
@@ -39,7 +42,58 @@ public interface CloudFoundryMySqlService extends VanillaCloudFoundryService, Af
             "datastore.creation.script.template.url", "URL of creation script Freemarker " +
                     "template used to initialize the datastore", "");
 
+    @SetFromFlag("initBatchSize")
+    public ConfigKey<Integer> INIT_BATCH_SIZE = ConfigKeys.newIntegerConfigKey(
+            "datastore.creation.script.batch.size", "Number of statements of the creation " +
+                    "script sent to the database in each batch", 100);
+
+    @SetFromFlag("connectionPoolSize")
+    public ConfigKey<Integer> CONNECTION_POOL_SIZE = ConfigKeys.newIntegerConfigKey(
+            "datastore.connection.pool.size", "Maximum number of connections Brooklyn opens " +
+                    "to the database", 2);
+
+    @SetFromFlag("connectionTimeout")
+    public ConfigKey<Duration> CONNECTION_TIMEOUT = ConfigKeys.newConfigKey(Duration.class,
+            "datastore.connection.timeout", "Maximum time to wait for a connection to the " +
+                    "database", Duration.THIRTY_SECONDS);
+
+    @SetFromFlag("monitoringEnabled")
+    public ConfigKey<Boolean> MONITORING_ENABLED = ConfigKeys.newBooleanConfigKey(
+            "datastore.monitoring.enabled", "Whether to sample the status counters of the " +
+                    "database once its address is known", false);
+
+    @SetFromFlag("monitoringPeriod")
+    public ConfigKey<Duration> MONITORING_PERIOD = ConfigKeys.newConfigKey(Duration.class,
+            "datastore.monitoring.period", "Period of the database status samples",
+            Duration.THIRTY_SECONDS);
+
     public BasicAttributeSensor<String> JDBC_ADDRESS =
             new BasicAttributeSensor<String>(String.class, "service.mysql.jdbc", "Jcbd string " +
                     "provided by the Cloud Foundry service");
+
+    public AttributeSensor<Boolean> DATABASE_INITIALIZED = Sensors.newBooleanSensor(
+            "service.mysql.init.done", "Whether the creation script was run on the database");
+
+    public AttributeSensor<Long> DATABASE_INIT_ROWS = Sensors.newLongSensor(
+            "service.mysql.init.rows", "Rows changed by the creation script");
+
+    public AttributeSensor<Long> DATABASE_INIT_ELAPSED = Sensors.newLongSensor(
+            "service.mysql.init.elapsed", "Time taken by the creation script, in milliseconds");
+
+    public AttributeSensor<Integer> DB_THREADS_CONNECTED = Sensors.newIntegerSensor(
+            "service.mysql.threads.connected", "Connections open to the database");
+
+    public AttributeSensor<Double> DB_QUERIES_PER_SECOND = Sensors.newDoubleSensor(
+            "service.mysql.queries.perSec", "Statements run by the database per second");
+
+    public AttributeSensor<Long> DB_SLOW_QUERIES = Sensors.newLongSensor(
+            "service.mysql.queries.slow", "Queries that took longer than long_query_time");
+
+    public AttributeSensor<Double> DB_BUFFER_POOL_HIT_RATIO = Sensors.newDoubleSensor(
+            "service.mysql.innodb.bufferPool.hitRatio",
+            "Share of InnoDB reads served from the buffer pool");
+
+    public AttributeSensor<Long> DB_STATUS_LATENCY = Sensors.newLongSensor(
+            "service.mysql.status.latency",
+            "Time taken by the database to answer the status query, in milliseconds");
 }
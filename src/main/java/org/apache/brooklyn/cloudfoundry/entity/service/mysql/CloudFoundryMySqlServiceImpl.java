@@ -19,16 +19,25 @@
 package org.apache.brooklyn.cloudfoundry.entity.service.mysql;
 
 import com.google.common.annotations.Beta;
+import com.google.common.base.Function;
+import com.google.common.base.Functions;
 import org.apache.brooklyn.api.entity.Entity;
+import org.apache.brooklyn.api.sensor.AttributeSensor;
 import org.apache.brooklyn.cloudfoundry.entity.service.VanillaCloudFoundryServiceImpl;
+import org.apache.brooklyn.feed.function.FunctionFeed;
+import org.apache.brooklyn.feed.function.FunctionPollConfig;
 import org.apache.brooklyn.util.collections.MutableMap;
+import org.apache.brooklyn.util.time.Duration;
 
 import java.util.Map;
+import java.util.concurrent.Callable;
 
 @Beta
 public class CloudFoundryMySqlServiceImpl extends VanillaCloudFoundryServiceImpl
         implements CloudFoundryMySqlService {
 
+    private FunctionFeed databaseStatus;
+
     public CloudFoundryMySqlServiceImpl() {
         super(MutableMap.of(), null);
     }
@@ -60,6 +69,88 @@ public class CloudFoundryMySqlServiceImpl extends VanillaCloudFoundryServiceImpl
         getDriver().operationAfterBindingTo(applicationName);
     }
 
+    @Override
+    protected void postDriverStart() {
+        super.postDriverStart();
+        // already published if the sensors were connected straight away
+        if (!connectedSensors) {
+            getDriver().publishJdbcAddress();
+        }
+    }
+
+    @Override
+    protected void connectSensors() {
+        super.connectSensors();
+        // also on rebind, where it restores the credentials used by the status sensors
+        getDriver().publishJdbcAddress();
+        if (Boolean.TRUE.equals(getConfig(MONITORING_ENABLED))) {
+            connectDatabaseStatusSensors();
+        }
+    }
+
+    protected void connectDatabaseStatusSensors() {
+        Duration period = getConfig(MONITORING_PERIOD);
+        // every poll of a period shares the same sample
+        final Duration maxAge = Duration.millis(period.toMilliseconds() / 2);
+        databaseStatus = FunctionFeed.builder()
+                .entity(this)
+                .uniqueTag("cloudfoundry-mysql-database-status")
+                .period(period)
+                .poll(statusPoll(DB_THREADS_CONNECTED, maxAge,
+                        new Function<DatabaseStatusSampler.Sample, Integer>() {
+                            public Integer apply(DatabaseStatusSampler.Sample sample) {
+                                return sample.getThreadsConnected();
+                            }
+                        }))
+                .poll(statusPoll(DB_QUERIES_PER_SECOND, maxAge,
+                        new Function<DatabaseStatusSampler.Sample, Double>() {
+                            public Double apply(DatabaseStatusSampler.Sample sample) {
+                                return sample.getQueriesPerSecond();
+                            }
+                        }))
+                .poll(statusPoll(DB_SLOW_QUERIES, maxAge,
+                        new Function<DatabaseStatusSampler.Sample, Long>() {
+                            public Long apply(DatabaseStatusSampler.Sample sample) {
+                                return sample.getSlowQueries();
+                            }
+                        }))
+                .poll(statusPoll(DB_BUFFER_POOL_HIT_RATIO, maxAge,
+                        new Function<DatabaseStatusSampler.Sample, Double>() {
+                            public Double apply(DatabaseStatusSampler.Sample sample) {
+                                return sample.getBufferPoolHitRatio();
+                            }
+                        }))
+                .poll(statusPoll(DB_STATUS_LATENCY, maxAge,
+                        new Function<DatabaseStatusSampler.Sample, Long>() {
+                            public Long apply(DatabaseStatusSampler.Sample sample) {
+                                return sample.getLatencyMillis();
+                            }
+                        }))
+                .build();
+    }
+
+    private <T> FunctionPollConfig<T, T> statusPoll(AttributeSensor<T> sensor,
+                                                    final Duration maxAge,
+                                                    final Function<DatabaseStatusSampler.Sample, T> value) {
+        return new FunctionPollConfig<T, T>(sensor)
+                .onException(Functions.<T>constant(null))
+                .callable(new Callable<T>() {
+                    public T call() {
+                        DatabaseStatusSampler.Sample sample = getDriver().getDatabaseStatus(maxAge);
+                        return (sample != null) ? value.apply(sample) : null;
+                    }
+                });
+    }
+
+    @Override
+    protected void disconnectSensors() {
+        if (databaseStatus != null) {
+            databaseStatus.stop();
+            databaseStatus = null;
+        }
+        super.disconnectSensors();
+    }
+
     public String getCreationScriptUrl() {
         return getConfig(CREATION_SCRIPT_TEMPLATE);
     }
@@ -0,0 +1,138 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.brooklyn.cloudfoundry.entity.service.mysql;
+
+import org.apache.brooklyn.cloudfoundry.utils.JdbcConnectionPool;
+import org.apache.brooklyn.cloudfoundry.utils.SqlScriptSplitter;
+import org.apache.brooklyn.util.time.Duration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Runs a creation script against a database. Statements are read one at a time from the
+ * script and sent in JDBC batches, all of them in a single transaction.
+ */
+public class DatabaseInitializer {
+
+    private static final Logger log = LoggerFactory.getLogger(DatabaseInitializer.class);
+
+    private final JdbcConnectionPool pool;
+    private final int batchSize;
+    private final Duration connectionTimeout;
+
+    public DatabaseInitializer(JdbcConnectionPool pool, int batchSize, Duration connectionTimeout) {
+        checkArgument(batchSize > 0, "batchSize must be positive");
+        this.pool = checkNotNull(pool, "pool");
+        this.batchSize = batchSize;
+        this.connectionTimeout = checkNotNull(connectionTimeout, "connectionTimeout");
+    }
+
+    public Result run(Reader script) throws SQLException, IOException {
+        long start = System.currentTimeMillis();
+        SqlScriptSplitter splitter = new SqlScriptSplitter(script);
+        Connection connection = pool.getConnection(connectionTimeout.toMilliseconds());
+        int statements = 0;
+        long rows = 0;
+        try {
+            connection.setAutoCommit(false);
+            try (Statement statement = connection.createStatement()) {
+                String sql;
+                int batched = 0;
+                while ((sql = splitter.nextStatement()) != null) {
+                    statement.addBatch(sql);
+                    statements++;
+                    if (++batched == batchSize) {
+                        rows += executeBatch(statement);
+                        batched = 0;
+                    }
+                }
+                if (batched > 0) {
+                    rows += executeBatch(statement);
+                }
+            }
+            connection.commit();
+            connection.setAutoCommit(true);
+        } catch (SQLException | IOException | RuntimeException e) {
+            rollbackQuietly(connection);
+            throw e;
+        } finally {
+            pool.release(connection);
+        }
+        Result result = new Result(statements, rows, System.currentTimeMillis() - start);
+        log.info("Initialized database {}: {}", pool.getUrl(), result);
+        return result;
+    }
+
+    private static long executeBatch(Statement statement) throws SQLException {
+        long rows = 0;
+        for (int count : statement.executeBatch()) {
+            if (count > 0) {
+                rows += count;
+            }
+        }
+        return rows;
+    }
+
+    private static void rollbackQuietly(Connection connection) {
+        try {
+            connection.rollback();
+        } catch (SQLException e) {
+            log.debug("Error rolling back database initialization: {}", e.toString());
+        }
+    }
+
+    public static class Result {
+
+        private final int statements;
+        private final long rows;
+        private final long elapsedMillis;
+
+        public Result(int statements, long rows, long elapsedMillis) {
+            this.statements = statements;
+            this.rows = rows;
+            this.elapsedMillis = elapsedMillis;
+        }
+
+        public int getStatements() {
+            return statements;
+        }
+
+        public long getRows() {
+            return rows;
+        }
+
+        public long getElapsedMillis() {
+            return elapsedMillis;
+        }
+
+        @Override
+        public String toString() {
+            return statements + " statements, " + rows + " rows in " + elapsedMillis + "ms";
+        }
+    }
+}
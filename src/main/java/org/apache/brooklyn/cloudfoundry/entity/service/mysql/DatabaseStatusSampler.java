@@ -0,0 +1,175 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.brooklyn.cloudfoundry.entity.service.mysql;
+
+import com.google.common.annotations.VisibleForTesting;
+import org.apache.brooklyn.cloudfoundry.utils.JdbcConnectionPool;
+import org.apache.brooklyn.util.collections.MutableMap;
+import org.apache.brooklyn.util.time.Duration;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Samples the global status counters of a MySQL server and turns them into rates between
+ * consecutive samples.
+ */
+public class DatabaseStatusSampler {
+
+    static final String THREADS_CONNECTED = "Threads_connected";
+    static final String QUERIES = "Queries";
+    static final String SLOW_QUERIES = "Slow_queries";
+    static final String BUFFER_POOL_READS = "Innodb_buffer_pool_reads";
+    static final String BUFFER_POOL_READ_REQUESTS = "Innodb_buffer_pool_read_requests";
+
+    private static final String STATUS_QUERY = "SHOW GLOBAL STATUS WHERE Variable_name IN ('"
+            + THREADS_CONNECTED + "', '" + QUERIES + "', '" + SLOW_QUERIES + "', '"
+            + BUFFER_POOL_READS + "', '" + BUFFER_POOL_READ_REQUESTS + "')";
+
+    private final JdbcConnectionPool pool;
+    private final Duration connectionTimeout;
+    private Map<String, Long> lastCounters;
+    private long lastSampleMillis;
+    private volatile Sample lastSample;
+
+    public DatabaseStatusSampler(JdbcConnectionPool pool, Duration connectionTimeout) {
+        this.pool = checkNotNull(pool, "pool");
+        this.connectionTimeout = checkNotNull(connectionTimeout, "connectionTimeout");
+    }
+
+    public JdbcConnectionPool getPool() {
+        return pool;
+    }
+
+    /**
+     * @return the last sample if it is more recent than {@code maxAge}, or a new one
+     */
+    public synchronized Sample sample(Duration maxAge) throws SQLException {
+        Sample sample = lastSample;
+        if (sample != null
+                && System.currentTimeMillis() - sample.getTimestamp() < maxAge.toMilliseconds()) {
+            return sample;
+        }
+        long start = System.currentTimeMillis();
+        Map<String, Long> counters = readCounters();
+        long now = System.currentTimeMillis();
+        sample = compute(lastCounters, lastSampleMillis, counters, now, now - start);
+        lastCounters = counters;
+        lastSampleMillis = now;
+        lastSample = sample;
+        return sample;
+    }
+
+    private Map<String, Long> readCounters() throws SQLException {
+        Map<String, Long> counters = MutableMap.of();
+        Connection connection = pool.getConnection(connectionTimeout.toMilliseconds());
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(STATUS_QUERY)) {
+            while (resultSet.next()) {
+                try {
+                    counters.put(resultSet.getString(1), Long.parseLong(resultSet.getString(2)));
+                } catch (NumberFormatException e) {
+                    // not a counter
+                }
+            }
+        } finally {
+            pool.release(connection);
+        }
+        return counters;
+    }
+
+    @VisibleForTesting
+    static Sample compute(Map<String, Long> previous, long previousMillis,
+                          Map<String, Long> current, long currentMillis, long latencyMillis) {
+        Double queriesPerSecond = null;
+        long readRequests = get(current, BUFFER_POOL_READ_REQUESTS);
+        long reads = get(current, BUFFER_POOL_READS);
+        if (previous != null && currentMillis > previousMillis) {
+            double seconds = (currentMillis - previousMillis) / 1000d;
+            queriesPerSecond = Math.max(0, get(current, QUERIES) - get(previous, QUERIES)) / seconds;
+            if (readRequests > get(previous, BUFFER_POOL_READ_REQUESTS)) {
+                readRequests -= get(previous, BUFFER_POOL_READ_REQUESTS);
+                reads -= get(previous, BUFFER_POOL_READS);
+            }
+        }
+        Double hitRatio = (readRequests > 0)
+                ? Math.max(0d, 1d - (double) Math.max(0, reads) / readRequests)
+                : null;
+        Long threads = current.get(THREADS_CONNECTED);
+        return new Sample(currentMillis, (threads != null) ? threads.intValue() : null,
+                queriesPerSecond, current.get(SLOW_QUERIES), hitRatio, latencyMillis);
+    }
+
+    private static long get(Map<String, Long> counters, String name) {
+        Long value = counters.get(name);
+        return (value != null) ? value : 0L;
+    }
+
+    public static class Sample {
+
+        private final long timestamp;
+        private final Integer threadsConnected;
+        private final Double queriesPerSecond;
+        private final Long slowQueries;
+        private final Double bufferPoolHitRatio;
+        private final long latencyMillis;
+
+        public Sample(long timestamp, Integer threadsConnected, Double queriesPerSecond,
+                      Long slowQueries, Double bufferPoolHitRatio, long latencyMillis) {
+            this.timestamp = timestamp;
+            this.threadsConnected = threadsConnected;
+            this.queriesPerSecond = queriesPerSecond;
+            this.slowQueries = slowQueries;
+            this.bufferPoolHitRatio = bufferPoolHitRatio;
+            this.latencyMillis = latencyMillis;
+        }
+
+        public long getTimestamp() {
+            return timestamp;
+        }
+
+        public Integer getThreadsConnected() {
+            return threadsConnected;
+        }
+
+        /**
+         * @return queries per second since the previous sample, or null for the first one
+         */
+        public Double getQueriesPerSecond() {
+            return queriesPerSecond;
+        }
+
+        public Long getSlowQueries() {
+            return slowQueries;
+        }
+
+        public Double getBufferPoolHitRatio() {
+            return bufferPoolHitRatio;
+        }
+
+        public long getLatencyMillis() {
+            return latencyMillis;
+        }
+    }
+}
@@ -19,14 +19,28 @@
 package org.apache.brooklyn.cloudfoundry.entity.service.mysql;
 
 import com.google.common.annotations.Beta;
+import org.apache.brooklyn.api.sensor.AttributeSensor;
 import org.apache.brooklyn.cloudfoundry.entity.service.VanillaPaasServiceCloudFoundryDriver;
 import org.apache.brooklyn.cloudfoundry.location.CloudFoundryPaasLocation;
+import org.apache.brooklyn.cloudfoundry.utils.JdbcConnectionPool;
+import org.apache.brooklyn.cloudfoundry.utils.TemplateCache;
+import org.apache.brooklyn.core.entity.lifecycle.ServiceStateLogic.ServiceNotUpLogic;
+import org.apache.brooklyn.util.collections.MutableMap;
 import org.apache.brooklyn.util.core.ResourceUtils;
-
-import java.sql.Connection;
-import java.sql.DriverManager;
-import java.sql.Statement;
+import org.apache.brooklyn.util.exceptions.Exceptions;
+import org.apache.brooklyn.util.text.Strings;
+import org.apache.brooklyn.util.time.Duration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
 import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
@@ -34,7 +48,18 @@ import static com.google.common.base.Preconditions.checkNotNull;
 public class PaasMySqlServiceCloudFoundryDriver extends VanillaPaasServiceCloudFoundryDriver
         implements PaasMySqlServiceDriver {
 
+    private static final Logger log = LoggerFactory.getLogger(PaasMySqlServiceCloudFoundryDriver.class);
+
     private static final String JDBC_PREFIX = "jdbc:";
+    private static final String MYSQL_DRIVER = "com.mysql.jdbc.Driver";
+    private static final String INIT_NOT_UP_INDICATOR = "database.init";
+    private static final String USERNAME = "username";
+    private static final String PASSWORD = "password";
+    private static final AtomicBoolean MISSING_DRIVER_LOGGED = new AtomicBoolean();
+
+    private volatile Map<String, String> credentials;
+    private JdbcConnectionPool connectionPool;
+    private DatabaseStatusSampler statusSampler;
 
     public PaasMySqlServiceCloudFoundryDriver(CloudFoundryMySqlServiceImpl entity, CloudFoundryPaasLocation location) {
         super(entity, location);
@@ -46,18 +71,43 @@ public class PaasMySqlServiceCloudFoundryDriver extends VanillaPaasServiceCloudF
 
     @Override
     public void operationAfterBindingTo(String applicationName) {
-        Map<String, String> credentials = getCredentials(applicationName);
-        String jdbcAddress = jdbcAddress(credentials.get(DB_URI));
+        String jdbcAddress = getEntity().getAttribute(CloudFoundryMySqlService.JDBC_ADDRESS);
+        if (jdbcAddress == null) {
+            Map<String, String> credentials = getCredentials(applicationName);
+            jdbcAddress = jdbcAddress(credentials.get(DB_URI));
+            this.credentials = credentials;
+        }
         initDatabase(jdbcAddress);
     }
 
+    @Override
+    public void publishJdbcAddress() {
+        Map<String, String> credentials;
+        try {
+            credentials = getServiceKeyCredentials();
+        } catch (Exception e) {
+            log.warn("Could not read the credentials of {} from a service key, they will be " +
+                    "read once it is bound: {}", serviceInstanceId, e.toString());
+            return;
+        }
+        if (credentials != null && credentials.get(DB_URI) != null) {
+            this.credentials = credentials;
+            getEntity().sensors().set(CloudFoundryMySqlService.JDBC_ADDRESS,
+                    jdbcAddress(credentials.get(DB_URI)));
+        }
+    }
+
     protected Map<String, String> getCredentials(String applicationName) {
         return getLocation().getCredentialsServiceForApplication(applicationName, serviceInstanceId);
     }
 
     private void initDatabase(String jdbcAddress) {
-        //initDatabaseWithScript(jdbcAddress);
         getEntity().sensors().set(CloudFoundryMySqlService.JDBC_ADDRESS, jdbcAddress);
+        String scriptUrl = getEntity().getCreationScriptUrl();
+        if (Strings.isNonBlank(scriptUrl) && !Boolean.TRUE.equals(
+                getEntity().getAttribute(CloudFoundryMySqlService.DATABASE_INITIALIZED))) {
+            initDatabaseWithScript(jdbcAddress, scriptUrl);
+        }
     }
 
     private String jdbcAddress(String dbUri) {
@@ -65,31 +115,124 @@ public class PaasMySqlServiceCloudFoundryDriver extends VanillaPaasServiceCloudF
         return JDBC_PREFIX + dbUri;
     }
 
-    //TODO: use this method
-    private void initDatabaseWithScript(String jdbcAddress) {
-        Connection con;
-        Statement stmt;
-        String DRIVER = "com.mysql.jdbc.Driver";
+    /**
+     * Runs the creation script once. A failure is reported through the service-up
+     * indicators of the entity rather than failing the binding that triggered it.
+     */
+    private synchronized void initDatabaseWithScript(String jdbcAddress, String scriptUrl) {
+        if (Boolean.TRUE.equals(
+                getEntity().getAttribute(CloudFoundryMySqlService.DATABASE_INITIALIZED))) {
+            return;
+        }
+        loadDriverClass();
+        DatabaseInitializer initializer = new DatabaseInitializer(getConnectionPool(jdbcAddress),
+                getEntity().getConfig(CloudFoundryMySqlService.INIT_BATCH_SIZE),
+                getEntity().getConfig(CloudFoundryMySqlService.CONNECTION_TIMEOUT));
+        try (Reader script = openCreationScript(scriptUrl)) {
+            DatabaseInitializer.Result result = initializer.run(script);
+            getEntity().sensors().set(CloudFoundryMySqlService.DATABASE_INIT_ROWS,
+                    result.getRows());
+            getEntity().sensors().set(CloudFoundryMySqlService.DATABASE_INIT_ELAPSED,
+                    result.getElapsedMillis());
+            getEntity().sensors().set(CloudFoundryMySqlService.DATABASE_INITIALIZED, true);
+            ServiceNotUpLogic.clearNotUpIndicator(getEntity(), INIT_NOT_UP_INDICATOR);
+        } catch (Exception e) {
+            log.error("Error running creation script {} on service {}: {}",
+                    new Object[]{scriptUrl, serviceInstanceId, e});
+            ServiceNotUpLogic.updateNotUpIndicator(getEntity(), INIT_NOT_UP_INDICATOR,
+                    "Creation script " + scriptUrl + " failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Opens the creation script, rendered as a template with the config and sensors of the
+     * entity as the model if it has any template directive. Templates are compiled once for
+     * all the services that share them; other scripts are streamed as they are.
+     */
+    private Reader openCreationScript(String scriptUrl) throws IOException {
+        Map<String, Object> attributes = MutableMap.of();
+        for (Map.Entry<AttributeSensor<?>, Object> entry
+                : getEntity().sensors().getAll().entrySet()) {
+            attributes.put(entry.getKey().getName(), entry.getValue());
+        }
+        Map<String, Object> model = MutableMap.<String, Object>of(
+                "entity", getEntity(),
+                "config", getEntity().config().getBag().getAllConfig(),
+                "attribute", attributes);
+        return TemplateCache.getInstance().openScript(scriptUrl,
+                () -> new InputStreamReader(
+                        new ResourceUtils(getEntity()).getResourceFromUrl(scriptUrl),
+                        StandardCharsets.UTF_8),
+                model);
+    }
+
+    private synchronized JdbcConnectionPool getConnectionPool(String jdbcAddress) {
+        if (connectionPool == null || !connectionPool.getUrl().equals(jdbcAddress)) {
+            closeConnectionPool();
+            connectionPool = new JdbcConnectionPool(jdbcAddress, getConnectionProperties(),
+                    getEntity().getConfig(CloudFoundryMySqlService.CONNECTION_POOL_SIZE));
+        }
+        return connectionPool;
+    }
+
+    @Override
+    public DatabaseStatusSampler.Sample getDatabaseStatus(Duration maxAge) {
+        String jdbcAddress = getEntity().getAttribute(CloudFoundryMySqlService.JDBC_ADDRESS);
+        if (jdbcAddress == null) {
+            return null;
+        }
         try {
-            Class.forName(DRIVER).newInstance();
+            return getStatusSampler(jdbcAddress).sample(maxAge);
+        } catch (SQLException e) {
+            throw Exceptions.propagate(e);
+        }
+    }
+
+    private synchronized DatabaseStatusSampler getStatusSampler(String jdbcAddress) {
+        loadDriverClass();
+        JdbcConnectionPool pool = getConnectionPool(jdbcAddress);
+        if (statusSampler == null || statusSampler.getPool() != pool) {
+            statusSampler = new DatabaseStatusSampler(pool,
+                    getEntity().getConfig(CloudFoundryMySqlService.CONNECTION_TIMEOUT));
+        }
+        return statusSampler;
+    }
 
-            con = DriverManager.getConnection(jdbcAddress);
-            stmt = con.createStatement();
-            String sqlContent;
+    private Properties getConnectionProperties() {
+        Properties properties = new Properties();
+        Map<String, String> current = credentials;
+        if (current != null && current.get(USERNAME) != null) {
+            properties.setProperty("user", current.get(USERNAME));
+            if (current.get(PASSWORD) != null) {
+                properties.setProperty(PASSWORD, current.get(PASSWORD));
+            }
+        }
+        return properties;
+    }
 
-            sqlContent = getContentResourceFromUrl(getEntity().getCreationScriptUrl());
+    private synchronized void closeConnectionPool() {
+        if (connectionPool != null) {
+            connectionPool.close();
+            connectionPool = null;
+            statusSampler = null;
+        }
+    }
 
-            stmt.execute(sqlContent);
-            stmt.close();
-            con.close();
-        } catch (Exception e) {
-            throw new RuntimeException("Error during database creation in driver" + this +
-                    " deploying service " + getEntity().getId());
+    private static void loadDriverClass() {
+        try {
+            Class.forName(MYSQL_DRIVER);
+        } catch (ClassNotFoundException e) {
+            if (MISSING_DRIVER_LOGGED.compareAndSet(false, true)) {
+                log.warn("{} is not on the classpath, the creation script and the database "
+                        + "status need a MySQL connector among the registered JDBC drivers",
+                        MYSQL_DRIVER);
+            }
         }
     }
 
-    private String getContentResourceFromUrl(String url) {
-        return new ResourceUtils(getEntity())
-                .getResourceAsString(url);
+    @Override
+    public void delete() {
+        closeConnectionPool();
+        super.delete();
     }
 }
@@ -21,6 +21,7 @@ package org.apache.brooklyn.cloudfoundry.entity.service.mysql;
 
 import com.google.common.annotations.Beta;
 import org.apache.brooklyn.cloudfoundry.entity.service.VanillaPaasServiceDriver;
+import org.apache.brooklyn.util.time.Duration;
 
 @Beta
 public interface PaasMySqlServiceDriver extends VanillaPaasServiceDriver {
@@ -29,4 +30,16 @@ public interface PaasMySqlServiceDriver extends VanillaPaasServiceDriver {
 
     public void operationAfterBindingTo(String applicationName);
 
+    /**
+     * Publishes the JDBC address read from the service key, so it is known before any
+     * application is bound.
+     */
+    public void publishJdbcAddress();
+
+    /**
+     * @return the status of the database, sampled again if the last sample is older than
+     * {@code maxAge}, or null while its address is not known
+     */
+    public DatabaseStatusSampler.Sample getDatabaseStatus(Duration maxAge);
+
 }
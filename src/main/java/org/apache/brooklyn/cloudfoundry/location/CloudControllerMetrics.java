@@ -0,0 +1,130 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.brooklyn.cloudfoundry.location;
+
+import org.apache.brooklyn.util.collections.MutableMap;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters of the Cloud Controller calls made by a location, per
+ * {@link CloudControllerOperation}.
+ */
+public class CloudControllerMetrics {
+
+    private final Map<CloudControllerOperation, Counters> counters =
+            new EnumMap<CloudControllerOperation, Counters>(CloudControllerOperation.class);
+
+    public CloudControllerMetrics() {
+        for (CloudControllerOperation operation : CloudControllerOperation.values()) {
+            counters.put(operation, new Counters());
+        }
+    }
+
+    void onCall(CloudControllerOperation operation) {
+        counters.get(operation).calls.incrementAndGet();
+    }
+
+    void onFailure(CloudControllerOperation operation) {
+        counters.get(operation).failures.incrementAndGet();
+    }
+
+    void onRetry(CloudControllerOperation operation) {
+        counters.get(operation).retries.incrementAndGet();
+    }
+
+    void onTimeout(CloudControllerOperation operation) {
+        counters.get(operation).timeouts.incrementAndGet();
+    }
+
+    void onRejected(CloudControllerOperation operation) {
+        counters.get(operation).rejected.incrementAndGet();
+    }
+
+    void onRateLimited(CloudControllerOperation operation) {
+        counters.get(operation).rateLimited.incrementAndGet();
+    }
+
+    public long getCalls(CloudControllerOperation operation) {
+        return counters.get(operation).calls.get();
+    }
+
+    public long getFailures(CloudControllerOperation operation) {
+        return counters.get(operation).failures.get();
+    }
+
+    public long getRetries(CloudControllerOperation operation) {
+        return counters.get(operation).retries.get();
+    }
+
+    public long getTimeouts(CloudControllerOperation operation) {
+        return counters.get(operation).timeouts.get();
+    }
+
+    /**
+     * @return number of calls not attempted because the circuit breaker was open
+     */
+    public long getRejected(CloudControllerOperation operation) {
+        return counters.get(operation).rejected.get();
+    }
+
+    /**
+     * @return number of calls rejected because no rate limiter permit was obtained in time
+     */
+    public long getRateLimited(CloudControllerOperation operation) {
+        return counters.get(operation).rateLimited.get();
+    }
+
+    /**
+     * @return the non-zero counters, keyed by {@code <operation>.<counter>}
+     */
+    public Map<String, Long> asMap() {
+        Map<String, Long> result = MutableMap.of();
+        for (Map.Entry<CloudControllerOperation, Counters> entry : counters.entrySet()) {
+            entry.getValue().putTo(result, entry.getKey().name().toLowerCase());
+        }
+        return result;
+    }
+
+    private static class Counters {
+        private final AtomicLong calls = new AtomicLong();
+        private final AtomicLong failures = new AtomicLong();
+        private final AtomicLong retries = new AtomicLong();
+        private final AtomicLong timeouts = new AtomicLong();
+        private final AtomicLong rateLimited = new AtomicLong();
+        private final AtomicLong rejected = new AtomicLong();
+
+        void putTo(Map<String, Long> result, String prefix) {
+            putIfNotZero(result, prefix + ".calls", calls);
+            putIfNotZero(result, prefix + ".failures", failures);
+            putIfNotZero(result, prefix + ".retries", retries);
+            putIfNotZero(result, prefix + ".timeouts", timeouts);
+            putIfNotZero(result, prefix + ".rateLimited", rateLimited);
+            putIfNotZero(result, prefix + ".rejected", rejected);
+        }
+
+        private void putIfNotZero(Map<String, Long> result, String key, AtomicLong value) {
+            if (value.get() != 0) {
+                result.put(key, value.get());
+            }
+        }
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.brooklyn.cloudfoundry.location;
+
+/**
+ * Calls made by {@link CloudFoundryPaasLocation} to the Cloud Controller. Only idempotent
+ * operations are retried after a transient failure; the {@link Kind} of an operation selects
+ * its timeout.
+ */
+public enum CloudControllerOperation {
+
+    GET_APPLICATION(Kind.READ, true),
+    GET_ENVIRONMENT(Kind.READ, true),
+    PUSH(Kind.PUSH, false),
+    START(Kind.STAGING, false),
+    STOP(Kind.WRITE, true),
+    RESTART(Kind.STAGING, false),
+    DELETE_APPLICATION(Kind.WRITE, true),
+    SET_ENV(Kind.WRITE, true),
+    // changing memory or disk restarts the application
+    SCALE(Kind.STAGING, true),
+    CREATE_SERVICE(Kind.WRITE, false),
+    GET_SERVICE(Kind.READ, true),
+    DELETE_SERVICE(Kind.WRITE, true),
+    BIND_SERVICE(Kind.WRITE, false),
+    UNBIND_SERVICE(Kind.WRITE, false),
+    CREATE_SERVICE_KEY(Kind.WRITE, false),
+    GET_SERVICE_KEY(Kind.READ, true),
+    DELETE_SERVICE_KEY(Kind.WRITE, true),
+    LIST_APPLICATIONS(Kind.READ, true),
+    LIST_SERVICES(Kind.READ, true),
+    // mapping a route twice, or unmapping a route which is not mapped, is harmless
+    MAP_ROUTE(Kind.WRITE, true),
+    UNMAP_ROUTE(Kind.WRITE, true);
+
+    public enum Kind {
+        READ,
+        WRITE,
+        PUSH,
+        STAGING
+    }
+
+    private final Kind kind;
+    private final boolean idempotent;
+
+    CloudControllerOperation(Kind kind, boolean idempotent) {
+        this.kind = kind;
+        this.idempotent = idempotent;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public boolean isIdempotent() {
+        return idempotent;
+    }
+}
@@ -18,27 +18,52 @@
  */
 package org.apache.brooklyn.cloudfoundry.location;
 
-import com.google.common.collect.Iterables;
+import com.google.common.base.Throwables;
+import org.apache.brooklyn.api.entity.Entity;
+import org.apache.brooklyn.config.ConfigKey;
 import org.apache.brooklyn.cloudfoundry.entity.VanillaCloudFoundryApplication;
 import org.apache.brooklyn.cloudfoundry.entity.service.VanillaCloudFoundryService;
+import org.apache.brooklyn.cloudfoundry.location.domain.Route;
 import org.apache.brooklyn.cloudfoundry.location.domain.VcapServiceRegistry;
+import org.apache.brooklyn.cloudfoundry.location.domain.credentials.ServiceEndpoint;
+import org.apache.brooklyn.cloudfoundry.utils.CircuitBreaker;
+import org.apache.brooklyn.cloudfoundry.utils.CircuitBreakerOpenException;
+import org.apache.brooklyn.cloudfoundry.utils.ParallelExecution;
+import org.apache.brooklyn.cloudfoundry.utils.ReactiveStreams;
+import org.apache.brooklyn.cloudfoundry.utils.RetryPolicy;
+import org.apache.brooklyn.cloudfoundry.utils.TokenBucketRateLimiter;
 import org.apache.brooklyn.core.location.AbstractLocation;
 import org.apache.brooklyn.location.paas.PaasLocation;
+import org.apache.brooklyn.util.collections.MutableList;
 import org.apache.brooklyn.util.collections.MutableMap;
 import org.apache.brooklyn.util.core.config.ConfigBag;
 import org.apache.brooklyn.util.core.config.ResolvingConfigBag;
+import org.apache.brooklyn.util.exceptions.Exceptions;
 import org.apache.brooklyn.util.exceptions.PropagatedRuntimeException;
 import org.apache.brooklyn.util.text.Strings;
+import org.apache.brooklyn.util.time.Time;
+import org.cloudfoundry.client.v2.CloudFoundryException;
+import org.cloudfoundry.doppler.LogMessage;
 import org.cloudfoundry.operations.CloudFoundryOperations;
 import org.cloudfoundry.operations.applications.*;
+import org.cloudfoundry.operations.routes.MapRouteRequest;
+import org.cloudfoundry.operations.routes.UnmapRouteRequest;
 import org.cloudfoundry.operations.services.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
-import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
@@ -48,8 +73,19 @@ public class CloudFoundryPaasLocation extends AbstractLocation
 
     private static final Logger log = LoggerFactory.getLogger(CloudFoundryPaasLocation.class);
     private static final String VCAP_SERVICES = "VCAP_SERVICES";
+    private static final String BLOCKING_READ_TIMEOUT = "Timeout on blocking read";
+    private static final String SERVICE_KEY_NOT_FOUND = "CF-ServiceKeyNotFound";
+    private static final Duration SERVICE_ACCEPTED_POLL = Duration.ofSeconds(2);
 
     private CloudFoundryOperations client;
+    private transient TokenBucketRateLimiter rateLimiter;
+    private transient RetryPolicy retryPolicy;
+    private transient CircuitBreaker circuitBreaker;
+    private transient CloudControllerMetrics metrics;
+    private transient FeedScheduler feedScheduler;
+    private transient SpaceReconciler spaceReconciler;
+    private transient Map<String, Map<String, String>> serviceKeyCredentials;
+    private transient Map<String, Map<String, ServiceEndpoint>> serviceEndpoints;
 
 
     public enum AppState {
@@ -108,15 +144,271 @@ public class CloudFoundryPaasLocation extends AbstractLocation
         return client;
     }
 
+    /**
+     * Runs a Cloud Controller request, once a rate limiter permit is obtained, and waits for its
+     * result. Idempotent operations are repeated after transient failures following the retry
+     * policy of the location; the last error is rethrown otherwise.
+     */
+    protected <T> T execute(CloudControllerOperation operation, Supplier<Mono<T>> request) {
+        return executeWithTimeout(operation, timeout -> request.get().block(timeout));
+    }
+
+    /**
+     * As {@link #execute(CloudControllerOperation, Supplier)}, for calls that wait for their
+     * result themselves, given the timeout of the operation.
+     */
+    protected <T> T executeWithTimeout(CloudControllerOperation operation,
+                                       Function<Duration, T> request) {
+        int attempt = 0;
+        while (true) {
+            attempt++;
+            checkCircuit(operation);
+            acquirePermit(operation);
+            getMetrics().onCall(operation);
+            try {
+                T result = request.apply(getTimeout(operation));
+                getCircuitBreaker().onSuccess();
+                return result;
+            } catch (RuntimeException e) {
+                getMetrics().onFailure(operation);
+                if (isTimeout(e)) {
+                    getMetrics().onTimeout(operation);
+                }
+                onCallFailure(e);
+                RetryPolicy policy = getRetryPolicy();
+                if (!operation.isIdempotent() || !policy.shouldRetry(attempt, e)) {
+                    throw e;
+                }
+                long backoff = policy.getBackoffMillis(attempt);
+                getMetrics().onRetry(operation);
+                log.debug("Retrying {} in {} ms after attempt {} failed: {}",
+                        new Object[]{operation, backoff, attempt, e.toString()});
+                Time.sleep(backoff);
+            }
+        }
+    }
+
+    public Duration getTimeout(CloudControllerOperation operation) {
+        ConfigKey<Duration> key;
+        switch (operation.getKind()) {
+            case READ:
+                key = READ_OPERATIONS_TIMEOUT;
+                break;
+            case PUSH:
+                key = PUSH_OPERATIONS_TIMEOUT;
+                break;
+            case STAGING:
+                key = STAGING_OPERATIONS_TIMEOUT;
+                break;
+            default:
+                key = WRITE_OPERATIONS_TIMEOUT;
+                break;
+        }
+        // a location still configured with the single timeout keeps using it until the
+        // timeout of the kind of operation is set
+        if (!isConfigured(key) && isConfigured(OPERATIONS_TIMEOUT)) {
+            return getConfig(OPERATIONS_TIMEOUT);
+        }
+        Duration timeout = getConfig(key);
+        return (timeout != null) ? timeout : getConfig(OPERATIONS_TIMEOUT);
+    }
+
+    private boolean isConfigured(ConfigKey<?> key) {
+        return config().getRaw(key).isPresent();
+    }
+
+    private boolean isTimeout(Throwable e) {
+        for (Throwable cause : Throwables.getCausalChain(e)) {
+            if (cause instanceof TimeoutException || (cause.getMessage() != null
+                    && cause.getMessage().startsWith(BLOCKING_READ_TIMEOUT))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Only transient errors count against the circuit breaker; any other error means the
+     * Cloud Controller did answer.
+     */
+    private void onCallFailure(Throwable e) {
+        if (RetryPolicy.isTransient(e)) {
+            getCircuitBreaker().onFailure();
+        } else {
+            getCircuitBreaker().onSuccess();
+        }
+    }
+
+    private void checkCircuit(CloudControllerOperation operation) {
+        if (!getCircuitBreaker().allowRequest()) {
+            getMetrics().onRejected(operation);
+            throw new CircuitBreakerOpenException("Cloud Controller circuit breaker is open in "
+                    + this + ", " + operation + " was not attempted");
+        }
+    }
+
+    private void acquirePermit(CloudControllerOperation operation) {
+        boolean acquired;
+        try {
+            acquired = getRateLimiter().acquire(getConfig(RATE_LIMIT_MAX_WAIT).toMillis());
+        } catch (InterruptedException e) {
+            getCircuitBreaker().onIgnored();
+            throw Exceptions.propagate(e);
+        }
+        if (!acquired) {
+            getCircuitBreaker().onIgnored();
+            getMetrics().onRateLimited(operation);
+            throw new IllegalStateException("Rate limit of Cloud Controller calls exceeded in "
+                    + this + " for " + operation);
+        }
+    }
+
+    protected synchronized TokenBucketRateLimiter getRateLimiter() {
+        if (rateLimiter == null) {
+            rateLimiter = new TokenBucketRateLimiter(getConfig(RATE_LIMIT_PERMITS_PER_SECOND),
+                    getConfig(RATE_LIMIT_BURST));
+        }
+        return rateLimiter;
+    }
+
+    protected synchronized CircuitBreaker getCircuitBreaker() {
+        if (circuitBreaker == null) {
+            circuitBreaker = new CircuitBreaker(getConfig(CIRCUIT_BREAKER_FAILURE_THRESHOLD),
+                    getConfig(CIRCUIT_BREAKER_OPEN_DURATION).toMillis(),
+                    getConfig(CIRCUIT_BREAKER_HALF_OPEN_PROBES));
+        }
+        return circuitBreaker;
+    }
+
+    public CircuitBreaker.State getCircuitBreakerState() {
+        return getCircuitBreaker().getState();
+    }
+
+    /**
+     * @return true while calls to the Cloud Controller are rejected without being attempted
+     */
+    public boolean isCircuitOpen() {
+        return getCircuitBreakerState() == CircuitBreaker.State.OPEN;
+    }
+
+    protected synchronized RetryPolicy getRetryPolicy() {
+        if (retryPolicy == null) {
+            retryPolicy = new RetryPolicy(getConfig(RETRY_MAX_ATTEMPTS),
+                    getConfig(RETRY_INITIAL_BACKOFF).toMillis(),
+                    getConfig(RETRY_MAX_BACKOFF).toMillis());
+        }
+        return retryPolicy;
+    }
+
+    protected synchronized FeedScheduler getFeedScheduler() {
+        if (feedScheduler == null) {
+            feedScheduler = new FeedScheduler();
+        }
+        return feedScheduler;
+    }
+
+    /**
+     * Assigns a polling slot to an entity, so that the feeds of all the entities deployed in
+     * this location do not poll at the same time.
+     */
+    public FeedScheduler.Slot scheduleFeeds(String entityId, long periodMillis, boolean jitter) {
+        return getFeedScheduler().register(entityId, periodMillis,
+                getConfig(FEED_MIN_SPACING).toMillis(), jitter);
+    }
+
+    public void unscheduleFeeds(String entityId) {
+        getFeedScheduler().unregister(entityId);
+    }
+
+    protected synchronized SpaceReconciler getSpaceReconciler() {
+        if (spaceReconciler == null) {
+            spaceReconciler = new SpaceReconciler(this);
+        }
+        return spaceReconciler;
+    }
+
+    /**
+     * Includes the entity in the periodic reconciliation of the space.
+     */
+    public void registerManagedEntity(Entity entity) {
+        getSpaceReconciler().register(entity);
+    }
+
+    public void unregisterManagedEntity(Entity entity) {
+        getSpaceReconciler().unregister(entity);
+    }
+
+    private synchronized Map<String, Map<String, String>> getServiceKeyCredentialsCache() {
+        if (serviceKeyCredentials == null) {
+            serviceKeyCredentials = new ConcurrentHashMap<String, Map<String, String>>();
+        }
+        return serviceKeyCredentials;
+    }
+
+    private synchronized Map<String, Map<String, ServiceEndpoint>> getServiceEndpointsCache() {
+        if (serviceEndpoints == null) {
+            serviceEndpoints = new ConcurrentHashMap<String, Map<String, ServiceEndpoint>>();
+        }
+        return serviceEndpoints;
+    }
+
+    public synchronized CloudControllerMetrics getMetrics() {
+        if (metrics == null) {
+            metrics = new CloudControllerMetrics();
+        }
+        return metrics;
+    }
+
+    @Override
+    public Map<String, String> toMetadataRecord() {
+        Map<String, String> result = MutableMap.copyOf(super.toMetadataRecord());
+        CircuitBreaker breaker = getCircuitBreaker();
+        result.put("circuitBreaker.state", breaker.getState().name());
+        result.put("circuitBreaker.rejected", String.valueOf(breaker.getRejectedCalls()));
+        result.put("circuitBreaker.opened", String.valueOf(breaker.getTimesOpened()));
+        TokenBucketRateLimiter limiter = getRateLimiter();
+        result.put("rateLimiter.granted", String.valueOf(limiter.getGrantedPermits()));
+        result.put("rateLimiter.throttled", String.valueOf(limiter.getThrottledPermits()));
+        result.put("rateLimiter.rejected", String.valueOf(limiter.getRejectedPermits()));
+        result.put("rateLimiter.waitedMillis", String.valueOf(limiter.getWaitedMillis()));
+        result.put("feeds.entities", String.valueOf(getFeedScheduler().getRegisteredCount()));
+        for (Map.Entry<String, Long> entry : getMetrics().asMap().entrySet()) {
+            result.put("operations." + entry.getKey(), String.valueOf(entry.getValue()));
+        }
+        return result;
+    }
+
+    /**
+     * Lists all the applications and service instances of the space, two calls whatever the
+     * number of entities.
+     */
+    public SpaceSnapshot takeSpaceSnapshot() {
+        try {
+            List<ApplicationSummary> applications = executeWithTimeout(
+                    CloudControllerOperation.LIST_APPLICATIONS, timeout ->
+                            ReactiveStreams.collectList(getClient().applications().list(), timeout));
+            List<ServiceInstance> serviceInstances = executeWithTimeout(
+                    CloudControllerOperation.LIST_SERVICES, timeout ->
+                            ReactiveStreams.collectList(getClient().services().listInstances(), timeout));
+            return new SpaceSnapshot(System.currentTimeMillis(), applications, serviceInstances);
+        } catch (Exception e) {
+            log.error("Error listing the space of {}, the error was {}", this, e);
+            throw new PropagatedRuntimeException(e);
+        }
+    }
+
     public String deploy(Map<?, ?> params) {
         ConfigBag appSetUp = ConfigBag.newInstance(params);
-        String artifact = checkNotNull(appSetUp.get(VanillaCloudFoundryApplication.ARTIFACT_PATH),
-                VanillaCloudFoundryApplication.ARTIFACT_PATH.getName() + " can not be null");
+        String dockerImage = appSetUp.get(VanillaCloudFoundryApplication.DOCKER_IMAGE);
+        String artifact = appSetUp.get(VanillaCloudFoundryApplication.ARTIFACT_PATH);
+        if (Strings.isBlank(dockerImage)) {
+            checkNotNull(artifact,
+                    VanillaCloudFoundryApplication.ARTIFACT_PATH.getName() + " can not be null");
+        }
         String name = appSetUp
                 .get(VanillaCloudFoundryApplication.APPLICATION_NAME.getConfigKey());
         String buildpack = appSetUp.get(VanillaCloudFoundryApplication.BUILDPACK);
-        Path artifactLocalPath =
-                Paths.get(artifact);
+        String stack = appSetUp.get(VanillaCloudFoundryApplication.STACK);
         String host = appSetUp.get(VanillaCloudFoundryApplication.APPLICATION_HOST);
 
         String domain = appSetUp.get(VanillaCloudFoundryApplication.APPLICATION_DOMAIN);
@@ -125,37 +417,81 @@ public class CloudFoundryPaasLocation extends AbstractLocation
         int instances = appSetUp.get(VanillaCloudFoundryApplication.REQUIRED_INSTANCES);
 
         try {
-            getClient().applications()
-                    .push(PushApplicationRequest.builder()
-                            .name(name)
-                            .buildpack(buildpack)
-                            .application(artifactLocalPath)
-                            .host(host)
-                            .noHostname(false)
-                            .domain(domain)
-                            .memory(memory)
-                            .diskQuota(disk)
-                            .instances(instances)
-                            .healthCheckType(ApplicationHealthCheck.PORT)
-                            .noStart(true)
-                            .noRoute(false)
-                            .build())
-                    .doOnSuccess(v -> log.info("Done uploading for {} in {}", name, this))
-                    .block(getConfig(OPERATIONS_TIMEOUT));
-            return getApplicationUrl(name);
+            PushApplicationRequest.Builder request = PushApplicationRequest.builder()
+                    .name(name)
+                    .host(host)
+                    .noHostname(false)
+                    .domain(domain)
+                    .memory(memory)
+                    .diskQuota(disk)
+                    .instances(instances)
+                    .healthCheckType(ApplicationHealthCheck.PORT)
+                    .noStart(true)
+                    .noRoute(false);
+            if (Strings.isBlank(dockerImage)) {
+                request.buildpack(buildpack).stack(stack).application(Paths.get(artifact));
+            } else {
+                // the platform pulls the image itself, there are no bits to upload
+                request.dockerImage(dockerImage);
+            }
+            execute(CloudControllerOperation.PUSH, () -> getClient().applications()
+                    .push(request.build())
+                    .doOnSuccess(v -> log.info("Done uploading for {} in {}", name, this)));
+            return getApplicationUrl(name, host, domain);
         } catch (Exception e) {
             log.error("Error creating application {}, error was {}", name, e);
             throw new PropagatedRuntimeException(e);
         }
     }
 
-    protected String getApplicationUrl(String applicationName) {
-        return completeUrlProtocol(getApplicationUri(applicationName));
+    public String getApplicationUrl(String applicationName) {
+        return getApplicationUrl(applicationName, null, null);
     }
 
-    protected String getApplicationUri(String applicationName) {
-        ApplicationDetail application = getApplication(applicationName);
-        return Iterables.getOnlyElement(application.getUrls());
+    /**
+     * @param host   the host of the route created on push, the name of the application if null
+     * @param domain the domain of that route, any domain if null
+     */
+    public String getApplicationUrl(String applicationName, String host, String domain) {
+        return completeUrlProtocol(getApplicationUri(applicationName, host, domain));
+    }
+
+    /**
+     * @return the route created on deploy, looked up among the routes of the application by
+     * its host and domain, as the platform does not list it first once other routes are mapped
+     */
+    protected String getApplicationUri(String applicationName, String host, String domain) {
+        List<String> urls = getApplication(applicationName).getUrls();
+        if (urls == null || urls.isEmpty()) {
+            throw new IllegalStateException("Application " + applicationName + " has no routes");
+        }
+        String prefix = (Strings.isBlank(host) ? applicationName : host).toLowerCase() + ".";
+        for (String url : urls) {
+            String candidate = url.toLowerCase();
+            if (Strings.isBlank(domain)
+                    ? candidate.startsWith(prefix) && candidate.indexOf('/') < 0
+                    : candidate.equals(prefix + domain.toLowerCase())) {
+                return url;
+            }
+        }
+        log.warn("No route of application {} matches host {} and domain {}, using {}",
+                new Object[]{applicationName, host, domain, urls.get(0)});
+        return urls.get(0);
+    }
+
+    /**
+     * @return the urls of every route mapped to the application, in the order the platform
+     * lists them
+     */
+    public List<String> getApplicationUrls(String applicationName) {
+        List<String> result = MutableList.of();
+        List<String> urls = getApplication(applicationName).getUrls();
+        if (urls != null) {
+            for (String url : urls) {
+                result.add(completeUrlProtocol(url));
+            }
+        }
+        return result;
     }
 
     private String completeUrlProtocol(String baseUrl) {
@@ -168,11 +504,10 @@ public class CloudFoundryPaasLocation extends AbstractLocation
 
     protected ApplicationDetail getApplication(final String applicationName) {
         try {
-            return getClient().applications()
+            return execute(CloudControllerOperation.GET_APPLICATION, () -> getClient().applications()
                     .get(GetApplicationRequest.builder()
                             .name(applicationName)
-                            .build())
-                    .block(getConfig(OPERATIONS_TIMEOUT));
+                            .build()));
         } catch (Exception e) {
             log.error("Error getting application {}, error was {}", applicationName, e);
             throw new PropagatedRuntimeException(e);
@@ -181,14 +516,13 @@ public class CloudFoundryPaasLocation extends AbstractLocation
 
     public void pushArtifact(String applicationName, String artifact) {
         try {
-            getClient().applications()
+            execute(CloudControllerOperation.PUSH, () -> getClient().applications()
                     .push(PushApplicationRequest.builder()
                             .name(applicationName)
                             .application(Paths.get(artifact))
                             .build())
                     .doOnSuccess(v -> log.info("Pushed artifact {}, for application " +
-                            "{} in {}", new Object[]{artifact, applicationName, this}))
-                    .block(getConfig(OPERATIONS_TIMEOUT));
+                            "{} in {}", new Object[]{artifact, applicationName, this})));
         } catch (Exception e) {
             log.error("Error pushing articat {} for application {}, error was {}",
                     new Object[]{artifact, applicationName, e});
@@ -198,28 +532,50 @@ public class CloudFoundryPaasLocation extends AbstractLocation
 
     public void startApplication(String applicationName) {
         try {
-            getClient().applications()
-                    .start(StartApplicationRequest.builder()
-                            .name(applicationName)
-                            .build())
+            execute(CloudControllerOperation.START, () -> startRequest(applicationName)
                     .doOnSuccess(v ->
-                            log.info("Application {} was started correctly", applicationName))
-                    .block(getConfig(OPERATIONS_TIMEOUT));
+                            log.info("Application {} was started correctly", applicationName)));
         } catch (Exception e) {
             log.error("Error starting application {}, error was {}", applicationName, e);
             throw new PropagatedRuntimeException(e);
         }
     }
 
+    /**
+     * Stages and starts the application without waiting for it; the returned {@link Mono}
+     * completes once the platform reports the application as started.
+     */
+    public Mono<Void> startApplicationAsync(String applicationName) {
+        checkCircuit(CloudControllerOperation.START);
+        acquirePermit(CloudControllerOperation.START);
+        getMetrics().onCall(CloudControllerOperation.START);
+        return startRequest(applicationName)
+                .timeout(getTimeout(CloudControllerOperation.START))
+                .doOnSuccess(v -> getCircuitBreaker().onSuccess())
+                .doOnError(e -> {
+                    getMetrics().onFailure(CloudControllerOperation.START);
+                    if (isTimeout(e)) {
+                        getMetrics().onTimeout(CloudControllerOperation.START);
+                    }
+                    onCallFailure(e);
+                });
+    }
+
+    private Mono<Void> startRequest(String applicationName) {
+        return getClient().applications()
+                .start(StartApplicationRequest.builder()
+                        .name(applicationName)
+                        .build());
+    }
+
     public void stopApplication(String applicationName) {
         try {
-            getClient().applications()
+            execute(CloudControllerOperation.STOP, () -> getClient().applications()
                     .stop(StopApplicationRequest.builder()
                             .name(applicationName)
                             .build())
                     .doOnSuccess(v ->
-                            log.info("Application {} was stopped correctly", applicationName))
-                    .block(getConfig(OPERATIONS_TIMEOUT));
+                            log.info("Application {} was stopped correctly", applicationName)));
         } catch (Exception e) {
             log.info("Error stopping application {}, error was {}",
                     applicationName, e);
@@ -229,13 +585,12 @@ public class CloudFoundryPaasLocation extends AbstractLocation
 
     public void restartApplication(String applicationName) {
         try {
-            getClient().applications()
+            execute(CloudControllerOperation.RESTART, () -> getClient().applications()
                     .restart(RestartApplicationRequest.builder()
                             .name(applicationName)
                             .build())
                     .doOnSuccess(v ->
-                            log.info("Application {} was restarted correctly", applicationName))
-                    .block(getConfig(OPERATIONS_TIMEOUT));
+                            log.info("Application {} was restarted correctly", applicationName)));
         } catch (Exception e) {
             log.info("Error restarting application {}, error was {}", applicationName, e);
             throw new PropagatedRuntimeException(e);
@@ -243,14 +598,14 @@ public class CloudFoundryPaasLocation extends AbstractLocation
     }
 
     public void deleteApplication(String applicationName) {
+        getServiceEndpointsCache().remove(applicationName);
         try {
-            getClient().applications()
+            execute(CloudControllerOperation.DELETE_APPLICATION, () -> getClient().applications()
                     .delete(DeleteApplicationRequest.builder()
                             .name(applicationName)
                             .build())
                     .doOnSuccess(v ->
-                            log.info("Application {} was deleted correctly", applicationName))
-                    .block(getConfig(OPERATIONS_TIMEOUT));
+                            log.info("Application {} was deleted correctly", applicationName)));
         } catch (Exception e) {
             log.info("Error deleting application {}, error was {}", applicationName, e);
             throw new PropagatedRuntimeException(e);
@@ -267,15 +622,14 @@ public class CloudFoundryPaasLocation extends AbstractLocation
 
     public void setEnv(String applicationName, String variableName, String variableValue) {
         try {
-            getClient().applications()
+            execute(CloudControllerOperation.SET_ENV, () -> getClient().applications()
                     .setEnvironmentVariable(SetEnvironmentVariableApplicationRequest.builder()
                             .name(applicationName)
                             .variableName(variableName)
                             .variableValue(variableValue)
                             .build())
                     .doOnSuccess(v -> log.info("Setting env {} with value {} for application {}",
-                            new Object[]{variableName, variableValue, applicationName}))
-                    .block(getConfig(OPERATIONS_TIMEOUT));
+                            new Object[]{variableName, variableValue, applicationName})));
         } catch (Exception e) {
             log.error("Error setting env {} with value {} for  application" +
                     " {} the error was {}", new Object[]{variableName, variableValue,
@@ -294,12 +648,11 @@ public class CloudFoundryPaasLocation extends AbstractLocation
 
     private ApplicationEnvironments getApplicationEnvironment(String applicationName) {
         try {
-            return getClient().applications()
+            return execute(CloudControllerOperation.GET_ENVIRONMENT, () -> getClient().applications()
                     .getEnvironments(GetApplicationEnvironmentsRequest.builder()
                             .name(applicationName)
                             .build())
-                    .doOnSuccess(v -> log.info("Getting environment for application {}", applicationName))
-                    .block(getConfig(OPERATIONS_TIMEOUT));
+                    .doOnSuccess(v -> log.info("Getting environment for application {}", applicationName)));
         } catch (Exception e) {
             log.error("Error getting environment for application {} the error was ", applicationName, e);
             throw new PropagatedRuntimeException(e);
@@ -323,21 +676,56 @@ public class CloudFoundryPaasLocation extends AbstractLocation
         try {
             result = getApplication(applicationName) != null;
         } catch (Exception e) {
+            rethrowIfCircuitOpen(e);
             result = false;
         }
         return result;
     }
 
+    /**
+     * A call rejected by the circuit breaker says nothing about the resource it was about.
+     */
+    private void rethrowIfCircuitOpen(Exception e) {
+        CircuitBreakerOpenException open =
+                Exceptions.getFirstThrowableOfType(e, CircuitBreakerOpenException.class);
+        if (open != null) {
+            throw open;
+        }
+    }
+
+    /**
+     * Returns the live log stream of the application. Nothing is requested from the platform
+     * until the returned {@link Flux} is subscribed to.
+     */
+    public Flux<LogMessage> getApplicationLogs(String applicationName) {
+        return getClient().applications()
+                .logs(LogsRequest.builder()
+                        .name(applicationName)
+                        .recent(false)
+                        .build());
+    }
+
+    /**
+     * @return true if the application is started and as many instances are running as desired,
+     * according to the platform
+     */
+    public boolean areInstancesRunning(String applicationName) {
+        ApplicationDetail application = getApplication(applicationName);
+        Integer running = application.getRunningInstances();
+        return AppState.STARTED.toString().equals(application.getRequestedState())
+                && application.getInstances() > 0
+                && running != null && running >= application.getInstances();
+    }
+
     public void setMemory(String applicationName, int memory) {
         try {
-            getClient().applications()
+            execute(CloudControllerOperation.SCALE, () -> getClient().applications()
                     .scale(ScaleApplicationRequest.builder()
                             .name(applicationName)
                             .memoryLimit(memory)
                             .build())
                     .doOnSuccess(v -> log.info("Setting memory {} for application {}",
-                            memory, applicationName))
-                    .block(getConfig(OPERATIONS_TIMEOUT));
+                            memory, applicationName)));
         } catch (Exception e) {
             log.error("Error setting memory {} for application {} the error was {}",
                     new Object[]{memory, applicationName, e});
@@ -347,14 +735,13 @@ public class CloudFoundryPaasLocation extends AbstractLocation
 
     public void setDiskQuota(String applicationName, final int diskQuota) {
         try {
-            getClient().applications()
+            execute(CloudControllerOperation.SCALE, () -> getClient().applications()
                     .scale(ScaleApplicationRequest.builder()
                             .name(applicationName)
                             .diskLimit(diskQuota)
                             .build())
                     .doOnSuccess(v -> log.info("Setting diskQouta {} for application {}",
-                            diskQuota, applicationName))
-                    .block(getConfig(OPERATIONS_TIMEOUT));
+                            diskQuota, applicationName)));
         } catch (Exception e) {
             log.error("Error setting diskQuota {} for application {} the error was {}",
                     new Object[]{diskQuota, applicationName, e});
@@ -364,14 +751,13 @@ public class CloudFoundryPaasLocation extends AbstractLocation
 
     public void setInstancesNumber(String applicationName, final int instances) {
         try {
-            getClient().applications()
+            execute(CloudControllerOperation.SCALE, () -> getClient().applications()
                     .scale(ScaleApplicationRequest.builder()
                             .name(applicationName)
                             .instances(instances)
                             .build())
                     .doOnSuccess(v -> log.info("Setting instances {} for application {}",
-                            instances, applicationName))
-                    .block(getConfig(OPERATIONS_TIMEOUT));
+                            instances, applicationName)));
         } catch (Exception e) {
             log.error("Error setting instances {} for application {} the error was {}",
                     new Object[]{instances, applicationName, e});
@@ -391,6 +777,11 @@ public class CloudFoundryPaasLocation extends AbstractLocation
         return getApplication(applicationName).getMemoryLimit();
     }
 
+    /**
+     * Requests the service instance and returns once the Cloud Controller has accepted it, that
+     * is once the instance is listed in the space, without waiting for an asynchronous broker to
+     * provision it: {@link #getServiceInstanceState(String)} follows the provisioning.
+     */
     public void createServiceInstance(Map<?, ?> params) {
         ConfigBag serviceSetUp = ConfigBag.newInstance(params);
         String serviceName = serviceSetUp.get(VanillaCloudFoundryService.SERVICE_NAME);
@@ -402,38 +793,68 @@ public class CloudFoundryPaasLocation extends AbstractLocation
         checkArgument(Strings.isNonBlank(plan), "Plan can not be blank");
 
         try {
-            getClient().services()
-                    .createInstance(CreateServiceInstanceRequest.builder()
-                            .serviceName(serviceName)
-                            .serviceInstanceName(instanceName)
-                            .planName(plan)
-                            .build())
-                    .doOnSuccess(v ->
-                            log.info("Service {} was created correctly", instanceName))
-                    .block(getConfig(OPERATIONS_TIMEOUT));
+            boolean accepted = executeWithTimeout(CloudControllerOperation.CREATE_SERVICE,
+                    timeout -> ReactiveStreams.awaitCompletionOr(getClient().services()
+                                    .createInstance(CreateServiceInstanceRequest.builder()
+                                            .serviceName(serviceName)
+                                            .serviceInstanceName(instanceName)
+                                            .planName(plan)
+                                            .build()),
+                            () -> isServiceInstanceListed(instanceName),
+                            SERVICE_ACCEPTED_POLL, timeout));
+            log.info("Service {} was {}", instanceName,
+                    accepted ? "accepted, its provisioning is in progress" : "created correctly");
         } catch (Exception e) {
             log.error("Error creating the service {}, the error was {}", instanceName, e);
             throw new PropagatedRuntimeException(e);
         }
     }
 
+    private boolean isServiceInstanceListed(String serviceInstanceName) {
+        try {
+            execute(CloudControllerOperation.GET_SERVICE, () -> getClient().services()
+                    .getInstance(GetServiceInstanceRequest.builder()
+                            .name(serviceInstanceName)
+                            .build()));
+            return true;
+        } catch (Exception e) {
+            rethrowIfCircuitOpen(e);
+            return false;
+        }
+    }
+
     public boolean serviceInstanceExist(String serviceInstanceName) {
         boolean result;
         try {
             result = getServiceInstance(serviceInstanceName) != null;
         } catch (Exception e) {
+            rethrowIfCircuitOpen(e);
             result = false;
         }
         return result;
     }
 
+    /**
+     * @return the state of the last operation on the service instance, which stays
+     * {@link LastOperationState#IN_PROGRESS} while an asynchronous broker provisions it
+     */
+    public LastOperationState getServiceInstanceState(String serviceInstanceName) {
+        ServiceInstance serviceInstance = getServiceInstance(serviceInstanceName);
+        // user provided instances have no broker, hence no last operation
+        LastOperationState state = (serviceInstance.getType() == ServiceInstanceType.USER_PROVIDED)
+                ? LastOperationState.SUCCEEDED
+                : LastOperationState.fromStatus(serviceInstance.getStatus());
+        log.debug("Last operation {} of service instance {} is {}",
+                new Object[]{serviceInstance.getLastOperation(), serviceInstanceName, state});
+        return state;
+    }
+
     protected ServiceInstance getServiceInstance(String serviceInstanceName) {
         try {
-            return getClient().services()
+            return execute(CloudControllerOperation.GET_SERVICE, () -> getClient().services()
                     .getInstance(GetServiceInstanceRequest.builder()
                             .name(serviceInstanceName)
-                            .build())
-                    .block(getConfig(OPERATIONS_TIMEOUT));
+                            .build()));
         } catch (Exception e) {
             log.error("Error gettin the service {} the error was {}", serviceInstanceName, e);
             throw new PropagatedRuntimeException(e);
@@ -442,28 +863,143 @@ public class CloudFoundryPaasLocation extends AbstractLocation
 
     public void deleteServiceInstance(String serviceInstanceId) {
         try {
-            getClient().services()
+            execute(CloudControllerOperation.DELETE_SERVICE, () -> getClient().services()
                     .deleteInstance(DeleteServiceInstanceRequest.builder()
                             .name(serviceInstanceId)
                             .build())
-                    .doOnSuccess(v -> log.info("Deleted service instance {}", serviceInstanceId))
-                    .block(getConfig(OPERATIONS_TIMEOUT));
+                    .doOnSuccess(v -> log.info("Deleted service instance {}", serviceInstanceId)));
         } catch (Exception e) {
             log.error("Error deleting service {}, the error was {}", serviceInstanceId, e);
             throw new PropagatedRuntimeException(e);
         }
+        String prefix = serviceKeyCacheKey(serviceInstanceId, "");
+        getServiceKeyCredentialsCache().keySet().removeIf(key -> key.startsWith(prefix));
+    }
+
+    /**
+     * @return the credentials of the service key, which is created if it does not exist yet.
+     * Credentials are cached until the key or its service instance is deleted, so they can be
+     * read without fetching the environment of a bound application.
+     */
+    public Map<String, String> getServiceKeyCredentials(String serviceInstanceName,
+                                                        String serviceKeyName) {
+        String cacheKey = serviceKeyCacheKey(serviceInstanceName, serviceKeyName);
+        Map<String, String> credentials = getServiceKeyCredentialsCache().get(cacheKey);
+        if (credentials == null) {
+            ServiceKey serviceKey = findServiceKey(serviceInstanceName, serviceKeyName);
+            if (serviceKey == null) {
+                createServiceKey(serviceInstanceName, serviceKeyName);
+                serviceKey = getServiceKey(serviceInstanceName, serviceKeyName);
+            }
+            credentials = toCredentials(serviceKey.getCredentials());
+            getServiceKeyCredentialsCache().put(cacheKey, credentials);
+        }
+        return credentials;
+    }
+
+    public void createServiceKey(String serviceInstanceName, String serviceKeyName) {
+        try {
+            execute(CloudControllerOperation.CREATE_SERVICE_KEY, () -> getClient().services()
+                    .createServiceKey(CreateServiceKeyRequest.builder()
+                            .serviceInstanceName(serviceInstanceName)
+                            .serviceKeyName(serviceKeyName)
+                            .build())
+                    .doOnSuccess(v -> log.info("Created service key {} of {}",
+                            serviceKeyName, serviceInstanceName)));
+        } catch (Exception e) {
+            log.error("Error creating service key {} of {}, the error was {}",
+                    new Object[]{serviceKeyName, serviceInstanceName, e});
+            throw new PropagatedRuntimeException(e);
+        }
+    }
+
+    protected ServiceKey getServiceKey(String serviceInstanceName, String serviceKeyName) {
+        try {
+            return execute(CloudControllerOperation.GET_SERVICE_KEY, () -> getClient().services()
+                    .getServiceKey(GetServiceKeyRequest.builder()
+                            .serviceInstanceName(serviceInstanceName)
+                            .serviceKeyName(serviceKeyName)
+                            .build()));
+        } catch (Exception e) {
+            log.error("Error getting service key {} of {}, the error was {}",
+                    new Object[]{serviceKeyName, serviceInstanceName, e});
+            throw new PropagatedRuntimeException(e);
+        }
+    }
+
+    /**
+     * @return the service key, or null if the platform says it does not exist; any other
+     * failure is thrown, as it says nothing about whether the key exists
+     */
+    private ServiceKey findServiceKey(String serviceInstanceName, String serviceKeyName) {
+        try {
+            return getServiceKey(serviceInstanceName, serviceKeyName);
+        } catch (RuntimeException e) {
+            if (isServiceKeyNotFound(e, serviceKeyName)) {
+                return null;
+            }
+            throw e;
+        }
+    }
+
+    private static boolean isServiceKeyNotFound(Exception e, String serviceKeyName) {
+        for (Throwable cause : Throwables.getCausalChain(e)) {
+            if (cause instanceof CloudFoundryException) {
+                return SERVICE_KEY_NOT_FOUND.equals(
+                        ((CloudFoundryException) cause).getErrorCode());
+            }
+            if (cause instanceof IllegalArgumentException
+                    && ("Service key " + serviceKeyName + " does not exist")
+                    .equals(cause.getMessage())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public void deleteServiceKey(String serviceInstanceName, String serviceKeyName) {
+        getServiceKeyCredentialsCache().remove(serviceKeyCacheKey(serviceInstanceName, serviceKeyName));
+        try {
+            execute(CloudControllerOperation.DELETE_SERVICE_KEY, () -> getClient().services()
+                    .deleteServiceKey(DeleteServiceKeyRequest.builder()
+                            .serviceInstanceName(serviceInstanceName)
+                            .serviceKeyName(serviceKeyName)
+                            .build())
+                    .doOnSuccess(v -> log.info("Deleted service key {} of {}",
+                            serviceKeyName, serviceInstanceName)));
+        } catch (Exception e) {
+            log.error("Error deleting service key {} of {}, the error was {}",
+                    new Object[]{serviceKeyName, serviceInstanceName, e});
+            throw new PropagatedRuntimeException(e);
+        }
+    }
+
+    private static String serviceKeyCacheKey(String serviceInstanceName, String serviceKeyName) {
+        return serviceInstanceName + "/" + serviceKeyName;
+    }
+
+    private static Map<String, String> toCredentials(Map<String, ?> credentials) {
+        Map<String, String> result = MutableMap.of();
+        if (credentials != null) {
+            for (Map.Entry<String, ?> entry : credentials.entrySet()) {
+                if (entry.getValue() != null) {
+                    result.put(entry.getKey(), String.valueOf(entry.getValue()));
+                }
+            }
+        }
+        return Collections.unmodifiableMap(result);
     }
 
     public void bindServiceToApplication(String serviceInstanceName, String applicationName) {
         try {
-            getClient().services()
+            execute(CloudControllerOperation.BIND_SERVICE, () -> getClient().services()
                     .bind(BindServiceInstanceRequest.builder()
                             .applicationName(applicationName)
                             .serviceInstanceName(serviceInstanceName)
                             .build())
                     .doOnSuccess(v -> log.info("Bound service instance {} to application {}",
-                            serviceInstanceName, applicationName))
-                    .block(getConfig(OPERATIONS_TIMEOUT));
+                            serviceInstanceName, applicationName)));
+            getServiceEndpointsCache().remove(applicationName);
         } catch (Exception e) {
             log.error("Error binding the service {} to the application {}, the error was {}",
                     new Object[]{serviceInstanceName, applicationName, e});
@@ -473,14 +1009,14 @@ public class CloudFoundryPaasLocation extends AbstractLocation
 
     public void unbindService(String serviceName, String applicationName) {
         try {
-            getClient().services()
+            execute(CloudControllerOperation.UNBIND_SERVICE, () -> getClient().services()
                     .unbind(UnbindServiceInstanceRequest.builder()
                             .applicationName(applicationName)
                             .serviceInstanceName(serviceName)
                             .build())
                     .doOnSuccess(v -> log.info("Unbound service instance {} to application {}",
-                            serviceName, applicationName))
-                    .block(getConfig(OPERATIONS_TIMEOUT));
+                            serviceName, applicationName)));
+            getServiceEndpointsCache().remove(applicationName);
         } catch (Exception e) {
             log.error("Error unbinding service {} to application {} the error was {}",
                     new Object[]{serviceName, applicationName, e});
@@ -488,9 +1024,121 @@ public class CloudFoundryPaasLocation extends AbstractLocation
         }
     }
 
+    /**
+     * Unbinds the service instance from the applications, with at most
+     * {@code maxConcurrency} calls in flight.
+     *
+     * @return the failure of every application that could not be unbound
+     */
+    public Map<String, Exception> unbindService(String serviceName,
+                                                Collection<String> applicationNames,
+                                                int maxConcurrency) {
+        Map<String, Exception> failures = ParallelExecution.forEach("unbind-" + serviceName,
+                applicationNames, maxConcurrency,
+                applicationName -> unbindService(serviceName, applicationName));
+        log.info("Unbound service instance {} from {} applications, {} failed",
+                new Object[]{serviceName, applicationNames.size(), failures.size()});
+        return failures;
+    }
+
+    public void mapRoute(String applicationName, Route route) {
+        try {
+            execute(CloudControllerOperation.MAP_ROUTE, () -> getClient().routes()
+                    .map(MapRouteRequest.builder()
+                            .applicationName(applicationName)
+                            .host(route.getHost())
+                            .domain(route.getDomain())
+                            .path(route.getPath())
+                            .build())
+                    .doOnSuccess(v -> log.info("Mapped route {} to application {}",
+                            route, applicationName)));
+        } catch (Exception e) {
+            log.error("Error mapping route {} to application {}, the error was {}",
+                    new Object[]{route, applicationName, e});
+            throw new PropagatedRuntimeException(e);
+        }
+    }
+
+    public void unmapRoute(String applicationName, Route route) {
+        try {
+            execute(CloudControllerOperation.UNMAP_ROUTE, () -> getClient().routes()
+                    .unmap(UnmapRouteRequest.builder()
+                            .applicationName(applicationName)
+                            .host(route.getHost())
+                            .domain(route.getDomain())
+                            .path(route.getPath())
+                            .build())
+                    .doOnSuccess(v -> log.info("Unmapped route {} from application {}",
+                            route, applicationName)));
+        } catch (Exception e) {
+            log.error("Error unmapping route {} from application {}, the error was {}",
+                    new Object[]{route, applicationName, e});
+            throw new PropagatedRuntimeException(e);
+        }
+    }
+
+    /**
+     * Maps the routes to the application, with at most {@code maxConcurrency} calls in flight.
+     *
+     * @return the failure of every route that could not be mapped
+     */
+    public Map<Route, Exception> mapRoutes(String applicationName, Collection<Route> routes,
+                                           int maxConcurrency) {
+        Map<Route, Exception> failures = ParallelExecution.forEach("map-" + applicationName,
+                routes, maxConcurrency, route -> mapRoute(applicationName, route));
+        log.info("Mapped {} routes to application {}, {} failed",
+                new Object[]{routes.size(), applicationName, failures.size()});
+        return failures;
+    }
+
+    /**
+     * Unmaps the routes from the application, with at most {@code maxConcurrency} calls in
+     * flight.
+     *
+     * @return the failure of every route that could not be unmapped
+     */
+    public Map<Route, Exception> unmapRoutes(String applicationName, Collection<Route> routes,
+                                             int maxConcurrency) {
+        Map<Route, Exception> failures = ParallelExecution.forEach("unmap-" + applicationName,
+                routes, maxConcurrency, route -> unmapRoute(applicationName, route));
+        log.info("Unmapped {} routes from application {}, {} failed",
+                new Object[]{routes.size(), applicationName, failures.size()});
+        return failures;
+    }
+
+    /**
+     * Moves the routes from one application to another. Every route is mapped to the target
+     * before it is unmapped from the source, so it never stops being served; a route that could
+     * not be mapped stays with the source. While a route is mapped to both applications the
+     * router balances across all of their instances, so traffic is split in proportion to the
+     * instance counts: scaling the two applications between calls shifts the weight gradually.
+     *
+     * @return the failure of every route that was not moved
+     */
+    public Map<Route, Exception> moveRoutes(Collection<Route> routes, String fromApplication,
+                                            String toApplication, int maxConcurrency) {
+        Map<Route, Exception> failures = MutableMap.copyOf(
+                mapRoutes(toApplication, routes, maxConcurrency));
+        List<Route> mapped = MutableList.of();
+        for (Route route : routes) {
+            if (!failures.containsKey(route)) {
+                mapped.add(route);
+            }
+        }
+        failures.putAll(unmapRoutes(fromApplication, mapped, maxConcurrency));
+        return failures;
+    }
+
     public boolean isServiceBoundTo(String serviceName, String applicationName) {
-        return serviceInstanceExist(serviceName)
-                && getServiceInstance(serviceName).getApplications().contains(applicationName);
+        ServiceInstance serviceInstance;
+        try {
+            serviceInstance = getServiceInstance(serviceName);
+        } catch (Exception e) {
+            rethrowIfCircuitOpen(e);
+            return false;
+        }
+        List<String> boundApplications = serviceInstance.getApplications();
+        return boundApplications != null && boundApplications.contains(applicationName);
     }
 
     public List<String> getBoundApplications(String serviceInstanceName) {
@@ -501,6 +1149,21 @@ public class CloudFoundryPaasLocation extends AbstractLocation
         return getVcapServiceRegistry(applicationName).getCredentials(serviceInstanceName);
     }
 
+    /**
+     * @return the endpoints of the services bound to the application, keyed by service
+     * instance name. VCAP_SERVICES is parsed once and the result kept until the bindings of
+     * the application change.
+     */
+    public Map<String, ServiceEndpoint> getServiceEndpoints(String applicationName) {
+        Map<String, ServiceEndpoint> endpoints = getServiceEndpointsCache().get(applicationName);
+        if (endpoints == null) {
+            endpoints = Collections.unmodifiableMap(
+                    getVcapServiceRegistry(applicationName).getServiceEndpoints());
+            getServiceEndpointsCache().put(applicationName, endpoints);
+        }
+        return endpoints;
+    }
+
     private VcapServiceRegistry getVcapServiceRegistry(String applicationName) {
         Map<String, Object> systemProvidedEnv = getSystemProvidedEnv(applicationName);
         return VcapServiceRegistry
@@ -36,6 +36,78 @@ public interface CloudFoundryPaasLocationConfig extends PaasLocationConfig {
             CloudFoundryClientRegistry.class, "cloudFoundryPaasClientRegistry",
             "Registry/Factory for creating cloudfoundry client; default is almost always fine, " +
                     "except where tests want to customize behaviour", CloudFoundryClientRegistryImpl.INSTANCE);
+
+    /**
+     * @deprecated since the per-operation timeouts were added; only used for an operation
+     * whose own timeout is not set
+     */
+    @Deprecated
     ConfigKey<Duration> OPERATIONS_TIMEOUT = ConfigKeys.newConfigKey(Duration.class,
             "operations.timeout", "Timeout for cloudfoundry operations", Duration.ofMinutes(5));
+
+    ConfigKey<Duration> READ_OPERATIONS_TIMEOUT = ConfigKeys.newConfigKey(Duration.class,
+            "operations.timeout.read", "Timeout for Cloud Controller calls reading " +
+                    "applications, environments and services", Duration.ofSeconds(30));
+
+    ConfigKey<Duration> WRITE_OPERATIONS_TIMEOUT = ConfigKeys.newConfigKey(Duration.class,
+            "operations.timeout.write", "Timeout for Cloud Controller calls changing " +
+                    "applications or services without staging them", Duration.ofMinutes(2));
+
+    ConfigKey<Duration> PUSH_OPERATIONS_TIMEOUT = ConfigKeys.newConfigKey(Duration.class,
+            "operations.timeout.push", "Timeout for uploading an application artifact",
+            Duration.ofMinutes(30));
+
+    ConfigKey<Duration> STAGING_OPERATIONS_TIMEOUT = ConfigKeys.newConfigKey(Duration.class,
+            "operations.timeout.staging", "Timeout for staging and starting an application",
+            Duration.ofMinutes(15));
+
+    ConfigKey<Double> RATE_LIMIT_PERMITS_PER_SECOND = ConfigKeys.newDoubleConfigKey(
+            "operations.rateLimit.permitsPerSecond", "Maximum sustained rate of Cloud Controller " +
+                    "calls made through this location; zero or negative disables the limit", 10d);
+
+    ConfigKey<Integer> RATE_LIMIT_BURST = ConfigKeys.newIntegerConfigKey(
+            "operations.rateLimit.burst", "Number of Cloud Controller calls that can be made " +
+                    "at once before the rate limit applies", 20);
+
+    ConfigKey<Duration> RATE_LIMIT_MAX_WAIT = ConfigKeys.newConfigKey(Duration.class,
+            "operations.rateLimit.maxWait", "Maximum time a call waits for the rate limiter " +
+                    "before failing", Duration.ofMinutes(1));
+
+    ConfigKey<Integer> RETRY_MAX_ATTEMPTS = ConfigKeys.newIntegerConfigKey(
+            "operations.retry.maxAttempts", "Maximum number of attempts of an idempotent " +
+                    "Cloud Controller call failing with a transient error", 4);
+
+    ConfigKey<Duration> RETRY_INITIAL_BACKOFF = ConfigKeys.newConfigKey(Duration.class,
+            "operations.retry.initialBackoff", "Delay before the first retry, doubled after " +
+                    "each failed attempt", Duration.ofMillis(500));
+
+    ConfigKey<Duration> RETRY_MAX_BACKOFF = ConfigKeys.newConfigKey(Duration.class,
+            "operations.retry.maxBackoff", "Maximum delay between two attempts",
+            Duration.ofSeconds(30));
+
+    ConfigKey<Integer> CIRCUIT_BREAKER_FAILURE_THRESHOLD = ConfigKeys.newIntegerConfigKey(
+            "operations.circuitBreaker.failureThreshold", "Consecutive transient failures of " +
+                    "Cloud Controller calls after which further calls fail fast; zero or " +
+                    "negative disables the circuit breaker", 5);
+
+    ConfigKey<Duration> CIRCUIT_BREAKER_OPEN_DURATION = ConfigKeys.newConfigKey(Duration.class,
+            "operations.circuitBreaker.openDuration", "Time calls fail fast before probing " +
+                    "the Cloud Controller again", Duration.ofSeconds(30));
+
+    ConfigKey<Integer> CIRCUIT_BREAKER_HALF_OPEN_PROBES = ConfigKeys.newIntegerConfigKey(
+            "operations.circuitBreaker.halfOpenProbes", "Number of calls let through to check " +
+                    "whether the Cloud Controller has recovered", 1);
+
+    ConfigKey<Duration> FEED_MIN_SPACING = ConfigKeys.newConfigKey(Duration.class,
+            "feeds.minSpacing", "Minimum time between the polls of two entities deployed in " +
+                    "this location; feed periods are stretched when there are too many " +
+                    "entities to keep it", Duration.ofMillis(20));
+
+    ConfigKey<Duration> RECONCILE_PERIOD = ConfigKeys.newConfigKey(Duration.class,
+            "reconcile.period", "Period of the comparison between the space and the entities " +
+                    "deployed in this location; zero disables it", Duration.ofMinutes(1));
+
+    ConfigKey<Boolean> RECONCILE_AUTO_CORRECT = ConfigKeys.newBooleanConfigKey(
+            "reconcile.autoCorrect", "Whether instances, memory, disk and service bindings " +
+                    "changed outside Brooklyn are set back to what the entities expect", false);
 }
@@ -0,0 +1,94 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.brooklyn.cloudfoundry.location;
+
+import org.apache.brooklyn.util.collections.MutableMap;
+
+import java.util.Map;
+
+/**
+ * Spreads the polls of the entities deployed in a location over time. Each entity gets a slot;
+ * the phase of slot {@code i} is the fractional part of {@code i} times the golden ratio, which
+ * keeps consecutive slots as far apart as possible whatever the number of entities. The period
+ * is stretched when there are too many entities to keep the requested spacing between polls.
+ */
+public class FeedScheduler {
+
+    private static final double GOLDEN_RATIO_CONJUGATE = 0.6180339887498949;
+
+    public static class Slot {
+        private final long phaseMillis;
+        private final long periodMillis;
+
+        Slot(long phaseMillis, long periodMillis) {
+            this.phaseMillis = phaseMillis;
+            this.periodMillis = periodMillis;
+        }
+
+        /**
+         * @return how long to wait before the first poll
+         */
+        public long getPhaseMillis() {
+            return phaseMillis;
+        }
+
+        public long getPeriodMillis() {
+            return periodMillis;
+        }
+
+        @Override
+        public String toString() {
+            return "Slot{phase=" + phaseMillis + "ms, period=" + periodMillis + "ms}";
+        }
+    }
+
+    private final Map<String, Integer> slots = MutableMap.of();
+    private int nextSlot;
+
+    /**
+     * @param minSpacingMillis minimum time between the polls of two entities; the period grows
+     *                         to {@code entities * minSpacingMillis} when that is longer
+     */
+    public synchronized Slot register(String entityId, long periodMillis, long minSpacingMillis,
+                                      boolean jitter) {
+        Integer slot = slots.get(entityId);
+        if (slot == null) {
+            slot = nextSlot++;
+            slots.put(entityId, slot);
+        }
+        long period = Math.max(periodMillis, slots.size() * Math.max(minSpacingMillis, 0));
+        long phase = jitter ? (long) (fraction(slot * GOLDEN_RATIO_CONJUGATE) * period) : 0;
+        return new Slot(phase, period);
+    }
+
+    public synchronized void unregister(String entityId) {
+        slots.remove(entityId);
+        if (slots.isEmpty()) {
+            nextSlot = 0;
+        }
+    }
+
+    public synchronized int getRegisteredCount() {
+        return slots.size();
+    }
+
+    private static double fraction(double value) {
+        return value - Math.floor(value);
+    }
+}
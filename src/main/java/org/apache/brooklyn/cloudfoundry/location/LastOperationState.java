@@ -0,0 +1,55 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.brooklyn.cloudfoundry.location;
+
+import org.apache.brooklyn.util.text.Strings;
+
+/**
+ * State of the last operation the Cloud Controller reports for a service instance. Brokers
+ * that provision asynchronously keep their instances {@link #IN_PROGRESS} until the
+ * provisioning finishes.
+ */
+public enum LastOperationState {
+
+    IN_PROGRESS,
+    SUCCEEDED,
+    FAILED;
+
+    /**
+     * @param status the state of the last operation, such as "in progress"; a blank or unknown
+     *               one is considered {@link #IN_PROGRESS}, so that it is polled again rather
+     *               than taken for a provisioned instance
+     */
+    public static LastOperationState fromStatus(String status) {
+        if (Strings.isBlank(status)) {
+            return IN_PROGRESS;
+        }
+        String normalized = status.trim().replace(' ', '_').toUpperCase();
+        for (LastOperationState state : values()) {
+            if (state.name().equals(normalized)) {
+                return state;
+            }
+        }
+        return IN_PROGRESS;
+    }
+
+    public boolean isTerminal() {
+        return this != IN_PROGRESS;
+    }
+}
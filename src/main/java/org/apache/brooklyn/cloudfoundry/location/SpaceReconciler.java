@@ -0,0 +1,256 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.brooklyn.cloudfoundry.location;
+
+import org.apache.brooklyn.api.entity.Entity;
+import org.apache.brooklyn.api.mgmt.Task;
+import org.apache.brooklyn.cloudfoundry.entity.CloudFoundryEntity;
+import org.apache.brooklyn.cloudfoundry.entity.VanillaCloudFoundryApplication;
+import org.apache.brooklyn.cloudfoundry.entity.service.VanillaCloudFoundryService;
+import org.apache.brooklyn.core.entity.Entities;
+import org.apache.brooklyn.core.entity.EntityInternal;
+import org.apache.brooklyn.util.collections.MutableList;
+import org.apache.brooklyn.util.collections.MutableMap;
+import org.apache.brooklyn.util.core.task.ScheduledTask;
+import org.apache.brooklyn.util.core.task.Tasks;
+import org.apache.brooklyn.util.text.Strings;
+import org.apache.brooklyn.util.time.Duration;
+import org.cloudfoundry.operations.applications.ApplicationSummary;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Compares, periodically, what the entities deployed in a location expect with a single
+ * {@link SpaceSnapshot} of the space, so that changes made outside Brooklyn (e.g. with
+ * {@code cf scale}) are noticed without each entity polling the Cloud Controller.
+ * <p>
+ * Differences are published on each entity as {@link CloudFoundryEntity#DRIFT_DETECTED} and
+ * {@link CloudFoundryEntity#DRIFT}. With auto-correct enabled, the number of instances, memory,
+ * disk and missing service bindings are set back to what the entity expects.
+ */
+public class SpaceReconciler {
+
+    private static final Logger log = LoggerFactory.getLogger(SpaceReconciler.class);
+
+    private final CloudFoundryPaasLocation location;
+    private final Map<String, Entity> entities = new ConcurrentHashMap<String, Entity>();
+    private Task<?> task;
+
+    public SpaceReconciler(CloudFoundryPaasLocation location) {
+        this.location = checkNotNull(location, "location");
+    }
+
+    public synchronized void register(Entity entity) {
+        entities.put(entity.getId(), entity);
+        if (task == null || task.isDone()) {
+            schedule();
+        }
+    }
+
+    public synchronized void unregister(Entity entity) {
+        entities.remove(entity.getId());
+        if (entities.isEmpty() && task != null) {
+            task.cancel(true);
+            task = null;
+        }
+    }
+
+    private void schedule() {
+        java.time.Duration configuredPeriod =
+                location.getConfig(CloudFoundryPaasLocationConfig.RECONCILE_PERIOD);
+        if (configuredPeriod == null || configuredPeriod.isZero() || configuredPeriod.isNegative()
+                || location.getManagementContext() == null) {
+            return;
+        }
+        Duration period = Duration.millis(configuredPeriod.toMillis());
+        task = location.getManagementContext().getExecutionManager().submit(new ScheduledTask(
+                MutableMap.of("delay", period, "period", period,
+                        "displayName", "reconcile space of " + location),
+                new Callable<Task<?>>() {
+                    public Task<?> call() {
+                        return Tasks.builder().displayName("reconcile space")
+                                .body(new Runnable() {
+                                    public void run() {
+                                        reconcileQuietly();
+                                    }
+                                }).build();
+                    }
+                }));
+    }
+
+    private void reconcileQuietly() {
+        try {
+            reconcile();
+        } catch (Exception e) {
+            log.warn("Error reconciling the space of {}: {}", location, e.toString());
+        }
+    }
+
+    /**
+     * Takes a snapshot of the space and publishes the drift of every registered entity.
+     */
+    public void reconcile() {
+        if (entities.isEmpty()) {
+            return;
+        }
+        SpaceSnapshot snapshot = location.takeSpaceSnapshot();
+        boolean autoCorrect = Boolean.TRUE.equals(
+                location.getConfig(CloudFoundryPaasLocationConfig.RECONCILE_AUTO_CORRECT));
+        for (Entity entity : entities.values()) {
+            if (!Entities.isManaged(entity)) {
+                entities.remove(entity.getId());
+                continue;
+            }
+            List<String> drift = getDrift(entity, snapshot);
+            publish(entity, drift);
+            if (autoCorrect && !drift.isEmpty()) {
+                correct(entity, snapshot);
+            }
+        }
+    }
+
+    private void publish(Entity entity, List<String> drift) {
+        EntityInternal entityInternal = (EntityInternal) entity;
+        entityInternal.sensors().set(CloudFoundryEntity.DRIFT_DETECTED, !drift.isEmpty());
+        entityInternal.sensors().set(CloudFoundryEntity.DRIFT,
+                drift.isEmpty() ? null : Strings.join(drift, "; "));
+        if (!drift.isEmpty()) {
+            log.info("Drift detected in {}: {}", entity, drift);
+        }
+    }
+
+    static List<String> getDrift(Entity entity, SpaceSnapshot snapshot) {
+        if (entity instanceof VanillaCloudFoundryApplication) {
+            return getApplicationDrift(entity, snapshot);
+        } else if (entity instanceof VanillaCloudFoundryService) {
+            String name = entity.getAttribute(VanillaCloudFoundryService.SERVICE_INSTANCE_ID);
+            if (name != null && !snapshot.hasServiceInstance(name)) {
+                return MutableList.of("service instance " + name + " does not exist");
+            }
+        }
+        return MutableList.of();
+    }
+
+    private static List<String> getApplicationDrift(Entity entity, SpaceSnapshot snapshot) {
+        List<String> drift = MutableList.of();
+        String name = entity.getAttribute(VanillaCloudFoundryApplication.APPLICATION_NAME);
+        ApplicationSummary application = snapshot.getApplication(name);
+        if (application == null) {
+            drift.add("application " + name + " does not exist");
+            return drift;
+        }
+        compare(drift, "instances",
+                entity.getAttribute(VanillaCloudFoundryApplication.INSTANCES),
+                application.getInstances());
+        compare(drift, "memory",
+                entity.getAttribute(VanillaCloudFoundryApplication.ALLOCATED_MEMORY),
+                application.getMemoryLimit());
+        compare(drift, "disk",
+                entity.getAttribute(VanillaCloudFoundryApplication.ALLOCATED_DISK),
+                application.getDiskQuota());
+
+        String host = getHost(entity.getAttribute(VanillaCloudFoundryApplication.ROOT_URL));
+        List<String> urls = application.getUrls();
+        if (host != null && (urls == null || !urls.contains(host))) {
+            drift.add("route " + host + " is not mapped, routes are " + urls);
+        }
+        for (String service : getServiceNames(entity)) {
+            if (!snapshot.getBoundApplications(service).contains(name)) {
+                drift.add("service " + service + " is not bound");
+            }
+        }
+        return drift;
+    }
+
+    private static void compare(List<String> drift, String field, Object expected, Object actual) {
+        if (expected != null && !Objects.equals(expected, actual)) {
+            drift.add(field + " expected " + expected + " but was " + actual);
+        }
+    }
+
+    private static String getHost(String url) {
+        if (Strings.isBlank(url)) {
+            return null;
+        }
+        try {
+            return URI.create(url).getHost();
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static List<String> getServiceNames(Entity entity) {
+        List<String> names = MutableList.of();
+        List<Object> services = entity.getConfig(VanillaCloudFoundryApplication.SERVICES);
+        if (services != null) {
+            for (Object service : services) {
+                if (service instanceof String) {
+                    names.add((String) service);
+                } else if (service instanceof VanillaCloudFoundryService) {
+                    String name = ((VanillaCloudFoundryService) service)
+                            .getAttribute(VanillaCloudFoundryService.SERVICE_INSTANCE_ID);
+                    if (name != null) {
+                        names.add(name);
+                    }
+                }
+            }
+        }
+        return names;
+    }
+
+    private void correct(Entity entity, SpaceSnapshot snapshot) {
+        if (!(entity instanceof VanillaCloudFoundryApplication)) {
+            return;
+        }
+        VanillaCloudFoundryApplication application = (VanillaCloudFoundryApplication) entity;
+        String name = entity.getAttribute(VanillaCloudFoundryApplication.APPLICATION_NAME);
+        ApplicationSummary actual = snapshot.getApplication(name);
+        if (actual == null) {
+            log.warn("Application {} of {} does not exist, it can not be corrected", name, entity);
+            return;
+        }
+        Integer instances = entity.getAttribute(VanillaCloudFoundryApplication.INSTANCES);
+        if (instances != null && !instances.equals(actual.getInstances())) {
+            application.setInstancesNumber(instances);
+        }
+        Integer memory = entity.getAttribute(VanillaCloudFoundryApplication.ALLOCATED_MEMORY);
+        if (memory != null && !memory.equals(actual.getMemoryLimit())) {
+            application.setMemory(memory);
+        }
+        Integer disk = entity.getAttribute(VanillaCloudFoundryApplication.ALLOCATED_DISK);
+        if (disk != null && !disk.equals(actual.getDiskQuota())) {
+            application.setDiskQuota(disk);
+        }
+        for (String service : getServiceNames(entity)) {
+            if (snapshot.hasServiceInstance(service)
+                    && !snapshot.getBoundApplications(service).contains(name)) {
+                location.bindServiceToApplication(service, name);
+            }
+        }
+    }
+}
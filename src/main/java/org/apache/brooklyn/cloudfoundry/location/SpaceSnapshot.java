@@ -0,0 +1,72 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.brooklyn.cloudfoundry.location;
+
+import org.apache.brooklyn.util.collections.MutableList;
+import org.apache.brooklyn.util.collections.MutableMap;
+import org.cloudfoundry.operations.applications.ApplicationSummary;
+import org.cloudfoundry.operations.services.ServiceInstance;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Applications, routes and service bindings of a space at a given time, as listed by the
+ * Cloud Controller.
+ */
+public class SpaceSnapshot {
+
+    private final long timestamp;
+    private final Map<String, ApplicationSummary> applications = MutableMap.of();
+    private final Map<String, List<String>> boundApplications = MutableMap.of();
+
+    public SpaceSnapshot(long timestamp, Iterable<ApplicationSummary> applications,
+                         Iterable<ServiceInstance> serviceInstances) {
+        this.timestamp = timestamp;
+        for (ApplicationSummary application : applications) {
+            this.applications.put(application.getName(), application);
+        }
+        for (ServiceInstance serviceInstance : serviceInstances) {
+            List<String> bound = serviceInstance.getApplications();
+            boundApplications.put(serviceInstance.getName(),
+                    (bound != null) ? bound : Collections.<String>emptyList());
+        }
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * @return the application, or null if there is none with this name in the space
+     */
+    public ApplicationSummary getApplication(String name) {
+        return applications.get(name);
+    }
+
+    public boolean hasServiceInstance(String name) {
+        return boundApplications.containsKey(name);
+    }
+
+    public List<String> getBoundApplications(String serviceInstanceName) {
+        List<String> bound = boundApplications.get(serviceInstanceName);
+        return (bound != null) ? bound : MutableList.<String>of();
+    }
+}
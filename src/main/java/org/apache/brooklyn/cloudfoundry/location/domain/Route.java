@@ -0,0 +1,128 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.brooklyn.cloudfoundry.location.domain;
+
+import com.google.common.base.Strings;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * A route to an application: an optional host on a shared, private or internal domain, and an
+ * optional path.
+ */
+public class Route implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String host;
+    private final String domain;
+    private final String path;
+
+    public Route(String host, String domain, String path) {
+        checkArgument(!Strings.isNullOrEmpty(domain), "A route needs a domain");
+        this.host = Strings.emptyToNull(host);
+        this.domain = domain;
+        this.path = normalizePath(path);
+    }
+
+    public static Route of(String host, String domain) {
+        return new Route(host, domain, null);
+    }
+
+    /**
+     * Parses a route written as {@code host.domain[/path]}, as in the {@code routes} of an
+     * application manifest. The first label is taken as the host; a route on the bare domain
+     * has to be built with a null host instead.
+     */
+    public static Route parse(String route) {
+        checkArgument(!Strings.isNullOrEmpty(route), "A route can not be empty");
+        String value = route.trim();
+        int scheme = value.indexOf("://");
+        if (scheme >= 0) {
+            value = value.substring(scheme + 3);
+        }
+        String path = null;
+        int slash = value.indexOf('/');
+        if (slash >= 0) {
+            path = value.substring(slash);
+            value = value.substring(0, slash);
+        }
+        int dot = value.indexOf('.');
+        checkArgument(dot > 0 && dot < value.length() - 1,
+                "Route %s is not of the form host.domain[/path]", route);
+        return new Route(value.substring(0, dot), value.substring(dot + 1), path);
+    }
+
+    private static String normalizePath(String path) {
+        if (Strings.isNullOrEmpty(path) || "/".equals(path)) {
+            return null;
+        }
+        String result = path.startsWith("/") ? path : "/" + path;
+        return result.endsWith("/") ? result.substring(0, result.length() - 1) : result;
+    }
+
+    public String getHost() {
+        return host;
+    }
+
+    public String getDomain() {
+        return domain;
+    }
+
+    /**
+     * @return the path of the route, starting with a slash, or null for the whole host
+     */
+    public String getPath() {
+        return path;
+    }
+
+    /**
+     * @return the route the way the platform lists it among the urls of an application
+     */
+    public String getUri() {
+        return ((host != null) ? host + "." : "") + domain + ((path != null) ? path : "");
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Route)) {
+            return false;
+        }
+        Route route = (Route) o;
+        return Objects.equals(host, route.host)
+                && Objects.equals(domain, route.domain)
+                && Objects.equals(path, route.path);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(host, domain, path);
+    }
+
+    @Override
+    public String toString() {
+        return getUri();
+    }
+}
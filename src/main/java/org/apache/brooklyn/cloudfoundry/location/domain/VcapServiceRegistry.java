@@ -25,6 +25,9 @@ import com.google.common.collect.Iterables;
 import com.google.common.collect.ListMultimap;
 import com.google.common.collect.Multimap;
 import com.google.common.reflect.TypeToken;
+import org.apache.brooklyn.cloudfoundry.location.domain.credentials.CredentialExtractors;
+import org.apache.brooklyn.cloudfoundry.location.domain.credentials.ServiceEndpoint;
+import org.apache.brooklyn.util.collections.MutableMap;
 import org.apache.brooklyn.util.collections.MutableSet;
 import org.apache.brooklyn.util.core.flags.TypeCoercions;
 
@@ -50,6 +53,22 @@ public class VcapServiceRegistry {
                 + " was found in VCAP_SERVICES");
     }
 
+    /**
+     * @return the endpoint of every service instance, keyed by instance name
+     */
+    public Map<String, ServiceEndpoint> getServiceEndpoints() {
+        Map<String, ServiceEndpoint> endpoints = MutableMap.of();
+        CredentialExtractors extractors = CredentialExtractors.getInstance();
+        for (VcapService service : vcapServices.values()) {
+            Map<String, String> credentials = service.getCredentials();
+            if (service.getInstanceName() != null && credentials != null) {
+                endpoints.put(service.getInstanceName(),
+                        extractors.extract(service.getLabel(), credentials));
+            }
+        }
+        return endpoints;
+    }
+
     private Optional<VcapService> tryFindVcapDescription(String instanceName) {
         return Iterables.tryFind(vcapServices.values(), new Predicate<VcapService>() {
             @Override
@@ -0,0 +1,37 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.brooklyn.cloudfoundry.location.domain.credentials;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Turns the credentials a broker gives to a binding into a {@link ServiceEndpoint}.
+ * Implementations are found with {@link java.util.ServiceLoader} and chosen by the label of
+ * the service in VCAP_SERVICES; see {@link CredentialExtractors}.
+ */
+public interface CredentialExtractor {
+
+    /**
+     * @return the VCAP_SERVICES labels of the services this extractor understands
+     */
+    Set<String> getLabels();
+
+    ServiceEndpoint extract(String label, Map<String, String> credentials);
+}
@@ -0,0 +1,78 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.brooklyn.cloudfoundry.location.domain.credentials;
+
+import org.apache.brooklyn.util.collections.MutableMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.ServiceLoader;
+
+/**
+ * The {@link CredentialExtractor}s registered in
+ * {@code META-INF/services/org.apache.brooklyn.cloudfoundry.location.domain.credentials.CredentialExtractor},
+ * indexed by label. The first extractor claiming a label wins; services with no matching
+ * extractor go through {@link GenericCredentialExtractor}.
+ */
+public class CredentialExtractors {
+
+    private static final Logger log = LoggerFactory.getLogger(CredentialExtractors.class);
+
+    private static volatile CredentialExtractors instance;
+
+    private final Map<String, CredentialExtractor> extractorsByLabel = MutableMap.of();
+    private final CredentialExtractor fallback = new GenericCredentialExtractor();
+
+    public CredentialExtractors(Iterable<? extends CredentialExtractor> extractors) {
+        for (CredentialExtractor extractor : extractors) {
+            for (String label : extractor.getLabels()) {
+                String key = label.toLowerCase();
+                if (extractorsByLabel.containsKey(key)) {
+                    log.debug("Ignoring {} for label {}, already handled by {}",
+                            new Object[]{extractor, label, extractorsByLabel.get(key)});
+                } else {
+                    extractorsByLabel.put(key, extractor);
+                }
+            }
+        }
+    }
+
+    public static CredentialExtractors getInstance() {
+        if (instance == null) {
+            synchronized (CredentialExtractors.class) {
+                if (instance == null) {
+                    instance = new CredentialExtractors(ServiceLoader.load(
+                            CredentialExtractor.class, CredentialExtractor.class.getClassLoader()));
+                }
+            }
+        }
+        return instance;
+    }
+
+    public CredentialExtractor forLabel(String label) {
+        CredentialExtractor extractor =
+                (label != null) ? extractorsByLabel.get(label.toLowerCase()) : null;
+        return (extractor != null) ? extractor : fallback;
+    }
+
+    public ServiceEndpoint extract(String label, Map<String, String> credentials) {
+        return forLabel(label).extract(label, credentials);
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.brooklyn.cloudfoundry.location.domain.credentials;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import org.apache.brooklyn.util.text.Strings;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Reads the usual credential fields of brokers: a connection URI and/or separate host, port
+ * and database fields. Subclasses name the labels they handle and the scheme and port to
+ * assume when the broker leaves them out. The published URL never carries user information
+ * or query parameters, as brokers put secrets there.
+ */
+public class GenericCredentialExtractor implements CredentialExtractor {
+
+    private static final List<String> URI_KEYS = ImmutableList.of("uri", "url");
+    private static final List<String> HOST_KEYS = ImmutableList.of("hostname", "host");
+    private static final List<String> DATABASE_KEYS = ImmutableList.of("name", "database", "db");
+    private static final List<String> MAX_CONNECTIONS_KEYS =
+            ImmutableList.of("max_conns", "max_connections", "maxConnections", "pool_size");
+
+    private final Set<String> labels;
+    private final String scheme;
+    private final Integer defaultPort;
+
+    public GenericCredentialExtractor() {
+        this(ImmutableSet.<String>of(), null, null);
+    }
+
+    protected GenericCredentialExtractor(Set<String> labels, String scheme, Integer defaultPort) {
+        this.labels = labels;
+        this.scheme = scheme;
+        this.defaultPort = defaultPort;
+    }
+
+    @Override
+    public Set<String> getLabels() {
+        return labels;
+    }
+
+    @Override
+    public ServiceEndpoint extract(String label, Map<String, String> credentials) {
+        URI uri = parseUri(first(credentials, URI_KEYS));
+        String host = first(credentials, HOST_KEYS);
+        if (host == null && uri != null) {
+            host = uri.getHost();
+        }
+        Integer port = parsePort(credentials.get("port"));
+        if (port == null && uri != null && uri.getPort() > 0) {
+            port = uri.getPort();
+        }
+        if (port == null) {
+            port = defaultPort;
+        }
+        String database = first(credentials, DATABASE_KEYS);
+        if (database == null && uri != null && Strings.isNonBlank(uri.getPath())
+                && uri.getPath().length() > 1) {
+            database = uri.getPath().substring(1);
+        }
+        return ServiceEndpoint.builder()
+                .label(label)
+                .host(host)
+                .port(port)
+                .database(database)
+                .url(buildUrl(uri, host, port, database))
+                .maxConnections(parsePort(first(credentials, MAX_CONNECTIONS_KEYS)))
+                .build();
+    }
+
+    private String buildUrl(URI uri, String host, Integer port, String database) {
+        String urlScheme = (uri != null && uri.getScheme() != null) ? uri.getScheme() : scheme;
+        if (urlScheme == null || host == null) {
+            return null;
+        }
+        StringBuilder url = new StringBuilder(urlScheme).append("://").append(host);
+        if (port != null) {
+            url.append(':').append(port);
+        }
+        if (database != null) {
+            url.append('/').append(database);
+        }
+        return url.toString();
+    }
+
+    private static String first(Map<String, String> credentials, List<String> keys) {
+        for (String key : keys) {
+            String value = credentials.get(key);
+            if (Strings.isNonBlank(value)) {
+                return value;
+            }
+        }
+        return null;
+    }
+
+    private static URI parseUri(String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            // jdbc:mysql://... is an opaque URI, the interesting part is after the prefix
+            String uri = value.startsWith("jdbc:") ? value.substring("jdbc:".length()) : value;
+            return new URI(uri);
+        } catch (URISyntaxException e) {
+            return null;
+        }
+    }
+
+    private static Integer parsePort(String value) {
+        if (Strings.isBlank(value)) {
+            return null;
+        }
+        try {
+            return Integer.valueOf(value.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.brooklyn.cloudfoundry.location.domain.credentials;
+
+import com.google.common.base.MoreObjects;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * Where and how a bound service can be reached, as read from its credentials.
+ */
+public class ServiceEndpoint implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String label;
+    private final String host;
+    private final Integer port;
+    private final String url;
+    private final String database;
+    private final Integer maxConnections;
+
+    private ServiceEndpoint(Builder builder) {
+        this.label = builder.label;
+        this.host = builder.host;
+        this.port = builder.port;
+        this.url = builder.url;
+        this.database = builder.database;
+        this.maxConnections = builder.maxConnections;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public String getHost() {
+        return host;
+    }
+
+    public Integer getPort() {
+        return port;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public String getDatabase() {
+        return database;
+    }
+
+    /**
+     * @return the maximum number of connections the plan allows, or null if the broker does
+     * not tell
+     */
+    public Integer getMaxConnections() {
+        return maxConnections;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof ServiceEndpoint)) {
+            return false;
+        }
+        ServiceEndpoint that = (ServiceEndpoint) o;
+        return Objects.equals(label, that.label) && Objects.equals(host, that.host)
+                && Objects.equals(port, that.port) && Objects.equals(url, that.url)
+                && Objects.equals(database, that.database)
+                && Objects.equals(maxConnections, that.maxConnections);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(label, host, port, url, database, maxConnections);
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this).omitNullValues()
+                .add("label", label)
+                .add("host", host)
+                .add("port", port)
+                .add("database", database)
+                .add("maxConnections", maxConnections)
+                .toString();
+    }
+
+    public static class Builder {
+        private String label;
+        private String host;
+        private Integer port;
+        private String url;
+        private String database;
+        private Integer maxConnections;
+
+        public Builder label(String label) {
+            this.label = label;
+            return this;
+        }
+
+        public Builder host(String host) {
+            this.host = host;
+            return this;
+        }
+
+        public Builder port(Integer port) {
+            this.port = port;
+            return this;
+        }
+
+        public Builder url(String url) {
+            this.url = url;
+            return this;
+        }
+
+        public Builder database(String database) {
+            this.database = database;
+            return this;
+        }
+
+        public Builder maxConnections(Integer maxConnections) {
+            this.maxConnections = maxConnections;
+            return this;
+        }
+
+        public ServiceEndpoint build() {
+            return new ServiceEndpoint(this);
+        }
+    }
+}
@@ -0,0 +1,42 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.brooklyn.cloudfoundry.utils;
+
+/**
+ * How an artifact available from several mirrors is downloaded.
+ */
+public enum ArtifactFetchMode {
+
+    /**
+     * Try the mirrors one after the other, moving to the next one only when a download fails.
+     */
+    SEQUENTIAL,
+
+    /**
+     * Probe all the mirrors at once and download from the one expected to be the fastest, given
+     * how quickly it answered and the throughput it had in earlier downloads.
+     */
+    FASTEST,
+
+    /**
+     * Probe all the mirrors at once, and download byte ranges of the artifact from all the ones
+     * which answered and support ranges, in parallel.
+     */
+    RANGES
+}
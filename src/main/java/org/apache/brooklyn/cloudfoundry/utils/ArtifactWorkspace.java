@@ -0,0 +1,208 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.brooklyn.cloudfoundry.utils;
+
+import org.apache.brooklyn.config.ConfigKey;
+import org.apache.brooklyn.core.config.ConfigKeys;
+import org.apache.brooklyn.util.collections.MutableList;
+import org.apache.brooklyn.util.collections.MutableSet;
+import org.apache.brooklyn.util.os.Os;
+import org.apache.brooklyn.util.text.Strings;
+import org.apache.brooklyn.util.time.Duration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Directory of the management server where artifacts are downloaded before being pushed. Each
+ * download gets a directory of its own, deleted once the artifact is not needed anymore; the
+ * directories left behind, by failed deployments or earlier runs, are evicted when older than
+ * a maximum age, and then oldest first while the workspace is over its quota. Directories in
+ * use, and anything in the workspace it did not create, are never evicted.
+ * <p>
+ * The workspace is shared by every entity of the server, so its limits are set in
+ * brooklyn.properties.
+ */
+public class ArtifactWorkspace {
+
+    private static final Logger log = LoggerFactory.getLogger(ArtifactWorkspace.class);
+
+    public static final ConfigKey<Long> QUOTA = ConfigKeys.newLongConfigKey(
+            "brooklyn.cloudfoundry.artifactWorkspace.quota", "Size in megabytes above which " +
+                    "the artifacts left in the workspace of the management server are evicted, " +
+                    "oldest first", 10240L);
+
+    public static final ConfigKey<Duration> MAX_AGE = ConfigKeys.newConfigKey(Duration.class,
+            "brooklyn.cloudfoundry.artifactWorkspace.maxAge", "Age after which the artifacts " +
+                    "left in the workspace of the management server are evicted",
+            Duration.days(1));
+
+    static final String WORKSPACE_DIR = "cf-artifacts";
+    static final String DIRECTORY_PREFIX = "artifact-";
+
+    private static final ArtifactWorkspace INSTANCE = new ArtifactWorkspace(
+            new File(new File(new Os.TmpDirFinder().get().get(),
+                    LocalResourcesDownloader.BROOKLYN_DIR), WORKSPACE_DIR));
+
+    private final File root;
+    private final Set<File> inUse = MutableSet.of();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public ArtifactWorkspace(File root) {
+        this.root = checkNotNull(root, "root").getAbsoluteFile();
+    }
+
+    public static ArtifactWorkspace getInstance() {
+        return INSTANCE;
+    }
+
+    public File getRoot() {
+        return root;
+    }
+
+    /**
+     * @return a new empty directory, in use until it is {@link #release released}
+     */
+    public synchronized File newDirectory() {
+        File directory = new File(root, DIRECTORY_PREFIX + Strings.makeRandomId(8));
+        directory.mkdirs();
+        inUse.add(canonical(directory));
+        return directory;
+    }
+
+    /**
+     * Deletes the directory of the workspace holding the file.
+     */
+    public void release(File file) {
+        File directory = getDirectory(file);
+        if (directory == null) {
+            log.debug("{} is not in artifact workspace {}, not deleting it", file, root);
+            return;
+        }
+        synchronized (this) {
+            inUse.remove(directory);
+        }
+        delete(directory);
+    }
+
+    /**
+     * Deletes the directories created by the workspace and not in use older than
+     * {@code maxAgeMillis}, and then the oldest ones until the workspace holds at most
+     * {@code quotaBytes}.
+     *
+     * @return the number of directories deleted
+     */
+    public int evict(long quotaBytes, long maxAgeMillis) {
+        List<File> candidates = MutableList.of();
+        File[] directories = root.listFiles(file -> file.isDirectory()
+                && file.getName().startsWith(DIRECTORY_PREFIX));
+        synchronized (this) {
+            if (directories != null) {
+                for (File directory : directories) {
+                    if (!inUse.contains(canonical(directory))) {
+                        candidates.add(directory);
+                    }
+                }
+            }
+        }
+        candidates.sort(Comparator.comparingLong(File::lastModified));
+
+        long now = System.currentTimeMillis();
+        long size = getSize();
+        int evicted = 0;
+        for (File directory : candidates) {
+            boolean expired = now - directory.lastModified() > maxAgeMillis;
+            if (!expired && size <= quotaBytes) {
+                break;
+            }
+            long directorySize = sizeOf(directory);
+            if (delete(directory)) {
+                size -= directorySize;
+                evicted++;
+                log.debug("Evicted {} ({} bytes) from artifact workspace {}",
+                        new Object[]{directory.getName(), directorySize, root});
+            }
+        }
+        if (evicted > 0) {
+            evictions.addAndGet(evicted);
+            log.info("Evicted {} directories from artifact workspace {}, {} bytes left",
+                    new Object[]{evicted, root, size});
+        }
+        return evicted;
+    }
+
+    /**
+     * @return the number of bytes of the files of the workspace
+     */
+    public long getSize() {
+        return sizeOf(root);
+    }
+
+    /**
+     * @return the number of directories evicted since the start of the server
+     */
+    public long getEvictionCount() {
+        return evictions.get();
+    }
+
+    private File getDirectory(File file) {
+        File canonicalRoot = canonical(root);
+        File directory = canonical(file);
+        while (directory != null && !canonicalRoot.equals(directory.getParentFile())) {
+            directory = directory.getParentFile();
+        }
+        return directory;
+    }
+
+    private static File canonical(File file) {
+        try {
+            return file.getCanonicalFile();
+        } catch (IOException e) {
+            return file.getAbsoluteFile();
+        }
+    }
+
+    private static long sizeOf(File file) {
+        File[] children = file.listFiles();
+        if (children == null) {
+            return file.isFile() ? file.length() : 0L;
+        }
+        long size = 0L;
+        for (File child : children) {
+            size += sizeOf(child);
+        }
+        return size;
+    }
+
+    private static boolean delete(File directory) {
+        boolean deleted = Os.deleteRecursively(directory).wasSuccessful();
+        if (!deleted) {
+            log.warn("Could not delete {} from the artifact workspace", directory);
+        }
+        return deleted;
+    }
+}
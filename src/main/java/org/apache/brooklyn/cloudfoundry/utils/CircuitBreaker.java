@@ -0,0 +1,140 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.brooklyn.cloudfoundry.utils;
+
+import com.google.common.base.Ticker;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Circuit breaker in front of a remote API. After {@code failureThreshold} consecutive failures
+ * the circuit opens and {@link #allowRequest()} rejects every call for {@code openDuration}.
+ * Then up to {@code halfOpenProbes} calls are let through: a success closes the circuit, a
+ * failure opens it again for another {@code openDuration}.
+ */
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private final int failureThreshold;
+    private final long openDurationNanos;
+    private final int halfOpenProbes;
+    private final Ticker ticker;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAtNanos;
+    private int probesInFlight;
+
+    private final AtomicLong rejectedCalls = new AtomicLong();
+    private final AtomicLong timesOpened = new AtomicLong();
+
+    public CircuitBreaker(int failureThreshold, long openDurationMillis, int halfOpenProbes) {
+        this(failureThreshold, openDurationMillis, halfOpenProbes, Ticker.systemTicker());
+    }
+
+    CircuitBreaker(int failureThreshold, long openDurationMillis, int halfOpenProbes,
+                   Ticker ticker) {
+        this.failureThreshold = failureThreshold;
+        this.openDurationNanos = TimeUnit.MILLISECONDS.toNanos(openDurationMillis);
+        this.halfOpenProbes = Math.max(halfOpenProbes, 1);
+        this.ticker = checkNotNull(ticker, "ticker");
+    }
+
+    /**
+     * A non-positive failure threshold disables the breaker: the circuit never opens.
+     */
+    public boolean isEnabled() {
+        return failureThreshold > 0;
+    }
+
+    /**
+     * @return true if the call can be made; callers must then report its outcome through
+     * {@link #onSuccess()} or {@link #onFailure()}
+     */
+    public synchronized boolean allowRequest() {
+        if (state == State.OPEN && ticker.read() - openedAtNanos >= openDurationNanos) {
+            state = State.HALF_OPEN;
+            probesInFlight = 0;
+        }
+        switch (state) {
+            case CLOSED:
+                return true;
+            case HALF_OPEN:
+                if (probesInFlight < halfOpenProbes) {
+                    probesInFlight++;
+                    return true;
+                }
+                break;
+            default:
+                break;
+        }
+        rejectedCalls.incrementAndGet();
+        return false;
+    }
+
+    public synchronized void onSuccess() {
+        consecutiveFailures = 0;
+        if (state == State.HALF_OPEN) {
+            state = State.CLOSED;
+        }
+    }
+
+    public synchronized void onFailure() {
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN
+                || (isEnabled() && state == State.CLOSED && consecutiveFailures >= failureThreshold)) {
+            state = State.OPEN;
+            openedAtNanos = ticker.read();
+            timesOpened.incrementAndGet();
+        }
+    }
+
+    /**
+     * Outcome of a call which tells nothing about the health of the remote API, such as a
+     * rejected request; only releases the half-open probe it may hold.
+     */
+    public synchronized void onIgnored() {
+        if (state == State.HALF_OPEN && probesInFlight > 0) {
+            probesInFlight--;
+        }
+    }
+
+    public synchronized State getState() {
+        if (state == State.OPEN && ticker.read() - openedAtNanos >= openDurationNanos) {
+            return State.HALF_OPEN;
+        }
+        return state;
+    }
+
+    public long getRejectedCalls() {
+        return rejectedCalls.get();
+    }
+
+    public long getTimesOpened() {
+        return timesOpened.get();
+    }
+}
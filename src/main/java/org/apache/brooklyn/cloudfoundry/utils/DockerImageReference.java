@@ -0,0 +1,156 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.brooklyn.cloudfoundry.utils;
+
+import com.google.common.base.Strings;
+
+import java.util.Objects;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * A Docker image reference, {@code [registry/]repository[:tag][@digest]}, completed with the
+ * defaults the Docker CLI uses: Docker Hub, the {@code library} namespace and the
+ * {@code latest} tag.
+ */
+public class DockerImageReference {
+
+    public static final String DOCKER_HUB_REGISTRY = "registry-1.docker.io";
+    private static final String DEFAULT_TAG = "latest";
+
+    private final String registry;
+    private final String repository;
+    private final String tag;
+    private final String digest;
+    private final boolean explicitRegistry;
+
+    private DockerImageReference(String registry, boolean explicitRegistry, String repository,
+                                 String tag, String digest) {
+        this.registry = registry;
+        this.explicitRegistry = explicitRegistry;
+        this.repository = repository;
+        this.tag = tag;
+        this.digest = digest;
+    }
+
+    public static DockerImageReference parse(String image) {
+        checkArgument(!Strings.isNullOrEmpty(image), "A docker image can not be empty");
+        String remainder = image.trim();
+        String digest = null;
+        int at = remainder.indexOf('@');
+        if (at >= 0) {
+            digest = remainder.substring(at + 1);
+            remainder = remainder.substring(0, at);
+        }
+
+        String registry = DOCKER_HUB_REGISTRY;
+        boolean explicitRegistry = false;
+        int slash = remainder.indexOf('/');
+        if (slash > 0) {
+            String first = remainder.substring(0, slash);
+            if (first.contains(".") || first.contains(":") || "localhost".equals(first)) {
+                registry = first;
+                explicitRegistry = true;
+                remainder = remainder.substring(slash + 1);
+            }
+        }
+
+        String tag = null;
+        int colon = remainder.lastIndexOf(':');
+        if (colon > remainder.lastIndexOf('/')) {
+            tag = remainder.substring(colon + 1);
+            remainder = remainder.substring(0, colon);
+        }
+        checkArgument(!remainder.isEmpty(), "Docker image %s has no repository", image);
+        if (!explicitRegistry && !remainder.contains("/")) {
+            remainder = "library/" + remainder;
+        }
+        if (tag == null && digest == null) {
+            tag = DEFAULT_TAG;
+        }
+        return new DockerImageReference(registry, explicitRegistry, remainder, tag, digest);
+    }
+
+    public String getRegistry() {
+        return registry;
+    }
+
+    public String getRepository() {
+        return repository;
+    }
+
+    /**
+     * @return the tag of the image, or null if it is only referenced by digest
+     */
+    public String getTag() {
+        return tag;
+    }
+
+    /**
+     * @return the digest of the image, or null if it is referenced by tag
+     */
+    public String getDigest() {
+        return digest;
+    }
+
+    /**
+     * @return the digest if there is one, the tag otherwise, as used in registry URLs
+     */
+    public String getManifestReference() {
+        return (digest != null) ? digest : tag;
+    }
+
+    /**
+     * @return the same image, pinned to the given digest rather than to a tag that can move
+     */
+    public DockerImageReference withDigest(String digest) {
+        return new DockerImageReference(registry, explicitRegistry, repository, null, digest);
+    }
+
+    /**
+     * @return the reference in the short form the Docker CLI and the platform accept
+     */
+    @Override
+    public String toString() {
+        String name = explicitRegistry
+                ? registry + "/" + repository
+                : (repository.startsWith("library/") ? repository.substring(8) : repository);
+        return name + ((tag != null) ? ":" + tag : "") + ((digest != null) ? "@" + digest : "");
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof DockerImageReference)) {
+            return false;
+        }
+        DockerImageReference that = (DockerImageReference) o;
+        return Objects.equals(registry, that.registry)
+                && Objects.equals(repository, that.repository)
+                && Objects.equals(tag, that.tag)
+                && Objects.equals(digest, that.digest);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(registry, repository, tag, digest);
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.brooklyn.cloudfoundry.utils;
+
+import com.google.common.base.Joiner;
+import com.google.common.collect.Iterables;
+import com.google.common.io.CharStreams;
+import org.apache.brooklyn.util.collections.MutableMap;
+import org.apache.brooklyn.util.net.Urls;
+import org.apache.brooklyn.util.time.Duration;
+import org.apache.brooklyn.util.yaml.Yamls;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Reads the digest of an image from a registry implementing the Docker Registry HTTP API v2,
+ * without pulling any layer. Anonymous bearer tokens are requested when the registry asks for
+ * them, which is enough for public images.
+ */
+public class DockerRegistryClient {
+
+    private static final Logger log = LoggerFactory.getLogger(DockerRegistryClient.class);
+
+    private static final String DIGEST_HEADER = "Docker-Content-Digest";
+    private static final String ACCEPTED_MANIFESTS = Joiner.on(", ").join(
+            "application/vnd.docker.distribution.manifest.v2+json",
+            "application/vnd.docker.distribution.manifest.list.v2+json",
+            "application/vnd.oci.image.manifest.v1+json",
+            "application/vnd.oci.image.index.v1+json");
+    private static final Pattern CHALLENGE_PARAMETER = Pattern.compile("(\\w+)=\"([^\"]*)\"");
+
+    private final Duration timeout;
+
+    public DockerRegistryClient(Duration timeout) {
+        this.timeout = timeout;
+    }
+
+    /**
+     * @return the digest of the manifest the reference points to, as the registry computes it
+     * @throws IOException if the registry can not be reached or does not know the image
+     */
+    public String getDigest(DockerImageReference image) throws IOException {
+        if (image.getDigest() != null) {
+            return image.getDigest();
+        }
+        String url = getBaseUrl(image.getRegistry()) + "/v2/" + image.getRepository()
+                + "/manifests/" + image.getManifestReference();
+        HttpURLConnection connection = head(url, null);
+        if (connection.getResponseCode() == HttpURLConnection.HTTP_UNAUTHORIZED) {
+            String challenge = connection.getHeaderField("WWW-Authenticate");
+            connection.disconnect();
+            connection = head(url, requestToken(challenge));
+        }
+        try {
+            int status = connection.getResponseCode();
+            String digest = connection.getHeaderField(DIGEST_HEADER);
+            if (status != HttpURLConnection.HTTP_OK || digest == null) {
+                throw new IOException("Registry answered " + status + " without a digest for "
+                        + image);
+            }
+            log.debug("Image {} has digest {}", image, digest);
+            return digest;
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    /**
+     * Registries on the local host are reached over plain HTTP, as the Docker daemon does.
+     */
+    private static String getBaseUrl(String registry) {
+        boolean local = registry.startsWith("localhost") || registry.startsWith("127.0.0.1");
+        return (local ? "http://" : "https://") + registry;
+    }
+
+    private HttpURLConnection head(String url, String token) throws IOException {
+        HttpURLConnection connection = open(url);
+        connection.setRequestMethod("HEAD");
+        connection.setRequestProperty("Accept", ACCEPTED_MANIFESTS);
+        if (token != null) {
+            connection.setRequestProperty("Authorization", "Bearer " + token);
+        }
+        return connection;
+    }
+
+    private String requestToken(String challenge) throws IOException {
+        if (challenge == null || !challenge.regionMatches(true, 0, "Bearer ", 0, 7)) {
+            throw new IOException("Registry requires an authentication it does not describe: "
+                    + challenge);
+        }
+        Map<String, String> parameters = MutableMap.of();
+        Matcher matcher = CHALLENGE_PARAMETER.matcher(challenge);
+        while (matcher.find()) {
+            parameters.put(matcher.group(1), matcher.group(2));
+        }
+        String realm = parameters.remove("realm");
+        if (realm == null) {
+            throw new IOException("Registry challenge has no realm: " + challenge);
+        }
+        StringBuilder url = new StringBuilder(realm);
+        for (Map.Entry<String, String> parameter : parameters.entrySet()) {
+            url.append((url.indexOf("?") < 0) ? '?' : '&')
+                    .append(parameter.getKey()).append('=')
+                    .append(Urls.encode(parameter.getValue()));
+        }
+        HttpURLConnection connection = open(url.toString());
+        try (Reader reader = new InputStreamReader(connection.getInputStream(),
+                StandardCharsets.UTF_8)) {
+            Object response = Iterables.getOnlyElement(Yamls.parseAll(CharStreams.toString(reader)));
+            Object token = (response instanceof Map) ? ((Map<?, ?>) response).get("token") : null;
+            if (token == null && response instanceof Map) {
+                token = ((Map<?, ?>) response).get("access_token");
+            }
+            if (token == null) {
+                throw new IOException("No token in the answer of " + realm);
+            }
+            return token.toString();
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    private HttpURLConnection open(String url) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+        connection.setConnectTimeout((int) timeout.toMilliseconds());
+        connection.setReadTimeout((int) timeout.toMilliseconds());
+        connection.setInstanceFollowRedirects(true);
+        return connection;
+    }
+}
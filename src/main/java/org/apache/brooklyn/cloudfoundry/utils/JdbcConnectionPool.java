@@ -0,0 +1,152 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.brooklyn.cloudfoundry.utils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Properties;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Small pool of JDBC connections to a single database. Connections are opened on demand up to
+ * {@code maxSize}, checked before being handed out again and closed with the pool.
+ */
+public class JdbcConnectionPool implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(JdbcConnectionPool.class);
+
+    private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+
+    private final String url;
+    private final Properties properties;
+    private final Semaphore permits;
+    private final Deque<Connection> idle = new ArrayDeque<Connection>();
+    private volatile boolean closed;
+
+    public JdbcConnectionPool(String url, Properties properties, int maxSize) {
+        checkArgument(maxSize > 0, "maxSize must be positive");
+        this.url = checkNotNull(url, "url");
+        this.properties = (properties != null) ? properties : new Properties();
+        this.permits = new Semaphore(maxSize, true);
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    /**
+     * Takes a connection, waiting at most {@code maxWaitMillis} for one to be released.
+     * It must be given back with {@link #release(Connection)}.
+     */
+    public Connection getConnection(long maxWaitMillis) throws SQLException {
+        checkOpen();
+        try {
+            if (!permits.tryAcquire(maxWaitMillis, TimeUnit.MILLISECONDS)) {
+                throw new SQLException("No connection to " + url + " available after "
+                        + maxWaitMillis + "ms");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted waiting for a connection to " + url, e);
+        }
+        try {
+            Connection connection;
+            while ((connection = pollIdle()) != null) {
+                if (isValid(connection)) {
+                    return connection;
+                }
+                closeQuietly(connection);
+            }
+            return DriverManager.getConnection(url, properties);
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Gives a connection back to the pool. Connections left in a transaction or broken are
+     * closed instead of being reused.
+     */
+    public void release(Connection connection) {
+        if (connection == null) {
+            return;
+        }
+        try {
+            if (closed || connection.isClosed() || !connection.getAutoCommit()) {
+                closeQuietly(connection);
+            } else {
+                synchronized (idle) {
+                    idle.push(connection);
+                }
+            }
+        } catch (SQLException e) {
+            closeQuietly(connection);
+        } finally {
+            permits.release();
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        Connection connection;
+        while ((connection = pollIdle()) != null) {
+            closeQuietly(connection);
+        }
+    }
+
+    private Connection pollIdle() {
+        synchronized (idle) {
+            return idle.poll();
+        }
+    }
+
+    private void checkOpen() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool of " + url + " is closed");
+        }
+    }
+
+    private static boolean isValid(Connection connection) {
+        try {
+            return connection.isValid(VALIDATION_TIMEOUT_SECONDS);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private static void closeQuietly(Connection connection) {
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            log.debug("Error closing connection: {}", e.toString());
+        }
+    }
+}
@@ -23,12 +23,18 @@ import org.apache.brooklyn.util.core.ResourceUtils;
 import org.apache.brooklyn.util.exceptions.PropagatedRuntimeException;
 import org.apache.brooklyn.util.os.Os;
 import org.apache.brooklyn.util.text.Strings;
-import org.apache.commons.io.FileUtils;
+import org.apache.brooklyn.util.time.Duration;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.StandardOpenOption;
 import java.util.Collection;
 
 public class LocalResourcesDownloader {
@@ -37,6 +43,8 @@ public class LocalResourcesDownloader {
     private static final Logger log = LoggerFactory
             .getLogger(LocalResourcesDownloader.class);
 
+    private static final long TRANSFER_CHUNK = 8 * 1024 * 1024;
+
     public static File downloadResourceInLocalDir(String saveAs, Collection<String> urls) {
         for (String url : urls) {
             try {
@@ -52,9 +60,34 @@ public class LocalResourcesDownloader {
                 "LocalResourceDownloader"));
     }
 
+    /**
+     * Downloads the resource from the mirrors as the mode says, {@code timeout} bounding the
+     * wait for each of them to answer.
+     */
+    public static File downloadResourceInLocalDir(String saveAs, Collection<String> urls,
+                                                  ArtifactFetchMode mode, Duration timeout) {
+        if (mode == ArtifactFetchMode.SEQUENTIAL || urls.size() < 2) {
+            return downloadResourceInLocalDir(saveAs, urls);
+        }
+        File localResource = createLocalFilePathName(saveAs);
+        try {
+            new MirrorDownloader(timeout, mode == ArtifactFetchMode.RANGES)
+                    .download(urls, localResource);
+        } catch (Exception e) {
+            ArtifactWorkspace.getInstance().release(localResource);
+            throw new PropagatedRuntimeException(e);
+        }
+        return localResource;
+    }
+
     public static File downloadResourceInLocalDir(String saveAs, String url) {
         File localResource = createLocalFilePathName(saveAs);
-        LocalResourcesDownloader.downloadResource(url, localResource);
+        try {
+            LocalResourcesDownloader.downloadResource(url, localResource);
+        } catch (RuntimeException e) {
+            ArtifactWorkspace.getInstance().release(localResource);
+            throw e;
+        }
         return localResource;
     }
 
@@ -69,23 +102,68 @@ public class LocalResourcesDownloader {
         return new File(createLocalPathName(fileName));
     }
 
-    @SuppressWarnings("all")
     private static String createLocalPathName(String fileName) {
-        String targetDirName = LocalResourcesDownloader.findATmpDir();
-        String filePathName = targetDirName + File.separator + fileName;
-
-        File targetDir = new File(targetDirName);
-        targetDir.mkdirs();
-
-        return filePathName;
+        File targetDir = ArtifactWorkspace.getInstance().newDirectory();
+        return targetDir.getPath() + File.separator + fileName;
     }
 
+    /**
+     * Copies the resource to the target through channels, so that its content never goes through
+     * the heap whatever its size: local files are transferred by the kernel, and other resources
+     * through the fixed buffer of their channel.
+     */
     public static void downloadResource(String url, File target) {
         try {
-            FileUtils.copyInputStreamToFile(new ResourceUtils(null).getResourceFromUrl(url), target);
+            File parent = target.getAbsoluteFile().getParentFile();
+            if (parent != null) {
+                parent.mkdirs();
+            }
+            File source = findLocalFile(url);
+            if (source != null) {
+                try (FileChannel in = FileChannel.open(source.toPath(), StandardOpenOption.READ);
+                     FileChannel out = openForWriting(target)) {
+                    long size = in.size();
+                    long position = 0;
+                    while (position < size) {
+                        long transferred = in.transferTo(position, size - position, out);
+                        if (transferred <= 0) {
+                            break;
+                        }
+                        position += transferred;
+                    }
+                }
+            } else {
+                try (ReadableByteChannel in = Channels.newChannel(
+                        new ResourceUtils(null).getResourceFromUrl(url));
+                     FileChannel out = openForWriting(target)) {
+                    long position = 0;
+                    long transferred;
+                    while ((transferred = out.transferFrom(in, position, TRANSFER_CHUNK)) > 0) {
+                        position += transferred;
+                    }
+                }
+            }
         } catch (Exception e) {
             throw Throwables.propagate(e);
         }
     }
 
+    /**
+     * @return the file the url points to, if it is a plain path or a {@code file:} url of an
+     * existing file
+     */
+    private static File findLocalFile(String url) {
+        try {
+            File file = url.startsWith("file:") ? new File(URI.create(url)) : new File(url);
+            return file.isFile() ? file : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static FileChannel openForWriting(File target) throws IOException {
+        return FileChannel.open(target.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
 }
@@ -0,0 +1,455 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.brooklyn.cloudfoundry.utils;
+
+import com.google.common.util.concurrent.MoreExecutors;
+import org.apache.brooklyn.api.mgmt.ExecutionContext;
+import org.apache.brooklyn.api.mgmt.Task;
+import org.apache.brooklyn.util.collections.MutableList;
+import org.apache.brooklyn.util.core.ResourceUtils;
+import org.apache.brooklyn.util.core.task.BasicExecutionContext;
+import org.apache.brooklyn.util.core.task.Tasks;
+import org.apache.brooklyn.util.exceptions.Exceptions;
+import org.apache.brooklyn.util.time.Duration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.net.URL;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Downloads an artifact from the fastest of its mirrors. All the mirrors are probed at once,
+ * with a HEAD request for HTTP ones and by reading the first byte for the others, so that a
+ * hanging mirror only costs the probe timeout. The mirrors which answered within
+ * {@link #PROBE_GRACE_MILLIS} of the first one are compared on their latency plus the time the
+ * throughput they had in earlier downloads gives for the artifact; the others are only used if
+ * the download from the best ones fails.
+ * <p>
+ * With ranges enabled, large artifacts are split between the HTTP mirrors which support byte
+ * ranges, each downloading its part in parallel.
+ */
+public class MirrorDownloader {
+
+    private static final Logger log = LoggerFactory.getLogger(MirrorDownloader.class);
+
+    private static final long PROBE_GRACE_MILLIS = 250;
+    private static final long MIN_RANGED_LENGTH = 16 * 1024 * 1024;
+    private static final int MAX_RANGES = 4;
+    private static final double THROUGHPUT_SMOOTHING = 0.3;
+
+    /**
+     * Throughput, in bytes per millisecond, of the past downloads from each mirror host.
+     */
+    private static final Map<String, Double> THROUGHPUTS = new ConcurrentHashMap<String, Double>();
+
+    private final Duration timeout;
+    private final boolean ranges;
+    private final long minRangedLength;
+
+    public MirrorDownloader(Duration timeout, boolean ranges) {
+        this(timeout, ranges, MIN_RANGED_LENGTH);
+    }
+
+    MirrorDownloader(Duration timeout, boolean ranges, long minRangedLength) {
+        this.timeout = timeout;
+        this.ranges = ranges;
+        this.minRangedLength = minRangedLength;
+    }
+
+    public void download(Collection<String> urls, File target) throws IOException {
+        if (urls.isEmpty()) {
+            throw new FileNotFoundException("No mirror to download " + target.getName() + " from");
+        }
+        List<Probe> probes = probe(urls);
+        if (ranges && probes.size() > 1) {
+            try {
+                if (downloadRanges(probes, target)) {
+                    return;
+                }
+            } catch (Exception e) {
+                log.warn("Ranged download of {} failed, downloading it from a single mirror: {}",
+                        target.getName(), e.toString());
+            }
+        }
+        List<String> candidates = MutableList.of();
+        for (Probe probe : probes) {
+            candidates.add(probe.url);
+        }
+        for (String url : urls) {
+            if (!candidates.contains(url)) {
+                candidates.add(url);
+            }
+        }
+        for (String url : candidates) {
+            try {
+                long start = System.currentTimeMillis();
+                LocalResourcesDownloader.downloadResource(url, target);
+                recordThroughput(url, target.length(), System.currentTimeMillis() - start);
+                return;
+            } catch (Exception e) {
+                log.warn("Error downloading {} from mirror {}: {}",
+                        new Object[]{target.getName(), url, e.toString()});
+            }
+        }
+        throw new FileNotFoundException("Could not download " + target.getName()
+                + " from any of " + urls);
+    }
+
+    /**
+     * @return the mirrors which answered, the ones expected to be the fastest first
+     */
+    private List<Probe> probe(Collection<String> urls) {
+        ExecutionContext context = BasicExecutionContext.getCurrentExecutionContext();
+        List<Probe> probes = (context != null) ? probe(context, urls) : probeInTurn(urls);
+        double defaultThroughput = getAverageThroughput();
+        probes.sort(Comparator.comparingDouble(probe -> probe.estimateMillis(defaultThroughput)));
+        log.debug("Mirrors in order of preference: {}", probes);
+        return probes;
+    }
+
+    /**
+     * Probes the mirrors at once, as tasks of the context, and returns those which answered
+     * before the timeout or within {@link #PROBE_GRACE_MILLIS} of the first one.
+     */
+    private List<Probe> probe(ExecutionContext context, Collection<String> urls) {
+        BlockingQueue<Task<Probe>> completed = new LinkedBlockingQueue<Task<Probe>>();
+        List<Task<Probe>> tasks = MutableList.of();
+        List<Probe> probes = MutableList.of();
+        try {
+            for (String url : urls) {
+                Task<Probe> task = Tasks.<Probe>builder()
+                        .displayName("Probing mirror " + url)
+                        .body(() -> probe(url))
+                        .build();
+                task.addListener(() -> completed.add(task), MoreExecutors.directExecutor());
+                tasks.add(task);
+                context.submit(task);
+            }
+            long deadline = System.currentTimeMillis() + timeout.toMilliseconds();
+            for (int i = 0; i < urls.size(); i++) {
+                Task<Probe> probe = completed.poll(
+                        Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+                if (probe == null) {
+                    break;
+                }
+                try {
+                    probes.add(probe.get());
+                    deadline = Math.min(deadline, System.currentTimeMillis() + PROBE_GRACE_MILLIS);
+                } catch (ExecutionException | CancellationException e) {
+                    log.debug("Mirror probe failed: {}", Exceptions.collapseText(e));
+                }
+            }
+        } catch (InterruptedException e) {
+            throw Exceptions.propagate(e);
+        } finally {
+            for (Task<Probe> task : tasks) {
+                if (!task.isDone()) {
+                    task.cancel(true);
+                }
+            }
+        }
+        return probes;
+    }
+
+    /**
+     * Outside a Brooklyn task the mirrors are probed one after the other.
+     */
+    private List<Probe> probeInTurn(Collection<String> urls) {
+        List<Probe> probes = MutableList.of();
+        for (String url : urls) {
+            try {
+                probes.add(probe(url));
+            } catch (IOException e) {
+                log.debug("Mirror probe failed: {}", e.toString());
+            }
+        }
+        return probes;
+    }
+
+    private Probe probe(String url) throws IOException {
+        long start = System.currentTimeMillis();
+        if (isHttp(url)) {
+            HttpURLConnection connection = open(url, "HEAD");
+            try {
+                int status = connection.getResponseCode();
+                if (status == HttpURLConnection.HTTP_BAD_METHOD
+                        || status == HttpURLConnection.HTTP_NOT_IMPLEMENTED) {
+                    connection.disconnect();
+                    connection = open(url, "GET");
+                    try (InputStream in = connection.getInputStream()) {
+                        in.read();
+                    }
+                    status = connection.getResponseCode();
+                }
+                if (status / 100 != 2) {
+                    throw new IOException("Mirror " + url + " answered " + status);
+                }
+                return new Probe(url, System.currentTimeMillis() - start,
+                        connection.getContentLengthLong(),
+                        "bytes".equalsIgnoreCase(connection.getHeaderField("Accept-Ranges")),
+                        connection.getHeaderField("ETag"),
+                        connection.getHeaderField("Last-Modified"));
+            } finally {
+                connection.disconnect();
+            }
+        }
+        try (InputStream in = new ResourceUtils(null).getResourceFromUrl(url)) {
+            in.read();
+        }
+        return new Probe(url, System.currentTimeMillis() - start, -1, false, null, null);
+    }
+
+    /**
+     * Parts are only spliced from mirrors serving the same version of the artifact: same length
+     * and same validator, the ETag or else the Last-Modified date.
+     *
+     * @return false if the mirrors do not allow a ranged download of the artifact
+     */
+    private boolean downloadRanges(List<Probe> probes, File target) throws IOException {
+        Probe best = probes.get(0);
+        long length = best.length;
+        String validator = best.getValidator();
+        if (validator == null) {
+            return false;
+        }
+        List<Probe> mirrors = MutableList.of();
+        for (Probe probe : probes) {
+            if (probe.acceptsRanges && probe.length == length
+                    && validator.equals(probe.getValidator()) && mirrors.size() < MAX_RANGES) {
+                mirrors.add(probe);
+            }
+        }
+        if (length < minRangedLength || mirrors.size() < 2) {
+            return false;
+        }
+        List<Range> parts = MutableList.of();
+        long partLength = (length + mirrors.size() - 1) / mirrors.size();
+        for (int i = 0; i < mirrors.size(); i++) {
+            long first = i * partLength;
+            parts.add(new Range(i, first, Math.min(length, first + partLength) - 1));
+        }
+        // the file is sized up front, as a channel transfers nothing past its end
+        try (RandomAccessFile file = new RandomAccessFile(target, "rw");
+             FileChannel out = file.getChannel()) {
+            file.setLength(length);
+            Map<Range, Exception> failures = ParallelExecution.forEach("mirror-range", parts,
+                    parts.size(), part -> downloadRange(mirrors, part, out));
+            if (!failures.isEmpty()) {
+                throw Exceptions.propagate(failures.values().iterator().next());
+            }
+        }
+        if (target.length() != length) {
+            throw new IOException("Downloaded " + target.length() + " bytes of " + target.getName()
+                    + " instead of " + length);
+        }
+        log.info("Downloaded {} in {} ranges from mirrors {}",
+                new Object[]{target.getName(), parts.size(), mirrors});
+        return true;
+    }
+
+    /**
+     * Downloads the range from its own mirror, or else from the other ones in turn.
+     */
+    private void downloadRange(List<Probe> mirrors, Range range, FileChannel out) {
+        Exception failure = null;
+        for (int i = 0; i < mirrors.size(); i++) {
+            Probe mirror = mirrors.get((range.index + i) % mirrors.size());
+            String url = mirror.url;
+            try {
+                long start = System.currentTimeMillis();
+                downloadRange(mirror, range, out);
+                recordThroughput(url, range.length(), System.currentTimeMillis() - start);
+                return;
+            } catch (IOException e) {
+                log.debug("Error downloading range {} from mirror {}: {}",
+                        new Object[]{range, url, e.toString()});
+                failure = e;
+            }
+        }
+        throw Exceptions.propagate(failure);
+    }
+
+    private void downloadRange(Probe mirror, Range range, FileChannel out) throws IOException {
+        String url = mirror.url;
+        HttpURLConnection connection = open(url, "GET");
+        connection.setRequestProperty("Range", "bytes=" + range.first + "-" + range.last);
+        // a mirror updated since the probe answers with the whole artifact, which is refused
+        connection.setRequestProperty("If-Range", mirror.isStrongEtag()
+                ? mirror.etag
+                : mirror.lastModified);
+        try {
+            if (connection.getResponseCode() != HttpURLConnection.HTTP_PARTIAL) {
+                throw new IOException("Mirror " + url + " answered " + connection.getResponseCode()
+                        + " to a range request");
+            }
+            try (ReadableByteChannel in = Channels.newChannel(connection.getInputStream())) {
+                long position = range.first;
+                while (position <= range.last) {
+                    long transferred = out.transferFrom(in, position, range.last + 1 - position);
+                    if (transferred <= 0) {
+                        throw new IOException("Mirror " + url + " ended range " + range
+                                + " at " + position);
+                    }
+                    position += transferred;
+                }
+            }
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    private HttpURLConnection open(String url, String method) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+        connection.setRequestMethod(method);
+        connection.setConnectTimeout((int) timeout.toMilliseconds());
+        connection.setReadTimeout((int) timeout.toMilliseconds());
+        return connection;
+    }
+
+    private static boolean isHttp(String url) {
+        return url.startsWith("http://") || url.startsWith("https://");
+    }
+
+    private static String getMirror(String url) {
+        try {
+            String host = URI.create(url).getHost();
+            return (host != null) ? host : url;
+        } catch (IllegalArgumentException e) {
+            return url;
+        }
+    }
+
+    static void recordThroughput(String url, long bytes, long millis) {
+        if (bytes <= 0) {
+            return;
+        }
+        double throughput = (double) bytes / Math.max(1, millis);
+        THROUGHPUTS.merge(getMirror(url), throughput, (previous, latest) ->
+                previous + THROUGHPUT_SMOOTHING * (latest - previous));
+    }
+
+    static Double getThroughput(String url) {
+        return THROUGHPUTS.get(getMirror(url));
+    }
+
+    private static double getAverageThroughput() {
+        double sum = 0;
+        int count = 0;
+        for (double throughput : THROUGHPUTS.values()) {
+            sum += throughput;
+            count++;
+        }
+        return (count > 0) ? sum / count : 0;
+    }
+
+    private static class Probe {
+
+        private final String url;
+        private final long latencyMillis;
+        private final long length;
+        private final boolean acceptsRanges;
+        private final String etag;
+        private final String lastModified;
+
+        Probe(String url, long latencyMillis, long length, boolean acceptsRanges, String etag,
+              String lastModified) {
+            this.url = url;
+            this.latencyMillis = latencyMillis;
+            this.length = length;
+            this.acceptsRanges = acceptsRanges;
+            this.etag = etag;
+            this.lastModified = lastModified;
+        }
+
+        boolean isStrongEtag() {
+            return etag != null && !etag.startsWith("W/");
+        }
+
+        /**
+         * @return what identifies the version of the artifact served by the mirror, or null if
+         * it does not tell
+         */
+        String getValidator() {
+            if (isStrongEtag()) {
+                return "etag:" + etag;
+            }
+            return (lastModified != null) ? "modified:" + lastModified : null;
+        }
+
+        /**
+         * Mirrors never downloaded from are assumed to have the average throughput of the
+         * others.
+         */
+        double estimateMillis(double defaultThroughput) {
+            Double throughput = getThroughput(url);
+            if (throughput == null) {
+                throughput = defaultThroughput;
+            }
+            return (length > 0 && throughput > 0)
+                    ? latencyMillis + length / throughput
+                    : latencyMillis;
+        }
+
+        @Override
+        public String toString() {
+            return url + " (" + latencyMillis + " ms)";
+        }
+    }
+
+    private static class Range {
+
+        private final int index;
+        private final long first;
+        private final long last;
+
+        Range(int index, long first, long last) {
+            this.index = index;
+            this.first = first;
+            this.last = last;
+        }
+
+        long length() {
+            return last + 1 - first;
+        }
+
+        @Override
+        public String toString() {
+            return first + "-" + last;
+        }
+    }
+}
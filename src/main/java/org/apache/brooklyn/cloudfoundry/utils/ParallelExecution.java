@@ -0,0 +1,124 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.brooklyn.cloudfoundry.utils;
+
+import com.google.common.util.concurrent.MoreExecutors;
+import org.apache.brooklyn.api.mgmt.ExecutionContext;
+import org.apache.brooklyn.api.mgmt.Task;
+import org.apache.brooklyn.api.mgmt.TaskAdaptable;
+import org.apache.brooklyn.util.collections.MutableMap;
+import org.apache.brooklyn.util.core.task.BasicExecutionContext;
+import org.apache.brooklyn.util.core.task.Tasks;
+import org.apache.brooklyn.util.exceptions.Exceptions;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
+
+/**
+ * Runs a batch of Brooklyn tasks with a bounded number of them at a time, collecting the failures
+ * rather than stopping at the first one. The batch is a sliding window: the next task is submitted
+ * as soon as any running one ends, so a slow task does not hold back the others.
+ */
+public final class ParallelExecution {
+
+    private ParallelExecution() {
+    }
+
+    /**
+     * Runs the action on every item, each as a task of the current execution context, with at
+     * most {@code maxConcurrency} of them at a time, and waits for all of them. Outside a
+     * Brooklyn task the items are run one after the other in the calling thread.
+     *
+     * @param name used in the names of the tasks
+     * @return the failure of every item the action threw for
+     */
+    public static <T> Map<T, Exception> forEach(String name, Collection<T> items,
+                                                int maxConcurrency, Consumer<T> action) {
+        ExecutionContext context = BasicExecutionContext.getCurrentExecutionContext();
+        if (context == null) {
+            Map<T, Exception> failures = MutableMap.of();
+            for (T item : items) {
+                try {
+                    action.accept(item);
+                } catch (Exception e) {
+                    Exceptions.propagateIfFatal(e);
+                    failures.put(item, e);
+                }
+            }
+            return failures;
+        }
+        Map<T, Task<?>> tasks = MutableMap.of();
+        for (T item : items) {
+            tasks.put(item, Tasks.builder()
+                    .displayName(name + " " + item)
+                    .body(() -> action.accept(item))
+                    .build());
+        }
+        return invokeAll(context, tasks, maxConcurrency);
+    }
+
+    /**
+     * Submits the tasks to the context, with at most {@code maxConcurrency} of them running at a
+     * time, and waits for all of them. If interrupted, the tasks already submitted are cancelled.
+     *
+     * @return the failure of every task which did not succeed, by its key
+     */
+    public static <T> Map<T, Exception> invokeAll(ExecutionContext context,
+                                                  Map<T, ? extends TaskAdaptable<?>> tasks,
+                                                  int maxConcurrency) {
+        Semaphore permits = new Semaphore(Math.max(1, maxConcurrency));
+        Map<T, Task<?>> submitted = MutableMap.of();
+        try {
+            for (Map.Entry<T, ? extends TaskAdaptable<?>> entry : tasks.entrySet()) {
+                Task<?> task = entry.getValue().asTask();
+                permits.acquire();
+                task.addListener(permits::release, MoreExecutors.directExecutor());
+                submitted.put(entry.getKey(), context.submit(task));
+            }
+        } catch (InterruptedException e) {
+            cancel(submitted.values());
+            throw Exceptions.propagate(e);
+        }
+        Map<T, Exception> failures = MutableMap.of();
+        for (Map.Entry<T, Task<?>> entry : submitted.entrySet()) {
+            try {
+                entry.getValue().get();
+            } catch (InterruptedException e) {
+                cancel(submitted.values());
+                throw Exceptions.propagate(e);
+            } catch (ExecutionException e) {
+                failures.put(entry.getKey(), (e.getCause() instanceof Exception)
+                        ? (Exception) e.getCause()
+                        : e);
+            } catch (Exception e) {
+                failures.put(entry.getKey(), e);
+            }
+        }
+        return failures;
+    }
+
+    private static void cancel(Collection<Task<?>> tasks) {
+        for (Task<?> task : tasks) {
+            task.cancel(true);
+        }
+    }
+}
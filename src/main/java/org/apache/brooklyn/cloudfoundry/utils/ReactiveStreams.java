@@ -0,0 +1,134 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.brooklyn.cloudfoundry.utils;
+
+import org.apache.brooklyn.util.exceptions.Exceptions;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BooleanSupplier;
+
+public class ReactiveStreams {
+
+    private ReactiveStreams() {
+    }
+
+    /**
+     * Subscribes to {@code publisher} and waits for all its elements.
+     *
+     * @throws RuntimeException wrapping a {@link TimeoutException} if the publisher does not
+     *                          complete within {@code timeout}, or the error it signalled
+     */
+    public static <T> List<T> collectList(Publisher<T> publisher, Duration timeout) {
+        CollectingSubscriber<T> subscriber = new CollectingSubscriber<T>();
+        publisher.subscribe(subscriber);
+        try {
+            if (!subscriber.done.await(timeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                subscriber.cancel();
+                throw new TimeoutException("No completion of " + publisher + " after " + timeout);
+            }
+        } catch (Exception e) {
+            throw Exceptions.propagate(e);
+        }
+        if (subscriber.error != null) {
+            throw Exceptions.propagate(subscriber.error);
+        }
+        return subscriber.elements;
+    }
+
+    /**
+     * Subscribes to {@code publisher} and waits until it completes or {@code condition} holds,
+     * checking it every {@code pollInterval}. In the latter case the subscription is cancelled,
+     * for operations whose outcome is followed otherwise once they are under way.
+     *
+     * @return whether the condition held before the publisher completed
+     * @throws RuntimeException wrapping a {@link TimeoutException} if neither happens within
+     *                          {@code timeout}, or the error the publisher signalled
+     */
+    public static boolean awaitCompletionOr(Publisher<?> publisher, BooleanSupplier condition,
+                                            Duration pollInterval, Duration timeout) {
+        CollectingSubscriber<Object> subscriber = new CollectingSubscriber<Object>();
+        publisher.subscribe(subscriber);
+        long deadline = System.currentTimeMillis() + timeout.toMillis();
+        try {
+            while (!subscriber.done.await(Math.min(pollInterval.toMillis(),
+                    Math.max(0, deadline - System.currentTimeMillis())), TimeUnit.MILLISECONDS)) {
+                if (condition.getAsBoolean()) {
+                    subscriber.cancel();
+                    return true;
+                }
+                if (System.currentTimeMillis() >= deadline) {
+                    throw new TimeoutException("No completion of " + publisher + " after "
+                            + timeout);
+                }
+            }
+        } catch (Exception e) {
+            subscriber.cancel();
+            throw Exceptions.propagate(e);
+        }
+        if (subscriber.error != null) {
+            throw Exceptions.propagate(subscriber.error);
+        }
+        return false;
+    }
+
+    private static class CollectingSubscriber<T> implements Subscriber<T> {
+
+        private final List<T> elements = Collections.synchronizedList(new ArrayList<T>());
+        private final CountDownLatch done = new CountDownLatch(1);
+        private volatile Subscription subscription;
+        private volatile Throwable error;
+
+        @Override
+        public void onSubscribe(Subscription subscription) {
+            this.subscription = subscription;
+            subscription.request(Long.MAX_VALUE);
+        }
+
+        @Override
+        public void onNext(T element) {
+            elements.add(element);
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            error = t;
+            done.countDown();
+        }
+
+        @Override
+        public void onComplete() {
+            done.countDown();
+        }
+
+        void cancel() {
+            if (subscription != null) {
+                subscription.cancel();
+            }
+        }
+    }
+}
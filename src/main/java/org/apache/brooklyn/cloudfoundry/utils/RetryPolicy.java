@@ -0,0 +1,122 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.brooklyn.cloudfoundry.utils;
+
+import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableSet;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import org.cloudfoundry.client.v2.CloudFoundryException;
+import reactor.ipc.netty.http.HttpException;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeoutException;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Exponential backoff for operations that are safe to repeat. The delay before attempt
+ * {@code n + 1} is {@code initialBackoff * 2^(n - 1)}, capped at {@code maxBackoff}, with up to
+ * half of it randomised so that callers failing together do not retry together.
+ */
+public class RetryPolicy {
+
+    private static final Set<Integer> TRANSIENT_STATUSES = ImmutableSet.of(408, 429, 502, 503, 504);
+
+    /**
+     * Error codes of the Cloud Controller for throttled or unavailable requests.
+     */
+    private static final Set<String> TRANSIENT_ERROR_CODES = ImmutableSet.of(
+            "CF-RateLimitExceeded", "CF-ServiceUnavailable");
+
+    private static final String BLOCKING_READ_TIMEOUT = "Timeout on blocking read";
+
+    private final int maxAttempts;
+    private final long initialBackoffMillis;
+    private final long maxBackoffMillis;
+
+    public RetryPolicy(int maxAttempts, long initialBackoffMillis, long maxBackoffMillis) {
+        checkArgument(initialBackoffMillis >= 0, "initialBackoffMillis must not be negative");
+        this.maxAttempts = Math.max(maxAttempts, 1);
+        this.initialBackoffMillis = initialBackoffMillis;
+        this.maxBackoffMillis = Math.max(maxBackoffMillis, initialBackoffMillis);
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    /**
+     * @param attempt number of attempts already made, starting at 1
+     */
+    public boolean shouldRetry(int attempt, Throwable error) {
+        return attempt < maxAttempts && isTransient(error);
+    }
+
+    /**
+     * @param attempt number of attempts already made, starting at 1
+     */
+    public long getBackoffMillis(int attempt) {
+        long backoff = maxBackoffMillis;
+        if (attempt - 1 < Long.numberOfLeadingZeros(Math.max(initialBackoffMillis, 1)) - 1) {
+            backoff = Math.min(maxBackoffMillis, initialBackoffMillis << (attempt - 1));
+        }
+        return backoff - ThreadLocalRandom.current().nextLong(backoff / 2 + 1);
+    }
+
+    /**
+     * Errors worth retrying: timeouts, network failures, and the HTTP statuses or Cloud Controller
+     * error codes returned by a throttled or overloaded endpoint. Messages are not searched for
+     * status codes, which also appear in names, GUIDs and quotas.
+     */
+    public static boolean isTransient(Throwable error) {
+        for (Throwable cause : Throwables.getCausalChain(error)) {
+            Integer status = getHttpStatus(cause);
+            if (status != null) {
+                return TRANSIENT_STATUSES.contains(status);
+            }
+            if (cause instanceof TimeoutException || cause instanceof IOException
+                    || cause instanceof io.netty.handler.timeout.TimeoutException) {
+                return true;
+            }
+            if (cause instanceof IllegalStateException && cause.getMessage() != null
+                    && cause.getMessage().startsWith(BLOCKING_READ_TIMEOUT)) {
+                return true;
+            }
+            if (cause instanceof CloudFoundryException) {
+                String errorCode = ((CloudFoundryException) cause).getErrorCode();
+                return TRANSIENT_ERROR_CODES.contains(errorCode);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the HTTP status of a response reactor-netty failed on without a Cloud Controller
+     * error payload, such as the ones of a router or load balancer, or null for other errors
+     */
+    static Integer getHttpStatus(Throwable error) {
+        if (error instanceof HttpException) {
+            HttpResponseStatus status = ((HttpException) error).getResponseStatus();
+            return (status != null) ? status.code() : null;
+        }
+        return null;
+    }
+}
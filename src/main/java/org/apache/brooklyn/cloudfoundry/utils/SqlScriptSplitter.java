@@ -0,0 +1,211 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.brooklyn.cloudfoundry.utils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Splits a SQL script into statements while reading it, so that scripts of any size can be
+ * run without holding them in memory. Delimiters inside quotes and comments are ignored;
+ * comments are dropped except MySQL executable comments, and {@code DELIMITER} lines change
+ * the statement delimiter as in the mysql client.
+ */
+public class SqlScriptSplitter {
+
+    private static final String DEFAULT_DELIMITER = ";";
+    private static final Pattern DELIMITER_COMMAND =
+            Pattern.compile("(?i)^DELIMITER\\s+(\\S+)$");
+    private static final int EOF = -1;
+
+    private final Reader reader;
+    private final StringBuilder statement = new StringBuilder();
+    private String delimiter = DEFAULT_DELIMITER;
+    private int pushedBack = EOF - 1;
+    /**
+     * Start of the current line in the statement, and whether the statement is blank before it:
+     * only a line on its own can be a {@code DELIMITER} command.
+     */
+    private int lineStart;
+    private boolean blankBeforeLine = true;
+
+    public SqlScriptSplitter(Reader reader) {
+        checkNotNull(reader, "reader");
+        this.reader = (reader instanceof BufferedReader) ? reader : new BufferedReader(reader);
+    }
+
+    /**
+     * @return the next statement of the script, without its delimiter, or null once the
+     * script is over
+     */
+    public String nextStatement() throws IOException {
+        resetStatement();
+        int c;
+        while ((c = read()) != EOF) {
+            if (c == '\'' || c == '"' || c == '`') {
+                readQuoted(c);
+            } else if (c == '-' && peek() == '-') {
+                read();
+                if (isWhitespaceOrEnd(peek())) {
+                    skipLine();
+                } else {
+                    statement.append("--");
+                }
+            } else if (c == '#') {
+                skipLine();
+            } else if (c == '/' && peek() == '*') {
+                read();
+                readBlockComment();
+            } else if (c == '\n') {
+                if (applyDelimiterCommand()) {
+                    continue;
+                }
+                statement.append((char) c);
+                startLine();
+            } else {
+                statement.append((char) c);
+                if (endsWithDelimiter()) {
+                    statement.setLength(statement.length() - delimiter.length());
+                    String result = statement.toString().trim();
+                    if (!result.isEmpty()) {
+                        return result;
+                    }
+                    resetStatement();
+                }
+            }
+        }
+        applyDelimiterCommand();
+        String result = statement.toString().trim();
+        resetStatement();
+        return result.isEmpty() ? null : result;
+    }
+
+    public String getDelimiter() {
+        return delimiter;
+    }
+
+    /**
+     * Only the current line is matched, so that long statements are not scanned at every line.
+     */
+    private boolean applyDelimiterCommand() {
+        if (!blankBeforeLine) {
+            return false;
+        }
+        Matcher matcher = DELIMITER_COMMAND.matcher(statement.substring(lineStart).trim());
+        if (matcher.matches()) {
+            delimiter = matcher.group(1);
+            resetStatement();
+            return true;
+        }
+        return false;
+    }
+
+    private void startLine() {
+        for (int i = lineStart; blankBeforeLine && i < statement.length(); i++) {
+            blankBeforeLine = Character.isWhitespace(statement.charAt(i));
+        }
+        lineStart = statement.length();
+    }
+
+    private void resetStatement() {
+        statement.setLength(0);
+        lineStart = 0;
+        blankBeforeLine = true;
+    }
+
+    private boolean endsWithDelimiter() {
+        int length = statement.length();
+        int delimiterLength = delimiter.length();
+        if (length < delimiterLength) {
+            return false;
+        }
+        for (int i = 0; i < delimiterLength; i++) {
+            if (statement.charAt(length - delimiterLength + i) != delimiter.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void readQuoted(int quote) throws IOException {
+        statement.append((char) quote);
+        int c;
+        while ((c = read()) != EOF) {
+            statement.append((char) c);
+            if (c == '\\' && quote != '`') {
+                int escaped = read();
+                if (escaped != EOF) {
+                    statement.append((char) escaped);
+                }
+            } else if (c == quote) {
+                return;
+            }
+        }
+    }
+
+    private void readBlockComment() throws IOException {
+        boolean executable = peek() == '!';
+        if (executable) {
+            statement.append("/*");
+        }
+        int previous = EOF;
+        int c;
+        while ((c = read()) != EOF) {
+            if (executable) {
+                statement.append((char) c);
+            }
+            if (previous == '*' && c == '/') {
+                return;
+            }
+            previous = c;
+        }
+    }
+
+    private void skipLine() throws IOException {
+        int c;
+        while ((c = peek()) != EOF && c != '\n') {
+            read();
+        }
+    }
+
+    private boolean isWhitespaceOrEnd(int c) {
+        return c == EOF || Character.isWhitespace(c);
+    }
+
+    private int read() throws IOException {
+        if (pushedBack != EOF - 1) {
+            int c = pushedBack;
+            pushedBack = EOF - 1;
+            return c;
+        }
+        return reader.read();
+    }
+
+    private int peek() throws IOException {
+        if (pushedBack == EOF - 1) {
+            pushedBack = reader.read();
+        }
+        return pushedBack;
+    }
+}
@@ -0,0 +1,294 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.brooklyn.cloudfoundry.utils;
+
+import com.google.common.base.Function;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.Hashing;
+import freemarker.template.Configuration;
+import freemarker.template.Template;
+import freemarker.template.TemplateException;
+import org.apache.brooklyn.util.exceptions.Exceptions;
+
+import java.io.File;
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Freemarker templates shared by the entities that render them. The content behind a URL is
+ * fetched again only once {@code contentTtlMillis} have passed, and templates are compiled
+ * once per distinct content, whatever the number of URLs serving it. Only templates of at most
+ * {@code maxTemplateLength} characters are kept.
+ */
+public class TemplateCache {
+
+    private static final TemplateCache INSTANCE = new TemplateCache(
+            TimeUnit.MINUTES.toMillis(5), 100);
+
+    public static final int DEFAULT_MAX_TEMPLATE_LENGTH = 1024 * 1024;
+
+    private static final String[] DIRECTIVES = {"${", "#{", "<#", "</#", "<@", "</@", "[#ftl"};
+    private static final int DIRECTIVE_OVERLAP = 4;
+    private static final int CHUNK_SIZE = 64 * 1024;
+
+    private final Configuration configuration;
+    private final int maxTemplateLength;
+    private final Cache<String, String> contentHashByUrl;
+    private final Cache<String, Template> templatesByHash;
+
+    public TemplateCache(long contentTtlMillis, int maxTemplates) {
+        this(contentTtlMillis, maxTemplates, DEFAULT_MAX_TEMPLATE_LENGTH);
+    }
+
+    public TemplateCache(long contentTtlMillis, int maxTemplates, int maxTemplateLength) {
+        configuration = new Configuration(Configuration.VERSION_2_3_22);
+        configuration.setDefaultEncoding(StandardCharsets.UTF_8.name());
+        this.maxTemplateLength = maxTemplateLength;
+        contentHashByUrl = CacheBuilder.newBuilder()
+                .expireAfterWrite(contentTtlMillis, TimeUnit.MILLISECONDS)
+                .maximumSize(maxTemplates)
+                .build();
+        templatesByHash = CacheBuilder.newBuilder()
+                .expireAfterAccess(contentTtlMillis, TimeUnit.MILLISECONDS)
+                .maximumSize(maxTemplates)
+                .build();
+    }
+
+    public static TemplateCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * @param loader fetches the content of the template, called only when the content of
+     *               the URL is not cached
+     */
+    public Template getTemplate(String url, Function<String, String> loader) {
+        checkNotNull(url, "url");
+        Template template = getCachedTemplate(url);
+        if (template == null) {
+            template = compile(url, checkNotNull(loader.apply(url), "content of " + url));
+        }
+        return template;
+    }
+
+    public String render(String url, Function<String, String> loader, Map<String, ?> model) {
+        Template template = getTemplate(url, loader);
+        StringWriter out = new StringWriter();
+        try {
+            template.process(model, out);
+        } catch (TemplateException | IOException e) {
+            throw Exceptions.propagate(e);
+        }
+        return out.toString();
+    }
+
+    /**
+     * Opens the script behind the URL, rendered with the model if it is a template. A script
+     * without any template directive is read as it is streamed from the source; a template is
+     * rendered into a temporary file, deleted when the returned reader is closed, so that the
+     * rendered text is never held in memory.
+     *
+     * @param source opens the content of the URL, called only when it is not a cached template
+     */
+    public Reader openScript(String url, Callable<Reader> source, Map<String, ?> model)
+            throws IOException {
+        checkNotNull(url, "url");
+        Template template = getCachedTemplate(url);
+        if (template != null) {
+            return renderToFile(template, model);
+        }
+        Reader in = open(source);
+        try {
+            String head = readHead(in, maxTemplateLength + 1);
+            if (head.length() <= maxTemplateLength) {
+                in.close();
+                if (!hasDirectives(head)) {
+                    return new StringReader(head);
+                }
+                return renderToFile(compile(url, head), model);
+            }
+            return openLargeScript(url, head, in, model);
+        } catch (IOException | RuntimeException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Spools a script too large to be kept as a template to a temporary file, looking for
+     * template directives on the way; it is only compiled, without being cached, if it has any.
+     */
+    private Reader openLargeScript(String url, String head, Reader rest, Map<String, ?> model)
+            throws IOException {
+        File spool = File.createTempFile("brooklyn-script-", ".sql");
+        boolean template;
+        try (Reader in = rest;
+             Writer out = Files.newBufferedWriter(spool.toPath(), StandardCharsets.UTF_8)) {
+            out.write(head);
+            template = hasDirectives(head);
+            String previous = head.substring(head.length() - DIRECTIVE_OVERLAP);
+            char[] chunk = new char[CHUNK_SIZE];
+            int count;
+            while ((count = in.read(chunk)) >= 0) {
+                out.write(chunk, 0, count);
+                if (!template) {
+                    String window = previous + new String(chunk, 0, count);
+                    template = hasDirectives(window);
+                    previous = window.substring(Math.max(0, window.length() - DIRECTIVE_OVERLAP));
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            delete(spool);
+            throw e;
+        }
+        if (!template) {
+            return new TemporaryFileReader(spool);
+        }
+        try (Reader in = Files.newBufferedReader(spool.toPath(), StandardCharsets.UTF_8)) {
+            return renderToFile(new Template(url, in, configuration), model);
+        } finally {
+            delete(spool);
+        }
+    }
+
+    private Reader renderToFile(Template template, Map<String, ?> model) throws IOException {
+        File rendered = File.createTempFile("brooklyn-script-", ".sql");
+        try (Writer out = Files.newBufferedWriter(rendered.toPath(), StandardCharsets.UTF_8)) {
+            template.process(model, out);
+        } catch (TemplateException | IOException | RuntimeException e) {
+            delete(rendered);
+            throw (e instanceof IOException)
+                    ? (IOException) e
+                    : new IOException("Could not render template " + template.getName(), e);
+        }
+        try {
+            return new TemporaryFileReader(rendered);
+        } catch (IOException e) {
+            delete(rendered);
+            throw e;
+        }
+    }
+
+    private Template getCachedTemplate(String url) {
+        String hash = contentHashByUrl.getIfPresent(url);
+        return (hash != null) ? templatesByHash.getIfPresent(hash) : null;
+    }
+
+    private Template compile(String url, String content) {
+        if (content.length() > maxTemplateLength) {
+            try {
+                return new Template(url, new StringReader(content), configuration);
+            } catch (IOException e) {
+                throw Exceptions.propagate(e);
+            }
+        }
+        String hash = Hashing.sha256().hashString(content, StandardCharsets.UTF_8).toString();
+        try {
+            Template template = templatesByHash.get(hash,
+                    () -> new Template(url, new StringReader(content), configuration));
+            contentHashByUrl.put(url, hash);
+            return template;
+        } catch (ExecutionException e) {
+            throw Exceptions.propagate(e.getCause());
+        }
+    }
+
+    static boolean hasDirectives(String content) {
+        for (String directive : DIRECTIVES) {
+            if (content.contains(directive)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Reader open(Callable<Reader> source) throws IOException {
+        try {
+            return checkNotNull(source.call(), "source");
+        } catch (IOException e) {
+            throw e;
+        } catch (Exception e) {
+            throw Exceptions.propagate(e);
+        }
+    }
+
+    /**
+     * @return the first {@code maxLength} characters of the reader, or all of them if fewer
+     */
+    private static String readHead(Reader in, int maxLength) throws IOException {
+        StringBuilder head = new StringBuilder();
+        char[] chunk = new char[Math.min(CHUNK_SIZE, maxLength)];
+        int count;
+        while (head.length() < maxLength
+                && (count = in.read(chunk, 0, Math.min(chunk.length,
+                maxLength - head.length()))) >= 0) {
+            head.append(chunk, 0, count);
+        }
+        return head.toString();
+    }
+
+    private static void delete(File file) {
+        if (!file.delete() && file.exists()) {
+            file.deleteOnExit();
+        }
+    }
+
+    public long getCompiledCount() {
+        return templatesByHash.size();
+    }
+
+    public void invalidate(String url) {
+        contentHashByUrl.invalidate(url);
+    }
+
+    /**
+     * Reads a temporary file, deleted once it is closed.
+     */
+    private static class TemporaryFileReader extends FilterReader {
+
+        private final File file;
+
+        TemporaryFileReader(File file) throws IOException {
+            super(Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8));
+            this.file = file;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                delete(file);
+            }
+        }
+    }
+}
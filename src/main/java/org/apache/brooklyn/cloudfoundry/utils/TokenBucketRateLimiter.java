@@ -0,0 +1,135 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.brooklyn.cloudfoundry.utils;
+
+import com.google.common.base.Ticker;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Token bucket shared by the callers of a remote API. The bucket holds up to {@code burst}
+ * permits and is refilled at {@code permitsPerSecond}; callers block in {@link #acquire(long)}
+ * until a permit is available or the given wait runs out.
+ * <p>
+ * A non-positive rate disables limiting: every permit is granted immediately.
+ */
+public class TokenBucketRateLimiter {
+
+    private final double permitsPerSecond;
+    private final double burst;
+    private final Ticker ticker;
+
+    private double availablePermits;
+    private long lastRefillNanos;
+
+    private final AtomicLong grantedPermits = new AtomicLong();
+    private final AtomicLong throttledPermits = new AtomicLong();
+    private final AtomicLong rejectedPermits = new AtomicLong();
+    private final AtomicLong waitedMillis = new AtomicLong();
+
+    public TokenBucketRateLimiter(double permitsPerSecond, int burst) {
+        this(permitsPerSecond, burst, Ticker.systemTicker());
+    }
+
+    TokenBucketRateLimiter(double permitsPerSecond, int burst, Ticker ticker) {
+        checkArgument(burst > 0 || permitsPerSecond <= 0, "burst must be positive");
+        this.permitsPerSecond = permitsPerSecond;
+        this.burst = Math.max(burst, 1);
+        this.ticker = checkNotNull(ticker, "ticker");
+        this.availablePermits = this.burst;
+        this.lastRefillNanos = ticker.read();
+    }
+
+    public boolean isEnabled() {
+        return permitsPerSecond > 0;
+    }
+
+    /**
+     * Takes a permit, waiting at most {@code maxWaitMillis} for one to become available.
+     *
+     * @return false if no permit could be obtained in time
+     */
+    public boolean acquire(long maxWaitMillis) throws InterruptedException {
+        if (!isEnabled()) {
+            grantedPermits.incrementAndGet();
+            return true;
+        }
+        long waitNanos = reserve(TimeUnit.MILLISECONDS.toNanos(maxWaitMillis));
+        if (waitNanos < 0) {
+            rejectedPermits.incrementAndGet();
+            return false;
+        }
+        if (waitNanos > 0) {
+            throttledPermits.incrementAndGet();
+            waitedMillis.addAndGet(TimeUnit.NANOSECONDS.toMillis(waitNanos));
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+        grantedPermits.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * Reserves a permit, possibly in the future, and returns how long the caller has to wait
+     * for it, or -1 if that would exceed {@code maxWaitNanos} (nothing is reserved then).
+     */
+    synchronized long reserve(long maxWaitNanos) {
+        refill();
+        if (availablePermits >= 1) {
+            availablePermits -= 1;
+            return 0;
+        }
+        long waitNanos = (long) Math.ceil((1 - availablePermits) * TimeUnit.SECONDS.toNanos(1)
+                / permitsPerSecond);
+        if (waitNanos > maxWaitNanos) {
+            return -1;
+        }
+        availablePermits -= 1;
+        return waitNanos;
+    }
+
+    private void refill() {
+        long now = ticker.read();
+        double refilled = (now - lastRefillNanos) * permitsPerSecond / TimeUnit.SECONDS.toNanos(1);
+        availablePermits = Math.min(burst, availablePermits + refilled);
+        lastRefillNanos = now;
+    }
+
+    public long getGrantedPermits() {
+        return grantedPermits.get();
+    }
+
+    /**
+     * @return number of permits granted only after waiting
+     */
+    public long getThrottledPermits() {
+        return throttledPermits.get();
+    }
+
+    public long getRejectedPermits() {
+        return rejectedPermits.get();
+    }
+
+    public long getWaitedMillis() {
+        return waitedMillis.get();
+    }
+}
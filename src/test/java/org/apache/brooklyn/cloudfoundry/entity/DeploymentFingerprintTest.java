@@ -0,0 +1,68 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.brooklyn.cloudfoundry.entity;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import org.apache.brooklyn.cloudfoundry.entity.DeploymentFingerprint.Part;
+import org.apache.brooklyn.util.collections.MutableMap;
+import org.testng.annotations.Test;
+
+public class DeploymentFingerprintTest {
+
+    @Test
+    public void testOnlyTheChangedPartDiffers() {
+        DeploymentFingerprint deployed = fingerprint("artifact:abc", 512);
+        DeploymentFingerprint scaled = fingerprint("artifact:abc", 1024);
+
+        assertFalse(scaled.equals(deployed));
+        assertTrue(scaled.isChanged(deployed, Part.SIZING));
+        assertFalse(scaled.isChanged(deployed, Part.CODE));
+        assertFalse(scaled.isChanged(deployed, Part.ENV));
+        assertEquals(fingerprint("artifact:abc", 512), deployed);
+    }
+
+    @Test
+    public void testEnvOrderDoesNotMatter() {
+        DeploymentFingerprint first = DeploymentFingerprint.builder()
+                .putAll(Part.ENV, "env", MutableMap.of("A", "1", "B", "2")).build();
+        DeploymentFingerprint second = DeploymentFingerprint.builder()
+                .putAll(Part.ENV, "env", MutableMap.of("B", "2", "A", "1")).build();
+        assertEquals(first, second);
+    }
+
+    @Test
+    public void testParse() {
+        DeploymentFingerprint fingerprint = fingerprint("artifact:abc", 512);
+        assertEquals(DeploymentFingerprint.parse(fingerprint.toString()), fingerprint);
+        assertNull(DeploymentFingerprint.parse("CODE=abc"));
+        assertNull(DeploymentFingerprint.parse("not a fingerprint"));
+        assertNull(DeploymentFingerprint.parse(null));
+    }
+
+    private DeploymentFingerprint fingerprint(String code, int memory) {
+        return DeploymentFingerprint.builder()
+                .put(Part.CODE, "code", code)
+                .put(Part.SIZING, "memory", memory)
+                .build();
+    }
+}
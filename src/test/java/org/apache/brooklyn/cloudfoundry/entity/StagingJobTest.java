@@ -0,0 +1,129 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.brooklyn.cloudfoundry.entity;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.brooklyn.util.collections.MutableList;
+import org.cloudfoundry.doppler.LogMessage;
+import org.cloudfoundry.doppler.MessageType;
+import org.testng.annotations.Test;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public class StagingJobTest {
+
+    @Test
+    public void testSuccessfulStaging() {
+        RecordingListener listener = new RecordingListener();
+        StagingJob job = new StagingJob("app", 10, 100, listener);
+
+        job.start(Mono.<Void>empty(), Flux.just(
+                logMessage("STG", "Downloading buildpack"),
+                logMessage("RTR", "ignored"),
+                logMessage("STG", "Staging complete"),
+                logMessage("CELL", "Creating container")));
+
+        assertEquals(job.getState(), StagingState.RUNNING);
+        assertEquals(listener.states, MutableList.of(
+                StagingState.STAGING, StagingState.STARTING, StagingState.RUNNING));
+        assertEquals(job.getStagingLog(),
+                MutableList.of("Downloading buildpack", "Staging complete"));
+        assertEquals(listener.lastLog, job.getStagingLog());
+    }
+
+    @Test
+    public void testFailedStaging() {
+        RecordingListener listener = new RecordingListener();
+        StagingJob job = new StagingJob("app", 10, 100, listener);
+
+        job.start(Mono.<Void>error(new IllegalStateException("staging failed")), null);
+
+        assertEquals(job.getState(), StagingState.FAILED);
+        assertNotNull(job.getFailure());
+        assertEquals(listener.states, MutableList.of(StagingState.STAGING, StagingState.FAILED));
+    }
+
+    @Test
+    public void testStagingLogPublicationIsThrottled() {
+        RecordingListener listener = new RecordingListener();
+        StagingJob job = new StagingJob("app", 200, 100, listener);
+        List<LogMessage> logs = MutableList.of();
+        for (int i = 0; i < 100; i++) {
+            logs.add(logMessage("STG", "line " + i));
+        }
+        logs.add(logMessage("CELL", "Creating container"));
+
+        job.start(Mono.<Void>empty(), Flux.fromIterable(logs));
+
+        assertTrue(listener.logPublications < 100, "published " + listener.logPublications);
+        assertEquals(listener.lastLog.size(), 100);
+        assertEquals(listener.lastLog, job.getStagingLog());
+    }
+
+    @Test
+    public void testCancelStopsStartAndLogs() {
+        AtomicBoolean startCancelled = new AtomicBoolean();
+        AtomicBoolean logsCancelled = new AtomicBoolean();
+        StagingJob job = new StagingJob("app", 10, 100, new RecordingListener());
+
+        job.start(Mono.<Void>never().doOnCancel(() -> startCancelled.set(true)),
+                Flux.<LogMessage>never().doOnCancel(() -> logsCancelled.set(true)));
+        job.cancel();
+
+        assertTrue(startCancelled.get());
+        assertTrue(logsCancelled.get());
+        assertEquals(job.getState(), StagingState.STAGING);
+    }
+
+    private LogMessage logMessage(String sourceType, String message) {
+        return LogMessage.builder()
+                .applicationId("app-id")
+                .message(message)
+                .messageType(MessageType.OUT)
+                .sourceInstance("0")
+                .sourceType(sourceType)
+                .timestamp(System.nanoTime())
+                .build();
+    }
+
+    private static class RecordingListener implements StagingJob.Listener {
+
+        private final List<StagingState> states = MutableList.of();
+        private List<String> lastLog;
+        private int logPublications;
+
+        @Override
+        public void onStateChanged(StagingState state) {
+            states.add(state);
+        }
+
+        @Override
+        public void onStagingLog(List<String> lines) {
+            lastLog = lines;
+            logPublications++;
+        }
+    }
+}
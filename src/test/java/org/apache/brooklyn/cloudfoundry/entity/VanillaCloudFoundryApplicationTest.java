@@ -63,6 +63,8 @@ import com.squareup.okhttp.mockwebserver.MockResponse;
 import com.squareup.okhttp.mockwebserver.MockWebServer;
 import com.squareup.okhttp.mockwebserver.RecordedRequest;
 
+import reactor.core.publisher.Mono;
+
 public class VanillaCloudFoundryApplicationTest extends AbstractCloudFoundryUnitTest {
     private static final String MOCKED_APP_PATH = "vanilla-cf-app-test";
 
@@ -90,7 +92,7 @@ public class VanillaCloudFoundryApplicationTest extends AbstractCloudFoundryUnit
 
     @Test
     public void testDeployApplication() throws IOException {
-        doNothing().when(cloudFoundryPaasLocation).startApplication(anyString());
+        doReturn(Mono.<Void>empty()).when(cloudFoundryPaasLocation).startApplicationAsync(anyString());
         doReturn(serverAddress).when(cloudFoundryPaasLocation).deploy(anyMap());
 
         doReturn(EMPTY_ENV).when(cloudFoundryPaasLocation).getEnv(anyString());
@@ -106,7 +108,7 @@ public class VanillaCloudFoundryApplicationTest extends AbstractCloudFoundryUnit
 
     @Test
     public void testDeployApplicationWithEnv() throws IOException {
-        doNothing().when(cloudFoundryPaasLocation).startApplication(anyString());
+        doReturn(Mono.<Void>empty()).when(cloudFoundryPaasLocation).startApplicationAsync(anyString());
         doReturn(serverAddress).when(cloudFoundryPaasLocation).deploy(anyMap());
         doReturn(SIMPLE_ENV).when(cloudFoundryPaasLocation).getEnv(anyString());
         doNothing().when(cloudFoundryPaasLocation)
@@ -130,7 +132,7 @@ public class VanillaCloudFoundryApplicationTest extends AbstractCloudFoundryUnit
     @SuppressWarnings("unchecked")
     public void testSetEnvEffector() throws IOException {
         Map<String, String> env = MutableMap.copyOf(EMPTY_ENV);
-        doNothing().when(cloudFoundryPaasLocation).startApplication(anyString());
+        doReturn(Mono.<Void>empty()).when(cloudFoundryPaasLocation).startApplicationAsync(anyString());
         doReturn(serverAddress).when(cloudFoundryPaasLocation).deploy(anyMap());
         doReturn(env).when(cloudFoundryPaasLocation).getEnv(anyString());
         doNothing().when(cloudFoundryPaasLocation)
@@ -150,7 +152,7 @@ public class VanillaCloudFoundryApplicationTest extends AbstractCloudFoundryUnit
 
     @Test
     public void testSetMemory() {
-        doNothing().when(cloudFoundryPaasLocation).startApplication(anyString());
+        doReturn(Mono.<Void>empty()).when(cloudFoundryPaasLocation).startApplicationAsync(anyString());
         doReturn(serverAddress).when(cloudFoundryPaasLocation).deploy(anyMap());
         doReturn(EMPTY_ENV).when(cloudFoundryPaasLocation).getEnv(anyString());
 
@@ -167,7 +169,7 @@ public class VanillaCloudFoundryApplicationTest extends AbstractCloudFoundryUnit
 
     @Test
     public void testSetDisk() {
-        doNothing().when(cloudFoundryPaasLocation).startApplication(anyString());
+        doReturn(Mono.<Void>empty()).when(cloudFoundryPaasLocation).startApplicationAsync(anyString());
         doReturn(serverAddress).when(cloudFoundryPaasLocation).deploy(anyMap());
         doReturn(EMPTY_ENV).when(cloudFoundryPaasLocation).getEnv(anyString());
 
@@ -185,7 +187,7 @@ public class VanillaCloudFoundryApplicationTest extends AbstractCloudFoundryUnit
 
     @Test
     public void testSetInstances() {
-        doNothing().when(cloudFoundryPaasLocation).startApplication(anyString());
+        doReturn(Mono.<Void>empty()).when(cloudFoundryPaasLocation).startApplicationAsync(anyString());
         doReturn(serverAddress).when(cloudFoundryPaasLocation).deploy(anyMap());
         doReturn(EMPTY_ENV).when(cloudFoundryPaasLocation).getEnv(anyString());
 
@@ -204,7 +206,7 @@ public class VanillaCloudFoundryApplicationTest extends AbstractCloudFoundryUnit
 
     @Test
     public void testStopApplication() {
-        doNothing().when(cloudFoundryPaasLocation).startApplication(anyString());
+        doReturn(Mono.<Void>empty()).when(cloudFoundryPaasLocation).startApplicationAsync(anyString());
         doNothing().when(cloudFoundryPaasLocation).stopApplication(anyString());
         doNothing().when(cloudFoundryPaasLocation).deleteApplication(anyString());
         doReturn(serverAddress).when(cloudFoundryPaasLocation).deploy(anyMap());
@@ -226,7 +228,7 @@ public class VanillaCloudFoundryApplicationTest extends AbstractCloudFoundryUnit
 
     @Test
     public void testRestartApplication() {
-        doNothing().when(cloudFoundryPaasLocation).startApplication(anyString());
+        doReturn(Mono.<Void>empty()).when(cloudFoundryPaasLocation).startApplicationAsync(anyString());
         doNothing().when(cloudFoundryPaasLocation).restartApplication(anyString());
         doReturn(serverAddress).when(cloudFoundryPaasLocation).deploy(anyMap());
         doReturn(EMPTY_ENV).when(cloudFoundryPaasLocation).getEnv(anyString());
@@ -241,7 +243,7 @@ public class VanillaCloudFoundryApplicationTest extends AbstractCloudFoundryUnit
 
     @Test
     public void testBindServiceToEntity() {
-        doNothing().when(cloudFoundryPaasLocation).startApplication(anyString());
+        doReturn(Mono.<Void>empty()).when(cloudFoundryPaasLocation).startApplicationAsync(anyString());
         doReturn(serverAddress).when(cloudFoundryPaasLocation).deploy(anyMap());
         doReturn(EMPTY_ENV).when(cloudFoundryPaasLocation).getEnv(anyString());
         doNothing().when(cloudFoundryPaasLocation)
@@ -257,7 +259,7 @@ public class VanillaCloudFoundryApplicationTest extends AbstractCloudFoundryUnit
 
     @Test(expectedExceptions = PropagatedRuntimeException.class)
     public void testBindNonExistentServiceToEntity() {
-        doNothing().when(cloudFoundryPaasLocation).startApplication(anyString());
+        doReturn(Mono.<Void>empty()).when(cloudFoundryPaasLocation).startApplicationAsync(anyString());
         doThrow(nonExistentServiceException(SERVICE_INSTANCE_NAME))
                 .when(cloudFoundryPaasLocation)
                 .bindServiceToApplication(anyString(), anyString());
@@ -269,7 +271,7 @@ public class VanillaCloudFoundryApplicationTest extends AbstractCloudFoundryUnit
 
     @Test
     public void testBindServiceWithOperationToEntity() {
-        doNothing().when(cloudFoundryPaasLocation).startApplication(anyString());
+        doReturn(Mono.<Void>empty()).when(cloudFoundryPaasLocation).startApplicationAsync(anyString());
         doReturn(serverAddress).when(cloudFoundryPaasLocation).deploy(anyMap());
         doReturn(EMPTY_ENV).when(cloudFoundryPaasLocation).getEnv(anyString());
         doNothing().when(cloudFoundryPaasLocation)
@@ -345,6 +347,7 @@ public class VanillaCloudFoundryApplicationTest extends AbstractCloudFoundryUnit
                     .when(location).getDiskQuota(anyString());
             doReturn(entity.getConfig(VanillaCloudFoundryApplication.REQUIRED_INSTANCES))
                     .when(location).getInstancesNumber(anyString());
+            doReturn(MutableList.of(serverAddress)).when(location).getApplicationUrls(anyString());
         }
     }
 
@@ -360,6 +363,8 @@ public class VanillaCloudFoundryApplicationTest extends AbstractCloudFoundryUnit
         });
         assertEquals(entity.getAttribute(Attributes.MAIN_URI).toString(), serverAddress);
         assertEquals(entity.getAttribute(VanillaCloudFoundryApplication.ROOT_URL), serverAddress);
+        assertEquals(entity.getAttribute(VanillaCloudFoundryApplication.APPLICATION_URLS),
+                ImmutableList.of(serverAddress));
     }
 
     private Dispatcher getGenericDispatcher() {
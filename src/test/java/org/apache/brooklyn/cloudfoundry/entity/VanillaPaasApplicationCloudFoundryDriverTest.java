@@ -29,6 +29,7 @@ import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotNull;
 import static org.testng.Assert.assertNull;
 import static org.testng.Assert.assertTrue;
 
@@ -39,19 +40,25 @@ import org.apache.brooklyn.cloudfoundry.AbstractCloudFoundryUnitTest;
 import org.apache.brooklyn.cloudfoundry.location.CloudFoundryPaasLocation;
 import org.apache.brooklyn.core.entity.Attributes;
 import org.apache.brooklyn.util.collections.MutableMap;
+import org.mockito.ArgumentCaptor;
 import org.mockito.MockitoAnnotations;
 import org.mockito.internal.util.MockUtil;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
+import com.google.common.collect.ImmutableList;
 import com.squareup.okhttp.HttpUrl;
 import com.squareup.okhttp.mockwebserver.Dispatcher;
 import com.squareup.okhttp.mockwebserver.MockResponse;
 import com.squareup.okhttp.mockwebserver.MockWebServer;
 import com.squareup.okhttp.mockwebserver.RecordedRequest;
 
+import reactor.core.publisher.Mono;
+
 public class VanillaPaasApplicationCloudFoundryDriverTest extends AbstractCloudFoundryUnitTest {
 
+    private static final String IMAGE_DIGEST = "sha256:0123456789abcdef";
+
     CloudFoundryPaasLocation location;
 
     private MockWebServer mockWebServer;
@@ -72,7 +79,7 @@ public class VanillaPaasApplicationCloudFoundryDriverTest extends AbstractCloudF
     @Test
     public void testStartApplication() {
         when(location.deploy(anyMap())).thenReturn(applicationUrl);
-        doNothing().when(location).startApplication(anyString());
+        when(location.startApplicationAsync(anyString())).thenReturn(Mono.<Void>empty());
         when(location.getEnv(anyString())).thenReturn(EMPTY_ENV);
 
         VanillaCloudFoundryApplicationImpl entity = new VanillaCloudFoundryApplicationImpl();
@@ -95,7 +102,7 @@ public class VanillaPaasApplicationCloudFoundryDriverTest extends AbstractCloudF
     @Test
     public void testStartApplicationWithEnv() {
         when(location.deploy(anyMap())).thenReturn(applicationUrl);
-        doNothing().when(location).startApplication(anyString());
+        when(location.startApplicationAsync(anyString())).thenReturn(Mono.<Void>empty());
         when(location.getEnv(anyString())).thenReturn(SIMPLE_ENV);
 
         VanillaCloudFoundryApplicationImpl entity = new VanillaCloudFoundryApplicationImpl();
@@ -119,7 +126,7 @@ public class VanillaPaasApplicationCloudFoundryDriverTest extends AbstractCloudF
     @Test
     public void testStartApplicationWithoutEnv() {
         when(location.deploy(anyMap())).thenReturn(applicationUrl);
-        doNothing().when(location).startApplication(anyString());
+        when(location.startApplicationAsync(anyString())).thenReturn(Mono.<Void>empty());
         when(location.getEnv(anyString())).thenReturn(EMPTY_ENV);
 
         VanillaCloudFoundryApplicationImpl entity = new VanillaCloudFoundryApplicationImpl();
@@ -144,7 +151,7 @@ public class VanillaPaasApplicationCloudFoundryDriverTest extends AbstractCloudF
     public void testSetEnvToApplication() {
         Map<String, String> env = SIMPLE_ENV;
         when(location.deploy(anyMap())).thenReturn(applicationUrl);
-        doNothing().when(location).startApplication(anyString());
+        when(location.startApplicationAsync(anyString())).thenReturn(Mono.<Void>empty());
         when(location.getEnv(anyString())).thenReturn(env);
 
         VanillaCloudFoundryApplicationImpl entity = new VanillaCloudFoundryApplicationImpl();
@@ -172,7 +179,7 @@ public class VanillaPaasApplicationCloudFoundryDriverTest extends AbstractCloudF
     public void testSetNullEnvToApplication() {
         Map<String, String> newEnv = null;
         when(location.deploy(anyMap())).thenReturn(applicationUrl);
-        doNothing().when(location).startApplication(anyString());
+        when(location.startApplicationAsync(anyString())).thenReturn(Mono.<Void>empty());
         when(location.getEnv(anyString())).thenReturn(SIMPLE_ENV);
 
         VanillaCloudFoundryApplicationImpl entity = new VanillaCloudFoundryApplicationImpl();
@@ -193,7 +200,7 @@ public class VanillaPaasApplicationCloudFoundryDriverTest extends AbstractCloudF
     @Test
     public void testSetMemory() {
         when(location.deploy(anyMap())).thenReturn(applicationUrl);
-        doNothing().when(location).startApplication(anyString());
+        when(location.startApplicationAsync(anyString())).thenReturn(Mono.<Void>empty());
         when(location.getEnv(anyString())).thenReturn(EMPTY_ENV);
         when(location.getMemory(anyString())).thenReturn(CUSTOM_MEMORY);
 
@@ -221,7 +228,7 @@ public class VanillaPaasApplicationCloudFoundryDriverTest extends AbstractCloudF
     @Test
     public void testSetDisk() {
         when(location.deploy(anyMap())).thenReturn(applicationUrl);
-        doNothing().when(location).startApplication(anyString());
+        when(location.startApplicationAsync(anyString())).thenReturn(Mono.<Void>empty());
         when(location.getEnv(anyString())).thenReturn(EMPTY_ENV);
 
         VanillaCloudFoundryApplicationImpl entity = new VanillaCloudFoundryApplicationImpl();
@@ -247,7 +254,7 @@ public class VanillaPaasApplicationCloudFoundryDriverTest extends AbstractCloudF
     @Test
     public void testSetInstances() {
         when(location.deploy(anyMap())).thenReturn(applicationUrl);
-        doNothing().when(location).startApplication(anyString());
+        when(location.startApplicationAsync(anyString())).thenReturn(Mono.<Void>empty());
         when(location.getEnv(anyString())).thenReturn(EMPTY_ENV);
         when(location.getInstancesNumber(anyString())).thenReturn(CUSTOM_INSTANCES);
 
@@ -274,7 +281,7 @@ public class VanillaPaasApplicationCloudFoundryDriverTest extends AbstractCloudF
     @Test
     public void testStopApplication() throws IOException {
         when(location.deploy(anyMap())).thenReturn(applicationUrl);
-        doNothing().when(location).startApplication(anyString());
+        when(location.startApplicationAsync(anyString())).thenReturn(Mono.<Void>empty());
         doNothing().when(location).stopApplication(anyString());
 
         VanillaCloudFoundryApplicationImpl entity = new VanillaCloudFoundryApplicationImpl();
@@ -295,7 +302,7 @@ public class VanillaPaasApplicationCloudFoundryDriverTest extends AbstractCloudF
     @Test
     public void testRestartApplication() {
         when(location.deploy(anyMap())).thenReturn(applicationUrl);
-        doNothing().when(location).startApplication(anyString());
+        when(location.startApplicationAsync(anyString())).thenReturn(Mono.<Void>empty());
         doNothing().when(location).restartApplication(anyString());
 
         VanillaCloudFoundryApplicationImpl entity = new VanillaCloudFoundryApplicationImpl();
@@ -311,6 +318,20 @@ public class VanillaPaasApplicationCloudFoundryDriverTest extends AbstractCloudF
         verify(location, times(1)).restartApplication(entity.getApplicationName());
     }
 
+    @Test
+    public void testRebindRestoresApplicationUrl() {
+        VanillaCloudFoundryApplicationImpl entity = new VanillaCloudFoundryApplicationImpl();
+        entity.setManagementContext(mgmt);
+        entity.sensors().set(VanillaCloudFoundryApplication.ROOT_URL, applicationUrl);
+
+        VanillaPaasApplicationDriver driver =
+                new VanillaPaasApplicationCloudFoundryDriver(entity, location);
+        assertFalse(driver.isRunning());
+        driver.rebind();
+        assertTrue(driver.isRunning());
+        verify(location, never()).deploy(anyMap());
+    }
+
     @Test
     public void testDeleteApplication() throws IOException {
         VanillaCloudFoundryApplicationImpl entity = new VanillaCloudFoundryApplicationImpl();
@@ -322,6 +343,189 @@ public class VanillaPaasApplicationCloudFoundryDriverTest extends AbstractCloudF
         verify(location, times(1)).deleteApplication(anyString());
     }
 
+    @Test
+    public void testHealthCheckUsesConfiguredPathMethodAndStatus() throws InterruptedException {
+        when(location.deploy(anyMap())).thenReturn(applicationUrl);
+        when(location.startApplicationAsync(anyString())).thenReturn(Mono.<Void>empty());
+
+        VanillaCloudFoundryApplicationImpl entity = new VanillaCloudFoundryApplicationImpl();
+        entity.setConfigEvenIfOwned(VanillaCloudFoundryApplication.ARTIFACT_PATH, ARTIFACT_URL);
+        entity.setConfigEvenIfOwned(VanillaCloudFoundryApplication.HEALTH_CHECK_PATH, "/health");
+        entity.setConfigEvenIfOwned(VanillaCloudFoundryApplication.HEALTH_CHECK_METHOD, "HEAD");
+        entity.setManagementContext(mgmt);
+
+        VanillaPaasApplicationDriver driver =
+                new VanillaPaasApplicationCloudFoundryDriver(entity, location);
+        driver.start();
+        assertFalse(driver.isRunning());
+
+        entity.setConfigEvenIfOwned(VanillaCloudFoundryApplication.HEALTH_CHECK_EXPECTED_STATUS,
+                ImmutableList.of(200, 404));
+        assertTrue(driver.isRunning());
+        assertEquals(mockWebServer.takeRequest().getMethod(), "HEAD");
+    }
+
+    @Test
+    public void testHealthCheckUsingInstancesState() {
+        when(location.deploy(anyMap())).thenReturn(applicationUrl);
+        when(location.startApplicationAsync(anyString())).thenReturn(Mono.<Void>empty());
+        when(location.areInstancesRunning(anyString())).thenReturn(true, false);
+
+        VanillaCloudFoundryApplicationImpl entity = new VanillaCloudFoundryApplicationImpl();
+        entity.setConfigEvenIfOwned(VanillaCloudFoundryApplication.ARTIFACT_PATH, ARTIFACT_URL);
+        entity.setConfigEvenIfOwned(VanillaCloudFoundryApplication.HEALTH_CHECK_MODE,
+                HealthCheckMode.INSTANCES);
+        entity.setManagementContext(mgmt);
+
+        VanillaPaasApplicationDriver driver =
+                new VanillaPaasApplicationCloudFoundryDriver(entity, location);
+        driver.start();
+        assertTrue(driver.isRunning());
+        assertFalse(driver.isRunning());
+        assertEquals(mockWebServer.getRequestCount(), 0);
+    }
+
+    @Test
+    public void testDockerImageIsPushedPinnedToItsDigest() {
+        when(location.deploy(anyMap())).thenReturn(applicationUrl);
+        when(location.startApplicationAsync(anyString())).thenReturn(Mono.<Void>empty());
+        when(location.getEnv(anyString())).thenReturn(EMPTY_ENV);
+
+        VanillaCloudFoundryApplicationImpl entity = new VanillaCloudFoundryApplicationImpl();
+        entity.setConfigEvenIfOwned(VanillaCloudFoundryApplication.DOCKER_IMAGE,
+                "team/app@" + IMAGE_DIGEST);
+        entity.setManagementContext(mgmt);
+        mockLocationProfileUsingEntityConfig(location, entity);
+
+        new VanillaPaasApplicationCloudFoundryDriver(entity, location).start();
+        ArgumentCaptor<Map> params = ArgumentCaptor.forClass(Map.class);
+        verify(location).deploy(params.capture());
+        assertEquals(params.getValue().get(VanillaCloudFoundryApplication.DOCKER_IMAGE.getName()),
+                "team/app@" + IMAGE_DIGEST);
+        assertFalse(params.getValue().containsKey(
+                VanillaCloudFoundryApplication.ARTIFACT_PATH.getName()));
+        assertEquals(entity.getAttribute(VanillaCloudFoundryApplication.DOCKER_IMAGE_DIGEST),
+                IMAGE_DIGEST);
+    }
+
+    @Test
+    public void testUnchangedDockerImageIsNotPushedAgain() {
+        when(location.isDeployed(anyString())).thenReturn(true);
+        when(location.getApplicationUrl(anyString(), anyString(), anyString()))
+                .thenReturn(applicationUrl);
+        when(location.startApplicationAsync(anyString())).thenReturn(Mono.<Void>empty());
+        when(location.getEnv(anyString())).thenReturn(EMPTY_ENV);
+
+        VanillaCloudFoundryApplicationImpl entity = new VanillaCloudFoundryApplicationImpl();
+        entity.setConfigEvenIfOwned(VanillaCloudFoundryApplication.DOCKER_IMAGE,
+                "team/app@" + IMAGE_DIGEST);
+        entity.setManagementContext(mgmt);
+        entity.sensors().set(VanillaCloudFoundryApplication.DOCKER_IMAGE_DIGEST, IMAGE_DIGEST);
+        mockLocationProfileUsingEntityConfig(location, entity);
+
+        VanillaPaasApplicationDriver driver =
+                new VanillaPaasApplicationCloudFoundryDriver(entity, location);
+        driver.start();
+        verify(location, never()).deploy(anyMap());
+        assertEquals(entity.getAttribute(VanillaCloudFoundryApplication.ROOT_URL), applicationUrl);
+        assertTrue(driver.isRunning());
+    }
+
+    @Test
+    public void testStartIsNoOpWhenNothingChanged() {
+        when(location.deploy(anyMap())).thenReturn(applicationUrl);
+        when(location.startApplicationAsync(anyString())).thenReturn(Mono.<Void>empty());
+        when(location.getEnv(anyString())).thenReturn(EMPTY_ENV);
+
+        VanillaCloudFoundryApplicationImpl entity = new VanillaCloudFoundryApplicationImpl();
+        entity.setConfigEvenIfOwned(VanillaCloudFoundryApplication.ARTIFACT_PATH, ARTIFACT_URL);
+        entity.setManagementContext(mgmt);
+        mockLocationProfileUsingEntityConfig(location, entity);
+
+        new VanillaPaasApplicationCloudFoundryDriver(entity, location).start();
+        String fingerprint =
+                entity.getAttribute(VanillaCloudFoundryApplication.DEPLOYMENT_FINGERPRINT);
+        assertNotNull(DeploymentFingerprint.parse(fingerprint));
+        verify(location).setEnv(entity.getApplicationName(), DeploymentFingerprint.ENV_VARIABLE,
+                fingerprint);
+
+        when(location.isDeployed(anyString())).thenReturn(true);
+        when(location.getApplicationUrl(anyString(), anyString(), anyString()))
+                .thenReturn(applicationUrl);
+        when(location.getApplicationStatus(anyString()))
+                .thenReturn(CloudFoundryPaasLocation.AppState.STARTED);
+        new VanillaPaasApplicationCloudFoundryDriver(entity, location).start();
+
+        verify(location, times(1)).deploy(anyMap());
+        verify(location, times(1)).startApplicationAsync(anyString());
+        verify(location, never()).restartApplication(anyString());
+        assertEquals(entity.getAttribute(VanillaCloudFoundryApplication.DEPLOYMENT_FINGERPRINT),
+                fingerprint);
+    }
+
+    @Test
+    public void testChangedEnvIsPatchedInPlace() {
+        when(location.deploy(anyMap())).thenReturn(applicationUrl);
+        when(location.startApplicationAsync(anyString())).thenReturn(Mono.<Void>empty());
+        when(location.getEnv(anyString())).thenReturn(EMPTY_ENV);
+
+        VanillaCloudFoundryApplicationImpl entity = new VanillaCloudFoundryApplicationImpl();
+        entity.setConfigEvenIfOwned(VanillaCloudFoundryApplication.ARTIFACT_PATH, ARTIFACT_URL);
+        entity.setManagementContext(mgmt);
+        mockLocationProfileUsingEntityConfig(location, entity);
+        new VanillaPaasApplicationCloudFoundryDriver(entity, location).start();
+
+        String fingerprint =
+                entity.getAttribute(VanillaCloudFoundryApplication.DEPLOYMENT_FINGERPRINT);
+        when(location.isDeployed(anyString())).thenReturn(true);
+        when(location.getEnv(anyString())).thenReturn(
+                MutableMap.of(DeploymentFingerprint.ENV_VARIABLE, fingerprint));
+        when(location.getApplicationUrl(anyString(), anyString(), anyString()))
+                .thenReturn(applicationUrl);
+        when(location.getApplicationStatus(anyString()))
+                .thenReturn(CloudFoundryPaasLocation.AppState.STARTED);
+
+        VanillaCloudFoundryApplicationImpl replayed = new VanillaCloudFoundryApplicationImpl();
+        replayed.setConfigEvenIfOwned(VanillaCloudFoundryApplication.ARTIFACT_PATH, ARTIFACT_URL);
+        replayed.setConfigEvenIfOwned(VanillaCloudFoundryApplication.ENV, SIMPLE_ENV);
+        replayed.setManagementContext(mgmt);
+        new VanillaPaasApplicationCloudFoundryDriver(replayed, location).start();
+
+        verify(location, times(1)).deploy(anyMap());
+        verify(location).setEnv(entity.getApplicationName(), SIMPLE_ENV);
+        verify(location, times(1)).restartApplication(entity.getApplicationName());
+        assertFalse(fingerprint.equals(
+                replayed.getAttribute(VanillaCloudFoundryApplication.DEPLOYMENT_FINGERPRINT)));
+    }
+
+    @Test
+    public void testChangedHostIsPushedAgain() {
+        when(location.deploy(anyMap())).thenReturn(applicationUrl);
+        when(location.startApplicationAsync(anyString())).thenReturn(Mono.<Void>empty());
+        when(location.getEnv(anyString())).thenReturn(EMPTY_ENV);
+
+        VanillaCloudFoundryApplicationImpl entity = new VanillaCloudFoundryApplicationImpl();
+        entity.setConfigEvenIfOwned(VanillaCloudFoundryApplication.ARTIFACT_PATH, ARTIFACT_URL);
+        entity.setManagementContext(mgmt);
+        mockLocationProfileUsingEntityConfig(location, entity);
+        new VanillaPaasApplicationCloudFoundryDriver(entity, location).start();
+
+        String fingerprint =
+                entity.getAttribute(VanillaCloudFoundryApplication.DEPLOYMENT_FINGERPRINT);
+        when(location.isDeployed(anyString())).thenReturn(true);
+        when(location.getEnv(anyString())).thenReturn(
+                MutableMap.of(DeploymentFingerprint.ENV_VARIABLE, fingerprint));
+
+        VanillaCloudFoundryApplicationImpl moved = new VanillaCloudFoundryApplicationImpl();
+        moved.setConfigEvenIfOwned(VanillaCloudFoundryApplication.ARTIFACT_PATH, ARTIFACT_URL);
+        moved.setConfigEvenIfOwned(VanillaCloudFoundryApplication.APPLICATION_HOST, "moved");
+        moved.setManagementContext(mgmt);
+        new VanillaPaasApplicationCloudFoundryDriver(moved, location).start();
+
+        verify(location, times(2)).deploy(anyMap());
+        verify(location, times(2)).startApplicationAsync(anyString());
+    }
+
     private void mockLocationProfileUsingEntityConfig(CloudFoundryPaasLocation location,
                                                       VanillaCloudFoundryApplication entity) {
         if (new MockUtil().isMock(location)) {
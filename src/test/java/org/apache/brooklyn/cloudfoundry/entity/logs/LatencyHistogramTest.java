@@ -0,0 +1,69 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.brooklyn.cloudfoundry.entity.logs;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import org.testng.annotations.Test;
+
+public class LatencyHistogramTest {
+
+    private static final long WINDOW = 60000;
+
+    @Test
+    public void testBucketBoundaries() {
+        LatencyHistogram histogram = new LatencyHistogram(1000000, WINDOW, 6);
+        for (long value : new long[]{0, 1, 127, 128, 255, 256, 1000, 54321, 1000000}) {
+            int index = histogram.indexOf(value);
+            assertTrue(histogram.lowestValueAt(index) <= value, "value " + value);
+            assertTrue(histogram.highestValueAt(index) >= value, "value " + value);
+        }
+    }
+
+    @Test
+    public void testPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram(1000000, WINDOW, 6);
+        long now = 1000000;
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i * 100, now);
+        }
+        assertWithinOnePercentAndHalf(histogram.percentile(50, now), 50000);
+        assertWithinOnePercentAndHalf(histogram.percentile(95, now), 95000);
+        assertWithinOnePercentAndHalf(histogram.percentile(99, now), 99000);
+    }
+
+    @Test
+    public void testSamplesExpireAfterWindow() {
+        LatencyHistogram histogram = new LatencyHistogram(1000000, WINDOW, 6);
+        long now = 1000000;
+        histogram.record(500, now);
+        assertEquals(histogram.count(now), 1);
+        assertEquals(histogram.count(now + WINDOW + 1), 0);
+        assertEquals(histogram.percentile(50, now + WINDOW + 1), -1d);
+
+        histogram.record(700, now + WINDOW + 1);
+        assertEquals(histogram.count(now + WINDOW + 1), 1);
+    }
+
+    private void assertWithinOnePercentAndHalf(double actual, double expected) {
+        assertTrue(Math.abs(actual - expected) <= expected * 0.015,
+                "expected " + expected + " but was " + actual);
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.brooklyn.cloudfoundry.entity.logs;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import org.apache.brooklyn.util.collections.MutableList;
+import org.testng.annotations.Test;
+
+public class LogRingBufferTest {
+
+    @Test
+    public void testTailBeforeWrapping() {
+        LogRingBuffer buffer = new LogRingBuffer(5, 100);
+        buffer.add(1, "l1");
+        buffer.add(2, "l2");
+        buffer.add(3, "l3");
+        assertEquals(buffer.size(), 3);
+        assertEquals(buffer.tail(2), MutableList.of("l2", "l3"));
+        assertEquals(buffer.tail(10), MutableList.of("l1", "l2", "l3"));
+        assertEquals(buffer.getLastTimestamp(), 3);
+    }
+
+    @Test
+    public void testOldestLinesAreOverwritten() {
+        LogRingBuffer buffer = new LogRingBuffer(3, 100);
+        for (int i = 1; i <= 7; i++) {
+            buffer.add(i, "l" + i);
+        }
+        assertEquals(buffer.size(), 3);
+        assertEquals(buffer.getTotalLines(), 7);
+        assertEquals(buffer.tail(3), MutableList.of("l5", "l6", "l7"));
+        assertEquals(buffer.tail(1), MutableList.of("l7"));
+    }
+
+    @Test
+    public void testLongLinesAreTruncated() {
+        LogRingBuffer buffer = new LogRingBuffer(2, 10);
+        buffer.add(1, "0123456789abcdef");
+        String line = buffer.tail(1).get(0);
+        assertEquals(line.length(), 10);
+        assertTrue(line.endsWith("..."));
+    }
+
+    @Test
+    public void testEmptyBuffer() {
+        LogRingBuffer buffer = new LogRingBuffer(2, 10);
+        assertTrue(buffer.tail(5).isEmpty());
+        assertEquals(buffer.getLastTimestamp(), -1);
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.brooklyn.cloudfoundry.entity.logs;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import org.apache.brooklyn.cloudfoundry.entity.logs.RouterAccessLogParser.RouterAccessLogEntry;
+import org.testng.annotations.Test;
+
+public class RouterAccessLogParserTest {
+
+    private static final String ACCESS_LOG_LINE = "app.example.com - [2016-09-10T10:22:11.123+0000] " +
+            "\"GET /path?q=1 HTTP/1.1\" 404 0 5678 \"-\" \"curl/7.43.0\" \"10.0.2.15:52114\" " +
+            "\"10.0.16.12:61013\" x_forwarded_for:\"10.0.2.15\" x_forwarded_proto:\"http\" " +
+            "vcap_request_id:\"4e7a\" response_time:0.008151208 app_id:\"abc\" app_index:\"0\"";
+
+    @Test
+    public void testParseAccessLogLine() {
+        RouterAccessLogEntry entry = new RouterAccessLogEntry();
+        assertTrue(RouterAccessLogParser.parse(ACCESS_LOG_LINE, entry));
+        assertEquals(entry.getStatus(), 404);
+        assertEquals(entry.getResponseTimeMicros(), 8151);
+    }
+
+    @Test
+    public void testParseQuotedResponseTime() {
+        RouterAccessLogEntry entry = new RouterAccessLogEntry();
+        assertTrue(RouterAccessLogParser.parse(
+                "h - [t] \"POST / HTTP/1.1\" 201 12 0 \"-\" \"-\" response_time:\"1.5\"", entry));
+        assertEquals(entry.getStatus(), 201);
+        assertEquals(entry.getResponseTimeMicros(), 1500000);
+    }
+
+    @Test
+    public void testParseLineWithoutResponseTime() {
+        RouterAccessLogEntry entry = new RouterAccessLogEntry();
+        assertTrue(RouterAccessLogParser.parse("h - [t] \"GET / HTTP/1.1\" 200 0 1", entry));
+        assertEquals(entry.getStatus(), 200);
+        assertEquals(entry.getResponseTimeMicros(), -1);
+    }
+
+    @Test
+    public void testRejectNonAccessLogLines() {
+        RouterAccessLogEntry entry = new RouterAccessLogEntry();
+        assertFalse(RouterAccessLogParser.parse("Updated app with guid abc", entry));
+        assertFalse(RouterAccessLogParser.parse("h - [t] \"GET / HTTP/1.1\" ok", entry));
+        assertFalse(RouterAccessLogParser.parse(null, entry));
+        assertEquals(entry.getStatus(), -1);
+    }
+}
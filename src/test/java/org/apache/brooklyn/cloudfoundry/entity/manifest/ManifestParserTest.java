@@ -0,0 +1,110 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.brooklyn.cloudfoundry.entity.manifest;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+
+import java.util.List;
+import java.util.Map;
+
+import org.apache.brooklyn.api.entity.EntitySpec;
+import org.apache.brooklyn.cloudfoundry.entity.VanillaCloudFoundryApplication;
+import org.apache.brooklyn.config.ConfigKey;
+import org.apache.brooklyn.util.collections.MutableList;
+import org.apache.brooklyn.util.collections.MutableMap;
+import org.testng.annotations.Test;
+
+import com.google.common.base.Joiner;
+
+public class ManifestParserTest {
+
+    private static final String MANIFEST = Joiner.on('\n').join(
+            "memory: 512M",
+            "buildpack: java_buildpack",
+            "applications:",
+            "- name: frontend",
+            "  path: target/frontend.war",
+            "  instances: 3",
+            "  routes:",
+            "  - route: www.example.com",
+            "  - route: frontend.apps.internal/api",
+            "  env:",
+            "    MODE: production",
+            "    WORKERS: 4",
+            "  services:",
+            "  - my-db",
+            "- name: backend",
+            "  path: https://artifacts.example.com/backend.war",
+            "  memory: 1G",
+            "  disk_quota: 2048MB",
+            "  host: backend",
+            "  domain: example.com");
+
+    @Test
+    public void testApplicationsInheritTopLevelAttributes() {
+        List<EntitySpec<VanillaCloudFoundryApplication>> specs =
+                new ManifestParser("https://repo.example.com/deploy/manifest.yml").parse(MANIFEST);
+        assertEquals(specs.size(), 2);
+
+        Map<ConfigKey<?>, Object> frontend = specs.get(0).getConfig();
+        assertEquals(specs.get(0).getDisplayName(), "frontend");
+        assertEquals(frontend.get(VanillaCloudFoundryApplication.ARTIFACT_PATH),
+                "https://repo.example.com/deploy/target/frontend.war");
+        assertEquals(frontend.get(VanillaCloudFoundryApplication.BUILDPACK), "java_buildpack");
+        assertEquals(frontend.get(VanillaCloudFoundryApplication.REQUIRED_MEMORY), 512);
+        assertEquals(frontend.get(VanillaCloudFoundryApplication.REQUIRED_INSTANCES), 3);
+        assertEquals(frontend.get(VanillaCloudFoundryApplication.APPLICATION_HOST), "www");
+        assertEquals(frontend.get(VanillaCloudFoundryApplication.APPLICATION_DOMAIN), "example.com");
+        assertEquals(frontend.get(VanillaCloudFoundryApplication.ROUTES),
+                MutableList.of("frontend.apps.internal/api"));
+        assertEquals(frontend.get(VanillaCloudFoundryApplication.SERVICES), MutableList.of("my-db"));
+
+        Map<ConfigKey<?>, Object> backend = specs.get(1).getConfig();
+        assertEquals(backend.get(VanillaCloudFoundryApplication.ARTIFACT_PATH),
+                "https://artifacts.example.com/backend.war");
+        assertEquals(backend.get(VanillaCloudFoundryApplication.REQUIRED_MEMORY), 1024);
+        assertEquals(backend.get(VanillaCloudFoundryApplication.REQUIRED_DISK), 2048);
+        assertEquals(backend.get(VanillaCloudFoundryApplication.APPLICATION_HOST), "backend");
+        assertNull(backend.get(VanillaCloudFoundryApplication.ROUTES));
+    }
+
+    @Test
+    public void testEnvironmentValuesAreStrings() {
+        EntitySpec<VanillaCloudFoundryApplication> spec =
+                new ManifestParser(null).parse(MANIFEST).get(0);
+        assertEquals(spec.getConfig().get(VanillaCloudFoundryApplication.ENV.getConfigKey()),
+                MutableMap.of("MODE", "production", "WORKERS", "4"));
+        assertEquals(spec.getConfig().get(VanillaCloudFoundryApplication.ARTIFACT_PATH),
+                "target/frontend.war");
+    }
+
+    @Test
+    public void testSizes() {
+        assertEquals(ManifestParser.toMegabytes(256), 256);
+        assertEquals(ManifestParser.toMegabytes("256"), 256);
+        assertEquals(ManifestParser.toMegabytes("1g"), 1024);
+        assertEquals(ManifestParser.toMegabytes("768 MB"), 768);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testApplicationWithoutName() {
+        new ManifestParser(null).parse("applications:\n- path: app.war");
+    }
+}
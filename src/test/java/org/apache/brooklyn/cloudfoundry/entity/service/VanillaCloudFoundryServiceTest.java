@@ -20,6 +20,7 @@ package org.apache.brooklyn.cloudfoundry.entity.service;
 
 import static org.mockito.Matchers.anyMap;
 import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.doThrow;
@@ -27,20 +28,25 @@ import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertNull;
 import static org.testng.Assert.assertTrue;
 
 import java.io.IOException;
+import java.util.List;
 
 import org.apache.brooklyn.api.entity.EntitySpec;
 import org.apache.brooklyn.cloudfoundry.AbstractCloudFoundryUnitTest;
 import org.apache.brooklyn.cloudfoundry.location.CloudFoundryPaasLocation;
+import org.apache.brooklyn.cloudfoundry.location.LastOperationState;
+import org.apache.brooklyn.core.entity.Entities;
 import org.apache.brooklyn.core.entity.lifecycle.Lifecycle;
 import org.apache.brooklyn.test.Asserts;
 import org.apache.brooklyn.util.collections.MutableList;
 import org.apache.brooklyn.util.core.config.ConfigBag;
 import org.apache.brooklyn.util.exceptions.PropagatedRuntimeException;
 import org.apache.brooklyn.util.text.Strings;
+import org.apache.brooklyn.util.time.Duration;
 import org.cloudfoundry.client.v2.CloudFoundryException;
 import org.mockito.MockitoAnnotations;
 import org.testng.annotations.BeforeMethod;
@@ -64,6 +70,7 @@ public class VanillaCloudFoundryServiceTest extends AbstractCloudFoundryUnitTest
     public void testCreateService() throws IOException {
         doNothing().when(location).createServiceInstance(anyMap());
         doReturn(true).when(location).serviceInstanceExist(anyString());
+        doReturn(LastOperationState.SUCCEEDED).when(location).getServiceInstanceState(anyString());
 
         VanillaCloudFoundryService entity = addDefaultServiceToApp();
         startServiceInLocationAndCheckSensors(entity, location);
@@ -75,6 +82,7 @@ public class VanillaCloudFoundryServiceTest extends AbstractCloudFoundryUnitTest
     public void testCreateServiceWithName() throws IOException {
         doNothing().when(location).createServiceInstance(anyMap());
         doReturn(true).when(location).serviceInstanceExist(anyString());
+        doReturn(LastOperationState.SUCCEEDED).when(location).getServiceInstanceState(anyString());
 
         VanillaCloudFoundryService entity = addDefaultServiceToApp(SERVICE_INSTANCE_NAME);
         startServiceInLocationAndCheckSensors(entity, location);
@@ -83,6 +91,40 @@ public class VanillaCloudFoundryServiceTest extends AbstractCloudFoundryUnitTest
                 SERVICE_INSTANCE_NAME);
     }
 
+    @Test
+    public void testServiceIsUpOnlyOnceProvisioned() throws IOException {
+        doNothing().when(location).createServiceInstance(anyMap());
+        doReturn(true).when(location).serviceInstanceExist(anyString());
+        doReturn(LastOperationState.IN_PROGRESS)
+                .doReturn(LastOperationState.IN_PROGRESS)
+                .doReturn(LastOperationState.SUCCEEDED)
+                .when(location).getServiceInstanceState(anyString());
+
+        VanillaCloudFoundryService entity = app.createAndManageChild(getServiceSpec(SERVICE_INSTANCE_NAME)
+                .configure(VanillaCloudFoundryService.PROVISIONING_POLL_INITIAL, Duration.millis(10)));
+        startServiceInLocationAndCheckSensors(entity, location);
+
+        assertEquals(entity.getAttribute(VanillaCloudFoundryService.PROVISIONING_STATE),
+                LastOperationState.SUCCEEDED);
+        verify(location, times(3)).getServiceInstanceState(SERVICE_INSTANCE_NAME);
+    }
+
+    @Test(expectedExceptions = PropagatedRuntimeException.class)
+    public void testFailedProvisioning() throws IOException {
+        doNothing().when(location).createServiceInstance(anyMap());
+        doReturn(LastOperationState.FAILED).when(location).getServiceInstanceState(anyString());
+
+        VanillaCloudFoundryService entity = addDefaultServiceToApp(SERVICE_INSTANCE_NAME);
+        try {
+            startServiceInLocationAndCheckSensors(entity, location);
+        } finally {
+            assertEquals(entity.getAttribute(VanillaCloudFoundryService.PROVISIONING_STATE),
+                    LastOperationState.FAILED);
+            assertFalse(Boolean.TRUE.equals(
+                    entity.getAttribute(VanillaCloudFoundryService.SERVICE_UP)));
+        }
+    }
+
     @Test(expectedExceptions = PropagatedRuntimeException.class)
     public void testCreateRepeatedService() throws IOException {
         doThrow(repeatedServiceException(SERVICE_INSTANCE_NAME))
@@ -111,6 +153,7 @@ public class VanillaCloudFoundryServiceTest extends AbstractCloudFoundryUnitTest
         doNothing().when(location).createServiceInstance(anyMap());
         doReturn(MutableList.of()).when(location).getBoundApplications(anyString());
         doReturn(true).when(location).serviceInstanceExist(anyString());
+        doReturn(LastOperationState.SUCCEEDED).when(location).getServiceInstanceState(anyString());
         doNothing().when(location).deleteServiceInstance(anyString());
 
         VanillaCloudFoundryService entity = addDefaultServiceToApp();
@@ -122,6 +165,73 @@ public class VanillaCloudFoundryServiceTest extends AbstractCloudFoundryUnitTest
         verify(location, times(1)).deleteServiceInstance(serviceInstanceId);
     }
 
+    @Test
+    public void testStopServiceBoundToManyApplications() throws IOException {
+        List<String> applications = MutableList.of();
+        for (int i = 0; i < 25; i++) {
+            applications.add(APPLICATION_NAME + i);
+        }
+        doNothing().when(location).createServiceInstance(anyMap());
+        doReturn(true).when(location).serviceInstanceExist(anyString());
+        doReturn(LastOperationState.SUCCEEDED).when(location).getServiceInstanceState(anyString());
+        doReturn(applications).doReturn(MutableList.of())
+                .when(location).getBoundApplications(anyString());
+        doNothing().when(location).unbindService(anyString(), anyString());
+        doThrow(new PropagatedRuntimeException(new IllegalStateException("already unbound")))
+                .when(location).unbindService(anyString(), eq(APPLICATION_NAME + 0));
+        doNothing().when(location).deleteServiceInstance(anyString());
+
+        VanillaCloudFoundryService entity = addDefaultServiceToApp(SERVICE_INSTANCE_NAME);
+        startServiceInLocationAndCheckSensors(entity, location);
+        stopServiceAndCheckSensors(entity);
+
+        for (String application : applications) {
+            verify(location, times(1)).unbindService(SERVICE_INSTANCE_NAME, application);
+        }
+        verify(location, times(2)).getBoundApplications(SERVICE_INSTANCE_NAME);
+        verify(location, times(1)).deleteServiceInstance(SERVICE_INSTANCE_NAME);
+    }
+
+    @Test
+    public void testIgnoredUnbindFailuresAreNotChecked() throws IOException {
+        doNothing().when(location).createServiceInstance(anyMap());
+        doReturn(true).when(location).serviceInstanceExist(anyString());
+        doReturn(LastOperationState.SUCCEEDED).when(location).getServiceInstanceState(anyString());
+        doReturn(MutableList.of(APPLICATION_NAME)).when(location).getBoundApplications(anyString());
+        doThrow(new PropagatedRuntimeException(new IllegalStateException("already unbound")))
+                .when(location).unbindService(anyString(), anyString());
+        doNothing().when(location).deleteServiceInstance(anyString());
+
+        VanillaCloudFoundryService entity = app.createAndManageChild(getServiceSpec(SERVICE_INSTANCE_NAME)
+                .configure(VanillaCloudFoundryService.IGNORE_UNBIND_FAILURES, true));
+        startServiceInLocationAndCheckSensors(entity, location);
+        stopServiceAndCheckSensors(entity);
+
+        verify(location, times(1)).getBoundApplications(SERVICE_INSTANCE_NAME);
+        verify(location, times(1)).deleteServiceInstance(SERVICE_INSTANCE_NAME);
+    }
+
+    @Test
+    public void testGeneratedNameIsPersistedAndProvisioningFollowedAfterRebind() {
+        doReturn(true).when(location).serviceInstanceExist(anyString());
+        doReturn(LastOperationState.IN_PROGRESS).when(location).getServiceInstanceState(anyString());
+
+        VanillaCloudFoundryService entity = addDefaultServiceToApp();
+        VanillaCloudFoundryServiceImpl impl =
+                (VanillaCloudFoundryServiceImpl) Entities.deproxy(entity);
+        String generatedName = entity.getConfig(VanillaCloudFoundryService.SERVICE_INSTANCE_NAME);
+        assertTrue(Strings.isNonBlank(generatedName));
+        assertEquals(impl.getServiceInstanceName(), generatedName);
+
+        entity.sensors().set(VanillaCloudFoundryService.PROVISIONING_STATE,
+                LastOperationState.IN_PROGRESS);
+        VanillaPaasServiceCloudFoundryDriver driver =
+                new VanillaPaasServiceCloudFoundryDriver(impl, location);
+        driver.rebind();
+        assertFalse(driver.isRunning());
+        verify(location).getServiceInstanceState(generatedName);
+    }
+
     private void stopServiceAndCheckSensors(VanillaCloudFoundryService service) {
         service.stop();
         assertNull(service.getAttribute(VanillaCloudFoundryService.SERVICE_UP));
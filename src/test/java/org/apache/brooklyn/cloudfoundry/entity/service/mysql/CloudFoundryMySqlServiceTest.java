@@ -23,7 +23,9 @@ import static org.mockito.Matchers.anyMap;
 import static org.mockito.Matchers.anyString;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertTrue;
 
@@ -33,6 +35,7 @@ import org.apache.brooklyn.api.entity.EntitySpec;
 import org.apache.brooklyn.cloudfoundry.entity.service.VanillaCloudFoundryService;
 import org.apache.brooklyn.cloudfoundry.entity.service.VanillaCloudFoundryServiceTest;
 import org.apache.brooklyn.cloudfoundry.location.CloudFoundryPaasLocation;
+import org.apache.brooklyn.cloudfoundry.location.LastOperationState;
 import org.apache.brooklyn.util.core.config.ConfigBag;
 import org.apache.brooklyn.util.text.Strings;
 import org.mockito.MockitoAnnotations;
@@ -57,6 +60,7 @@ public class CloudFoundryMySqlServiceTest extends VanillaCloudFoundryServiceTest
     public void testCreateService() throws IOException {
         doNothing().when(location).createServiceInstance(anyMap());
         doReturn(true).when(location).serviceInstanceExist(anyString());
+        doReturn(LastOperationState.SUCCEEDED).when(location).getServiceInstanceState(anyString());
         doReturn(getDefaultCredentials())
                 .when(location).getCredentialsServiceForApplication(anyString(), anyString());
 
@@ -64,12 +68,32 @@ public class CloudFoundryMySqlServiceTest extends VanillaCloudFoundryServiceTest
         startServiceInLocationAndCheckSensors(entity, location);
         assertTrue(Strings
                 .isNonBlank(entity.getAttribute(VanillaCloudFoundryService.SERVICE_INSTANCE_ID)));
+        verify(location, never()).getServiceKeyCredentials(anyString(), anyString());
 
         doNothing().when(location).bindServiceToApplication(anyString(), anyString());
         entity.operationAfterBindingTo(APPLICATION_NAME);
         assertEquals(entity.getAttribute(CloudFoundryMySqlService.JDBC_ADDRESS), MOCK_JDBC_ADDRESS);
     }
 
+    @Test
+    public void testJdbcAddressIsReadFromServiceKey() throws IOException {
+        doNothing().when(location).createServiceInstance(anyMap());
+        doReturn(true).when(location).serviceInstanceExist(anyString());
+        doReturn(LastOperationState.SUCCEEDED).when(location).getServiceInstanceState(anyString());
+        doReturn(getDefaultCredentials())
+                .when(location).getServiceKeyCredentials(anyString(), anyString());
+
+        CloudFoundryMySqlService entity = app.createAndManageChild(
+                getServiceSpec(Strings.EMPTY, INIT_SCRIPT)
+                        .configure(VanillaCloudFoundryService.SERVICE_KEY_NAME, "brooklyn"));
+        startServiceInLocationAndCheckSensors(entity, location);
+        assertEquals(entity.getAttribute(CloudFoundryMySqlService.JDBC_ADDRESS), MOCK_JDBC_ADDRESS);
+        assertEquals(entity.getAttribute(VanillaCloudFoundryService.SERVICE_KEY), "brooklyn");
+
+        entity.operationAfterBindingTo(APPLICATION_NAME);
+        verify(location, never()).getCredentialsServiceForApplication(anyString(), anyString());
+    }
+
     private ImmutableMap<String, String> getDefaultCredentials() {
         return ImmutableMap.<String, String>builder()
                 .put("jdbcUrl", MOCK_JDBC_ADDRESS)
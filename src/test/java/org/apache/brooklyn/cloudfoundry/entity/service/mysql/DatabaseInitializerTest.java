@@ -0,0 +1,86 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.brooklyn.cloudfoundry.entity.service.mysql;
+
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+
+import java.io.StringReader;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import org.apache.brooklyn.cloudfoundry.utils.JdbcConnectionPool;
+import org.apache.brooklyn.util.time.Duration;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class DatabaseInitializerTest {
+
+    private static final String SCRIPT = "CREATE TABLE A (ID INT);\n" +
+            "INSERT INTO A VALUES (1);\n" +
+            "INSERT INTO A VALUES (2), (3);\n";
+
+    private JdbcConnectionPool pool;
+    private Connection connection;
+    private Statement statement;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        pool = mock(JdbcConnectionPool.class);
+        connection = mock(Connection.class);
+        statement = mock(Statement.class);
+        when(pool.getConnection(anyLong())).thenReturn(connection);
+        when(connection.createStatement()).thenReturn(statement);
+    }
+
+    @Test
+    public void testStatementsAreBatchedInATransaction() throws Exception {
+        when(statement.executeBatch()).thenReturn(new int[]{0, 1}).thenReturn(new int[]{2});
+
+        DatabaseInitializer.Result result =
+                new DatabaseInitializer(pool, 2, Duration.ONE_SECOND).run(new StringReader(SCRIPT));
+
+        assertEquals(result.getStatements(), 3);
+        assertEquals(result.getRows(), 3);
+        verify(statement, times(3)).addBatch(anyString());
+        verify(statement, times(2)).executeBatch();
+        verify(connection).setAutoCommit(false);
+        verify(connection).commit();
+        verify(pool).release(connection);
+    }
+
+    @Test(expectedExceptions = SQLException.class)
+    public void testFailedBatchIsRolledBack() throws Exception {
+        when(statement.executeBatch()).thenThrow(new SQLException("syntax error"));
+        try {
+            new DatabaseInitializer(pool, 10, Duration.ONE_SECOND).run(new StringReader(SCRIPT));
+        } finally {
+            verify(connection).rollback();
+            verify(connection, never()).commit();
+            verify(pool).release(connection);
+        }
+    }
+}
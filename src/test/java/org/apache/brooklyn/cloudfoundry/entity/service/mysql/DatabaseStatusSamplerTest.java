@@ -0,0 +1,74 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.brooklyn.cloudfoundry.entity.service.mysql;
+
+import static org.apache.brooklyn.cloudfoundry.entity.service.mysql.DatabaseStatusSampler.BUFFER_POOL_READS;
+import static org.apache.brooklyn.cloudfoundry.entity.service.mysql.DatabaseStatusSampler.BUFFER_POOL_READ_REQUESTS;
+import static org.apache.brooklyn.cloudfoundry.entity.service.mysql.DatabaseStatusSampler.QUERIES;
+import static org.apache.brooklyn.cloudfoundry.entity.service.mysql.DatabaseStatusSampler.SLOW_QUERIES;
+import static org.apache.brooklyn.cloudfoundry.entity.service.mysql.DatabaseStatusSampler.THREADS_CONNECTED;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+
+import java.util.Map;
+
+import org.apache.brooklyn.util.collections.MutableMap;
+import org.testng.annotations.Test;
+
+public class DatabaseStatusSamplerTest {
+
+    @Test
+    public void testFirstSample() {
+        DatabaseStatusSampler.Sample sample = DatabaseStatusSampler.compute(null, 0,
+                counters(4, 1000, 2, 10, 1000), 10000, 3);
+        assertEquals(sample.getThreadsConnected(), Integer.valueOf(4));
+        assertNull(sample.getQueriesPerSecond());
+        assertEquals(sample.getSlowQueries(), Long.valueOf(2));
+        assertEquals(sample.getBufferPoolHitRatio(), 0.99, 0.0001);
+        assertEquals(sample.getLatencyMillis(), 3);
+    }
+
+    @Test
+    public void testRatesBetweenSamples() {
+        DatabaseStatusSampler.Sample sample = DatabaseStatusSampler.compute(
+                counters(4, 1000, 2, 10, 1000), 10000,
+                counters(6, 1500, 3, 60, 1100), 20000, 1);
+        assertEquals(sample.getQueriesPerSecond(), 50d, 0.0001);
+        assertEquals(sample.getBufferPoolHitRatio(), 0.5, 0.0001);
+    }
+
+    @Test
+    public void testNoInnoDbReads() {
+        DatabaseStatusSampler.Sample sample = DatabaseStatusSampler.compute(null, 0,
+                MutableMap.of(THREADS_CONNECTED, 1L), 10000, 1);
+        assertNull(sample.getBufferPoolHitRatio());
+        assertNull(sample.getSlowQueries());
+    }
+
+    private Map<String, Long> counters(long threads, long queries, long slowQueries,
+                                       long bufferPoolReads, long bufferPoolReadRequests) {
+        return MutableMap.<String, Long>builder()
+                .put(THREADS_CONNECTED, threads)
+                .put(QUERIES, queries)
+                .put(SLOW_QUERIES, slowQueries)
+                .put(BUFFER_POOL_READS, bufferPoolReads)
+                .put(BUFFER_POOL_READ_REQUESTS, bufferPoolReadRequests)
+                .build();
+    }
+}
@@ -18,25 +18,41 @@
  */
 package org.apache.brooklyn.cloudfoundry.location;
 
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.fail;
 import static org.testng.AssertJUnit.assertTrue;
 
 import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
 import java.util.Map;
 
 import org.apache.brooklyn.cloudfoundry.AbstractCloudFoundryUnitTest;
 import org.apache.brooklyn.cloudfoundry.entity.VanillaCloudFoundryApplication;
 import org.apache.brooklyn.cloudfoundry.entity.service.VanillaCloudFoundryService;
 import org.apache.brooklyn.cloudfoundry.location.CloudFoundryPaasLocation.AppState;
+import org.apache.brooklyn.cloudfoundry.location.domain.Route;
 import org.apache.brooklyn.util.collections.MutableMap;
 import org.apache.brooklyn.util.core.config.ConfigBag;
 import org.apache.brooklyn.util.exceptions.PropagatedRuntimeException;
 import org.apache.brooklyn.util.text.Strings;
+import org.cloudfoundry.operations.applications.ApplicationDetail;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+
 public class CloudFoundryPaasLocationTest extends AbstractCloudFoundryUnitTest {
 
     @SuppressWarnings("all")
@@ -48,6 +64,47 @@ public class CloudFoundryPaasLocationTest extends AbstractCloudFoundryUnitTest {
         super.setUp();
     }
 
+    @Test
+    public void testOperationTimeouts() {
+        assertEquals(cloudFoundryPaasLocation.getTimeout(CloudControllerOperation.GET_APPLICATION),
+                CloudFoundryPaasLocationConfig.READ_OPERATIONS_TIMEOUT.getDefaultValue());
+        assertEquals(cloudFoundryPaasLocation.getTimeout(CloudControllerOperation.PUSH),
+                CloudFoundryPaasLocationConfig.PUSH_OPERATIONS_TIMEOUT.getDefaultValue());
+
+        cloudFoundryPaasLocation.config().set(
+                CloudFoundryPaasLocationConfig.READ_OPERATIONS_TIMEOUT, Duration.ofSeconds(5));
+        assertEquals(cloudFoundryPaasLocation.getTimeout(CloudControllerOperation.GET_SERVICE),
+                Duration.ofSeconds(5));
+    }
+
+    @Test
+    @SuppressWarnings("deprecation")
+    public void testOperationsTimeoutAppliesUntilTheTimeoutOfTheKindIsSet() {
+        cloudFoundryPaasLocation.config().set(
+                CloudFoundryPaasLocationConfig.OPERATIONS_TIMEOUT, Duration.ofMinutes(1));
+        assertEquals(cloudFoundryPaasLocation.getTimeout(CloudControllerOperation.START),
+                Duration.ofMinutes(1));
+
+        cloudFoundryPaasLocation.config().set(
+                CloudFoundryPaasLocationConfig.STAGING_OPERATIONS_TIMEOUT, Duration.ofMinutes(20));
+        assertEquals(cloudFoundryPaasLocation.getTimeout(CloudControllerOperation.START),
+                Duration.ofMinutes(20));
+        assertEquals(cloudFoundryPaasLocation.getTimeout(CloudControllerOperation.GET_SERVICE),
+                Duration.ofMinutes(1));
+    }
+
+    @Test
+    public void testOperationsAreCounted() {
+        deployApplication(getDefaultApplicationConfiguration());
+        assertFalse(cloudFoundryPaasLocation.serviceInstanceExist(SERVICE_INSTANCE_NAME));
+
+        CloudControllerMetrics metrics = cloudFoundryPaasLocation.getMetrics();
+        assertEquals(metrics.getCalls(CloudControllerOperation.PUSH), 1);
+        assertEquals(metrics.getFailures(CloudControllerOperation.GET_SERVICE), 1);
+        assertEquals(metrics.getRetries(CloudControllerOperation.GET_SERVICE), 0);
+        assertEquals(cloudFoundryPaasLocation.toMetadataRecord().get("operations.push.calls"), "1");
+    }
+
     @Test
     public void testDeployApplication() {
         deployApplicationAndCheck(getDefaultApplicationConfiguration());
@@ -272,6 +329,15 @@ public class CloudFoundryPaasLocationTest extends AbstractCloudFoundryUnitTest {
         createServiceAndCheck(getDefaultServiceConfig().getAllConfig());
     }
 
+    @Test
+    public void testCreateServiceReturnsOnceAccepted() {
+        ConfigBag params = getDefaultServiceConfig();
+        params.configure(VanillaCloudFoundryService.PLAN, FakeServices.ASYNCHRONOUS_PLAN);
+        createServiceAndCheck(params.getAllConfig());
+        assertEquals(cloudFoundryPaasLocation.getServiceInstanceState(SERVICE_INSTANCE_NAME),
+                LastOperationState.IN_PROGRESS);
+    }
+
     @Test(expectedExceptions = PropagatedRuntimeException.class)
     public void testRepeatInstanceNameService() {
         createServiceAndCheck(getDefaultServiceConfig().getAllConfig());
@@ -335,6 +401,86 @@ public class CloudFoundryPaasLocationTest extends AbstractCloudFoundryUnitTest {
         cloudFoundryPaasLocation.deleteServiceInstance(SERVICE_INSTANCE_NAME);
     }
 
+    @Test
+    public void testApplicationUrls() {
+        deployApplicationAndCheck(getDefaultApplicationConfiguration());
+        List<String> urls = cloudFoundryPaasLocation.getApplicationUrls(APPLICATION_NAME);
+        assertEquals(urls.size(), 1);
+        assertTrue(urls.get(0).startsWith("https://"));
+    }
+
+    @Test
+    public void testApplicationUrlIsTheRouteOfTheConfiguredHost() {
+        CloudFoundryPaasLocation location = spy(cloudFoundryPaasLocation);
+        doReturn(ApplicationDetail.builder()
+                .name(APPLICATION_NAME)
+                .id(APPLICATION_NAME)
+                .stack("cflinuxfs2")
+                .diskQuota(1024)
+                .memoryLimit(512)
+                .instances(1)
+                .runningInstances(1)
+                .requestedState("STARTED")
+                .url("api." + BROOKLYN_DOMAIN)
+                .url(BROOKLYN_HOST + "." + BROOKLYN_DOMAIN)
+                .build()).when(location).getApplication(APPLICATION_NAME);
+
+        assertEquals(location.getApplicationUrl(APPLICATION_NAME, BROOKLYN_HOST, BROOKLYN_DOMAIN),
+                "https://" + BROOKLYN_HOST + "." + BROOKLYN_DOMAIN);
+        assertEquals(location.getApplicationUrl(APPLICATION_NAME, BROOKLYN_HOST, null),
+                "https://" + BROOKLYN_HOST + "." + BROOKLYN_DOMAIN);
+    }
+
+    @Test
+    public void testMoveRoutesKeepsRoutesThatCouldNotBeMapped() {
+        CloudFoundryPaasLocation location = spy(cloudFoundryPaasLocation);
+        Route moved = Route.of("www", BROOKLYN_DOMAIN);
+        Route kept = Route.of("api", BROOKLYN_DOMAIN);
+        doNothing().when(location).mapRoute("green", moved);
+        doThrow(new PropagatedRuntimeException(new RuntimeException("route taken")))
+                .when(location).mapRoute("green", kept);
+        doNothing().when(location).unmapRoute(anyString(), any(Route.class));
+
+        Map<Route, Exception> failures = location.moveRoutes(
+                ImmutableList.of(moved, kept), "blue", "green", 2);
+
+        assertEquals(failures.keySet(), ImmutableSet.of(kept));
+        verify(location).unmapRoute("blue", moved);
+        verify(location, never()).unmapRoute("blue", kept);
+    }
+
+    @Test
+    public void testServiceKeyCredentials() {
+        createServiceAndCheck(getDefaultServiceConfig().getAllConfig());
+        Map<String, String> credentials =
+                cloudFoundryPaasLocation.getServiceKeyCredentials(SERVICE_INSTANCE_NAME, "key");
+        assertEquals(credentials.get("uri"), MOCK_DB_URI_ADDRESS);
+        assertEquals(cloudFoundryPaasLocation.getServiceKeyCredentials(SERVICE_INSTANCE_NAME, "key"),
+                credentials);
+        assertEquals(cloudFoundryPaasLocation.getMetrics()
+                .getCalls(CloudControllerOperation.CREATE_SERVICE_KEY), 1);
+        cloudFoundryPaasLocation.deleteServiceKey(SERVICE_INSTANCE_NAME, "key");
+        deleteServiceAndCheck(SERVICE_INSTANCE_NAME);
+    }
+
+    @Test
+    public void testServiceKeyIsNotCreatedWhenItCouldNotBeRead() {
+        CloudFoundryPaasLocation location = spy(cloudFoundryPaasLocation);
+        doThrow(new PropagatedRuntimeException(new RuntimeException("unauthorized")))
+                .when(location).getServiceKey(SERVICE_INSTANCE_NAME, "key");
+        try {
+            location.getServiceKeyCredentials(SERVICE_INSTANCE_NAME, "key");
+            fail("reading the service key should have failed");
+        } catch (PropagatedRuntimeException e) {
+            verify(location, never()).createServiceKey(anyString(), anyString());
+        }
+    }
+
+    @Test(expectedExceptions = PropagatedRuntimeException.class)
+    public void testServiceKeyOfNonExistentService() {
+        cloudFoundryPaasLocation.getServiceKeyCredentials(SERVICE_INSTANCE_NAME, "key");
+    }
+
     @Test
     public void testGetCredentials() {
         deployApplicationAndCheck(getDefaultApplicationConfiguration());
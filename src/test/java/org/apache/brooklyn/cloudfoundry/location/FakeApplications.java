@@ -312,7 +312,7 @@ public class FakeApplications implements Applications {
 
     @Override
     public Flux<LogMessage> logs(LogsRequest request) {
-        return null;
+        return Flux.empty();
     }
 
     @Override
@@ -53,17 +53,26 @@ import reactor.core.publisher.Mono;
 
 public class FakeServices implements Services {
 
+    /**
+     * Plan of {@link AbstractCloudFoundryUnitTest#SERVICE_X} whose broker never finishes
+     * provisioning.
+     */
+    public static final String ASYNCHRONOUS_PLAN = "asynchronousPlan";
+
     FakeApplications applications;
     Map<String, List<String>> availableServices;
     Map<String, ServiceInstance> services;
+    Map<String, Map<String, ServiceKey>> serviceKeys;
 
     public FakeServices(FakeApplications applications) {
         this.applications = applications;
         services = MutableMap.of();
+        serviceKeys = MutableMap.of();
         availableServices = MutableMap.of();
         availableServices
                 .put(AbstractCloudFoundryUnitTest.SERVICE_X,
-                        ImmutableList.of(AbstractCloudFoundryUnitTest.SERVICE_X_PLAN));
+                        ImmutableList.of(AbstractCloudFoundryUnitTest.SERVICE_X_PLAN,
+                                ASYNCHRONOUS_PLAN));
     }
 
     @Override
@@ -93,15 +102,18 @@ public class FakeServices implements Services {
         if (!services.containsKey(instanceName)) {
             checkServiceAndPlan(createServiceInstanceRequest.getServiceName(),
                     createServiceInstanceRequest.getPlanName());
+            boolean asynchronous =
+                    ASYNCHRONOUS_PLAN.equals(createServiceInstanceRequest.getPlanName());
             ServiceInstance service = ServiceInstance.builder()
                     .service(createServiceInstanceRequest.getServiceName())
                     .name(instanceName)
                     .plan(createServiceInstanceRequest.getPlanName())
                     .type(ServiceInstanceType.MANAGED)
+                    .status(asynchronous ? "in progress" : "succeeded")
                     .id(Strings.makeRandomId(10))
                     .build();
             services.put(instanceName, service);
-            return Mono.empty();
+            return asynchronous ? Mono.<Void>never() : Mono.<Void>empty();
         }
         throw new CloudFoundryException(60002, "The service instance name is taken: " + instanceName,
                 "CF-ServiceInstanceNameTaken");
@@ -130,7 +142,36 @@ public class FakeServices implements Services {
 
     @Override
     public Mono<Void> createServiceKey(CreateServiceKeyRequest createServiceKeyRequest) {
-        return null;
+        String instanceName = createServiceKeyRequest.getServiceInstanceName();
+        String keyName = createServiceKeyRequest.getServiceKeyName();
+        if (!services.containsKey(instanceName)) {
+            throw createNonExistentService(instanceName);
+        }
+        Map<String, ServiceKey> keys = getServiceKeys(instanceName);
+        if (keys.containsKey(keyName)) {
+            throw new CloudFoundryException(360001, "The service key name is taken: " + keyName,
+                    "CF-ServiceKeyNameTaken");
+        }
+        keys.put(keyName, ServiceKey.builder()
+                .id(Strings.makeRandomId(10))
+                .name(keyName)
+                .credentials(MutableMap.<String, Object>of(
+                        "uri", AbstractCloudFoundryUnitTest.MOCK_DB_URI_ADDRESS))
+                .build());
+        return Mono.empty();
+    }
+
+    private Map<String, ServiceKey> getServiceKeys(String instanceName) {
+        Map<String, ServiceKey> keys = serviceKeys.get(instanceName);
+        if (keys == null) {
+            keys = MutableMap.of();
+            serviceKeys.put(instanceName, keys);
+        }
+        return keys;
+    }
+
+    private IllegalArgumentException createNonExistentServiceKey(String keyName) {
+        return new IllegalArgumentException("Service key " + keyName + " does not exist");
     }
 
     @Override
@@ -166,7 +207,11 @@ public class FakeServices implements Services {
 
     @Override
     public Mono<Void> deleteServiceKey(DeleteServiceKeyRequest deleteServiceKeyRequest) {
-        return null;
+        String keyName = deleteServiceKeyRequest.getServiceKeyName();
+        if (getServiceKeys(deleteServiceKeyRequest.getServiceInstanceName()).remove(keyName) == null) {
+            throw createNonExistentServiceKey(keyName);
+        }
+        return Mono.empty();
     }
 
     @Override
@@ -180,7 +225,13 @@ public class FakeServices implements Services {
 
     @Override
     public Mono<ServiceKey> getServiceKey(GetServiceKeyRequest getServiceKeyRequest) {
-        return null;
+        String keyName = getServiceKeyRequest.getServiceKeyName();
+        ServiceKey serviceKey =
+                getServiceKeys(getServiceKeyRequest.getServiceInstanceName()).get(keyName);
+        if (serviceKey == null) {
+            throw createNonExistentServiceKey(keyName);
+        }
+        return Mono.just(serviceKey);
     }
 
     @Override
@@ -0,0 +1,76 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.brooklyn.cloudfoundry.location;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.util.Arrays;
+
+import org.testng.annotations.Test;
+
+public class FeedSchedulerTest {
+
+    @Test
+    public void testPhasesAreSpreadOverThePeriod() {
+        FeedScheduler scheduler = new FeedScheduler();
+        long[] phases = new long[10];
+        for (int i = 0; i < phases.length; i++) {
+            FeedScheduler.Slot slot = scheduler.register("entity" + i, 1000, 0, true);
+            assertEquals(slot.getPeriodMillis(), 1000);
+            phases[i] = slot.getPhaseMillis();
+        }
+        Arrays.sort(phases);
+        assertEquals(phases[0], 0);
+        for (int i = 1; i < phases.length; i++) {
+            assertTrue(phases[i] - phases[i - 1] >= 50, Arrays.toString(phases));
+        }
+    }
+
+    @Test
+    public void testSlotIsStableForAnEntity() {
+        FeedScheduler scheduler = new FeedScheduler();
+        scheduler.register("a", 1000, 0, true);
+        long phase = scheduler.register("b", 1000, 0, true).getPhaseMillis();
+        assertEquals(scheduler.register("b", 1000, 0, true).getPhaseMillis(), phase);
+        assertEquals(scheduler.getRegisteredCount(), 2);
+    }
+
+    @Test
+    public void testPeriodIsStretchedUnderLoad() {
+        FeedScheduler scheduler = new FeedScheduler();
+        FeedScheduler.Slot slot = null;
+        for (int i = 0; i < 100; i++) {
+            slot = scheduler.register("entity" + i, 1000, 20, true);
+        }
+        assertEquals(slot.getPeriodMillis(), 2000);
+
+        for (int i = 0; i < 100; i++) {
+            scheduler.unregister("entity" + i);
+        }
+        assertEquals(scheduler.register("other", 1000, 20, true).getPeriodMillis(), 1000);
+    }
+
+    @Test
+    public void testNoPhaseWithoutJitter() {
+        FeedScheduler scheduler = new FeedScheduler();
+        scheduler.register("a", 1000, 0, false);
+        assertEquals(scheduler.register("b", 1000, 0, false).getPhaseMillis(), 0);
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.brooklyn.cloudfoundry.location;
+
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.spy;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import java.util.List;
+
+import org.apache.brooklyn.api.entity.EntitySpec;
+import org.apache.brooklyn.cloudfoundry.AbstractCloudFoundryUnitTest;
+import org.apache.brooklyn.cloudfoundry.entity.CloudFoundryEntity;
+import org.apache.brooklyn.cloudfoundry.entity.VanillaCloudFoundryApplication;
+import org.apache.brooklyn.core.entity.EntityInternal;
+import org.apache.brooklyn.util.collections.MutableList;
+import org.cloudfoundry.operations.applications.ApplicationSummary;
+import org.cloudfoundry.operations.services.ServiceInstance;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class SpaceReconcilerTest extends AbstractCloudFoundryUnitTest {
+
+    private VanillaCloudFoundryApplication entity;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        super.setUp();
+        entity = app.createAndManageChild(EntitySpec.create(VanillaCloudFoundryApplication.class)
+                .configure(VanillaCloudFoundryApplication.APPLICATION_NAME, APPLICATION_NAME));
+        ((EntityInternal) entity).sensors().set(VanillaCloudFoundryApplication.APPLICATION_NAME,
+                APPLICATION_NAME);
+        ((EntityInternal) entity).sensors().set(VanillaCloudFoundryApplication.INSTANCES, 2);
+        ((EntityInternal) entity).sensors().set(VanillaCloudFoundryApplication.ALLOCATED_MEMORY, 512);
+        ((EntityInternal) entity).sensors().set(VanillaCloudFoundryApplication.ROOT_URL,
+                "https://" + APPLICATION_NAME + "." + BROOKLYN_DOMAIN);
+    }
+
+    @Test
+    public void testNoDrift() {
+        SpaceSnapshot snapshot = snapshot(application(2, 512));
+        assertTrue(SpaceReconciler.getDrift(entity, snapshot).isEmpty());
+    }
+
+    @Test
+    public void testScaledOutsideBrooklyn() {
+        List<String> drift = SpaceReconciler.getDrift(entity, snapshot(application(3, 1024)));
+        assertEquals(drift.size(), 2, drift.toString());
+    }
+
+    @Test
+    public void testMissingApplication() {
+        List<String> drift = SpaceReconciler.getDrift(entity, snapshot());
+        assertEquals(drift.size(), 1, drift.toString());
+    }
+
+    @Test
+    public void testReconcilePublishesDrift() {
+        CloudFoundryPaasLocation location = spy(cloudFoundryPaasLocation);
+        SpaceReconciler reconciler = new SpaceReconciler(location);
+        reconciler.register(entity);
+
+        doReturn(snapshot(application(3, 512))).when(location).takeSpaceSnapshot();
+        reconciler.reconcile();
+        assertTrue(entity.getAttribute(CloudFoundryEntity.DRIFT_DETECTED));
+
+        doReturn(snapshot(application(2, 512))).when(location).takeSpaceSnapshot();
+        reconciler.reconcile();
+        assertFalse(entity.getAttribute(CloudFoundryEntity.DRIFT_DETECTED));
+        assertNull(entity.getAttribute(CloudFoundryEntity.DRIFT));
+        reconciler.unregister(entity);
+    }
+
+    private ApplicationSummary application(int instances, int memory) {
+        return ApplicationSummary.builder()
+                .id("id-" + APPLICATION_NAME)
+                .name(APPLICATION_NAME)
+                .instances(instances)
+                .runningInstances(instances)
+                .memoryLimit(memory)
+                .diskQuota(1024)
+                .requestedState("STARTED")
+                .url(APPLICATION_NAME + "." + BROOKLYN_DOMAIN)
+                .build();
+    }
+
+    private SpaceSnapshot snapshot(ApplicationSummary... applications) {
+        return new SpaceSnapshot(System.currentTimeMillis(), MutableList.copyOf(applications),
+                MutableList.<ServiceInstance>of());
+    }
+}
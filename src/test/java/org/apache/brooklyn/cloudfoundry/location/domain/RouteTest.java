@@ -0,0 +1,58 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.brooklyn.cloudfoundry.location.domain;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+
+import org.testng.annotations.Test;
+
+public class RouteTest {
+
+    @Test
+    public void testParseHostAndDomain() {
+        Route route = Route.parse("my-app.apps.example.com");
+        assertEquals(route.getHost(), "my-app");
+        assertEquals(route.getDomain(), "apps.example.com");
+        assertNull(route.getPath());
+        assertEquals(route, Route.of("my-app", "apps.example.com"));
+    }
+
+    @Test
+    public void testParsePathAndScheme() {
+        Route route = Route.parse("https://my-app.apps.internal/api/");
+        assertEquals(route.getHost(), "my-app");
+        assertEquals(route.getDomain(), "apps.internal");
+        assertEquals(route.getPath(), "/api");
+        assertEquals(route.getUri(), "my-app.apps.internal/api");
+    }
+
+    @Test
+    public void testRouteOnBareDomain() {
+        Route route = new Route("", "example.com", "/");
+        assertNull(route.getHost());
+        assertNull(route.getPath());
+        assertEquals(route.getUri(), "example.com");
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testRouteWithoutDomain() {
+        Route.parse("localhost");
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.brooklyn.cloudfoundry.utils;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.brooklyn.util.os.Os;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.common.io.Files;
+
+public class ArtifactWorkspaceTest {
+
+    private static final long ONE_DAY = TimeUnit.DAYS.toMillis(1);
+
+    private File root;
+    private ArtifactWorkspace workspace;
+
+    @BeforeMethod
+    public void setUp() {
+        root = Files.createTempDir();
+        workspace = new ArtifactWorkspace(root);
+    }
+
+    @AfterMethod(alwaysRun = true)
+    public void tearDown() {
+        Os.deleteRecursively(root);
+    }
+
+    @Test
+    public void testReleaseDeletesTheDirectoryOfTheArtifact() throws IOException {
+        File artifact = writeArtifact(workspace.newDirectory(), 100);
+        assertEquals(workspace.getSize(), 100);
+
+        workspace.release(artifact);
+        assertFalse(artifact.getParentFile().exists());
+        assertEquals(workspace.getSize(), 0);
+    }
+
+    @Test
+    public void testOldDirectoriesAreEvicted() throws IOException {
+        File old = leftBehind(100, System.currentTimeMillis() - 2 * ONE_DAY);
+        File recent = leftBehind(100, System.currentTimeMillis());
+
+        assertEquals(workspace.evict(Long.MAX_VALUE, ONE_DAY), 1);
+        assertFalse(old.exists());
+        assertTrue(recent.exists());
+        assertEquals(workspace.getEvictionCount(), 1);
+    }
+
+    @Test
+    public void testOldestDirectoriesAreEvictedOverQuota() throws IOException {
+        long now = System.currentTimeMillis();
+        File oldest = leftBehind(100, now - 3000);
+        File older = leftBehind(100, now - 2000);
+        File newest = leftBehind(100, now - 1000);
+
+        assertEquals(workspace.evict(150, ONE_DAY), 2);
+        assertFalse(oldest.exists());
+        assertFalse(older.exists());
+        assertTrue(newest.exists());
+        assertEquals(workspace.getSize(), 100);
+    }
+
+    @Test
+    public void testDirectoriesInUseAreNotEvicted() throws IOException {
+        File directory = workspace.newDirectory();
+        writeArtifact(directory, 100);
+        directory.setLastModified(System.currentTimeMillis() - 2 * ONE_DAY);
+
+        assertEquals(workspace.evict(0, ONE_DAY), 0);
+        assertTrue(directory.exists());
+    }
+
+    @Test
+    public void testDirectoriesNotCreatedByTheWorkspaceAreNotEvicted() throws IOException {
+        File foreign = new File(root, "other-tool");
+        writeArtifact(foreign, 100);
+        foreign.setLastModified(System.currentTimeMillis() - 2 * ONE_DAY);
+
+        assertEquals(workspace.evict(0, ONE_DAY), 0);
+        assertTrue(foreign.exists());
+    }
+
+    private File leftBehind(int size, long lastModified) throws IOException {
+        File directory = workspace.newDirectory();
+        workspace.release(writeArtifact(directory, size));
+        directory.mkdirs();
+        writeArtifact(directory, size);
+        directory.setLastModified(lastModified);
+        return directory;
+    }
+
+    private File writeArtifact(File directory, int size) throws IOException {
+        directory.mkdirs();
+        File artifact = new File(directory, "artifact.war");
+        Files.write(new byte[size], artifact);
+        return artifact;
+    }
+}
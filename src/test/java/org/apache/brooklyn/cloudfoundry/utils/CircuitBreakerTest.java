@@ -0,0 +1,98 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.brooklyn.cloudfoundry.utils;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.testng.annotations.Test;
+
+import com.google.common.base.Ticker;
+
+public class CircuitBreakerTest {
+
+    @Test
+    public void testOpensAfterConsecutiveFailures() {
+        CircuitBreaker breaker = new CircuitBreaker(3, 1000, 1, new FakeTicker());
+        breaker.onFailure();
+        breaker.onFailure();
+        breaker.onSuccess();
+        breaker.onFailure();
+        breaker.onFailure();
+        assertEquals(breaker.getState(), CircuitBreaker.State.CLOSED);
+        breaker.onFailure();
+        assertEquals(breaker.getState(), CircuitBreaker.State.OPEN);
+        assertFalse(breaker.allowRequest());
+        assertEquals(breaker.getRejectedCalls(), 1);
+    }
+
+    @Test
+    public void testHalfOpenProbeClosesTheCircuit() {
+        FakeTicker ticker = new FakeTicker();
+        CircuitBreaker breaker = new CircuitBreaker(1, 1000, 1, ticker);
+        breaker.onFailure();
+        assertFalse(breaker.allowRequest());
+
+        ticker.advance(TimeUnit.SECONDS.toNanos(1));
+        assertEquals(breaker.getState(), CircuitBreaker.State.HALF_OPEN);
+        assertTrue(breaker.allowRequest());
+        assertFalse(breaker.allowRequest());
+        breaker.onSuccess();
+        assertEquals(breaker.getState(), CircuitBreaker.State.CLOSED);
+        assertTrue(breaker.allowRequest());
+    }
+
+    @Test
+    public void testFailedProbeOpensTheCircuitAgain() {
+        FakeTicker ticker = new FakeTicker();
+        CircuitBreaker breaker = new CircuitBreaker(1, 1000, 1, ticker);
+        breaker.onFailure();
+        ticker.advance(TimeUnit.SECONDS.toNanos(1));
+        assertTrue(breaker.allowRequest());
+        breaker.onFailure();
+        assertEquals(breaker.getState(), CircuitBreaker.State.OPEN);
+        assertFalse(breaker.allowRequest());
+        assertEquals(breaker.getTimesOpened(), 2);
+    }
+
+    @Test
+    public void testDisabledBreakerNeverOpens() {
+        CircuitBreaker breaker = new CircuitBreaker(0, 1000, 1, new FakeTicker());
+        for (int i = 0; i < 10; i++) {
+            breaker.onFailure();
+        }
+        assertTrue(breaker.allowRequest());
+    }
+
+    private static class FakeTicker extends Ticker {
+        private long nanos;
+
+        @Override
+        public long read() {
+            return nanos;
+        }
+
+        void advance(long delta) {
+            nanos += delta;
+        }
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.brooklyn.cloudfoundry.utils;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+
+import org.testng.annotations.Test;
+
+public class DockerImageReferenceTest {
+
+    @Test
+    public void testDockerHubDefaults() {
+        DockerImageReference image = DockerImageReference.parse("nginx");
+        assertEquals(image.getRegistry(), DockerImageReference.DOCKER_HUB_REGISTRY);
+        assertEquals(image.getRepository(), "library/nginx");
+        assertEquals(image.getTag(), "latest");
+        assertNull(image.getDigest());
+        assertEquals(image.toString(), "nginx:latest");
+    }
+
+    @Test
+    public void testPrivateRegistryWithPort() {
+        DockerImageReference image =
+                DockerImageReference.parse("registry.example.com:5000/team/app:1.2");
+        assertEquals(image.getRegistry(), "registry.example.com:5000");
+        assertEquals(image.getRepository(), "team/app");
+        assertEquals(image.getTag(), "1.2");
+        assertEquals(image.toString(), "registry.example.com:5000/team/app:1.2");
+    }
+
+    @Test
+    public void testPinnedToDigest() {
+        DockerImageReference image = DockerImageReference.parse("team/app:1.2")
+                .withDigest("sha256:abc");
+        assertNull(image.getTag());
+        assertEquals(image.getManifestReference(), "sha256:abc");
+        assertEquals(image.toString(), "team/app@sha256:abc");
+        assertEquals(DockerImageReference.parse(image.toString()), image);
+    }
+}
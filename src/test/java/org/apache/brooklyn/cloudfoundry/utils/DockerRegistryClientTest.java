@@ -0,0 +1,94 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.brooklyn.cloudfoundry.utils;
+
+import static org.testng.Assert.assertEquals;
+
+import java.io.IOException;
+
+import org.apache.brooklyn.util.time.Duration;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.squareup.okhttp.mockwebserver.MockResponse;
+import com.squareup.okhttp.mockwebserver.MockWebServer;
+import com.squareup.okhttp.mockwebserver.RecordedRequest;
+
+public class DockerRegistryClientTest {
+
+    private static final String DIGEST = "sha256:0123456789abcdef";
+
+    private MockWebServer registry;
+    private DockerRegistryClient client;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        registry = new MockWebServer();
+        registry.start();
+        client = new DockerRegistryClient(Duration.FIVE_SECONDS);
+    }
+
+    @AfterMethod(alwaysRun = true)
+    public void tearDown() throws Exception {
+        registry.shutdown();
+    }
+
+    @Test
+    public void testDigestIsReadFromTheManifestHeaders() throws Exception {
+        registry.enqueue(new MockResponse().addHeader("Docker-Content-Digest", DIGEST));
+
+        assertEquals(client.getDigest(image("team/app:1.0")), DIGEST);
+        RecordedRequest request = registry.takeRequest();
+        assertEquals(request.getMethod(), "HEAD");
+        assertEquals(request.getPath(), "/v2/team/app/manifests/1.0");
+    }
+
+    @Test
+    public void testAnonymousTokenIsRequestedWhenChallenged() throws Exception {
+        String realm = "http://localhost:" + registry.getPort() + "/token";
+        registry.enqueue(new MockResponse().setResponseCode(401).addHeader("WWW-Authenticate",
+                "Bearer realm=\"" + realm + "\",service=\"registry\","
+                        + "scope=\"repository:team/app:pull\""));
+        registry.enqueue(new MockResponse().setBody("{\"token\": \"secret\"}"));
+        registry.enqueue(new MockResponse().addHeader("Docker-Content-Digest", DIGEST));
+
+        assertEquals(client.getDigest(image("team/app")), DIGEST);
+        registry.takeRequest();
+        assertEquals(registry.takeRequest().getPath(),
+                "/token?service=registry&scope=repository%3Ateam%2Fapp%3Apull");
+        assertEquals(registry.takeRequest().getHeader("Authorization"), "Bearer secret");
+    }
+
+    @Test(expectedExceptions = IOException.class)
+    public void testUnknownImage() throws Exception {
+        registry.enqueue(new MockResponse().setResponseCode(404));
+        client.getDigest(image("team/missing"));
+    }
+
+    @Test
+    public void testPinnedImageIsNotLookedUp() throws Exception {
+        assertEquals(client.getDigest(image("team/app@" + DIGEST)), DIGEST);
+        assertEquals(registry.getRequestCount(), 0);
+    }
+
+    private DockerImageReference image(String name) {
+        return DockerImageReference.parse("localhost:" + registry.getPort() + "/" + name);
+    }
+}
@@ -97,6 +97,18 @@ public class LocalResourcesDownloaderTest {
         tmpFile.delete();
     }
 
+    @Test
+    @SuppressWarnings("all")
+    public void testDownloadLocalFileResource() throws URISyntaxException, IOException {
+        File artifact = new File(getClass().getClassLoader().getResource(ARTIFACT_NAME).toURI());
+        File tmpFile = new File("tmp-file");
+        LocalResourcesDownloader.downloadResource(artifact.toURI().toString(), tmpFile);
+        assertTrue(FileUtils.contentEquals(artifact, tmpFile));
+        LocalResourcesDownloader.downloadResource(artifact.getAbsolutePath(), tmpFile);
+        assertTrue(FileUtils.contentEquals(artifact, tmpFile));
+        tmpFile.delete();
+    }
+
     @Test(expectedExceptions = PropagatedRuntimeException.class)
     public void testExceptionDownloadingResource() throws URISyntaxException {
         File file = new File("tmp-file");
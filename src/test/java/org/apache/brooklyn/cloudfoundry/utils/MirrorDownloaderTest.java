@@ -0,0 +1,190 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.brooklyn.cloudfoundry.utils;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.brooklyn.core.entity.Entities;
+import org.apache.brooklyn.core.test.BrooklynAppUnitTestSupport;
+import org.apache.brooklyn.util.core.task.Tasks;
+import org.apache.brooklyn.util.time.Duration;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.Files;
+import com.squareup.okhttp.mockwebserver.Dispatcher;
+import com.squareup.okhttp.mockwebserver.MockResponse;
+import com.squareup.okhttp.mockwebserver.MockWebServer;
+import com.squareup.okhttp.mockwebserver.RecordedRequest;
+import com.squareup.okhttp.mockwebserver.SocketPolicy;
+
+public class MirrorDownloaderTest extends BrooklynAppUnitTestSupport {
+
+    private static final Pattern RANGE = Pattern.compile("bytes=(\\d+)-(\\d+)");
+    private static final byte[] ARTIFACT = "0123456789abcdefghijklmnopqrstuvwxyz"
+            .getBytes(StandardCharsets.UTF_8);
+
+    private MockWebServer hanging;
+    private MockWebServer mirror;
+    private MockWebServer otherMirror;
+    private File target;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        super.setUp();
+        hanging = new MockWebServer();
+        hanging.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                return new MockResponse().setSocketPolicy(SocketPolicy.NO_RESPONSE);
+            }
+        });
+        hanging.start();
+        mirror = rangedMirror("\"v1\"");
+        otherMirror = rangedMirror("\"v1\"");
+        target = File.createTempFile("artifact", ".war");
+    }
+
+    @AfterMethod(alwaysRun = true)
+    public void tearDown() throws Exception {
+        try {
+            hanging.shutdown();
+            mirror.shutdown();
+            otherMirror.shutdown();
+            target.delete();
+        } finally {
+            super.tearDown();
+        }
+    }
+
+    @Test
+    public void testHangingMirrorIsSkipped() throws Exception {
+        long start = System.currentTimeMillis();
+        download(new MirrorDownloader(Duration.seconds(30), false),
+                ImmutableList.of(url(hanging), url(mirror)));
+
+        assertTrue(Arrays.equals(Files.toByteArray(target), ARTIFACT));
+        assertTrue(System.currentTimeMillis() - start < 30000);
+        assertEquals(mirror.takeRequest().getMethod(), "HEAD");
+        assertEquals(mirror.takeRequest().getMethod(), "GET");
+    }
+
+    @Test
+    public void testRangesAreDownloadedFromSeveralMirrors() throws Exception {
+        download(new MirrorDownloader(Duration.FIVE_SECONDS, true, 0),
+                ImmutableList.of(url(mirror), url(otherMirror)));
+
+        assertTrue(Arrays.equals(Files.toByteArray(target), ARTIFACT));
+        for (MockWebServer server : ImmutableList.of(mirror, otherMirror)) {
+            assertEquals(server.getRequestCount(), 2);
+            assertEquals(server.takeRequest().getMethod(), "HEAD");
+            RecordedRequest get = server.takeRequest();
+            assertEquals(get.getMethod(), "GET");
+            assertTrue(get.getHeader("Range").startsWith("bytes="));
+            assertEquals(get.getHeader("If-Range"), "\"v1\"");
+        }
+    }
+
+    @Test
+    public void testMirrorsOfAnotherVersionAreNotSpliced() throws Exception {
+        MockWebServer staleMirror = rangedMirror("\"v0\"");
+        try {
+            download(new MirrorDownloader(Duration.FIVE_SECONDS, true, 0),
+                    ImmutableList.of(url(mirror), url(staleMirror)));
+
+            assertTrue(Arrays.equals(Files.toByteArray(target), ARTIFACT));
+            int rangeRequests = 0;
+            for (MockWebServer server : ImmutableList.of(mirror, staleMirror)) {
+                for (int i = server.getRequestCount(); i > 0; i--) {
+                    if (server.takeRequest().getHeader("Range") != null) {
+                        rangeRequests++;
+                    }
+                }
+            }
+            assertEquals(rangeRequests, 0);
+        } finally {
+            staleMirror.shutdown();
+        }
+    }
+
+    @Test
+    public void testThroughputIsRemembered() {
+        MirrorDownloader.recordThroughput("http://mirror-1.example.com/app.war", 1000, 10);
+        assertEquals(MirrorDownloader.getThroughput("http://mirror-1.example.com/other.war"),
+                100.0, 0.001);
+
+        MirrorDownloader.recordThroughput("http://mirror-1.example.com/app.war", 2000, 10);
+        assertEquals(MirrorDownloader.getThroughput("http://mirror-1.example.com/app.war"),
+                130.0, 0.001);
+    }
+
+    /**
+     * Downloads within a task of the application, so that the mirrors are probed in parallel.
+     */
+    private void download(MirrorDownloader downloader, List<String> urls) throws Exception {
+        Entities.submit(app, Tasks.builder()
+                .displayName("Downloading " + target.getName())
+                .body(() -> {
+                    downloader.download(urls, target);
+                    return null;
+                })
+                .build()).get();
+    }
+
+    private static String url(MockWebServer server) {
+        return "http://localhost:" + server.getPort() + "/app.war";
+    }
+
+    private static MockWebServer rangedMirror(String etag) throws Exception {
+        MockWebServer server = new MockWebServer();
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                MockResponse response = new MockResponse()
+                        .addHeader("Accept-Ranges", "bytes")
+                        .addHeader("ETag", etag);
+                if ("HEAD".equals(request.getMethod())) {
+                    return response.setHeader("Content-Length", ARTIFACT.length);
+                }
+                String range = request.getHeader("Range");
+                if (range == null) {
+                    return response.setBody(new String(ARTIFACT, StandardCharsets.UTF_8));
+                }
+                Matcher matcher = RANGE.matcher(range);
+                matcher.matches();
+                int first = Integer.parseInt(matcher.group(1));
+                int last = Integer.parseInt(matcher.group(2));
+                return response.setResponseCode(206).setBody(
+                        new String(ARTIFACT, first, last + 1 - first, StandardCharsets.UTF_8));
+            }
+        });
+        server.start();
+        return server;
+    }
+}
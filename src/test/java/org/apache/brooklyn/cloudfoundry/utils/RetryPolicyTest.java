@@ -0,0 +1,85 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.brooklyn.cloudfoundry.utils;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.net.SocketTimeoutException;
+
+import org.cloudfoundry.client.v2.CloudFoundryException;
+import org.testng.annotations.Test;
+
+import io.netty.handler.codec.http.HttpResponseStatus;
+import reactor.ipc.netty.http.HttpException;
+
+public class RetryPolicyTest {
+
+    @Test
+    public void testTransientErrors() {
+        assertTrue(RetryPolicy.isTransient(new RuntimeException(new SocketTimeoutException())));
+        assertTrue(RetryPolicy.isTransient(httpError(429)));
+        assertTrue(RetryPolicy.isTransient(new RuntimeException(httpError(503))));
+        assertTrue(RetryPolicy.isTransient(new CloudFoundryException(10013,
+                "Rate Limit Exceeded", "CF-RateLimitExceeded")));
+        assertFalse(RetryPolicy.isTransient(new IllegalArgumentException("App app not found")));
+    }
+
+    @Test
+    public void testPermanentErrorsMentioningStatusCodesAreNotTransient() {
+        assertFalse(RetryPolicy.isTransient(httpError(404)));
+        assertFalse(RetryPolicy.isTransient(new IllegalArgumentException(
+                "Application app-503 not found")));
+        assertFalse(RetryPolicy.isTransient(new CloudFoundryException(100005,
+                "You have exceeded your organization's memory limit: 5029 MB",
+                "CF-AppMemoryQuotaExceeded")));
+    }
+
+    @Test
+    public void testAttemptsAreLimited() {
+        RetryPolicy policy = new RetryPolicy(3, 100, 1000);
+        Exception error = httpError(502);
+        assertTrue(policy.shouldRetry(1, error));
+        assertTrue(policy.shouldRetry(2, error));
+        assertFalse(policy.shouldRetry(3, error));
+    }
+
+    @Test
+    public void testBackoffGrowsUpToTheMaximum() {
+        RetryPolicy policy = new RetryPolicy(10, 100, 1000);
+        for (int i = 0; i < 20; i++) {
+            assertBetween(policy.getBackoffMillis(1), 50, 100);
+            assertBetween(policy.getBackoffMillis(3), 200, 400);
+            assertBetween(policy.getBackoffMillis(8), 500, 1000);
+            assertBetween(policy.getBackoffMillis(100), 500, 1000);
+        }
+    }
+
+    private static HttpException httpError(int status) {
+        HttpException error = mock(HttpException.class);
+        when(error.getResponseStatus()).thenReturn(HttpResponseStatus.valueOf(status));
+        return error;
+    }
+
+    private void assertBetween(long value, long min, long max) {
+        assertTrue(value >= min && value <= max, value + " not in [" + min + ", " + max + "]");
+    }
+}
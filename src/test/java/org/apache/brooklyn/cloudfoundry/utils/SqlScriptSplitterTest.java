@@ -0,0 +1,86 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.brooklyn.cloudfoundry.utils;
+
+import static org.testng.Assert.assertEquals;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+
+import org.apache.brooklyn.util.collections.MutableList;
+import org.testng.annotations.Test;
+
+public class SqlScriptSplitterTest {
+
+    @Test
+    public void testSplitsStatements() throws IOException {
+        assertEquals(split("CREATE TABLE A (ID INT);\n\nINSERT INTO A VALUES (1);\nSELECT 1"),
+                MutableList.of("CREATE TABLE A (ID INT)", "INSERT INTO A VALUES (1)", "SELECT 1"));
+    }
+
+    @Test
+    public void testIgnoresDelimitersInQuotes() throws IOException {
+        assertEquals(split("INSERT INTO A VALUES ('a;b', \"c;\\\"d\", `e;f`);INSERT INTO A VALUES ('it''s;')"),
+                MutableList.of("INSERT INTO A VALUES ('a;b', \"c;\\\"d\", `e;f`)",
+                        "INSERT INTO A VALUES ('it''s;')"));
+    }
+
+    @Test
+    public void testDropsComments() throws IOException {
+        assertEquals(split("-- comment;\nCREATE TABLE A (ID INT); # other;\n/* block; */SELECT 1;"),
+                MutableList.of("CREATE TABLE A (ID INT)", "SELECT 1"));
+    }
+
+    @Test
+    public void testKeepsExecutableComments() throws IOException {
+        assertEquals(split("/*!40101 SET NAMES utf8 */;"),
+                MutableList.of("/*!40101 SET NAMES utf8 */"));
+    }
+
+    @Test
+    public void testDelimiterCommand() throws IOException {
+        String script = "DELIMITER $$\n" +
+                "CREATE PROCEDURE P() BEGIN SELECT 1; SELECT 2; END$$\n" +
+                "DELIMITER ;\n" +
+                "CALL P();";
+        assertEquals(split(script), MutableList.of(
+                "CREATE PROCEDURE P() BEGIN SELECT 1; SELECT 2; END", "CALL P()"));
+    }
+
+    @Test
+    public void testDelimiterLineWithinStatementIsKept() throws IOException {
+        String script = "SELECT\n" +
+                "DELIMITER x\n" +
+                "1;\n" +
+                "  DELIMITER //\n" +
+                "SELECT 2//";
+        assertEquals(split(script), MutableList.of("SELECT\nDELIMITER x\n1", "SELECT 2"));
+    }
+
+    private List<String> split(String script) throws IOException {
+        SqlScriptSplitter splitter = new SqlScriptSplitter(new StringReader(script));
+        List<String> statements = MutableList.of();
+        String statement;
+        while ((statement = splitter.nextStatement()) != null) {
+            statements.add(statement);
+        }
+        return statements;
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.brooklyn.cloudfoundry.utils;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.brooklyn.util.collections.MutableMap;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.common.base.Function;
+import com.google.common.io.CharStreams;
+
+public class TemplateCacheTest {
+
+    private static final String TEMPLATE = "CREATE DATABASE ${config['db.name']};";
+
+    private TemplateCache cache;
+    private AtomicInteger loads;
+    private Function<String, String> loader;
+
+    @BeforeMethod
+    public void setUp() {
+        cache = new TemplateCache(60000, 10);
+        loads = new AtomicInteger();
+        loader = new Function<String, String>() {
+            public String apply(String url) {
+                loads.incrementAndGet();
+                return TEMPLATE;
+            }
+        };
+    }
+
+    @Test
+    public void testRendersModel() {
+        String script = cache.render("classpath://script.sql", loader, MutableMap.of(
+                "config", MutableMap.of("db.name", "chat")));
+        assertEquals(script, "CREATE DATABASE chat;");
+    }
+
+    @Test
+    public void testScriptWithoutDirectivesIsNotCompiled() throws IOException {
+        String script = "CREATE TABLE t (id INT);\nINSERT INTO t VALUES (1);\n";
+        try (Reader reader = cache.openScript("classpath://plain.sql",
+                () -> new StringReader(script), MutableMap.of())) {
+            assertEquals(CharStreams.toString(reader), script);
+        }
+        assertEquals(cache.getCompiledCount(), 0);
+    }
+
+    @Test
+    public void testLargeScriptsAreRenderedWithoutBeingCached() throws IOException {
+        TemplateCache small = new TemplateCache(60000, 10, 100);
+        StringBuilder template = new StringBuilder();
+        for (int i = 0; i < 10000; i++) {
+            template.append("INSERT INTO t VALUES (${config['db.name']}_").append(i)
+                    .append(");\n");
+        }
+        try (Reader script = small.openScript("classpath://large.sql",
+                () -> new StringReader(template.toString()),
+                MutableMap.of("config", MutableMap.of("db.name", "chat")))) {
+            String rendered = CharStreams.toString(script);
+            assertTrue(rendered.startsWith("INSERT INTO t VALUES (chat_0);\n"));
+            assertTrue(rendered.endsWith("INSERT INTO t VALUES (chat_9999);\n"));
+        }
+        assertEquals(small.getCompiledCount(), 0);
+    }
+
+    @Test
+    public void testLargeScriptsWithoutDirectivesAreStreamed() throws IOException {
+        TemplateCache small = new TemplateCache(60000, 10, 100);
+        StringBuilder script = new StringBuilder();
+        for (int i = 0; i < 10000; i++) {
+            script.append("INSERT INTO t VALUES (").append(i).append(");\n");
+        }
+        try (Reader reader = small.openScript("classpath://large.sql",
+                () -> new StringReader(script.toString()), MutableMap.of())) {
+            assertEquals(CharStreams.toString(reader), script.toString());
+        }
+    }
+
+    @Test(expectedExceptions = IOException.class)
+    public void testRenderingFailureIsThrown() throws IOException {
+        cache.openScript("classpath://script.sql", () -> new StringReader(TEMPLATE),
+                MutableMap.of()).close();
+    }
+
+    @Test
+    public void testTemplateIsFetchedAndCompiledOnce() {
+        assertSame(cache.getTemplate("classpath://script.sql", loader),
+                cache.getTemplate("classpath://script.sql", loader));
+        assertEquals(loads.get(), 1);
+    }
+
+    @Test
+    public void testSameContentIsCompiledOnce() {
+        assertSame(cache.getTemplate("classpath://script.sql", loader),
+                cache.getTemplate("http://example.com/script.sql", loader));
+        assertEquals(loads.get(), 2);
+        assertEquals(cache.getCompiledCount(), 1);
+    }
+
+    @Test
+    public void testInvalidatedUrlIsFetchedAgain() {
+        cache.getTemplate("classpath://script.sql", loader);
+        cache.invalidate("classpath://script.sql");
+        cache.getTemplate("classpath://script.sql", loader);
+        assertEquals(loads.get(), 2);
+        assertEquals(cache.getCompiledCount(), 1);
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.brooklyn.cloudfoundry.utils;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.testng.annotations.Test;
+
+import com.google.common.base.Ticker;
+
+public class TokenBucketRateLimiterTest {
+
+    @Test
+    public void testBurstIsGrantedImmediately() {
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(1, 3, new FakeTicker());
+        assertEquals(limiter.reserve(0), 0);
+        assertEquals(limiter.reserve(0), 0);
+        assertEquals(limiter.reserve(0), 0);
+        assertEquals(limiter.reserve(0), -1);
+    }
+
+    @Test
+    public void testPermitsAreReservedInTheFuture() {
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(2, 1, new FakeTicker());
+        assertEquals(limiter.reserve(0), 0);
+        assertEquals(limiter.reserve(TimeUnit.SECONDS.toNanos(1)), TimeUnit.MILLISECONDS.toNanos(500));
+        assertEquals(limiter.reserve(TimeUnit.SECONDS.toNanos(1)), TimeUnit.SECONDS.toNanos(1));
+    }
+
+    @Test
+    public void testBucketIsRefilledOverTime() {
+        FakeTicker ticker = new FakeTicker();
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(10, 2, ticker);
+        limiter.reserve(0);
+        limiter.reserve(0);
+        assertEquals(limiter.reserve(0), -1);
+        ticker.advance(TimeUnit.MILLISECONDS.toNanos(100));
+        assertEquals(limiter.reserve(0), 0);
+        ticker.advance(TimeUnit.SECONDS.toNanos(10));
+        assertEquals(limiter.reserve(0), 0);
+        assertEquals(limiter.reserve(0), 0);
+        assertEquals(limiter.reserve(0), -1);
+    }
+
+    @Test
+    public void testDisabledLimiterGrantsEverything() throws InterruptedException {
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(0, 0);
+        for (int i = 0; i < 100; i++) {
+            assertTrue(limiter.acquire(0));
+        }
+        assertEquals(limiter.getGrantedPermits(), 100);
+        assertEquals(limiter.getThrottledPermits(), 0);
+    }
+
+    private static class FakeTicker extends Ticker {
+        private long nanos;
+
+        @Override
+        public long read() {
+            return nanos;
+        }
+
+        void advance(long delta) {
+            nanos += delta;
+        }
+    }
+}